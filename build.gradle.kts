@@ -25,7 +25,11 @@ subprojects {
 
     apply(plugin = "checkstyle")
     apply(plugin = "java-library")
-    apply(plugin = "com.konfigyr.deploy")
+
+    // benchmarks are only run locally and are not published
+    if (name != "konfigyr-mail-benchmarks") {
+        apply(plugin = "com.konfigyr.deploy")
+    }
 
     java {
         withJavadocJar()
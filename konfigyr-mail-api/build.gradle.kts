@@ -2,6 +2,9 @@ description = "Konfigyr Mail Spring core API"
 
 dependencies {
     compileOnly(libs.spring.starter)
+    compileOnly(libs.micrometer.core)
+    compileOnly(libs.micrometer.observation)
 
     testImplementation(project(":konfigyr-mail-test"))
+    testImplementation(libs.micrometer.core)
 }
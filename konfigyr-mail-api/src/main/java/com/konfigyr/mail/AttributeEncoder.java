@@ -0,0 +1,61 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Strategy used by the {@link MailCodec} to write and read {@link Mail} attribute values of a specific type.
+ * <p>
+ * The {@link MailCodec} natively supports strings, numbers, booleans, dates, lists, sets and maps. Values
+ * of other types are written using Java serialization, unless an {@link AttributeEncoder} is registered for
+ * their type. Encoders are identified in the encoded mail by their {@link #name()}, which is why it must be
+ * unique and must not change once mails are encoded with it.
+ * <p>
+ * When the {@link MailerAutoConfiguration} is active, {@link AttributeEncoder} beans are registered with
+ * the {@link MailCodec} used by the outbox journal.
+ *
+ * @param <T> the type of the attribute values
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see MailCodec
+ **/
+@NullMarked
+public interface AttributeEncoder<T> {
+
+	/**
+	 * Unique name of this encoder that is written to the encoded mail and used to select the encoder
+	 * when the attribute value is read.
+	 *
+	 * @return encoder name, never {@literal null}
+	 */
+	String name();
+
+	/**
+	 * The type of the attribute values that are written by this encoder, including its subtypes.
+	 *
+	 * @return attribute value type, never {@literal null}
+	 */
+	Class<T> type();
+
+	/**
+	 * Writes the attribute value to the given output.
+	 *
+	 * @param value attribute value to be written, never {@literal null}
+	 * @param output output to write to, never {@literal null}
+	 * @throws IOException when the value could not be written
+	 */
+	void encode(T value, DataOutput output) throws IOException;
+
+	/**
+	 * Reads the attribute value, written by {@link #encode(Object, DataOutput)}, from the given input.
+	 *
+	 * @param input input to read from, never {@literal null}
+	 * @return the attribute value, never {@literal null}
+	 * @throws IOException when the value could not be read
+	 */
+	T decode(DataInput input) throws IOException;
+
+}
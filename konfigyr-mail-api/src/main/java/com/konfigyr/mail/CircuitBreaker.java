@@ -0,0 +1,288 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker that stops the {@link Transport} from being used while it keeps failing.
+ * <p>
+ * While {@link CircuitBreakerEvent.State#CLOSED closed}, the breaker records the outcomes of the last
+ * {@code windowSize} calls. Once at least {@code minimumCalls} were recorded and the ratio of failed calls
+ * reaches the failure rate threshold, the breaker {@link CircuitBreakerEvent.State#OPEN opens} and rejects
+ * all calls until the wait duration elapses. The breaker then becomes
+ * {@link CircuitBreakerEvent.State#HALF_OPEN half-open} and permits {@code halfOpenCalls} trial calls: when
+ * all of them succeed the breaker closes again, the first failed trial opens it for another wait duration.
+ * <p>
+ * Each permitted call is represented by a {@link Permit} that is tagged with the state in which it was
+ * issued. Outcomes of permits issued before the last state transition are ignored, so that calls which
+ * were permitted while the breaker was still closed can not close it again without a real trial call.
+ * <p>
+ * Every state transition is logged and published to the registered listener.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see CircuitBreakerEvent
+ **/
+@NullMarked
+final class CircuitBreaker {
+
+	private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	private final int minimumCalls;
+	private final double failureRateThreshold;
+	private final long waitDuration;
+	private final int halfOpenCalls;
+	private final Consumer<CircuitBreakerEvent> listener;
+	private final LongSupplier clock;
+
+	private final boolean[] outcomes;
+	private int index;
+	private int calls;
+	private int failures;
+
+	private CircuitBreakerEvent.State state = CircuitBreakerEvent.State.CLOSED;
+	private long openedAt;
+	private int trials;
+	private int successfulTrials;
+	private long transitions;
+	private long rejected;
+
+	/**
+	 * Creates a new closed circuit breaker.
+	 *
+	 * @param windowSize number of most recent calls whose outcomes are used to calculate the failure rate
+	 * @param minimumCalls minimum number of recorded calls before the failure rate is evaluated
+	 * @param failureRateThreshold failure rate, between {@literal 0} and {@literal 1}, that opens the breaker
+	 * @param waitDuration time for which the breaker stays open before permitting trial calls
+	 * @param halfOpenCalls number of successful trial calls that close the breaker
+	 * @param listener consumer of the state transition events, can't be {@literal null}
+	 */
+	CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration waitDuration,
+			int halfOpenCalls, Consumer<CircuitBreakerEvent> listener) {
+		this(windowSize, minimumCalls, failureRateThreshold, waitDuration, halfOpenCalls, listener, System::nanoTime);
+	}
+
+	CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration waitDuration,
+			int halfOpenCalls, Consumer<CircuitBreakerEvent> listener, LongSupplier clock) {
+		Assert.isTrue(windowSize > 0, "Circuit breaker window size must be greater than zero");
+		Assert.isTrue(minimumCalls > 0 && minimumCalls <= windowSize,
+				"Circuit breaker minimum calls must be between one and the window size");
+		Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 1,
+				"Circuit breaker failure rate threshold must be greater than zero and at most one");
+		Assert.notNull(waitDuration, "Circuit breaker wait duration can not be null");
+		Assert.isTrue(!waitDuration.isNegative(), "Circuit breaker wait duration can not be negative");
+		Assert.isTrue(halfOpenCalls > 0, "Circuit breaker half-open calls must be greater than zero");
+		Assert.notNull(listener, "Circuit breaker listener can not be null");
+
+		this.outcomes = new boolean[windowSize];
+		this.minimumCalls = minimumCalls;
+		this.failureRateThreshold = failureRateThreshold;
+		this.waitDuration = waitDuration.toNanos();
+		this.halfOpenCalls = halfOpenCalls;
+		this.listener = listener;
+		this.clock = clock;
+	}
+
+	/**
+	 * Creates a new {@link CircuitBreaker} using the given configuration.
+	 *
+	 * @param properties circuit breaker configuration, can't be {@literal null}
+	 * @param listener consumer of the state transition events, can't be {@literal null}
+	 * @return the circuit breaker, never {@literal null}
+	 */
+	static CircuitBreaker create(MailerProperties.CircuitBreaker properties, Consumer<CircuitBreakerEvent> listener) {
+		return new CircuitBreaker(properties.getWindowSize(), properties.getMinimumCalls(),
+				properties.getFailureRateThreshold(), properties.getWaitDuration(), properties.getHalfOpenCalls(),
+				listener);
+	}
+
+	/**
+	 * Attempts to obtain a permission to make a call. The outcome of every permitted call must be
+	 * recorded using the {@link Permit#record(boolean)} method.
+	 *
+	 * @return the permit of the call, or {@literal null} when the call should be rejected
+	 */
+	@Nullable
+	Permit tryAcquire() {
+		final @Nullable CircuitBreakerEvent event;
+		final Permit permit;
+
+		synchronized (this) {
+			if (state == CircuitBreakerEvent.State.CLOSED) {
+				return new Permit(state, transitions);
+			}
+
+			if (state == CircuitBreakerEvent.State.OPEN) {
+				if (clock.getAsLong() - openedAt < waitDuration) {
+					rejected++;
+					return null;
+				}
+
+				event = transition(CircuitBreakerEvent.State.HALF_OPEN);
+			} else {
+				event = null;
+			}
+
+			// a new transition resets the trials, so only the half-open state can run out of trials
+			if (trials >= halfOpenCalls) {
+				rejected++;
+				return null;
+			}
+
+			trials++;
+			permit = new Permit(state, transitions);
+		}
+
+		publish(event);
+		return permit;
+	}
+
+	private void record(Permit permit, boolean failed) {
+		final @Nullable CircuitBreakerEvent event;
+
+		synchronized (this) {
+			if (permit.transitions != transitions) {
+				// the permit was issued before the last transition, its outcome no longer reflects this state
+				return;
+			}
+
+			event = switch (permit.state) {
+				case CLOSED -> recordClosed(failed);
+				case HALF_OPEN -> recordHalfOpen(failed);
+				case OPEN -> null;
+			};
+		}
+
+		publish(event);
+	}
+
+	/**
+	 * Returns the current state of the circuit breaker.
+	 * @return circuit breaker state, never {@literal null}
+	 */
+	synchronized CircuitBreakerEvent.State state() {
+		return state;
+	}
+
+	/**
+	 * Returns the failure rate of the calls recorded in the current window.
+	 * @return failure rate between {@literal 0} and {@literal 1}
+	 */
+	synchronized double failureRate() {
+		return calls == 0 ? 0 : (double) failures / calls;
+	}
+
+	/**
+	 * Returns the number of calls that were rejected while the breaker was not closed.
+	 * @return number of rejected calls
+	 */
+	synchronized long rejected() {
+		return rejected;
+	}
+
+	private @Nullable CircuitBreakerEvent recordClosed(boolean failed) {
+		if (calls == outcomes.length) {
+			if (outcomes[index]) {
+				failures--;
+			}
+		} else {
+			calls++;
+		}
+
+		outcomes[index] = failed;
+		index = (index + 1) % outcomes.length;
+
+		if (failed) {
+			failures++;
+		}
+
+		if (calls >= minimumCalls && failureRate() >= failureRateThreshold) {
+			return transition(CircuitBreakerEvent.State.OPEN);
+		}
+
+		return null;
+	}
+
+	private @Nullable CircuitBreakerEvent recordHalfOpen(boolean failed) {
+		if (failed) {
+			return transition(CircuitBreakerEvent.State.OPEN);
+		}
+
+		if (++successfulTrials >= halfOpenCalls) {
+			return transition(CircuitBreakerEvent.State.CLOSED);
+		}
+
+		return null;
+	}
+
+	private CircuitBreakerEvent transition(CircuitBreakerEvent.State target) {
+		final CircuitBreakerEvent event = new CircuitBreakerEvent(state, target, failureRate());
+
+		state = target;
+		transitions++;
+		trials = 0;
+		successfulTrials = 0;
+
+		if (target == CircuitBreakerEvent.State.OPEN) {
+			openedAt = clock.getAsLong();
+		} else if (target == CircuitBreakerEvent.State.CLOSED) {
+			index = 0;
+			calls = 0;
+			failures = 0;
+		}
+
+		return event;
+	}
+
+	private void publish(@Nullable CircuitBreakerEvent event) {
+		if (event == null) {
+			return;
+		}
+
+		if (event.state() == CircuitBreakerEvent.State.OPEN) {
+			log.warn("Mail transport circuit breaker transitioned from {} to {} with a failure rate of {}%",
+					event.previous(), event.state(), Math.round(event.failureRate() * 100));
+		} else {
+			log.info("Mail transport circuit breaker transitioned from {} to {}", event.previous(), event.state());
+		}
+
+		try {
+			listener.accept(event);
+		} catch (RuntimeException ex) {
+			log.warn("Failed to publish mail transport circuit breaker event: {}", event, ex);
+		}
+	}
+
+	/**
+	 * Permission to make a single call, tagged with the state of the circuit breaker in which it was issued.
+	 */
+	final class Permit {
+
+		private final CircuitBreakerEvent.State state;
+		private final long transitions;
+
+		private Permit(CircuitBreakerEvent.State state, long transitions) {
+			this.state = state;
+			this.transitions = transitions;
+		}
+
+		/**
+		 * Records the outcome of the permitted call. The outcome is ignored when the circuit breaker
+		 * transitioned to another state since this permit was issued.
+		 *
+		 * @param failed {@literal true} when the call failed
+		 */
+		void record(boolean failed) {
+			CircuitBreaker.this.record(this, failed);
+		}
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Event that is published when the circuit breaker that guards the {@link Transport} changes its state.
+ * <p>
+ * The circuit breaker is enabled using the {@code spring.mail.circuit-breaker.enabled} property. Events
+ * are published using the Spring {@link org.springframework.context.ApplicationEventPublisher}, they can
+ * be consumed using an {@link org.springframework.context.event.EventListener}, for example to alert when
+ * the mail relay becomes unavailable.
+ *
+ * @param previous the state from which the circuit breaker transitioned, can't be {@literal null}
+ * @param state the current state of the circuit breaker, can't be {@literal null}
+ * @param failureRate the failure rate, between {@literal 0} and {@literal 1}, that was observed when the
+ *                    state changed
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+public record CircuitBreakerEvent(State previous, State state, double failureRate) {
+
+	/**
+	 * States of the circuit breaker.
+	 */
+	public enum State {
+
+		/**
+		 * Mails are sent using the {@link Transport} while their outcomes are recorded.
+		 */
+		CLOSED,
+
+		/**
+		 * Mails are rejected with {@link MailingException.ErrorCode#CONNECTION_FAILED} without being sent,
+		 * until the wait duration elapses.
+		 */
+		OPEN,
+
+		/**
+		 * A limited number of trial mails are sent to probe whether the {@link Transport} recovered.
+		 */
+		HALF_OPEN
+
+	}
+
+}
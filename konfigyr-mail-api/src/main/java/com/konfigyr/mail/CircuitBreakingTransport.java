@@ -0,0 +1,148 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * {@link Transport} decorator that stops sending mails using the delegate transport while the
+ * {@link CircuitBreaker} is open.
+ * <p>
+ * When the mail relay is unavailable, every attempt to send a mail waits for the connection or socket
+ * timeout before it fails. Once the breaker observes enough failures with one of the recorded error codes,
+ * by default {@link MailingException.ErrorCode#CONNECTION_FAILED}, mails fail fast with the
+ * {@link MailingException.ErrorCode#CONNECTION_FAILED} error code without reaching the delegate transport.
+ * Failures with other error codes, like rejected recipients, show that the relay is reachable and are
+ * recorded as successful calls.
+ * <p>
+ * Mails rejected by an open breaker can be retried with a backoff when retries are enabled, in which case
+ * they wait on the timer wheel until the breaker lets trial calls through again.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see CircuitBreaker
+ **/
+@NullMarked
+final class CircuitBreakingTransport implements Transport {
+
+	private final Transport delegate;
+	private final CircuitBreaker breaker;
+	private final Set<MailingException.ErrorCode> recorded;
+
+	CircuitBreakingTransport(Transport delegate, CircuitBreaker breaker, Set<MailingException.ErrorCode> recorded) {
+		Assert.notNull(delegate, "Delegate transport can not be null");
+		Assert.notNull(breaker, "Circuit breaker can not be null");
+		Assert.notEmpty(recorded, "At least one error code must be recorded by the circuit breaker");
+
+		this.delegate = delegate;
+		this.breaker = breaker;
+		this.recorded = EnumSet.copyOf(recorded);
+	}
+
+	@Override
+	public void send(Mail mail, Template template) {
+		final CircuitBreaker.Permit permit = acquire(mail);
+
+		try {
+			delegate.send(mail, template);
+		} catch (RuntimeException ex) {
+			permit.record(isRecorded(ex));
+			throw ex;
+		}
+
+		permit.record(false);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		final CircuitBreaker.Permit permit;
+
+		try {
+			permit = acquire(mail);
+		} catch (MailingException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+
+		final CompletableFuture<Void> future;
+
+		try {
+			future = delegate.sendAsync(mail, template);
+		} catch (RuntimeException ex) {
+			permit.record(isRecorded(ex));
+			return CompletableFuture.failedFuture(ex);
+		}
+
+		return future.whenComplete((ignored, ex) -> permit.record(ex != null && isRecorded(ex)));
+	}
+
+	/**
+	 * Sends the batch using the delegate transport as a single call of the circuit breaker, which is
+	 * recorded as failed when any of the mails failed with a recorded error code. While the breaker
+	 * is open, all mails of the batch are rejected.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		if (mails.isEmpty()) {
+			return List.of();
+		}
+
+		final CircuitBreaker.Permit permit;
+
+		try {
+			permit = acquire(mails.get(0));
+		} catch (MailingException ex) {
+			final List<MailingResult> results = new ArrayList<>(mails.size());
+
+			for (Mail mail : mails) {
+				results.add(MailingResult.failure(mail, ex));
+			}
+
+			return results;
+		}
+
+		final List<MailingResult> results;
+
+		try {
+			results = delegate.sendAll(mails, templates);
+		} catch (RuntimeException ex) {
+			permit.record(isRecorded(ex));
+			throw ex;
+		}
+
+		permit.record(results.stream().anyMatch(result -> !result.isSuccessful()
+				&& recorded.contains(result.errorCode())));
+
+		return results;
+	}
+
+	private CircuitBreaker.Permit acquire(Mail mail) {
+		final CircuitBreaker.@Nullable Permit permit = breaker.tryAcquire();
+
+		if (permit == null) {
+			throw new MailingException(
+				MailingException.ErrorCode.CONNECTION_FAILED,
+				"Mail transport circuit breaker is " + breaker.state() + ", mail with template '"
+						+ mail.template() + "' was not sent"
+			);
+		}
+
+		return permit;
+	}
+
+	private boolean isRecorded(Throwable ex) {
+		final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+		return cause instanceof MailingException exception && recorded.contains(exception.getErrorCode());
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link Preparator} that applies a flat array of {@link Preparator preparators} in order.
+ * <p>
+ * Composing preparators with nested lambdas creates a call chain that grows with every composition.
+ * This implementation flattens nested composites and drops {@link Preparator#noop() no-operation}
+ * preparators when it is created, so that preparing a mail target is a single loop over the array.
+ *
+ * @param <T> generic type of the mailing target that is being prepared
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class CompositePreparator<T> implements Preparator<T> {
+
+	@SuppressWarnings("rawtypes")
+	static final CompositePreparator EMPTY = new CompositePreparator<>(new Preparator[0]);
+
+	private final Preparator<T>[] preparators;
+
+	private CompositePreparator(Preparator<T>[] preparators) {
+		this.preparators = preparators;
+	}
+
+	/**
+	 * Returns the composite {@link Preparator} without any preparators.
+	 *
+	 * @param <T> preparator target type
+	 * @return the empty composite, never {@literal null}
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Preparator<T> empty() {
+		return (Preparator<T>) EMPTY;
+	}
+
+	/**
+	 * Creates a {@link Preparator} that applies the given preparators in order. Nested composites are
+	 * flattened and no-operation preparators are skipped. When only one preparator remains it is
+	 * returned as is.
+	 *
+	 * @param <T> preparator target type
+	 * @param preparators preparators to be composed, can't be {@literal null}
+	 * @return the composed preparator, never {@literal null}
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> Preparator<T> of(Iterable<? extends Preparator<T>> preparators) {
+		final List<Preparator<T>> flattened = new ArrayList<>();
+
+		for (Preparator<T> preparator : preparators) {
+			if (preparator instanceof CompositePreparator<T> composite) {
+				flattened.addAll(Arrays.asList(composite.preparators));
+			} else {
+				flattened.add(preparator);
+			}
+		}
+
+		if (flattened.isEmpty()) {
+			return empty();
+		}
+		if (flattened.size() == 1) {
+			return flattened.get(0);
+		}
+
+		return new CompositePreparator<>(flattened.toArray(Preparator[]::new));
+	}
+
+	/**
+	 * Returns the number of preparators that are applied by this composite.
+	 *
+	 * @return number of preparators
+	 */
+	int size() {
+		return preparators.length;
+	}
+
+	@Override
+	public T prepare(Mail mail, T target) throws Exception {
+		T result = target;
+
+		for (Preparator<T> preparator : preparators) {
+			result = preparator.prepare(mail, result);
+		}
+
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "CompositePreparator" + Arrays.toString(preparators);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.konfigyr.mail;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Default {@link MailObservationConvention} implementation.
+ * <p>
+ * All delivery stages share the {@value #NAME} observation name and are told apart by the {@code mail.stage}
+ * key value. The {@code mail.template} name and the {@code mail.error.code} are added as low cardinality key
+ * values, while the number of {@code mail.recipients} is added as a high cardinality key value.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+public class DefaultMailObservationConvention implements MailObservationConvention {
+
+	/**
+	 * Name of the mail delivery observations.
+	 */
+	public static final String NAME = "mail.delivery";
+
+	private static final KeyValue NO_ERROR = KeyValue.of("mail.error.code", "none");
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public String getContextualName(MailObservationContext context) {
+		return "mail " + lowercase(context.getStage());
+	}
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(MailObservationContext context) {
+		final MailingException.@Nullable ErrorCode code = context.getErrorCode();
+
+		return KeyValues.of(
+			KeyValue.of("mail.stage", lowercase(context.getStage())),
+			KeyValue.of("mail.template", context.getMail().template()),
+			code == null ? NO_ERROR : KeyValue.of("mail.error.code", lowercase(code))
+		);
+	}
+
+	@Override
+	public KeyValues getHighCardinalityKeyValues(MailObservationContext context) {
+		return KeyValues.of("mail.recipients", String.valueOf(context.getMail().recipients().size()));
+	}
+
+	private static String lowercase(Enum<?> value) {
+		return value.name().toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -1,13 +1,34 @@
 package com.konfigyr.mail;
 
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Default {@link Mailer} implementation that composes a {@link TemplateEngine} and a {@link Transport}.
  * <p>
- * Instantiate via {@link Mailer#of(TemplateEngine, Transport)}.
+ * Instantiate via {@link Mailer#of(TemplateEngine, Transport)} or {@link Mailer#of(TemplateEngine, Transport, Executor)}.
+ * When no {@link Executor} is specified, asynchronously sent mails are processed by the
+ * {@link ForkJoinPool#commonPool() common pool}.
  *
  * @author Vladimir Spasic
  * @since 1.0.0
@@ -17,43 +38,359 @@ final class DefaultMailer implements Mailer {
 
 	private static final Logger log = LoggerFactory.getLogger(DefaultMailer.class);
 
+	static final int MERGE_CHUNK_SIZE = 64;
+
 	private final TemplateEngine engine;
 	private final Transport transport;
+	private final Executor executor;
 
 	DefaultMailer(TemplateEngine engine, Transport transport) {
+		this(engine, transport, ForkJoinPool.commonPool());
+	}
+
+	DefaultMailer(TemplateEngine engine, Transport transport, Executor executor) {
+		Assert.notNull(engine, "Template engine can not be null");
+		Assert.notNull(transport, "Transport can not be null");
+		Assert.notNull(executor, "Executor can not be null");
+
 		this.engine = engine;
 		this.transport = transport;
+		this.executor = executor;
 	}
 
 	@Override
 	public void send(Mail mail) {
 		log.debug("Sending mail with template '{}' to {} recipient(s)", mail.template(), mail.recipients().size());
 
-		final Template template;
+		final Template template = render(mail);
 
 		try {
-			template = engine.render(mail);
+			transport.send(mail, template);
 		} catch (MailingException ex) {
 			throw ex;
 		} catch (Exception ex) {
 			throw new MailingException(
-				MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED,
-				"Failed to render mail template '" + mail.template() + "'",
+				MailingException.ErrorCode.SEND_FAILED,
+				"Unexpected error while sending email with template '" + mail.template() + "'",
 				ex
 			);
+		} finally {
+			template.release();
+		}
+	}
+
+	/**
+	 * Renders all the mails in the batch and dispatches the successfully rendered ones in a single
+	 * {@link Transport#sendAll(List, List)} invocation, allowing the transport to amortize its setup
+	 * costs across the batch. Mails that failed to render are not passed to the {@link Transport}.
+	 *
+	 * @param mails mail messages to be sent, can't be {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(Collection<Mail> mails) {
+		log.debug("Sending batch of {} mail(s)", mails.size());
+
+		final MailingResult[] results = new MailingResult[mails.size()];
+		final List<Integer> positions = new ArrayList<>(mails.size());
+		final List<Mail> rendered = new ArrayList<>(mails.size());
+		final List<Template> templates = new ArrayList<>(mails.size());
+
+		int position = 0;
+
+		for (Mail mail : mails) {
+			try {
+				templates.add(render(mail));
+				rendered.add(mail);
+				positions.add(position);
+			} catch (MailingException ex) {
+				results[position] = MailingResult.failure(mail, ex);
+			}
+			position++;
 		}
 
+		return dispatch(results, positions, rendered, templates);
+	}
+
+	/**
+	 * Merges and renders the mails in chunks of {@value #MERGE_CHUNK_SIZE}, where the mails of a chunk are
+	 * rendered in parallel on the configured {@link Executor}. The rendered mails of each chunk are dispatched
+	 * in a single {@link Transport#sendAll(List, List)} invocation, while the mails of the next chunk are
+	 * already being rendered. Overlays are only pulled from the stream when the next chunk is needed.
+	 * <p>
+	 * The templates of the chunk that was rendered ahead are released once the overlays are exhausted, when
+	 * the stream fails, or when the stream is closed before it was fully consumed.
+	 *
+	 * @param merge the shared part of the merged mails, can't be {@literal null}
+	 * @param overlays the recipients and their attributes, can't be {@literal null}
+	 * @return lazily evaluated results for each merged mail, never {@literal null}
+	 */
+	@Override
+	public Stream<MailingResult> sendMerged(MailMerge merge, Stream<MailMerge.Overlay> overlays) {
+		log.debug("Sending merged mails with template '{}'", merge.template());
+
+		final MergeSpliterator spliterator = new MergeSpliterator(merge, overlays.iterator());
+
+		return StreamSupport.stream(spliterator, false)
+			.flatMap(List::stream)
+			.onClose(spliterator::cancel)
+			.onClose(overlays::close);
+	}
+
+	/**
+	 * Renders the mail on the configured {@link Executor} and dispatches it using the
+	 * {@link Transport#sendAsync(Mail, Template)} method, so that transports which delay the dispatch,
+	 * for instance to retry it, do not block the executor thread. The dispatch is started by the same
+	 * executor task that rendered the mail, so transports that send the mail while the dispatch is
+	 * started never block the calling thread. The rendered template is released once the returned
+	 * future completes.
+	 *
+	 * @param mail mail message to be sent, can't be {@literal null}
+	 * @return future that completes when the mail is sent, never {@literal null}
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail) {
+		final CompletableFuture<CompletableFuture<Void>> dispatched;
+
 		try {
-			transport.send(mail, template);
+			dispatched = CompletableFuture.supplyAsync(() -> dispatch(mail, render(mail)), executor);
+		} catch (RejectedExecutionException ex) {
+			return CompletableFuture.failedFuture(new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Mail with template '" + mail.template() + "' was not accepted for asynchronous sending",
+				ex
+			));
+		}
+
+		return dispatched.thenCompose(Function.identity());
+	}
+
+	private CompletableFuture<Void> dispatch(Mail mail, Template template) {
+		log.debug("Sending mail with template '{}' to {} recipient(s)", mail.template(), mail.recipients().size());
+
+		CompletableFuture<Void> dispatched;
+
+		try {
+			dispatched = transport.sendAsync(mail, template);
+		} catch (RuntimeException ex) {
+			dispatched = CompletableFuture.failedFuture(ex);
+		}
+
+		return dispatched.handle((ignored, ex) -> {
+			template.release();
+
+			if (ex == null) {
+				return null;
+			}
+
+			final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+			if (cause instanceof MailingException mailing) {
+				throw mailing;
+			}
+
+			throw new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Unexpected error while sending email with template '" + mail.template() + "'",
+				cause
+			);
+		});
+	}
+
+	/**
+	 * Dispatches the rendered mails in a single {@link Transport#sendAll(List, List)} invocation and stores
+	 * their results at their positions within the batch. The rendered templates are released afterwards.
+	 *
+	 * @throws IllegalStateException when the transport does not return a result for each mail in the batch
+	 */
+	private List<MailingResult> dispatch(@Nullable MailingResult[] results, List<Integer> positions,
+			List<Mail> rendered, List<Template> templates) {
+		if (rendered.isEmpty()) {
+			return Arrays.asList(results);
+		}
+
+		List<MailingResult> dispatched;
+
+		try {
+			dispatched = transport.sendAll(rendered, templates);
+		} catch (Exception ex) {
+			final MailingException exception = ex instanceof MailingException mailing ? mailing : new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Unexpected error while sending batch of " + rendered.size() + " email(s)",
+				ex
+			);
+
+			dispatched = rendered.stream().map(mail -> MailingResult.failure(mail, exception)).toList();
+		} finally {
+			templates.forEach(Template::release);
+		}
+
+		final int count = dispatched.size();
+
+		Assert.state(count == rendered.size(), () -> "Transport returned " + count + " result(s) for a batch of "
+				+ rendered.size() + " email(s)");
+
+		for (int i = 0; i < count; i++) {
+			results[positions.get(i)] = dispatched.get(i);
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Renders the mail on the configured {@link Executor}, the returned future is completed exceptionally
+	 * with a {@link MailingException} when the mail could not be rendered or was rejected by the executor.
+	 */
+	private CompletableFuture<Template> renderAsync(Mail mail) {
+		try {
+			return CompletableFuture.supplyAsync(() -> render(mail), executor);
+		} catch (RejectedExecutionException ex) {
+			return CompletableFuture.failedFuture(new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Mail with template '" + mail.template() + "' was not accepted for asynchronous rendering",
+				ex
+			));
+		}
+	}
+
+	/**
+	 * Renders the mail template using the {@link TemplateEngine}, emitting a {@link MailRenderEvent} that
+	 * is recorded by the Java Flight Recorder when the event is enabled.
+	 */
+	private Template render(Mail mail) {
+		final MailRenderEvent event = new MailRenderEvent();
+		event.begin();
+
+		try {
+			final Template template = engine.render(mail);
+			event.complete(mail, template, null);
+			return template;
 		} catch (MailingException ex) {
+			event.complete(mail, null, ex.getErrorCode());
 			throw ex;
 		} catch (Exception ex) {
+			event.complete(mail, null, MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED);
 			throw new MailingException(
-				MailingException.ErrorCode.SEND_FAILED,
-				"Unexpected error while sending email with template '" + mail.template() + "'",
+				MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED,
+				"Failed to render mail template '" + mail.template() + "'",
 				ex
 			);
 		}
 	}
 
+	/**
+	 * Spliterator that merges the overlays into mails and renders them one chunk ahead of the chunk
+	 * that is being dispatched, each element of this spliterator contains the results of one chunk.
+	 */
+	private final class MergeSpliterator extends Spliterators.AbstractSpliterator<List<MailingResult>> {
+
+		private final MailMerge merge;
+		private final Iterator<MailMerge.Overlay> overlays;
+
+		private @Nullable List<Rendering> pending;
+
+		private MergeSpliterator(MailMerge merge, Iterator<MailMerge.Overlay> overlays) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.merge = merge;
+			this.overlays = overlays;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super List<MailingResult>> action) {
+			final List<Rendering> chunk = pending == null ? next() : pending;
+
+			if (chunk.isEmpty()) {
+				pending = chunk;
+				return false;
+			}
+
+			try {
+				pending = next();
+			} catch (RuntimeException | Error ex) {
+				pending = List.of();
+				release(chunk);
+				throw ex;
+			}
+
+			try {
+				action.accept(dispatch(chunk));
+			} catch (RuntimeException | Error ex) {
+				cancel();
+				throw ex;
+			}
+
+			return true;
+		}
+
+		/**
+		 * Releases the templates of the chunk that was rendered ahead but will not be dispatched,
+		 * as the stream has been closed before it was fully consumed.
+		 */
+		void cancel() {
+			final List<Rendering> chunk = pending;
+			pending = List.of();
+
+			if (chunk != null) {
+				release(chunk);
+			}
+		}
+
+		private List<Rendering> next() {
+			final List<Rendering> chunk = new ArrayList<>(MERGE_CHUNK_SIZE);
+
+			try {
+				while (chunk.size() < MERGE_CHUNK_SIZE && overlays.hasNext()) {
+					final Mail mail = merge.mail(overlays.next());
+					chunk.add(new Rendering(mail, renderAsync(mail)));
+				}
+			} catch (RuntimeException | Error ex) {
+				release(chunk);
+				throw ex;
+			}
+
+			return chunk;
+		}
+
+		private List<MailingResult> dispatch(List<Rendering> chunk) {
+			final MailingResult[] results = new MailingResult[chunk.size()];
+			final List<Integer> positions = new ArrayList<>(chunk.size());
+			final List<Mail> rendered = new ArrayList<>(chunk.size());
+			final List<Template> templates = new ArrayList<>(chunk.size());
+
+			for (int position = 0; position < chunk.size(); position++) {
+				final Rendering rendering = chunk.get(position);
+
+				try {
+					templates.add(rendering.template().join());
+					rendered.add(rendering.mail());
+					positions.add(position);
+				} catch (CompletionException ex) {
+					results[position] = MailingResult.failure(rendering.mail(), renderingFailure(rendering, ex));
+				}
+			}
+
+			return DefaultMailer.this.dispatch(results, positions, rendered, templates);
+		}
+
+	}
+
+	private static void release(List<Rendering> chunk) {
+		chunk.forEach(rendering -> rendering.template().thenAccept(Template::release));
+	}
+
+	private static MailingException renderingFailure(Rendering rendering, CompletionException ex) {
+		if (ex.getCause() instanceof MailingException mailing) {
+			return mailing;
+		}
+
+		return new MailingException(
+			MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED,
+			"Failed to render mail template '" + rendering.mail().template() + "'",
+			ex.getCause()
+		);
+	}
+
+	private record Rendering(Mail mail, CompletableFuture<Template> template) {
+	}
+
 }
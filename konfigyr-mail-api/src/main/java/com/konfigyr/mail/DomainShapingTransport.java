@@ -0,0 +1,421 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Transport} decorator that shapes the outgoing mail traffic per recipient domain.
+ * <p>
+ * Mails are partitioned into lanes by the domain of their primary recipient, which is the first {@code to}
+ * recipient of the mail, or the first recipient when the mail has no {@code to} recipients. Each lane
+ * limits how many of its mails are sent concurrently and, optionally, how many are sent per second or
+ * minute. Large receivers that penalize bursts can be given tight limits, while domains without explicit
+ * limits use the default ones.
+ * <p>
+ * Lanes that have queued mails are served in round-robin order, one mail per lane in each round, so a
+ * large backlog for one domain can not delay the mails for other domains. The scheduler does not own any
+ * threads: queued mails are dispatched whenever a mail is submitted, a mail completes or a rate limited
+ * lane gets a new permit, and each dispatched mail is sent on its own virtual thread. The queue and lane
+ * state are only modified by the thread that currently drains the scheduler, which makes them safe to
+ * use without locks.
+ * <p>
+ * All mails, including the ones submitted using {@link #sendAll(List, List)}, are shaped individually.
+ * This means that a batch is no longer sent over a single transport session.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class DomainShapingTransport implements Transport {
+
+	private static final Logger log = LoggerFactory.getLogger(DomainShapingTransport.class);
+
+	private static final long SWEEP_INTERVAL = Duration.ofMinutes(1).toNanos();
+
+	private static final ThreadFactory THREADS = Thread.ofVirtual().name("mail-shaping-", 0).factory();
+
+	private final Transport delegate;
+	private final Limits defaults;
+	private final Map<String, Limits> domains;
+	private final Executor executor;
+
+	private final Queue<Job> submissions = new ConcurrentLinkedQueue<>();
+	private final Queue<Lane> completions = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger wip = new AtomicInteger();
+
+	// state below is only accessed by the thread that drains the scheduler
+	private final Map<String, Lane> lanes = new HashMap<>();
+	private final ArrayDeque<Lane> active = new ArrayDeque<>();
+	private long wakeup = Long.MAX_VALUE;
+	private long sweep = System.nanoTime();
+
+	DomainShapingTransport(Transport delegate, Limits defaults, Map<String, Limits> domains) {
+		this(delegate, defaults, domains, command -> THREADS.newThread(command).start());
+	}
+
+	DomainShapingTransport(Transport delegate, Limits defaults, Map<String, Limits> domains, Executor executor) {
+		Assert.notNull(delegate, "Delegate transport can not be null");
+		Assert.notNull(defaults, "Default domain limits can not be null");
+		Assert.notNull(domains, "Domain limits can not be null");
+		Assert.notNull(executor, "Domain shaping executor can not be null");
+
+		this.delegate = delegate;
+		this.defaults = defaults;
+		this.domains = new HashMap<>(domains.size());
+		this.executor = executor;
+
+		domains.forEach((domain, limits) -> this.domains.put(domain.toLowerCase(Locale.ROOT), limits));
+	}
+
+	/**
+	 * Creates a new {@link DomainShapingTransport} using the domain limits defined by the given configuration.
+	 *
+	 * @param delegate transport that sends the mails, can't be {@literal null}
+	 * @param properties domain shaping configuration, can't be {@literal null}
+	 * @return the domain shaping transport, never {@literal null}
+	 */
+	static DomainShapingTransport create(Transport delegate, MailerProperties.Shaping properties) {
+		final Limits defaults = new Limits(properties.getMaxConcurrency(), properties.getPerSecond(),
+				properties.getPerMinute());
+		final Map<String, Limits> domains = new HashMap<>();
+
+		properties.getDomains().forEach((domain, limits) -> domains.put(domain, new Limits(
+			limits.getMaxConcurrency() == null ? defaults.maxConcurrency() : limits.getMaxConcurrency(),
+			limits.getPerSecond() == null ? defaults.perSecond() : limits.getPerSecond(),
+			limits.getPerMinute() == null ? defaults.perMinute() : limits.getPerMinute()
+		)));
+
+		return new DomainShapingTransport(delegate, defaults, domains);
+	}
+
+	@Override
+	public void send(Mail mail, Template template) {
+		Transports.await(mail, sendAsync(mail, template));
+	}
+
+	/**
+	 * Queues the mail in the lane of its recipient domain. The returned future completes once the
+	 * mail is dispatched by the delegate transport. Cancelling the future removes a mail that was
+	 * not yet dispatched from the queue, or cancels the dispatch of the delegate transport, in which
+	 * case the future completes once the delegate dispatch completes.
+	 *
+	 * @param mail mail to be dispatched, including envelope metadata; never {@literal null}
+	 * @param template the fully-rendered template body and its content type; never {@literal null}
+	 * @return future that completes when the mail is dispatched, never {@literal null}
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		final Job job = new Job(domain(mail), mail, template);
+		submissions.add(job);
+		drain();
+		return job.result;
+	}
+
+	/**
+	 * Queues every mail of the batch in the lane of its recipient domain and waits for all of them
+	 * to be dispatched.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		final List<CompletableFuture<Void>> futures = new ArrayList<>(mails.size());
+
+		for (int i = 0; i < mails.size(); i++) {
+			futures.add(sendAsync(mails.get(i), templates.get(i)));
+		}
+
+		final List<MailingResult> results = new ArrayList<>(mails.size());
+
+		for (int i = 0; i < mails.size(); i++) {
+			final Mail mail = mails.get(i);
+
+			try {
+				Transports.await(mail, futures.get(i));
+				results.add(MailingResult.success(mail));
+			} catch (MailingException ex) {
+				results.add(MailingResult.failure(mail, ex));
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns the number of domain lanes, lanes that became idle are discarded once a minute.
+	 * @return number of lanes
+	 */
+	int lanes() {
+		return lanes.size();
+	}
+
+	/**
+	 * Drains the scheduler, making sure that only one thread at a time dispatches the queued mails. Threads
+	 * that find the scheduler busy leave the work to the draining thread, which runs another pass for them.
+	 */
+	private void drain() {
+		if (wip.getAndIncrement() != 0) {
+			return;
+		}
+
+		int missed = 1;
+
+		do {
+			dispatch();
+			missed = wip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void dispatch() {
+		Lane lane;
+
+		while ((lane = completions.poll()) != null) {
+			lane.inFlight--;
+		}
+
+		Job job;
+
+		while ((job = submissions.poll()) != null) {
+			final Lane target = lanes.computeIfAbsent(job.domain, this::lane);
+
+			if (target.jobs.isEmpty()) {
+				active.add(target);
+			}
+
+			target.jobs.add(job);
+		}
+
+		final long now = System.nanoTime();
+		long delay = Long.MAX_VALUE;
+		boolean dispatched;
+
+		if (wakeup <= now) {
+			wakeup = Long.MAX_VALUE;
+		}
+
+		do {
+			dispatched = false;
+
+			for (int i = active.size(); i > 0; i--) {
+				lane = active.poll();
+
+				// discard mails that were cancelled while they were waiting in the queue
+				while (!lane.jobs.isEmpty() && lane.jobs.peek().result.isDone()) {
+					lane.jobs.poll();
+				}
+
+				if (!lane.jobs.isEmpty() && lane.inFlight < lane.limits.maxConcurrency()) {
+					final long wait = lane.delay(now);
+
+					if (wait == 0) {
+						lane.acquire(now);
+						execute(lane, lane.jobs.poll());
+						dispatched = true;
+					} else {
+						delay = Math.min(delay, wait);
+					}
+				}
+
+				if (!lane.jobs.isEmpty()) {
+					active.add(lane);
+				}
+			}
+		} while (dispatched);
+
+		if (delay != Long.MAX_VALUE && now + delay < wakeup) {
+			wakeup = now + delay;
+			CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(this::drain);
+		}
+
+		if (now - sweep >= SWEEP_INTERVAL) {
+			sweep = now;
+			lanes.values().removeIf(candidate -> candidate.isIdle(now));
+		}
+	}
+
+	private void execute(Lane lane, Job job) {
+		lane.inFlight++;
+
+		log.trace("Dispatching mail with template '{}' for domain '{}'", job.mail.template(), lane.domain);
+
+		executor.execute(() -> {
+			if (!job.result.begin()) {
+				completions.add(lane);
+				drain();
+				return;
+			}
+
+			CompletableFuture<Void> future;
+
+			try {
+				future = delegate.sendAsync(job.mail, job.template);
+			} catch (RuntimeException ex) {
+				future = CompletableFuture.failedFuture(ex);
+			}
+
+			job.result.attempt(future);
+
+			future.whenComplete((ignored, ex) -> {
+				job.result.end();
+
+				if (ex == null) {
+					job.result.complete(null);
+				} else {
+					job.result.completeExceptionally(failure(job.mail, ex));
+				}
+
+				completions.add(lane);
+				drain();
+			});
+		});
+	}
+
+	private Lane lane(String domain) {
+		return new Lane(domain, domains.getOrDefault(domain, defaults));
+	}
+
+	private static MailingException failure(Mail mail, Throwable ex) {
+		final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+		if (cause instanceof MailingException exception) {
+			return exception;
+		}
+
+		return new MailingException(
+			MailingException.ErrorCode.SEND_FAILED,
+			"Unexpected error while sending email with template '" + mail.template() + "'",
+			cause
+		);
+	}
+
+	static String domain(Mail mail) {
+		Recipient primary = null;
+
+		for (Recipient recipient : mail.recipients()) {
+			if (recipient.type() == Recipient.Type.TO) {
+				primary = recipient;
+				break;
+			}
+			if (primary == null) {
+				primary = recipient;
+			}
+		}
+
+		if (primary == null) {
+			return "";
+		}
+
+		final String email = primary.address().email();
+		return email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Concurrency and rate limits applied to the mails of a recipient domain.
+	 *
+	 * @param maxConcurrency maximum number of mails that are sent concurrently
+	 * @param perSecond maximum number of mails sent per second, or {@literal null} when not limited
+	 * @param perMinute maximum number of mails sent per minute, or {@literal null} when not limited
+	 */
+	record Limits(int maxConcurrency, @Nullable Integer perSecond, @Nullable Integer perMinute) {
+
+		Limits {
+			Assert.isTrue(maxConcurrency > 0, "Maximum domain concurrency must be greater than zero");
+		}
+
+	}
+
+	/**
+	 * Queued mail together with the future that is completed once it is dispatched.
+	 */
+	private record Job(String domain, Mail mail, Template template, Transports.Dispatch result) {
+
+		Job(String domain, Mail mail, Template template) {
+			this(domain, mail, template, new Transports.Dispatch());
+		}
+
+	}
+
+	/**
+	 * Queue of mails for a single recipient domain, only accessed by the thread that drains the scheduler.
+	 */
+	private static final class Lane {
+
+		private final String domain;
+		private final Limits limits;
+		private final TokenBucket[] buckets;
+		private final Queue<Job> jobs = new ArrayDeque<>();
+		private int inFlight;
+
+		Lane(String domain, Limits limits) {
+			final List<TokenBucket> buckets = new ArrayList<>(2);
+
+			if (limits.perSecond() != null) {
+				buckets.add(new TokenBucket(limits.perSecond(), Duration.ofSeconds(1)));
+			}
+			if (limits.perMinute() != null) {
+				buckets.add(new TokenBucket(limits.perMinute(), Duration.ofMinutes(1)));
+			}
+
+			this.domain = domain;
+			this.limits = limits;
+			this.buckets = buckets.toArray(TokenBucket[]::new);
+		}
+
+		long delay(long now) {
+			long delay = 0;
+
+			for (TokenBucket bucket : buckets) {
+				delay = Math.max(delay, bucket.delay(now));
+			}
+
+			return delay;
+		}
+
+		void acquire(long now) {
+			for (TokenBucket bucket : buckets) {
+				bucket.reserve(now, 0);
+			}
+		}
+
+		/**
+		 * Checks if the lane has no queued or in-flight mails and its rate limits are fully replenished,
+		 * in which case it can be discarded without losing its rate limiting state.
+		 */
+		boolean isIdle(long now) {
+			if (inFlight > 0 || !jobs.isEmpty()) {
+				return false;
+			}
+
+			for (TokenBucket bucket : buckets) {
+				if (!bucket.isFull(now)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+	}
+
+}
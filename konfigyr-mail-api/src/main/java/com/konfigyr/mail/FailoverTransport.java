@@ -0,0 +1,409 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Composite {@link Transport} that distributes mails across multiple mail relays and fails over to
+ * another relay when one of them can not be used.
+ * <p>
+ * Each mail is sent using a relay selected by the configured {@link Strategy}. When the relay fails with one
+ * of the failover error codes, by default {@link MailingException.ErrorCode#CONNECTION_FAILED} and
+ * {@link MailingException.ErrorCode#AUTHENTICATION_FAILED}, the relay is ejected for the ejection time and
+ * the mail is sent using the next relay. Ejected relays are not selected while other relays are available,
+ * but are still used as the last resort when all relays are ejected. Failures with other error codes, like
+ * rejected recipients, are not retried using other relays.
+ * <p>
+ * When every relay failed, the mail fails with the exception of the first relay, with the exceptions of
+ * the remaining relays added as suppressed exceptions.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+public final class FailoverTransport implements Transport {
+
+	private static final Logger log = LoggerFactory.getLogger(FailoverTransport.class);
+
+	private final Member[] members;
+	private final Strategy strategy;
+	private final long ejectionTime;
+	private final Set<MailingException.ErrorCode> failover;
+	private final LongSupplier clock;
+
+	private int cursor;
+
+	/**
+	 * Creates a new {@link FailoverTransport} for the given relays.
+	 *
+	 * @param relays relays used to send the mails, can't be {@literal null} or empty
+	 * @param strategy strategy used to select the relay for each mail, can't be {@literal null}
+	 * @param ejectionTime time for which a failed relay is not selected while other relays are available
+	 * @param failover error codes that cause the mail to be sent using the next relay, can't be empty
+	 */
+	public FailoverTransport(List<Relay> relays, Strategy strategy, Duration ejectionTime,
+			Set<MailingException.ErrorCode> failover) {
+		this(relays, strategy, ejectionTime, failover, System::nanoTime);
+	}
+
+	FailoverTransport(List<Relay> relays, Strategy strategy, Duration ejectionTime,
+			Set<MailingException.ErrorCode> failover, LongSupplier clock) {
+		Assert.notEmpty(relays, "At least one mail relay must be configured");
+		Assert.notNull(strategy, "Mail relay selection strategy can not be null");
+		Assert.notNull(ejectionTime, "Mail relay ejection time can not be null");
+		Assert.isTrue(!ejectionTime.isNegative(), "Mail relay ejection time can not be negative");
+		Assert.notEmpty(failover, "At least one failover error code must be configured");
+
+		this.members = relays.stream().map(Member::new).toArray(Member[]::new);
+		this.strategy = strategy;
+		this.ejectionTime = ejectionTime.toNanos();
+		this.failover = EnumSet.copyOf(failover);
+		this.clock = clock;
+	}
+
+	/**
+	 * Returns the relays used by this transport, in the order in which they were configured.
+	 *
+	 * @return the mail relays, never {@literal null}
+	 */
+	public List<Relay> relays() {
+		return Arrays.stream(members).map(member -> member.relay).toList();
+	}
+
+	@Override
+	public void send(Mail mail, Template template) {
+		final Set<Member> tried = new HashSet<>();
+		MailingException failure = null;
+		Member member;
+
+		while ((member = select(tried)) != null) {
+			tried.add(member);
+			member.inFlight.incrementAndGet();
+
+			try {
+				member.relay.transport().send(mail, template);
+				restore(member);
+				return;
+			} catch (MailingException ex) {
+				if (!failover.contains(ex.getErrorCode())) {
+					throw ex;
+				}
+
+				eject(member, ex);
+				failure = suppress(failure, ex);
+			} finally {
+				member.inFlight.decrementAndGet();
+			}
+		}
+
+		throw failure(mail, failure);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		return sendAsync(mail, template, new HashSet<>(), null);
+	}
+
+	/**
+	 * Sends the batch using the selected relay, and sends the mails that failed with one of the failover
+	 * error codes as a smaller batch using the next relay, until all mails are sent or every relay was used.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		Assert.isTrue(mails.size() == templates.size(), "Each mail in the batch must have its rendered template");
+
+		final MailingResult[] results = new MailingResult[mails.size()];
+		final Set<Member> tried = new HashSet<>();
+		List<Integer> pending = new ArrayList<>(mails.size());
+		Member member;
+
+		for (int i = 0; i < mails.size(); i++) {
+			pending.add(i);
+		}
+
+		while (!pending.isEmpty() && (member = select(tried)) != null) {
+			final List<Mail> batch = new ArrayList<>(pending.size());
+			final List<Template> bodies = new ArrayList<>(pending.size());
+
+			for (int index : pending) {
+				batch.add(mails.get(index));
+				bodies.add(templates.get(index));
+			}
+
+			tried.add(member);
+			member.inFlight.addAndGet(batch.size());
+
+			List<MailingResult> sent;
+
+			try {
+				sent = member.relay.transport().sendAll(batch, bodies);
+			} catch (MailingException ex) {
+				if (!failover.contains(ex.getErrorCode())) {
+					throw ex;
+				}
+
+				sent = batch.stream().map(mail -> MailingResult.failure(mail, ex)).toList();
+			} finally {
+				member.inFlight.addAndGet(-batch.size());
+			}
+
+			final List<Integer> failed = new ArrayList<>();
+			MailingException failure = null;
+
+			for (int i = 0; i < sent.size(); i++) {
+				final MailingResult result = sent.get(i);
+				results[pending.get(i)] = result;
+
+				if (!result.isSuccessful() && failover.contains(result.errorCode())) {
+					failed.add(pending.get(i));
+					failure = result.exception();
+				}
+			}
+
+			if (failure == null) {
+				restore(member);
+			} else {
+				eject(member, failure);
+			}
+
+			pending = failed;
+		}
+
+		return List.of(results);
+	}
+
+	private CompletableFuture<Void> sendAsync(Mail mail, Template template, Set<Member> tried,
+			@Nullable MailingException failure) {
+		final Member member = select(tried);
+
+		if (member == null) {
+			return CompletableFuture.failedFuture(failure(mail, failure));
+		}
+
+		tried.add(member);
+		member.inFlight.incrementAndGet();
+
+		CompletableFuture<Void> future;
+
+		try {
+			future = member.relay.transport().sendAsync(mail, template);
+		} catch (RuntimeException ex) {
+			future = CompletableFuture.failedFuture(ex);
+		}
+
+		return future.whenComplete((ignored, ex) -> {
+			member.inFlight.decrementAndGet();
+
+			if (ex == null) {
+				restore(member);
+			}
+		}).exceptionallyCompose(ex -> {
+			final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+			if (cause instanceof MailingException exception && failover.contains(exception.getErrorCode())) {
+				eject(member, exception);
+				return sendAsync(mail, template, tried, suppress(failure, exception));
+			}
+
+			return CompletableFuture.failedFuture(cause);
+		});
+	}
+
+	/**
+	 * Selects the relay that should be used next, skipping the relays that were already tried. Ejected
+	 * relays are only selected when no other relay is available, starting with the one that was ejected
+	 * first.
+	 */
+	@Nullable
+	private synchronized Member select(Set<Member> tried) {
+		final long now = clock.getAsLong();
+		final List<Member> candidates = new ArrayList<>(members.length);
+		Member ejected = null;
+
+		for (Member member : members) {
+			if (tried.contains(member)) {
+				continue;
+			}
+
+			if (member.isEjected(now)) {
+				if (ejected == null || member.ejectedUntil - ejected.ejectedUntil < 0) {
+					ejected = member;
+				}
+			} else {
+				candidates.add(member);
+			}
+		}
+
+		if (candidates.isEmpty()) {
+			return ejected;
+		}
+
+		return switch (strategy) {
+			case ROUND_ROBIN -> roundRobin(candidates);
+			case LEAST_IN_FLIGHT -> leastInFlight(candidates);
+		};
+	}
+
+	/**
+	 * Smooth weighted round-robin, which spreads the selections of each relay evenly across the rounds
+	 * instead of selecting the relay with the highest weight multiple times in a row.
+	 */
+	private Member roundRobin(List<Member> candidates) {
+		Member selected = null;
+		long total = 0;
+
+		for (Member candidate : candidates) {
+			candidate.currentWeight += candidate.relay.weight();
+			total += candidate.relay.weight();
+
+			if (selected == null || candidate.currentWeight > selected.currentWeight) {
+				selected = candidate;
+			}
+		}
+
+		selected.currentWeight -= total;
+		return selected;
+	}
+
+	/**
+	 * Selects the relay with the fewest mails in flight relative to its weight, rotating the starting
+	 * relay so that the ties are not always resolved in favour of the first configured relay.
+	 */
+	private Member leastInFlight(List<Member> candidates) {
+		final int offset = Math.floorMod(cursor++, candidates.size());
+		Member selected = null;
+
+		for (int i = 0; i < candidates.size(); i++) {
+			final Member candidate = candidates.get((offset + i) % candidates.size());
+
+			if (selected == null || (long) candidate.inFlight.get() * selected.relay.weight()
+					< (long) selected.inFlight.get() * candidate.relay.weight()) {
+				selected = candidate;
+			}
+		}
+
+		return selected;
+	}
+
+	private synchronized void eject(Member member, MailingException ex) {
+		if (!member.ejected) {
+			log.warn("Mail relay '{}' failed with {} error, failing over to the next relay for {}: {}",
+					member.relay.name(), ex.getErrorCode(), Duration.ofNanos(ejectionTime), ex.getMessage());
+		}
+
+		member.ejected = true;
+		member.ejectedUntil = clock.getAsLong() + ejectionTime;
+	}
+
+	private synchronized void restore(Member member) {
+		if (member.ejected) {
+			log.info("Mail relay '{}' is available again", member.relay.name());
+			member.ejected = false;
+		}
+	}
+
+	private static MailingException suppress(@Nullable MailingException failure, MailingException ex) {
+		if (failure == null) {
+			return ex;
+		}
+
+		if (failure != ex) {
+			failure.addSuppressed(ex);
+		}
+
+		return failure;
+	}
+
+	private static MailingException failure(Mail mail, @Nullable MailingException failure) {
+		if (failure != null) {
+			return failure;
+		}
+
+		return new MailingException(
+			MailingException.ErrorCode.CONNECTION_FAILED,
+			"No mail relay is available to send mail with template '" + mail.template() + "'"
+		);
+	}
+
+	/**
+	 * Strategy used to select the relay that sends the next mail.
+	 */
+	public enum Strategy {
+
+		/**
+		 * Relays are selected in turns, where relays with a higher weight are selected proportionally
+		 * more often.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * The relay with the fewest mails currently being sent, relative to its weight, is selected.
+		 */
+		LEAST_IN_FLIGHT
+
+	}
+
+	/**
+	 * Mail relay used by the {@link FailoverTransport}.
+	 *
+	 * @param name name of the relay used in log messages, can't be {@literal null}
+	 * @param transport transport that sends the mails using this relay, can't be {@literal null}
+	 * @param weight share of the mails sent using this relay, relative to the other relays
+	 */
+	public record Relay(String name, Transport transport, int weight) {
+
+		/**
+		 * Creates a new {@link Relay} and validates its arguments.
+		 *
+		 * @param name name of the relay used in log messages, can't be {@literal null}
+		 * @param transport transport that sends the mails using this relay, can't be {@literal null}
+		 * @param weight share of the mails sent using this relay, must be greater than zero
+		 */
+		public Relay {
+			Assert.hasText(name, "Mail relay name can not be blank");
+			Assert.notNull(transport, "Mail relay transport can not be null");
+			Assert.isTrue(weight > 0, "Mail relay weight must be greater than zero");
+		}
+
+	}
+
+	private static final class Member {
+
+		private final Relay relay;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		/* guarded by the FailoverTransport monitor */
+		private long currentWeight;
+		private boolean ejected;
+		private long ejectedUntil;
+
+		private Member(Relay relay) {
+			this.relay = relay;
+		}
+
+		private boolean isEjected(long now) {
+			return ejected && now - ejectedUntil < 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,488 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * {@link MailJournal} that stores mails in rolling, append-only segment files and the acknowledgements of their
+ * entries in an append-only acknowledgements file next to each segment, all located in the journal directory.
+ * <p>
+ * Each journal record consists of the payload length, the entry identifier and the {@link Mail} encoded by
+ * the {@link MailCodec}. Acknowledgements are stored as entry identifiers, in the acknowledgements file of the
+ * segment that holds the entry. Once the active segment grows beyond the segment size, a new active segment is
+ * created. When the journal is opened, records that were only partially written before a crash are discarded.
+ * <p>
+ * Segments, together with their acknowledgements, are deleted once every entry they contain is acknowledged, and
+ * the active segment is truncated instead, so the journal only keeps the segments that hold mails waiting to be
+ * sent, even when mails are appended and acknowledged continuously.
+ * <p>
+ * Records are written to the operating system as they are appended, which makes them survive a crash
+ * of the application. Depending on the {@link MailJournal.Sync} policy, the journal is also flushed to the
+ * storage device after every append, or once for all the records appended within the group commit interval.
+ * Segments are always flushed before they are replaced by a new active segment, unless the {@link Sync#NONE}
+ * policy is used.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class FileMailJournal implements MailJournal {
+
+	private static final Logger log = LoggerFactory.getLogger(FileMailJournal.class);
+
+	static final String SEGMENT_PREFIX = "journal-";
+	static final String ACKNOWLEDGEMENTS_PREFIX = "acks-";
+	static final String SEGMENT_SUFFIX = ".log";
+
+	static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+	private final Path directory;
+	private final long segmentSize;
+	private final MailCodec codec;
+	private final Sync sync;
+	private final @Nullable GroupCommit commit;
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final Map<Long, Segment> outstanding = new HashMap<>();
+	private final List<Entry> recovered;
+
+	private volatile Segment active;
+	private long sequence;
+
+	private FileMailJournal(Path directory, long segmentSize, MailCodec codec, Sync sync, Duration interval)
+			throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.codec = codec;
+		this.sync = sync;
+		this.recovered = recover();
+		this.active = segments.isEmpty() ? roll() : segments.getLast();
+		this.commit = sync == Sync.GROUP ? new GroupCommit("mail-journal-sync", () -> active.journal.force(false),
+				interval) : null;
+	}
+
+	/**
+	 * Opens, or creates, the file journal in the given directory and recovers the entries that
+	 * were not acknowledged.
+	 *
+	 * @param directory journal directory, can't be {@literal null}
+	 * @param segmentSize size in bytes after which a new segment file is created
+	 * @param codec codec used to encode the journaled mails, can't be {@literal null}
+	 * @param sync policy that defines when appended records are flushed to the storage device
+	 * @param interval group commit interval, used by the {@link Sync#GROUP} policy
+	 * @return the opened file journal, never {@literal null}
+	 * @throws IOException when the journal files could not be opened or read
+	 */
+	static FileMailJournal open(Path directory, long segmentSize, MailCodec codec, Sync sync, Duration interval)
+			throws IOException {
+		Assert.notNull(directory, "Mail journal directory can not be null");
+		Assert.notNull(codec, "Mail codec can not be null");
+		Assert.notNull(sync, "Mail journal sync policy can not be null");
+		Assert.isTrue(segmentSize > HEADER_SIZE, "Mail journal segment size must be greater than " + HEADER_SIZE);
+
+		Files.createDirectories(directory);
+
+		return new FileMailJournal(directory, segmentSize, codec, sync, interval);
+	}
+
+	@Override
+	public long append(Mail mail) throws IOException {
+		final byte[] payload = codec.encode(mail);
+		final long id;
+
+		synchronized (this) {
+			id = sequence++;
+
+			final Segment segment = writable(HEADER_SIZE + payload.length);
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(payload.length).putLong(id).flip();
+
+			write(segment.journal, header, ByteBuffer.wrap(payload));
+
+			if (sync == Sync.ALWAYS) {
+				segment.journal.force(false);
+			}
+
+			segment.size += HEADER_SIZE + payload.length;
+			segment.outstanding++;
+			outstanding.put(id, segment);
+		}
+
+		if (commit != null) {
+			commit.written(id);
+			commit.await(id);
+		}
+
+		return id;
+	}
+
+	@Override
+	public synchronized void acknowledge(long id) throws IOException {
+		final Segment segment = outstanding.remove(id);
+
+		if (segment == null) {
+			return;
+		}
+
+		if (--segment.outstanding > 0) {
+			write(segment.acknowledgements, ByteBuffer.allocate(Long.BYTES).putLong(id).flip());
+		} else {
+			compact(segment);
+		}
+
+		if (outstanding.isEmpty()) {
+			recovered.clear();
+		}
+	}
+
+	@Override
+	public synchronized List<Entry> pending() {
+		return recovered.stream().filter(entry -> outstanding.containsKey(entry.id())).toList();
+	}
+
+	/**
+	 * Returns the number of appended entries that are not yet acknowledged.
+	 * @return number of outstanding entries
+	 */
+	synchronized int outstanding() {
+		return outstanding.size();
+	}
+
+	/**
+	 * Returns the number of segment files used by this journal.
+	 * @return number of segments
+	 */
+	synchronized int segments() {
+		return segments.size();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (commit != null) {
+			commit.close();
+		}
+
+		if (sync != Sync.NONE && active.journal.isOpen()) {
+			active.journal.force(false);
+			active.acknowledgements.force(false);
+		}
+
+		IOException failure = null;
+
+		for (Segment segment : segments) {
+			try {
+				segment.close();
+			} catch (IOException ex) {
+				if (failure == null) {
+					failure = ex;
+				} else {
+					failure.addSuppressed(ex);
+				}
+			}
+		}
+
+		segments.clear();
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Returns the active segment when the record of the given size still fits into it, otherwise a new active
+	 * segment is created. Records that are larger than the segment size are written into a segment of their own.
+	 */
+	private Segment writable(int size) throws IOException {
+		final Segment segment = active;
+
+		if (segment.size == 0 || segment.size + size <= segmentSize) {
+			return segment;
+		}
+
+		if (sync != Sync.NONE) {
+			segment.journal.force(false);
+		}
+
+		active = roll();
+		return active;
+	}
+
+	private Segment roll() throws IOException {
+		final long index = segments.isEmpty() ? 0 : segments.getLast().index + 1;
+		final Segment segment = Segment.open(directory, index);
+
+		segments.addLast(segment);
+		return segment;
+	}
+
+	/**
+	 * Removes the segment once every entry it contains is acknowledged. The active segment is truncated instead
+	 * of being deleted, as new entries are still appended to it. The segment file is removed before its
+	 * acknowledgements, when the application crashes in between, acknowledgements without their segment
+	 * are discarded on recovery.
+	 */
+	private void compact(Segment segment) throws IOException {
+		if (segment == active) {
+			truncate(segment);
+			return;
+		}
+
+		segments.remove(segment);
+		segment.close();
+
+		Files.deleteIfExists(segment.file);
+		Files.deleteIfExists(segment.acknowledgementsFile);
+
+		log.debug("Deleted acknowledged mail journal segment {}", segment.file);
+	}
+
+	/**
+	 * Truncates the segment file first, when the application crashes before its acknowledgements are truncated
+	 * they are discarded on recovery.
+	 */
+	private static void truncate(Segment segment) throws IOException {
+		segment.journal.truncate(0);
+		segment.acknowledgements.truncate(0);
+		segment.size = 0;
+	}
+
+	private List<Entry> recover() throws IOException {
+		final List<Path> files;
+
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(file -> isFile(file, SEGMENT_PREFIX)).sorted().toList();
+		}
+
+		final List<Entry> entries = new ArrayList<>();
+
+		try {
+			for (Path file : files) {
+				final Segment segment = Segment.open(directory, index(file, SEGMENT_PREFIX));
+				segments.addLast(segment);
+
+				for (Map.Entry<Long, byte[]> payload : read(segment).entrySet()) {
+					entries.add(new Entry(payload.getKey(), decode(payload.getKey(), payload.getValue())));
+					outstanding.put(payload.getKey(), segment);
+				}
+			}
+
+			for (Segment segment : List.copyOf(segments)) {
+				if (segment.outstanding > 0) {
+					continue;
+				}
+
+				if (segment == segments.getLast()) {
+					truncate(segment);
+				} else {
+					compact(segment);
+				}
+			}
+
+			deleteOrphanedAcknowledgements();
+		} catch (IOException | RuntimeException ex) {
+			for (Segment segment : segments) {
+				segment.close();
+			}
+			throw ex;
+		}
+
+		if (!entries.isEmpty()) {
+			log.info("Recovered {} unacknowledged mail(s) from the mail journal", entries.size());
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Reads the encoded entries of the segment that were not acknowledged, discarding partially written records.
+	 */
+	private Map<Long, byte[]> read(Segment segment) throws IOException {
+		final Map<Long, byte[]> entries = new LinkedHashMap<>();
+		final FileChannel journal = segment.journal;
+		final long size = journal.size();
+		final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+		long position = 0;
+
+		while (position + HEADER_SIZE <= size) {
+			header.clear();
+			read(journal, header, position);
+
+			final int length = header.flip().getInt();
+			final long id = header.getLong();
+
+			if (length < 0 || position + HEADER_SIZE + length > size) {
+				break;
+			}
+
+			final ByteBuffer payload = ByteBuffer.allocate(length);
+			read(journal, payload, position + HEADER_SIZE);
+
+			entries.put(id, payload.array());
+			sequence = Math.max(sequence, id + 1);
+			position += HEADER_SIZE + length;
+		}
+
+		if (position < size) {
+			log.warn("Discarding {} bytes of a partially written mail journal record in segment {}",
+					size - position, segment.file);
+			journal.truncate(position);
+		}
+
+		final FileChannel acknowledgements = segment.acknowledgements;
+
+		if (position == 0) {
+			acknowledgements.truncate(0);
+		}
+
+		final long acknowledged = acknowledgements.size() / Long.BYTES * Long.BYTES;
+		final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+
+		for (long offset = 0; offset < acknowledged; offset += Long.BYTES) {
+			buffer.clear();
+			read(acknowledgements, buffer, offset);
+			entries.remove(buffer.flip().getLong());
+		}
+
+		acknowledgements.truncate(acknowledged);
+		journal.position(position);
+		acknowledgements.position(acknowledged);
+
+		segment.size = position;
+		segment.outstanding = entries.size();
+
+		return entries;
+	}
+
+	/**
+	 * Decodes the unacknowledged entry. Entries that can not be decoded fail the recovery, instead of being
+	 * skipped, as they would otherwise be deleted by the next compaction and the mail would be lost.
+	 */
+	private Mail decode(long id, byte[] payload) throws IOException {
+		try {
+			return codec.decode(payload);
+		} catch (IOException ex) {
+			throw new IOException("Failed to decode unacknowledged mail journal entry " + id + ", make sure that "
+					+ "the mail codec dictionary and attribute encoders were not changed", ex);
+		}
+	}
+
+	/**
+	 * Deletes the acknowledgements files whose segment was deleted before the application crashed.
+	 */
+	private void deleteOrphanedAcknowledgements() throws IOException {
+		final List<Path> files;
+
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(file -> isFile(file, ACKNOWLEDGEMENTS_PREFIX)).toList();
+		}
+
+		for (Path file : files) {
+			final long index = index(file, ACKNOWLEDGEMENTS_PREFIX);
+
+			if (segments.stream().noneMatch(segment -> segment.index == index)) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private static boolean isFile(Path file, String prefix) {
+		final String name = file.getFileName().toString();
+		return name.startsWith(prefix) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	private static long index(Path file, String prefix) {
+		final String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(prefix.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private static void write(FileChannel channel, ByteBuffer... buffers) throws IOException {
+		long remaining = 0;
+
+		for (ByteBuffer buffer : buffers) {
+			remaining += buffer.remaining();
+		}
+
+		while (remaining > 0) {
+			remaining -= channel.write(buffers);
+		}
+	}
+
+	private static void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of the mail journal file");
+			}
+		}
+	}
+
+	/**
+	 * Segment file of the journal together with the file that holds the acknowledgements of its entries.
+	 */
+	private static final class Segment {
+
+		private final long index;
+		private final Path file;
+		private final Path acknowledgementsFile;
+		private final FileChannel journal;
+		private final FileChannel acknowledgements;
+		private long size;
+		private int outstanding;
+
+		private Segment(long index, Path file, Path acknowledgementsFile, FileChannel journal,
+				FileChannel acknowledgements) {
+			this.index = index;
+			this.file = file;
+			this.acknowledgementsFile = acknowledgementsFile;
+			this.journal = journal;
+			this.acknowledgements = acknowledgements;
+		}
+
+		static Segment open(Path directory, long index) throws IOException {
+			final Path file = directory.resolve(name(SEGMENT_PREFIX, index));
+			final Path acknowledgementsFile = directory.resolve(name(ACKNOWLEDGEMENTS_PREFIX, index));
+			final FileChannel journal = open(file);
+
+			try {
+				return new Segment(index, file, acknowledgementsFile, journal, open(acknowledgementsFile));
+			} catch (IOException | RuntimeException ex) {
+				journal.close();
+				throw ex;
+			}
+		}
+
+		static String name(String prefix, long index) {
+			return String.format("%s%020d%s", prefix, index, SEGMENT_SUFFIX);
+		}
+
+		private static FileChannel open(Path file) throws IOException {
+			return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+		}
+
+		void close() throws IOException {
+			try (journal; acknowledgements) {
+				// both channels are closed, even when closing the first one fails
+			}
+		}
+
+	}
+
+}
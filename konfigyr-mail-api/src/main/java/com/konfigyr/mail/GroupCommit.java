@@ -0,0 +1,181 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Flushes the {@link MailJournal} to the storage device on behalf of many concurrent appenders.
+ * <p>
+ * Instead of flushing the journal after every appended record, appenders register the sequence of
+ * their record as {@link #written(long) written} and {@link #await(long) wait} until it is flushed.
+ * A single flusher thread waits for the configured interval to collect the records written in the
+ * meantime and flushes all of them at once, so the cost of one flush is shared by every record of
+ * the group.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class GroupCommit implements AutoCloseable {
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition pending = lock.newCondition();
+	private final Condition flushed = lock.newCondition();
+	private final Flush flush;
+	private final long interval;
+	private final Thread flusher;
+
+	private long writtenSequence = -1;
+	private long flushedSequence = -1;
+	private @Nullable IOException failure;
+	private boolean closed;
+
+	GroupCommit(String name, Flush flush, Duration interval) {
+		Assert.notNull(flush, "Flush operation can not be null");
+		Assert.isTrue(!interval.isNegative(), "Group commit interval can not be negative");
+
+		this.flush = flush;
+		this.interval = interval.toNanos();
+		this.flusher = Thread.ofPlatform().name(name).daemon().start(this::run);
+	}
+
+	/**
+	 * Registers that the record with the given sequence was written and should be flushed.
+	 *
+	 * @param sequence sequence of the written record
+	 */
+	void written(long sequence) {
+		lock.lock();
+
+		try {
+			if (sequence > writtenSequence) {
+				writtenSequence = sequence;
+				pending.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Blocks until the record with the given sequence is flushed to the storage device.
+	 *
+	 * @param sequence sequence of the written record
+	 * @throws IOException when the flush failed, was interrupted or when the group commit is closed
+	 */
+	void await(long sequence) throws IOException {
+		lock.lock();
+
+		try {
+			while (flushedSequence < sequence) {
+				if (failure != null) {
+					throw new IOException("Failed to flush the mail journal", failure);
+				}
+				if (closed) {
+					throw new IOException("Mail journal group commit is closed");
+				}
+				flushed.await();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the mail journal to be flushed", ex);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes the remaining written records and stops the flusher thread.
+	 */
+	@Override
+	public void close() {
+		lock.lock();
+
+		try {
+			closed = true;
+			pending.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			flusher.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		while (true) {
+			final long target;
+
+			lock.lock();
+
+			try {
+				while (writtenSequence == flushedSequence && !closed) {
+					pending.awaitUninterruptibly();
+				}
+
+				if (writtenSequence == flushedSequence) {
+					flushed.signalAll();
+					return;
+				}
+
+				long remaining = interval;
+
+				while (remaining > 0 && !closed) {
+					remaining = pending.awaitNanos(remaining);
+				}
+
+				target = writtenSequence;
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				lock.unlock();
+			}
+
+			IOException error = null;
+
+			try {
+				flush.flush();
+			} catch (IOException ex) {
+				error = ex;
+			}
+
+			lock.lock();
+
+			try {
+				if (error == null) {
+					flushedSequence = target;
+				} else {
+					failure = error;
+				}
+				flushed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+
+			if (error != null) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Operation that flushes the journal to the storage device.
+	 */
+	@FunctionalInterface
+	interface Flush {
+
+		void flush() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Read-only view of the {@link Mail#attributes() mail attributes} that layers a small set of attributes
+ * specific to a single mail on top of a base set of attributes that is shared by many mails.
+ * <p>
+ * Neither of the layers is copied, the base attributes are shared by every mail that is created with them,
+ * which avoids copying a large common rendering model, like a product catalog or footer data, for every
+ * mail of a bulk mailing. Attributes of the overlay take precedence over the base attributes with the same
+ * name. The iteration order of this map is the order of the overlay, followed by the base attributes that
+ * are not replaced by the overlay.
+ * <p>
+ * The base attributes must not be modified once they are layered, as this view is not a snapshot of them.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see Mail.Builder#sharedAttributes(Map)
+ * @see MailMerge
+ **/
+@NullMarked
+public final class LayeredAttributes extends AbstractMap<String, Object> implements Serializable {
+
+	@Serial
+	private static final long serialVersionUID = 6385120472264931907L;
+
+	private final Map<String, Object> base;
+	private final Map<String, Object> overlay;
+	private final int size;
+
+	private transient @Nullable Set<Entry<String, Object>> entries;
+
+	private LayeredAttributes(Map<String, Object> base, Map<String, Object> overlay) {
+		this.base = Collections.unmodifiableMap(base);
+		this.overlay = Collections.unmodifiableMap(overlay);
+		this.size = base.size() + (int) overlay.keySet().stream().filter(key -> !base.containsKey(key)).count();
+	}
+
+	/**
+	 * Creates a read-only view of the attributes where the overlay attributes are layered on top of the
+	 * base attributes. When one of the layers is empty, a read-only view of the other layer is returned.
+	 *
+	 * @param base attributes shared by many mails, can't be {@literal null}
+	 * @param overlay attributes specific to a single mail, can't be {@literal null}
+	 * @return read-only layered attributes, never {@literal null}
+	 */
+	public static Map<String, Object> of(Map<String, Object> base, Map<String, Object> overlay) {
+		Assert.notNull(base, "Base attributes can not be null");
+		Assert.notNull(overlay, "Overlay attributes can not be null");
+
+		if (overlay.isEmpty()) {
+			return Collections.unmodifiableMap(base);
+		}
+
+		if (base.isEmpty()) {
+			return Collections.unmodifiableMap(overlay);
+		}
+
+		return new LayeredAttributes(base, overlay);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return overlay.containsKey(key) || base.containsKey(key);
+	}
+
+	@Nullable
+	@Override
+	public Object get(Object key) {
+		final Object value = overlay.get(key);
+		return value != null || overlay.containsKey(key) ? value : base.get(key);
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		Set<Entry<String, Object>> entries = this.entries;
+
+		if (entries == null) {
+			entries = new AbstractSet<>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return Stream.concat(
+						overlay.entrySet().stream(),
+						base.entrySet().stream().filter(entry -> !overlay.containsKey(entry.getKey()))
+					).iterator();
+				}
+
+				@Override
+				public int size() {
+					return size;
+				}
+			};
+
+			this.entries = entries;
+		}
+
+		return entries;
+	}
+
+}
@@ -48,6 +48,33 @@ public record Mail(Subject subject, String template, Map<String, Object> attribu
 	@Serial
 	private static final long serialVersionUID = -2629706208245513082L;
 
+	/**
+	 * Replaces this mail with its {@link SerializedForm} when it is serialized, as the {@link Charset}
+	 * of the mail is not serializable.
+	 * @return serialized form of this mail
+	 */
+	@Serial
+	private Object writeReplace() {
+		return new SerializedForm(subject, template, attributes, recipients, from, replyTo, encoding.name(), locale);
+	}
+
+	/**
+	 * Serialized form of the {@link Mail} that stores the mail encoding using its charset name.
+	 */
+	private record SerializedForm(Subject subject, String template, Map<String, Object> attributes,
+			Set<Recipient> recipients, @Nullable Address from, Set<Address> replyTo, String encoding,
+			Locale locale) implements Serializable {
+
+		@Serial
+		private static final long serialVersionUID = 4270863120358547391L;
+
+		@Serial
+		private Object readResolve() {
+			return new Mail(subject, template, attributes, recipients, from, replyTo, Charset.forName(encoding), locale);
+		}
+
+	}
+
 	/**
 	 * Creates a new {@link Builder Mail Builder} instance where you can easily create new
 	 * {@link Mail} instances.
@@ -76,6 +103,8 @@ public record Mail(Subject subject, String template, Map<String, Object> attribu
 
 		private Locale locale;
 
+		private Map<String, Object> sharedAttributes = Collections.emptyMap();
+
 		private final Map<String, Object> attributes = new LinkedHashMap<>();
 
 		private final Set<Address> replyTo = new LinkedHashSet<>();
@@ -155,6 +184,25 @@ public record Mail(Subject subject, String template, Map<String, Object> attribu
 			return this;
 		}
 
+		/**
+		 * Specify the context attributes, shared by many mails, on top of which the attributes of this
+		 * mail are layered.
+		 * <p>
+		 * Unlike {@link #attributes(Map)}, the shared attributes are not copied into this mail. The mail
+		 * {@link Mail#attributes() attributes} are a read-only {@link LayeredAttributes} view where the
+		 * attributes set by the {@link #attribute(String, Object)} and {@link #attributes(Map)} methods take
+		 * precedence over the shared ones. The shared attributes must not be modified once the mail is built.
+		 *
+		 * @param attributes attributes shared by many mails
+		 * @return builder instance
+		 * @since 1.1.0
+		 */
+		@NonNull
+		public Builder sharedAttributes(Map<String, Object> attributes) {
+			this.sharedAttributes = attributes == null ? Collections.emptyMap() : attributes;
+			return this;
+		}
+
 		/**
 		 * Defines the character encoding of the mail.
 		 * @param encoding encoding name
@@ -404,7 +452,12 @@ public record Mail(Subject subject, String template, Map<String, Object> attribu
 				encoding = StandardCharsets.UTF_8;
 			}
 
-			return new Mail(subject, template, Collections.unmodifiableMap(attributes),
+			// the layered attributes compute their size once, so the overlay is copied to keep it consistent
+			// when attributes are added to this builder afterwards, without shared attributes it is not layered
+			final Map<String, Object> overlay = sharedAttributes.isEmpty() ? attributes
+					: new LinkedHashMap<>(attributes);
+
+			return new Mail(subject, template, LayeredAttributes.of(sharedAttributes, overlay),
 					Collections.unmodifiableSet(recipients), from, Collections.unmodifiableSet(replyTo), encoding,
 					locale);
 		}
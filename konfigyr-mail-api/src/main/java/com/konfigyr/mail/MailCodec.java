@@ -0,0 +1,805 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, versioned binary codec for {@link Mail mails} that can be used to store them in queues, caches or
+ * to hand them off to other nodes, without the overhead of the Java serialization class descriptors.
+ * <p>
+ * Lengths, counts and integral numbers are written as variable-length integers, and strings are written as
+ * {@literal UTF-8}. Symbols, such as the subject code, template name, attribute names, addresses, encoding
+ * and locale, are interned: the first occurrence of a symbol is written in full and any repeated occurrence
+ * within the same mail is written as a reference to it. Symbols that repeat across mails, like template names
+ * or the sender address, can be registered in the codec {@link Builder#dictionary(String...) dictionary},
+ * in which case they are always written as references. Every encoded mail records the size and the fingerprint
+ * of the dictionary it was encoded with, mails can be decoded by a codec whose dictionary is the same or starts
+ * with the same symbols, as the dictionary can be extended by appending symbols to it.
+ * <p>
+ * Attribute values of the following types are written natively: {@link String}, {@link Boolean},
+ * {@link Integer}, {@link Long}, {@link Double}, {@link BigDecimal}, {@link Instant}, {@link LocalDate},
+ * {@link List}, {@link Set} and {@link Map}. Values of other types are written by the first registered
+ * {@link AttributeEncoder} that supports them, or using Java serialization when there is none. Java
+ * serialization is limited to the types from the {@code java.lang}, {@code java.math}, {@code java.time}
+ * and {@code java.util} packages and the {@link Builder#serializable(Class[]) registered serializable types},
+ * any other class found in the serialized value is rejected when it is encoded or decoded.
+ * <p>
+ * Codec instances are immutable and thread-safe.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see AttributeEncoder
+ **/
+@NullMarked
+public final class MailCodec {
+
+	/**
+	 * Version of the binary format that is written as the first byte of every encoded mail.
+	 */
+	static final int VERSION = 1;
+
+	private static final MailCodec DEFAULT = builder().build();
+
+	private static final int NULL = 0;
+	private static final int STRING = 1;
+	private static final int TRUE = 2;
+	private static final int FALSE = 3;
+	private static final int INTEGER = 4;
+	private static final int LONG = 5;
+	private static final int DOUBLE = 6;
+	private static final int DECIMAL = 7;
+	private static final int INSTANT = 8;
+	private static final int LOCAL_DATE = 9;
+	private static final int LIST = 10;
+	private static final int SET = 11;
+	private static final int MAP = 12;
+	private static final int CUSTOM = 13;
+	private static final int SERIALIZED = 14;
+
+	private static final Recipient.Type[] RECIPIENT_TYPES = Recipient.Type.values();
+
+	private static final Set<String> SERIALIZABLE_PACKAGES = Set.of("java.lang", "java.math", "java.time", "java.util");
+	private static final int MAX_SERIALIZED_DEPTH = 16;
+	private static final int MAX_SERIALIZED_REFERENCES = 10_000;
+
+	private final String[] dictionary;
+	private final Map<String, Integer> symbols;
+	private final int[] fingerprints;
+	private final Set<Class<?>> serializable;
+	private final List<AttributeEncoder<Object>> encoders;
+	private final Map<String, AttributeEncoder<Object>> names;
+	private final Map<Class<?>, Optional<AttributeEncoder<Object>>> resolved = new ConcurrentHashMap<>();
+
+	private MailCodec(List<String> dictionary, Set<Class<?>> serializable, List<AttributeEncoder<Object>> encoders) {
+		this.dictionary = dictionary.toArray(String[]::new);
+		this.symbols = new HashMap<>(this.dictionary.length * 2);
+		this.fingerprints = new int[this.dictionary.length + 1];
+		this.serializable = Set.copyOf(serializable);
+		this.encoders = List.copyOf(encoders);
+		this.names = new HashMap<>(encoders.size() * 2);
+
+		// fingerprints of every dictionary prefix, computed like Arrays.hashCode, where the empty one is 0
+		for (int i = 0, hash = 1; i < this.dictionary.length; i++) {
+			symbols.put(this.dictionary[i], i);
+			hash = 31 * hash + this.dictionary[i].hashCode();
+			fingerprints[i + 1] = hash;
+		}
+
+		for (AttributeEncoder<Object> encoder : encoders) {
+			Assert.isNull(names.put(encoder.name(), encoder),
+					() -> "Attribute encoder with name '" + encoder.name() + "' is already registered");
+		}
+	}
+
+	/**
+	 * Returns the {@link MailCodec} without a dictionary or any {@link AttributeEncoder attribute encoders}.
+	 * @return default mail codec, never {@literal null}
+	 */
+	public static MailCodec defaults() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Creates a new {@link Builder} used to configure the dictionary and attribute encoders of the codec.
+	 * @return mail codec builder, never {@literal null}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Encodes the {@link Mail} to its binary representation.
+	 *
+	 * @param mail mail to be encoded, can't be {@literal null}
+	 * @return the encoded mail, never {@literal null}
+	 * @throws IOException when one of the mail attribute values could not be encoded
+	 */
+	public byte[] encode(Mail mail) throws IOException {
+		Assert.notNull(mail, "Mail can not be null");
+
+		final Buffer buffer = new Buffer();
+
+		try (Writer writer = new Writer(buffer)) {
+			writer.writeMail(mail);
+		}
+
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Decodes the {@link Mail} from the binary representation created by {@link #encode(Mail)}.
+	 *
+	 * @param bytes encoded mail, can't be {@literal null}
+	 * @return the decoded mail, never {@literal null}
+	 * @throws IOException when the encoded mail is malformed, uses an unsupported version, was encoded
+	 * by a codec with a dictionary that is not a prefix of this one or contains a serialized value of a type
+	 * that is not allowed
+	 */
+	public Mail decode(byte[] bytes) throws IOException {
+		Assert.notNull(bytes, "Encoded mail can not be null");
+
+		try (Reader reader = new Reader(bytes)) {
+			return reader.readMail();
+		}
+	}
+
+	private @Nullable AttributeEncoder<Object> encoder(Class<?> type) {
+		return resolved.computeIfAbsent(type, key -> encoders.stream()
+				.filter(encoder -> encoder.type().isAssignableFrom(key))
+				.findFirst()
+		).orElse(null);
+	}
+
+	/**
+	 * Checks if values of this type can be written and read using Java serialization. Super types of the
+	 * registered serializable types are allowed, as their class descriptors are part of the serialized value.
+	 */
+	private boolean isSerializable(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+
+		return type.isPrimitive() || SERIALIZABLE_PACKAGES.contains(type.getPackageName())
+				|| serializable.stream().anyMatch(type::isAssignableFrom);
+	}
+
+	private ObjectInputFilter.Status filter(ObjectInputFilter.FilterInfo info) {
+		if (info.depth() > MAX_SERIALIZED_DEPTH || info.references() > MAX_SERIALIZED_REFERENCES) {
+			return ObjectInputFilter.Status.REJECTED;
+		}
+
+		final Class<?> type = info.serialClass();
+
+		if (type == null) {
+			return ObjectInputFilter.Status.UNDECIDED;
+		}
+
+		return isSerializable(type) ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+	}
+
+	/**
+	 * Writes the encoded mail to the {@link Buffer}, keeping track of the symbols written so far.
+	 */
+	private final class Writer extends DataOutputStream {
+
+		private final Map<String, Integer> written = new HashMap<>();
+
+		Writer(Buffer buffer) {
+			super(buffer);
+		}
+
+		void writeMail(Mail mail) throws IOException {
+			write(VERSION);
+			writeVarInt(dictionary.length);
+			writeVarInt(fingerprints[dictionary.length]);
+
+			final Object[] arguments = mail.subject().arguments();
+
+			// the argument count is shifted by one, so that a missing arguments array is written as 0
+			writeSymbol(mail.subject().value());
+			writeVarInt(arguments == null ? 0 : arguments.length + 1);
+
+			if (arguments != null) {
+				for (Object argument : arguments) {
+					writeValue(argument);
+				}
+			}
+
+			writeSymbol(mail.template());
+			writeVarInt(mail.attributes().size());
+
+			for (Map.Entry<String, Object> attribute : mail.attributes().entrySet()) {
+				writeSymbol(attribute.getKey());
+				writeValue(attribute.getValue());
+			}
+
+			writeVarInt(mail.recipients().size());
+
+			for (Recipient recipient : mail.recipients()) {
+				write(recipient.type().ordinal());
+				writeAddress(recipient.address());
+			}
+
+			final Address from = mail.from();
+
+			if (from == null) {
+				writeSymbol(null);
+			} else {
+				writeAddress(from);
+			}
+
+			writeVarInt(mail.replyTo().size());
+
+			for (Address address : mail.replyTo()) {
+				writeAddress(address);
+			}
+
+			writeSymbol(mail.encoding().name());
+			writeSymbol(mail.locale().toLanguageTag());
+		}
+
+		void writeAddress(Address address) throws IOException {
+			writeSymbol(address.email());
+			writeSymbol(address.name());
+		}
+
+		/**
+		 * Writes the symbol as a reference, where {@literal 0} stands for {@literal null}, {@literal 1} for
+		 * a symbol that follows in full and any greater value for an index in the dictionary followed by the
+		 * symbols that were already written.
+		 */
+		void writeSymbol(@Nullable String symbol) throws IOException {
+			if (symbol == null) {
+				writeVarInt(0);
+				return;
+			}
+
+			Integer index = symbols.get(symbol);
+
+			if (index == null) {
+				index = written.get(symbol);
+
+				if (index == null) {
+					written.put(symbol, dictionary.length + written.size());
+					writeVarInt(1);
+					writeText(symbol);
+					return;
+				}
+			}
+
+			writeVarInt(index + 2);
+		}
+
+		void writeText(String value) throws IOException {
+			final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			write(bytes);
+		}
+
+		void writeValue(@Nullable Object value) throws IOException {
+			if (value == null) {
+				write(NULL);
+			} else if (value instanceof String string) {
+				write(STRING);
+				writeText(string);
+			} else if (value instanceof Boolean bool) {
+				write(bool ? TRUE : FALSE);
+			} else if (value instanceof Integer number) {
+				write(INTEGER);
+				writeVarInt((number << 1) ^ (number >> 31));
+			} else if (value instanceof Long number) {
+				write(LONG);
+				writeVarLong((number << 1) ^ (number >> 63));
+			} else if (value instanceof Double number) {
+				write(DOUBLE);
+				writeDouble(number);
+			} else if (value instanceof BigDecimal number) {
+				write(DECIMAL);
+				writeText(number.toString());
+			} else if (value instanceof Instant instant) {
+				write(INSTANT);
+				writeVarLong((instant.getEpochSecond() << 1) ^ (instant.getEpochSecond() >> 63));
+				writeVarInt(instant.getNano());
+			} else if (value instanceof LocalDate date) {
+				write(LOCAL_DATE);
+				writeVarLong((date.toEpochDay() << 1) ^ (date.toEpochDay() >> 63));
+			} else {
+				writeObject(value);
+			}
+		}
+
+		void writeObject(Object value) throws IOException {
+			final AttributeEncoder<Object> encoder = encoder(value.getClass());
+
+			if (encoder != null) {
+				write(CUSTOM);
+				writeSymbol(encoder.name());
+				encoder.encode(value, this);
+			} else if (value instanceof List<?> list) {
+				write(LIST);
+				writeVarInt(list.size());
+
+				for (Object element : list) {
+					writeValue(element);
+				}
+			} else if (value instanceof Set<?> set) {
+				write(SET);
+				writeVarInt(set.size());
+
+				for (Object element : set) {
+					writeValue(element);
+				}
+			} else if (value instanceof Map<?, ?> map) {
+				write(MAP);
+				writeVarInt(map.size());
+
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					writeValue(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			} else if (value instanceof Serializable) {
+				final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+				try (ObjectOutputStream stream = new FilteringObjectOutputStream(bytes)) {
+					stream.writeObject(value);
+				}
+
+				write(SERIALIZED);
+				writeVarInt(bytes.size());
+				bytes.writeTo(this);
+			} else {
+				throw new NotSerializableException(value.getClass().getName());
+			}
+		}
+
+		void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+
+		void writeVarLong(long value) throws IOException {
+			while ((value & ~0x7FL) != 0) {
+				write((int) (value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+	}
+
+	/**
+	 * Java serialization stream that rejects the objects that would not be allowed to be deserialized.
+	 */
+	private final class FilteringObjectOutputStream extends ObjectOutputStream {
+
+		// the stream writes the exception that aborted the serialization, which must not be rejected again
+		private boolean rejected;
+
+		FilteringObjectOutputStream(OutputStream output) throws IOException {
+			super(output);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object value) throws IOException {
+			if (!rejected && !isSerializable(value.getClass())) {
+				rejected = true;
+				throw new NotSerializableException(value.getClass().getName()
+						+ " is not registered as a serializable mail codec type");
+			}
+			return value;
+		}
+
+	}
+
+	/**
+	 * Reads the encoded mail, keeping track of the symbols read so far.
+	 */
+	private final class Reader extends DataInputStream {
+
+		private final List<String> read = new ArrayList<>();
+
+		/**
+		 * Size of the dictionary prefix that was used to encode the mail.
+		 */
+		private int prefix;
+
+		Reader(byte[] bytes) {
+			super(new ByteArrayInputStream(bytes));
+		}
+
+		Mail readMail() throws IOException {
+			final int version = readUnsignedByte();
+
+			if (version != VERSION) {
+				throw new IOException("Unsupported mail codec version: " + version);
+			}
+
+			prefix = readVarInt();
+
+			if (prefix < 0 || prefix > dictionary.length || readVarInt() != fingerprints[prefix]) {
+				throw new IOException("Mail was encoded by a mail codec with a different dictionary");
+			}
+
+			final String code = readRequiredSymbol();
+			final int argumentCount = readCount();
+			final Object @Nullable [] arguments = argumentCount == 0 ? null : new Object[argumentCount - 1];
+
+			for (int i = 0; arguments != null && i < arguments.length; i++) {
+				arguments[i] = readValue();
+			}
+
+			final String template = readRequiredSymbol();
+			final int attributeCount = readCount();
+			final Map<String, Object> attributes = new LinkedHashMap<>(attributeCount * 2);
+
+			for (int i = 0; i < attributeCount; i++) {
+				attributes.put(readRequiredSymbol(), readValue());
+			}
+
+			final int recipientCount = readCount();
+			final Set<Recipient> recipients = new LinkedHashSet<>(recipientCount * 2);
+
+			for (int i = 0; i < recipientCount; i++) {
+				final int type = readUnsignedByte();
+
+				if (type >= RECIPIENT_TYPES.length) {
+					throw new IOException("Unknown mail recipient type: " + type);
+				}
+
+				recipients.add(new Recipient(readAddress(), RECIPIENT_TYPES[type]));
+			}
+
+			final String email = readSymbol();
+			final Address from = email == null ? null : new Address(email, readSymbol());
+
+			final int replyToCount = readCount();
+			final Set<Address> replyTo = new LinkedHashSet<>(replyToCount * 2);
+
+			for (int i = 0; i < replyToCount; i++) {
+				replyTo.add(readAddress());
+			}
+
+			final Charset encoding = Charset.forName(readRequiredSymbol());
+			final Locale locale = Locale.forLanguageTag(readRequiredSymbol());
+
+			return new Mail(new Subject(code, arguments), template, Collections.unmodifiableMap(attributes),
+					Collections.unmodifiableSet(recipients), from, Collections.unmodifiableSet(replyTo), encoding,
+					locale);
+		}
+
+		Address readAddress() throws IOException {
+			return new Address(readRequiredSymbol(), readSymbol());
+		}
+
+		String readRequiredSymbol() throws IOException {
+			final String symbol = readSymbol();
+
+			if (symbol == null) {
+				throw new IOException("Unexpected null value in the encoded mail");
+			}
+
+			return symbol;
+		}
+
+		@Nullable
+		String readSymbol() throws IOException {
+			final int reference = readVarInt();
+
+			if (reference == 0) {
+				return null;
+			}
+
+			if (reference == 1) {
+				final String symbol = readText();
+				read.add(symbol);
+				return symbol;
+			}
+
+			final int index = reference - 2;
+
+			if (index < prefix) {
+				return dictionary[index];
+			}
+
+			if (index - prefix >= read.size()) {
+				throw new IOException("Invalid symbol reference in the encoded mail: " + index);
+			}
+
+			return read.get(index - prefix);
+		}
+
+		String readText() throws IOException {
+			final byte[] bytes = new byte[readCount()];
+			readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Nullable
+		Object readValue() throws IOException {
+			final int type = readUnsignedByte();
+
+			return switch (type) {
+				case NULL -> null;
+				case STRING -> readText();
+				case TRUE -> Boolean.TRUE;
+				case FALSE -> Boolean.FALSE;
+				case INTEGER -> {
+					final int value = readVarInt();
+					yield (value >>> 1) ^ -(value & 1);
+				}
+				case LONG -> readZigZagLong();
+				case DOUBLE -> readDouble();
+				case DECIMAL -> new BigDecimal(readText());
+				case INSTANT -> Instant.ofEpochSecond(readZigZagLong(), readVarInt());
+				case LOCAL_DATE -> LocalDate.ofEpochDay(readZigZagLong());
+				case LIST -> {
+					final int size = readCount();
+					final List<Object> list = new ArrayList<>(size);
+
+					for (int i = 0; i < size; i++) {
+						list.add(readValue());
+					}
+					yield list;
+				}
+				case SET -> {
+					final int size = readCount();
+					final Set<Object> set = new LinkedHashSet<>(size * 2);
+
+					for (int i = 0; i < size; i++) {
+						set.add(readValue());
+					}
+					yield set;
+				}
+				case MAP -> {
+					final int size = readCount();
+					final Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+
+					for (int i = 0; i < size; i++) {
+						map.put(readValue(), readValue());
+					}
+					yield map;
+				}
+				case CUSTOM -> {
+					final String name = readRequiredSymbol();
+					final AttributeEncoder<Object> encoder = names.get(name);
+
+					if (encoder == null) {
+						throw new IOException("No attribute encoder is registered with name: " + name);
+					}
+					yield encoder.decode(this);
+				}
+				case SERIALIZED -> {
+					final byte[] bytes = new byte[readCount()];
+					readFully(bytes);
+
+					try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+						stream.setObjectInputFilter(MailCodec.this::filter);
+						yield stream.readObject();
+					} catch (ClassNotFoundException ex) {
+						throw new IOException("Failed to deserialize mail attribute value", ex);
+					}
+				}
+				default -> throw new IOException("Unknown mail attribute value type: " + type);
+			};
+		}
+
+		/**
+		 * Reads the length of a string or collection, which can not be larger than the remaining input
+		 * as every element takes at least one byte.
+		 */
+		int readCount() throws IOException {
+			final int count = readVarInt();
+
+			if (count < 0 || count > available()) {
+				throw new IOException("Invalid length in the encoded mail: " + count);
+			}
+
+			return count;
+		}
+
+		int readVarInt() throws IOException {
+			int value = 0;
+
+			for (int shift = 0; shift < 32; shift += 7) {
+				final int b = readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+
+			throw new IOException("Malformed variable-length integer in the encoded mail");
+		}
+
+		long readZigZagLong() throws IOException {
+			long value = 0;
+
+			for (int shift = 0; shift < 64; shift += 7) {
+				final int b = readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+
+				if ((b & 0x80) == 0) {
+					return (value >>> 1) ^ -(value & 1);
+				}
+			}
+
+			throw new IOException("Malformed variable-length integer in the encoded mail");
+		}
+
+	}
+
+	/**
+	 * Growable byte array output stream, without the synchronization of the {@link ByteArrayOutputStream}.
+	 */
+	private static final class Buffer extends OutputStream {
+
+		private byte[] bytes = new byte[256];
+		private int size;
+
+		@Override
+		public void write(int b) {
+			ensureCapacity(1);
+			bytes[size++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) {
+			ensureCapacity(length);
+			System.arraycopy(b, offset, bytes, size, length);
+			size += length;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+
+		private void ensureCapacity(int length) {
+			if (size + length > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + length));
+			}
+		}
+
+	}
+
+	/**
+	 * Builder used to create {@link MailCodec} instances.
+	 */
+	public static final class Builder {
+
+		private final Set<String> dictionary = new LinkedHashSet<>();
+		private final Set<Class<?>> serializable = new LinkedHashSet<>();
+		private final List<AttributeEncoder<Object>> encoders = new ArrayList<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds symbols, such as template names, subject codes or addresses, to the codec dictionary.
+		 * Symbols from the dictionary are always written as references.
+		 * <p>
+		 * Mails remain readable when symbols are appended to the dictionary, as a codec can decode the mails
+		 * that were encoded with any prefix of its dictionary. Removing, reordering or inserting symbols before
+		 * existing ones makes the mails that were already encoded unreadable.
+		 *
+		 * @param symbols symbols to be added to the dictionary
+		 * @return mail codec builder
+		 */
+		public Builder dictionary(String... symbols) {
+			return dictionary(Arrays.asList(symbols));
+		}
+
+		/**
+		 * Adds symbols, such as template names, subject codes or addresses, to the codec dictionary.
+		 *
+		 * @param symbols symbols to be added to the dictionary
+		 * @return mail codec builder
+		 * @see #dictionary(String...)
+		 */
+		public Builder dictionary(Iterable<String> symbols) {
+			for (String symbol : symbols) {
+				Assert.hasText(symbol, "Mail codec dictionary symbol can not be blank");
+				dictionary.add(symbol);
+			}
+			return this;
+		}
+
+		/**
+		 * Registers the types whose values can be written using Java serialization, when there is no
+		 * {@link AttributeEncoder} for them. Every class that is part of the serialized value, like the types of
+		 * its fields, needs to be registered, unless it is declared in the {@code java.lang}, {@code java.math},
+		 * {@code java.time} or {@code java.util} packages.
+		 *
+		 * @param types serializable types
+		 * @return mail codec builder
+		 */
+		public Builder serializable(Class<?>... types) {
+			return serializable(Arrays.asList(types));
+		}
+
+		/**
+		 * Registers the types whose values can be written using Java serialization.
+		 *
+		 * @param types serializable types
+		 * @return mail codec builder
+		 * @see #serializable(Class[])
+		 */
+		public Builder serializable(Iterable<? extends Class<?>> types) {
+			for (Class<?> type : types) {
+				Assert.notNull(type, "Mail codec serializable type can not be null");
+				serializable.add(type);
+			}
+			return this;
+		}
+
+		/**
+		 * Registers the {@link AttributeEncoder} used to write attribute values of its type. When more than one
+		 * encoder supports the value type, the one that was registered first is used.
+		 *
+		 * @param encoder attribute encoder, can't be {@literal null}
+		 * @return mail codec builder
+		 */
+		@SuppressWarnings("unchecked")
+		public Builder encoder(AttributeEncoder<?> encoder) {
+			Assert.notNull(encoder, "Attribute encoder can not be null");
+			encoders.add((AttributeEncoder<Object>) encoder);
+			return this;
+		}
+
+		/**
+		 * Registers the {@link AttributeEncoder attribute encoders} used to write attribute values of their type.
+		 *
+		 * @param encoders attribute encoders, can't be {@literal null}
+		 * @return mail codec builder
+		 * @see #encoder(AttributeEncoder)
+		 */
+		public Builder encoders(Iterable<? extends AttributeEncoder<?>> encoders) {
+			encoders.forEach(this::encoder);
+			return this;
+		}
+
+		/**
+		 * Creates the {@link MailCodec} with the configured dictionary, serializable types and attribute encoders.
+		 * @return mail codec, never {@literal null}
+		 */
+		public MailCodec build() {
+			return new MailCodec(List.copyOf(dictionary), serializable, encoders);
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Durable, append-only log of {@link Mail mails} that were accepted by the outbox {@link Mailer} but
+ * were not yet handed off to the {@link Transport}.
+ * <p>
+ * Every accepted mail is {@link #append(Mail) appended} to the journal before the {@link Mailer} returns
+ * to the caller, and is {@link #acknowledge(long) acknowledged} once the delivery attempt completes. Mails
+ * that were appended but never acknowledged, for instance because the application crashed while they were
+ * waiting to be sent, are returned by {@link #pending()} when the journal is opened again, so they can be
+ * replayed.
+ * <p>
+ * Implementations must be thread-safe, mails are appended and acknowledged by different threads.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+public interface MailJournal extends AutoCloseable {
+
+	/**
+	 * Durably appends the {@link Mail} to this journal.
+	 *
+	 * @param mail mail to be appended, can't be {@literal null}
+	 * @return the identifier of the journal entry, used to acknowledge it
+	 * @throws IOException when the mail could not be written to the journal
+	 */
+	long append(Mail mail) throws IOException;
+
+	/**
+	 * Acknowledges that the delivery of the journal entry completed and that it does not need to
+	 * be replayed. Acknowledging an unknown or already acknowledged entry has no effect.
+	 *
+	 * @param id the identifier of the journal entry
+	 * @throws IOException when the acknowledgement could not be written to the journal
+	 */
+	void acknowledge(long id) throws IOException;
+
+	/**
+	 * Returns all the entries that were appended but not yet acknowledged, in the order in which
+	 * they were appended.
+	 *
+	 * @return pending journal entries, never {@literal null}
+	 * @throws IOException when the journal entries could not be read
+	 */
+	List<Entry> pending() throws IOException;
+
+	/**
+	 * Closes the journal and releases the underlying resources.
+	 *
+	 * @throws IOException when the journal could not be closed
+	 */
+	@Override
+	void close() throws IOException;
+
+	/**
+	 * Policy that defines when the appended mails are flushed to the storage device.
+	 */
+	enum Sync {
+
+		/**
+		 * Appended mails are handed to the operating system, which flushes them to the storage device
+		 * on its own. Mails survive a crash of the application, but not of the operating system.
+		 */
+		NONE,
+
+		/**
+		 * Appenders wait until their mail is flushed, the mails that were appended within the group commit
+		 * interval are flushed together. Mails survive a crash of the operating system.
+		 */
+		GROUP,
+
+		/**
+		 * Every appended mail is flushed to the storage device before the append returns.
+		 */
+		ALWAYS
+
+	}
+
+	/**
+	 * Mail that was appended to the {@link MailJournal}.
+	 *
+	 * @param id the identifier of the journal entry
+	 * @param mail the appended mail
+	 */
+	record Entry(long id, Mail mail) {
+	}
+
+}
@@ -0,0 +1,293 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.annotations.Nullable;
+import org.jspecify.annotations.NonNull;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.util.Assert;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Mail merge definition that describes the parts shared by every {@link Mail} of a bulk mailing,
+ * like a newsletter or a campaign, where the same template is rendered for many recipients.
+ * <p>
+ * The merge defines the subject, template, sender, encoding, language and the attributes that are
+ * common to all mails. Each recipient of the mailing is described by an {@link Overlay} that carries
+ * its recipients and the attributes that are specific to it. The {@link Mail} of a recipient is created
+ * by {@link #mail(Overlay) merging} the overlay with this definition, where the overlay attributes take
+ * precedence over the shared ones.
+ * <p>
+ * Merged mails are sent using the {@link Mailer#sendMerged(MailMerge, java.util.stream.Stream)} method.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see Mailer#sendMerged(MailMerge, java.util.stream.Stream)
+ **/
+@NullMarked
+public final class MailMerge {
+
+	private final Subject subject;
+	private final String template;
+	private final Map<String, Object> attributes;
+	private final @Nullable Address from;
+	private final Set<Address> replyTo;
+	private final Charset encoding;
+	private final Locale locale;
+
+	private MailMerge(Subject subject, String template, Map<String, Object> attributes, @Nullable Address from,
+			Set<Address> replyTo, Charset encoding, Locale locale) {
+		this.subject = subject;
+		this.template = template;
+		this.attributes = attributes;
+		this.from = from;
+		this.replyTo = replyTo;
+		this.encoding = encoding;
+		this.locale = locale;
+	}
+
+	/**
+	 * Creates a new {@link Builder Mail Merge Builder} instance.
+	 *
+	 * @return mail merge builder, never {@literal null}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the name of the template that is rendered for every mail of this merge.
+	 *
+	 * @return template name, never {@literal null}
+	 */
+	public String template() {
+		return template;
+	}
+
+	/**
+	 * Returns the attributes that are shared by every mail of this merge.
+	 *
+	 * @return unmodifiable shared attributes, never {@literal null}
+	 */
+	public Map<String, Object> attributes() {
+		return attributes;
+	}
+
+	/**
+	 * Creates the {@link Mail} for the recipients of the given {@link Overlay}, where the overlay
+	 * attributes are added to, or replace, the shared attributes of this merge. The shared attributes
+	 * are not copied, the attributes of the mail are a {@link LayeredAttributes} view of both.
+	 *
+	 * @param overlay recipients and their attributes, can't be {@literal null}
+	 * @return merged mail, never {@literal null}
+	 */
+	public Mail mail(Overlay overlay) {
+		return new Mail(subject, template, LayeredAttributes.of(attributes, overlay.attributes()),
+				overlay.recipients(), from, replyTo, encoding, locale);
+	}
+
+	/**
+	 * The per-recipient part of a {@link MailMerge}, defining who receives the merged mail and which
+	 * attributes are specific to them.
+	 *
+	 * @param recipients recipients of the merged mail, can't be empty
+	 * @param attributes attributes specific to the recipients, can be empty
+	 */
+	public record Overlay(Set<Recipient> recipients, Map<String, Object> attributes) {
+
+		public Overlay {
+			Assert.notEmpty(recipients, "Mail merge overlay needs to have at least one recipient");
+			Assert.notNull(attributes, "Mail merge overlay attributes can not be null");
+
+			recipients = Collections.unmodifiableSet(new LinkedHashSet<>(recipients));
+			attributes = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+		}
+
+		/**
+		 * Creates an overlay for a single primary recipient.
+		 *
+		 * @param email recipient email address, can't be {@literal null}
+		 * @param attributes attributes specific to the recipient, can't be {@literal null}
+		 * @return merge overlay, never {@literal null}
+		 */
+		public static Overlay to(String email, Map<String, Object> attributes) {
+			return of(Recipient.to(email), attributes);
+		}
+
+		/**
+		 * Creates an overlay for a single recipient.
+		 *
+		 * @param recipient recipient address and type, can't be {@literal null}
+		 * @param attributes attributes specific to the recipient, can't be {@literal null}
+		 * @return merge overlay, never {@literal null}
+		 */
+		public static Overlay of(Recipient recipient, Map<String, Object> attributes) {
+			return new Overlay(Set.of(recipient), attributes);
+		}
+
+	}
+
+	/**
+	 * Builder for constructing immutable {@link MailMerge} instances.
+	 * Use {@link MailMerge#builder()} to obtain a new instance.
+	 *
+	 * @since 1.1.0
+	 */
+	@NullUnmarked
+	public static final class Builder {
+
+		private Subject subject;
+
+		private String template;
+
+		private Address from;
+
+		private Charset encoding;
+
+		private Locale locale;
+
+		private final Map<String, Object> attributes = new LinkedHashMap<>();
+
+		private final Set<Address> replyTo = new LinkedHashSet<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the subject shared by the merged mails.
+		 *
+		 * @param subject message code used to look up the localized subject
+		 * @param arguments optional arguments forwarded to the message source
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder subject(String subject, Object... arguments) {
+			return subject(new Subject(subject, arguments));
+		}
+
+		/**
+		 * Sets the subject shared by the merged mails.
+		 *
+		 * @param subject subject to be used
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder subject(Subject subject) {
+			this.subject = subject;
+			return this;
+		}
+
+		/**
+		 * Sets the name of the template that is rendered for every merged mail.
+		 *
+		 * @param template logical name of the template resource, without file extension
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder template(String template) {
+			this.template = template;
+			return this;
+		}
+
+		/**
+		 * Specify the context attribute shared by the merged mails.
+		 *
+		 * @param key name under which the attribute is stored in the template rendering context
+		 * @param value the object to expose to template expressions under {@code key}
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder attribute(String key, Object value) {
+			this.attributes.put(key, value);
+			return this;
+		}
+
+		/**
+		 * Specify the context attributes shared by the merged mails.
+		 *
+		 * @param attributes additional attributes map
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder attributes(Map<String, Object> attributes) {
+			if (attributes != null) {
+				attributes.forEach(this::attribute);
+			}
+			return this;
+		}
+
+		/**
+		 * Defines the character encoding of the merged mails.
+		 * @param encoding character set
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder encoding(Charset encoding) {
+			this.encoding = encoding;
+			return this;
+		}
+
+		/**
+		 * Sets the sender address of the merged mails.
+		 * @param from sender address
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder from(Address from) {
+			this.from = from;
+			return this;
+		}
+
+		/**
+		 * Adds the addresses that should be used as the reply-to of the merged mails.
+		 * @param addresses reply-to addresses
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder replyTo(Address... addresses) {
+			Arrays.stream(addresses).filter(Objects::nonNull).forEach(replyTo::add);
+			return this;
+		}
+
+		/**
+		 * Sets the {@link Locale language} of the merged mails. If not specified the language
+		 * from the {@link LocaleContextHolder} of the thread building the merge is used instead.
+		 * @param locale locale to be used
+		 * @return builder instance
+		 */
+		@NonNull
+		public Builder locale(Locale locale) {
+			this.locale = locale;
+			return this;
+		}
+
+		/**
+		 * Creates a new immutable {@link MailMerge} instance from this builder configuration.
+		 *
+		 * @throws IllegalArgumentException if {@code subject} has not been set or if {@code template} is blank
+		 * @return new immutable {@link MailMerge} instance; never {@literal null}
+		 */
+		@NonNull
+		public MailMerge build() {
+			Assert.notNull(subject, "Mail merge needs to have a subject set");
+			Assert.hasText(template, "Mail merge needs to have a template set");
+
+			return new MailMerge(subject, template, Collections.unmodifiableMap(new LinkedHashMap<>(attributes)),
+					from, Collections.unmodifiableSet(new LinkedHashSet<>(replyTo)),
+					encoding == null ? StandardCharsets.UTF_8 : encoding,
+					locale == null ? LocaleContextHolder.getLocale() : locale);
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+package com.konfigyr.mail;
+
+import io.micrometer.observation.Observation;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Micrometer {@link Observation.Context} that holds the {@link Mail} that is observed while it is being
+ * sent by the {@link Mailer}, rendered by the {@link TemplateEngine} or dispatched by the {@link Transport}.
+ *
+ * @author Vladimir Spasic
+ * @see MailObservationConvention
+ * @since 1.1.0
+ **/
+@NullMarked
+public class MailObservationContext extends Observation.Context {
+
+	private final Mail mail;
+	private final Stage stage;
+
+	/**
+	 * Creates a new {@link MailObservationContext} for the mail and the stage of its delivery.
+	 *
+	 * @param mail the observed mail, can't be {@literal null}
+	 * @param stage the observed delivery stage, can't be {@literal null}
+	 */
+	public MailObservationContext(Mail mail, Stage stage) {
+		Assert.notNull(mail, "Mail can not be null");
+		Assert.notNull(stage, "Mail delivery stage can not be null");
+
+		this.mail = mail;
+		this.stage = stage;
+	}
+
+	/**
+	 * Returns the mail that is being observed.
+	 *
+	 * @return the observed mail, never {@literal null}
+	 */
+	public Mail getMail() {
+		return mail;
+	}
+
+	/**
+	 * Returns the stage of the mail delivery that is being observed.
+	 *
+	 * @return the observed delivery stage, never {@literal null}
+	 */
+	public Stage getStage() {
+		return stage;
+	}
+
+	/**
+	 * Returns the {@link MailingException.ErrorCode} of the error that was recorded by the observation. Errors
+	 * that are not {@link MailingException mailing exceptions} are resolved to the error code the {@link Mailer}
+	 * would use for the failed stage.
+	 *
+	 * @return the error code, or {@literal null} when no error was recorded
+	 */
+	public MailingException.@Nullable ErrorCode getErrorCode() {
+		final Throwable error = getError();
+
+		if (error == null) {
+			return null;
+		}
+
+		final Throwable cause = error instanceof CompletionException && error.getCause() != null
+				? error.getCause() : error;
+
+		if (cause instanceof MailingException exception) {
+			return exception.getErrorCode();
+		}
+
+		return stage == Stage.RENDER ? MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED
+				: MailingException.ErrorCode.SEND_FAILED;
+	}
+
+	/**
+	 * Stages of the mail delivery that are observed.
+	 */
+	public enum Stage {
+
+		/**
+		 * The whole delivery of the mail by the {@link Mailer}, which is the parent of the other stages.
+		 */
+		SEND,
+
+		/**
+		 * Rendering of the mail template by the {@link TemplateEngine}.
+		 */
+		RENDER,
+
+		/**
+		 * Dispatching of the rendered mail by the {@link Transport}.
+		 */
+		TRANSPORT
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.konfigyr.mail;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * {@link ObservationConvention} for the observations of the mail delivery. Register a bean of this type to
+ * customize the name and the key values of the observations created by the {@link Mailer}.
+ *
+ * @author Vladimir Spasic
+ * @see DefaultMailObservationConvention
+ * @since 1.1.0
+ **/
+@NullMarked
+public interface MailObservationConvention extends ObservationConvention<MailObservationContext> {
+
+	@Override
+	default boolean supportsContext(Observation.Context context) {
+		return context instanceof MailObservationContext;
+	}
+
+}
@@ -0,0 +1,65 @@
+package com.konfigyr.mail;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Java Flight Recorder event that is emitted by the {@link Mailer} once the {@link TemplateEngine} rendered,
+ * or failed to render, the mail template.
+ * <p>
+ * The event fields are only populated when the event is enabled in the recording and its duration exceeds
+ * the configured threshold, which keeps the cost of a disabled event close to zero.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@Name(MailRenderEvent.NAME)
+@Label("Mail Render")
+@Category({ "Konfigyr", "Mail" })
+@Description("Rendering of a mail template by the template engine")
+@StackTrace(false)
+final class MailRenderEvent extends Event {
+
+	static final String NAME = "com.konfigyr.mail.MailRender";
+
+	@Label("Template")
+	@Description("Name of the rendered mail template")
+	@Nullable String template;
+
+	@Label("Size")
+	@Description("Size of the rendered template, including its plain text alternative")
+	@DataAmount
+	long size;
+
+	@Label("Error Code")
+	@Description("Error code of the rendering failure, if any")
+	@Nullable String errorCode;
+
+	/**
+	 * Ends the event and commits it, when it should be committed, with the rendered template or the
+	 * error code of the rendering failure.
+	 *
+	 * @param mail the rendered mail, can't be {@literal null}
+	 * @param rendered the rendered template, or {@literal null} when rendering failed
+	 * @param code the error code of the rendering failure, or {@literal null} when rendering succeeded
+	 */
+	void complete(Mail mail, @Nullable Template rendered, MailingException.@Nullable ErrorCode code) {
+		end();
+
+		if (shouldCommit()) {
+			template = mail.template();
+			size = rendered == null ? 0 : rendered.size();
+			errorCode = code == null ? null : code.name();
+			commit();
+		}
+	}
+
+}
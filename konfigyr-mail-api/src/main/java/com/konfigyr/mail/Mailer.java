@@ -2,6 +2,13 @@ package com.konfigyr.mail;
 
 import org.jspecify.annotations.NullMarked;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
 /**
  * Application-facing interface for sending a {@link Mail}.
  * <p>
@@ -30,6 +37,86 @@ public interface Mailer {
 	 */
 	void send(Mail mail);
 
+	/**
+	 * Sends out a {@link Mail} without blocking the calling thread while the template is
+	 * being rendered and the message dispatched.
+	 * <p>
+	 * The returned {@link CompletableFuture} completes once the mail has been handed off to
+	 * the {@link Transport}, or completes exceptionally with a {@link MailingException} when
+	 * the mail could not be rendered, dispatched or accepted for sending.
+	 * <p>
+	 * The default implementation runs {@link #send(Mail)} on the
+	 * {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}. Implementations
+	 * are encouraged to override this method and use a dedicated executor, as sending mail
+	 * is usually dominated by blocking I/O.
+	 *
+	 * @param mail mail message to be sent, can't be {@literal null}
+	 * @return future that completes when the mail is sent, never {@literal null}
+	 * @since 1.1.0
+	 */
+	default CompletableFuture<Void> sendAsync(Mail mail) {
+		return CompletableFuture.runAsync(() -> send(mail));
+	}
+
+	/**
+	 * Sends out a batch of {@link Mail mails}.
+	 * <p>
+	 * Unlike {@link #send(Mail)}, this method does not throw a {@link MailingException} when one of
+	 * the mails fails to be rendered or dispatched. Each mail gets its own {@link MailingResult}
+	 * that describes whether it was sent, or why it failed. Results are returned in the iteration
+	 * order of the given collection.
+	 * <p>
+	 * The default implementation sends each mail using {@link #send(Mail)}.
+	 *
+	 * @param mails mail messages to be sent, can't be {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 * @since 1.1.0
+	 */
+	default List<MailingResult> sendAll(Collection<Mail> mails) {
+		final List<MailingResult> results = new ArrayList<>(mails.size());
+
+		for (Mail mail : mails) {
+			try {
+				send(mail);
+				results.add(MailingResult.success(mail));
+			} catch (MailingException ex) {
+				results.add(MailingResult.failure(mail, ex));
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Sends out the mails of a {@link MailMerge}, one for each of the given {@link MailMerge.Overlay overlays}.
+	 * <p>
+	 * The overlays are consumed lazily, as the returned {@link Stream} is consumed, which allows large
+	 * mailings to be sent without loading every recipient in memory. Like {@link #sendAll(Collection)},
+	 * failures are not thrown but reported by the {@link MailingResult} of each mail. Results are returned
+	 * in the encounter order of the overlays. Closing the returned stream closes the overlay stream.
+	 * <p>
+	 * The returned stream must be closed, preferably using a {@code try}-with-resources statement, as it can
+	 * hold resources, like the overlay stream or mails that were already rendered but not yet sent, until
+	 * it is closed. This is especially important when the stream is not fully consumed.
+	 * <p>
+	 * The default implementation sends each merged mail using {@link #send(Mail)}.
+	 *
+	 * @param merge the shared part of the merged mails, can't be {@literal null}
+	 * @param overlays the recipients and their attributes, can't be {@literal null}
+	 * @return lazily evaluated results for each merged mail, never {@literal null}
+	 * @since 1.1.0
+	 */
+	default Stream<MailingResult> sendMerged(MailMerge merge, Stream<MailMerge.Overlay> overlays) {
+		return overlays.map(merge::mail).map(mail -> {
+			try {
+				send(mail);
+				return MailingResult.success(mail);
+			} catch (MailingException ex) {
+				return MailingResult.failure(mail, ex);
+			}
+		});
+	}
+
 	/**
 	 * Creates a {@link Mailer} that renders the template with the given {@link TemplateEngine} and
 	 * then dispatches the result via the given {@link Transport}.
@@ -46,4 +133,21 @@ public interface Mailer {
 		return new DefaultMailer(engine, transport);
 	}
 
+	/**
+	 * Creates a {@link Mailer} that renders the template with the given {@link TemplateEngine} and
+	 * then dispatches the result via the given {@link Transport}. Mails that are sent using the
+	 * {@link #sendAsync(Mail)} method are rendered and dispatched using the given {@link Executor}.
+	 * <p>
+	 * The lifecycle of the {@link Executor} is not managed by the created {@link Mailer}.
+	 *
+	 * @param engine    the template engine used to render the mail body; never {@literal null}
+	 * @param transport the transport used to dispatch the rendered message; never {@literal null}
+	 * @param executor  the executor used to send mails asynchronously; never {@literal null}
+	 * @return a new {@link Mailer} instance; never {@literal null}
+	 * @since 1.1.0
+	 */
+	static Mailer of(TemplateEngine engine, Transport transport, Executor executor) {
+		return new DefaultMailer(engine, transport, executor);
+	}
+
 }
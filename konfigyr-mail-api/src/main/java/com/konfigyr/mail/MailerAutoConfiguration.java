@@ -1,9 +1,27 @@
 package com.konfigyr.mail;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.jspecify.annotations.NullMarked;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Autoconfigures a {@link Mailer} bean by composing a {@link TemplateEngine} and a
@@ -15,6 +33,37 @@ import org.springframework.context.annotation.Bean;
  * {@link TemplateEngine} or {@link Transport} bean is missing the application context
  * will fail to start, and the {@link MailingFailureAnalyzer} will surface a targeted
  * error message with instructions on which library module to add.
+ * <p>
+ * Mails sent via {@link Mailer#sendAsync(Mail)} are processed by a dedicated, bounded
+ * executor that is registered under the {@value #EXECUTOR_BEAN_NAME} bean name and
+ * configured using the {@code spring.mail.async} properties. The executor is not a
+ * default autowire candidate, so it does not replace the application task executor.
+ * When the {@code spring.mail.async.virtual-threads} property is enabled, the bounded
+ * thread pool is replaced by an executor that sends each mail on its own virtual thread,
+ * limiting the number of concurrent deliveries to {@code spring.mail.async.max-concurrency}.
+ * <p>
+ * When the {@code spring.mail.outbox.enabled} property is set, the {@link Mailer} queues every mail in
+ * a durable {@link MailJournal} and returns immediately, while outbox workers send the queued mails.
+ * Mails that were not sent before the application stopped are replayed on the next start.
+ * <p>
+ * When the {@code spring.mail.retry.enabled} property is set, mails that failed with a transient error
+ * are retried by the {@link Transport}, using the backoff configured by the {@code spring.mail.retry}
+ * properties.
+ * <p>
+ * When the {@code spring.mail.rate-limit.enabled} property is set, the number of mails handed to the
+ * {@link Transport} per second, minute or hour is limited by token buckets. Mails that exceed the rate
+ * limit fail with a quota exceeded error, which is retried when retries are enabled as well. The
+ * {@code spring.mail.shaping} properties shape the traffic per recipient domain, limiting the concurrency
+ * and rate of the mails sent to each domain while serving the domains in round-robin order.
+ * <p>
+ * When the {@code spring.mail.circuit-breaker.enabled} property is set, the {@link Transport} is guarded
+ * by a circuit breaker that fails mails fast while the mail relay keeps failing, publishing a
+ * {@link CircuitBreakerEvent} on every state transition.
+ * <p>
+ * When Micrometer is present, the rendering and dispatching of mails is recorded by the {@link MailerMetrics}
+ * binder, which is bound to the {@code MeterRegistry} by the Spring Boot metrics autoconfiguration. The
+ * delivery of every mail is observed using the {@code ObservationRegistry}, when one is registered, allowing
+ * mails to be traced. The observations can be customized by a {@link MailObservationConvention} bean.
  *
  * @author Vladimir Spasic
  * @since 1.0.0
@@ -22,8 +71,26 @@ import org.springframework.context.annotation.Bean;
 @NullMarked
 @AutoConfiguration
 @ConditionalOnMissingBean(Mailer.class)
+@EnableConfigurationProperties(MailerProperties.class)
 public class MailerAutoConfiguration {
 
+	/**
+	 * Name of the {@link Executor} bean used by the {@link Mailer} to send mails asynchronously.
+	 */
+	public static final String EXECUTOR_BEAN_NAME = "mailerTaskExecutor";
+
+	static final String ASYNC_PROPERTY = MailerProperties.PREFIX + ".async";
+
+	static final String OUTBOX_PROPERTY = MailerProperties.PREFIX + ".outbox";
+
+	static final String RETRY_PROPERTY = MailerProperties.PREFIX + ".retry";
+
+	static final String RATE_LIMIT_PROPERTY = MailerProperties.PREFIX + ".rate-limit";
+
+	static final String CIRCUIT_BREAKER_PROPERTY = MailerProperties.PREFIX + ".circuit-breaker";
+
+	private static final int TIMER_WHEEL_SIZE = 512;
+
 	private final TemplateEngine templateEngine;
 	private final Transport transport;
 
@@ -39,9 +106,188 @@ public class MailerAutoConfiguration {
 		this.transport = transport;
 	}
 
+	@Bean(name = EXECUTOR_BEAN_NAME, defaultCandidate = false)
+	@ConditionalOnMissingBean(name = EXECUTOR_BEAN_NAME)
+	@ConditionalOnProperty(prefix = ASYNC_PROPERTY, name = "virtual-threads", havingValue = "false", matchIfMissing = true)
+	ThreadPoolTaskExecutor mailerTaskExecutor(MailerProperties properties) {
+		return MailerExecutors.bounded(properties.getAsync());
+	}
+
+	@Bean(name = EXECUTOR_BEAN_NAME, defaultCandidate = false)
+	@ConditionalOnMissingBean(name = EXECUTOR_BEAN_NAME)
+	@ConditionalOnProperty(prefix = ASYNC_PROPERTY, name = "virtual-threads", havingValue = "true")
+	Executor mailerVirtualThreadExecutor(MailerProperties properties) {
+		return MailerExecutors.virtual(properties.getAsync());
+	}
+
+	@Bean(destroyMethod = "close")
+	@Conditional(TimerWheelCondition.class)
+	TimerWheel mailTimerWheel(MailerProperties properties) {
+		return new TimerWheel("mail-timer", properties.getRetry().getTick(), TIMER_WHEEL_SIZE);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = CIRCUIT_BREAKER_PROPERTY, name = "enabled", havingValue = "true")
+	CircuitBreaker mailCircuitBreaker(MailerProperties properties, ApplicationEventPublisher publisher) {
+		return CircuitBreaker.create(properties.getCircuitBreaker(), publisher::publishEvent);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = OUTBOX_PROPERTY, name = "enabled", havingValue = "false", matchIfMissing = true)
+	Mailer defaultMailer(
+		@Qualifier(EXECUTOR_BEAN_NAME) Executor executor,
+		MailerProperties properties,
+		ObjectProvider<TimerWheel> timer,
+		ObjectProvider<CircuitBreaker> breaker,
+		ObjectProvider<MailerInstrumentation> instrumentations
+	) {
+		return mailer(executor, properties, timer, breaker, instrumentations);
+	}
+
 	@Bean
-	Mailer defaultMailer() {
-		return Mailer.of(templateEngine, transport);
+	@ConditionalOnMissingBean
+	MailCodec mailCodec(MailerProperties properties, ObjectProvider<AttributeEncoder<?>> encoders) {
+		return MailCodec.builder()
+			.dictionary(properties.getCodec().getDictionary())
+			.serializable(properties.getCodec().getSerializableTypes())
+			.encoders(encoders.orderedStream().toList())
+			.build();
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(prefix = OUTBOX_PROPERTY, name = "enabled", havingValue = "true")
+	MailJournal mailJournal(MailerProperties properties, MailCodec codec) throws IOException {
+		final MailerProperties.Outbox outbox = properties.getOutbox();
+		final Path directory = outbox.getDirectory().toPath();
+
+		return switch (outbox.getJournal()) {
+			case MAPPED -> MappedMailJournal.open(directory, Math.toIntExact(outbox.getSegmentSize().toBytes()),
+					codec, outbox.getSync(), outbox.getSyncInterval());
+			case FILE -> FileMailJournal.open(directory, outbox.getSegmentSize().toBytes(), codec, outbox.getSync(),
+					outbox.getSyncInterval());
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = OUTBOX_PROPERTY, name = "enabled", havingValue = "true")
+	Mailer outboxMailer(
+		@Qualifier(EXECUTOR_BEAN_NAME) Executor executor,
+		MailJournal journal,
+		MailerProperties properties,
+		ObjectProvider<TimerWheel> timer,
+		ObjectProvider<CircuitBreaker> breaker,
+		ObjectProvider<MailerInstrumentation> instrumentations
+	) throws IOException {
+		final MailerProperties.Outbox outbox = properties.getOutbox();
+		final Mailer delegate = mailer(executor, properties, timer, breaker, instrumentations);
+		final OutboxMailer mailer = new OutboxMailer(delegate, journal, outbox.getWorkers(),
+				outbox.getQueueCapacity(), outbox.getShutdownTimeout());
+
+		mailer.start();
+		return mailer;
+	}
+
+	/**
+	 * Creates the {@link Mailer} from the decorated {@link Transport}, the {@link TemplateEngine} and the
+	 * {@link Executor}, all of them instrumented by the registered {@link MailerInstrumentation instrumentations}.
+	 */
+	private Mailer mailer(Executor executor, MailerProperties properties, ObjectProvider<TimerWheel> timer,
+			ObjectProvider<CircuitBreaker> breaker, ObjectProvider<MailerInstrumentation> instrumentations) {
+		final List<MailerInstrumentation> instruments = instrumentations.orderedStream().toList();
+
+		TemplateEngine engine = templateEngine;
+		Transport decorated = transport(properties, timer, breaker);
+		Executor instrumented = executor;
+
+		for (MailerInstrumentation instrumentation : instruments) {
+			engine = instrumentation.instrument(engine);
+			decorated = instrumentation.instrument(decorated);
+			instrumented = instrumentation.instrument(instrumented);
+		}
+
+		Mailer mailer = Mailer.of(engine, decorated, instrumented);
+
+		for (MailerInstrumentation instrumentation : instruments) {
+			mailer = instrumentation.instrument(mailer);
+		}
+
+		return mailer;
+	}
+
+	/**
+	 * Decorates the {@link Transport} with the features enabled by the {@link MailerProperties}.
+	 */
+	private Transport transport(MailerProperties properties, ObjectProvider<TimerWheel> timer,
+			ObjectProvider<CircuitBreaker> breaker) {
+		Transport decorated = transport;
+
+		if (properties.getCircuitBreaker().isEnabled()) {
+			decorated = new CircuitBreakingTransport(decorated, breaker.getObject(),
+					properties.getCircuitBreaker().getErrorCodes());
+		}
+
+		if (properties.getRateLimit().isEnabled()) {
+			decorated = RateLimitingTransport.create(decorated, properties.getRateLimit(), timer.getObject());
+		}
+
+		if (properties.getShaping().isEnabled()) {
+			decorated = DomainShapingTransport.create(decorated, properties.getShaping());
+		}
+
+		if (properties.getRetry().isEnabled()) {
+			decorated = RetryingTransport.create(decorated, properties.getRetry(), timer.getObject());
+		}
+
+		return decorated;
+	}
+
+	/**
+	 * Condition that matches when one of the features that schedule their delays on the {@link TimerWheel},
+	 * retries or rate limiting, is enabled.
+	 */
+	static class TimerWheelCondition extends AnyNestedCondition {
+
+		TimerWheelCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		@ConditionalOnProperty(prefix = RETRY_PROPERTY, name = "enabled", havingValue = "true")
+		static class RetryEnabled {
+
+		}
+
+		@ConditionalOnProperty(prefix = RATE_LIMIT_PROPERTY, name = "enabled", havingValue = "true")
+		static class RateLimitEnabled {
+
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterRegistry.class)
+	static class MailerMetricsConfiguration {
+
+		@Bean
+		MailerMetrics mailerMetrics(Transport transport, ObjectProvider<TimerWheel> timer,
+				ObjectProvider<CircuitBreaker> breaker) {
+			return new MailerMetrics(ClassUtils.getShortName(ClassUtils.getUserClass(transport)),
+					timer.getIfAvailable(), breaker.getIfAvailable());
+		}
+
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(ObservationRegistry.class)
+	static class MailerObservationConfiguration {
+
+		@Bean
+		MailerObservations mailerObservations(ObjectProvider<ObservationRegistry> registry,
+				ObjectProvider<MailObservationConvention> convention) {
+			return new MailerObservations(registry.getIfAvailable(() -> ObservationRegistry.NOOP),
+					convention.getIfAvailable());
+		}
+
 	}
 
 }
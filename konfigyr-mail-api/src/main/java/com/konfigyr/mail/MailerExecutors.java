@@ -0,0 +1,170 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory methods for executors that are used by the {@link Mailer} to send mails asynchronously.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class MailerExecutors {
+
+	private MailerExecutors() {
+	}
+
+	/**
+	 * Creates a bounded {@link ThreadPoolTaskExecutor} configured from the given properties. The returned
+	 * executor is not yet initialized, it is expected to be registered as a Spring Bean that would manage
+	 * its lifecycle.
+	 * <p>
+	 * When the pool and its queue are saturated, the submitting thread is blocked until a queue slot is
+	 * freed or the submit timeout elapses, applying back-pressure to the mail producers instead of
+	 * buffering an unbounded amount of mails in memory.
+	 *
+	 * @param properties async executor properties, can't be {@literal null}
+	 * @return bounded mail executor, never {@literal null}
+	 */
+	static ThreadPoolTaskExecutor bounded(MailerProperties.Async properties) {
+		Assert.isTrue(properties.getCoreSize() >= 0, "Mailer executor core size can not be negative");
+		Assert.isTrue(properties.getMaxSize() > 0, "Mailer executor max size must be greater than zero");
+		Assert.isTrue(properties.getQueueCapacity() > 0, "Mailer executor queue capacity must be greater than zero");
+
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(properties.getCoreSize());
+		executor.setMaxPoolSize(Math.max(properties.getCoreSize(), properties.getMaxSize()));
+		executor.setQueueCapacity(properties.getQueueCapacity());
+		executor.setKeepAliveSeconds(Math.toIntExact(properties.getKeepAlive().toSeconds()));
+		executor.setThreadNamePrefix(properties.getThreadNamePrefix());
+		executor.setRejectedExecutionHandler(new BlockingSubmissionPolicy(properties.getSubmitTimeout()));
+		executor.setWaitForTasksToCompleteOnShutdown(true);
+		executor.setAwaitTerminationMillis(properties.getShutdownTimeout().toMillis());
+		return executor;
+	}
+
+	/**
+	 * Creates a {@link VirtualThreadExecutor} configured from the given properties that would start a new
+	 * virtual thread for each submitted task while limiting the number of concurrently running tasks.
+	 *
+	 * @param properties async executor properties, can't be {@literal null}
+	 * @return concurrency limited virtual thread executor, never {@literal null}
+	 */
+	static VirtualThreadExecutor virtual(MailerProperties.Async properties) {
+		Assert.isTrue(properties.getMaxConcurrency() > 0, "Mailer executor max concurrency must be greater than zero");
+
+		return new VirtualThreadExecutor(properties.getThreadNamePrefix(), properties.getMaxConcurrency(),
+				properties.getShutdownTimeout());
+	}
+
+	/**
+	 * Executor that starts a new virtual thread for every submitted task.
+	 * <p>
+	 * Sending mail is dominated by blocking socket I/O, which makes virtual threads a good
+	 * fit, but an unbounded number of concurrent deliveries would overwhelm the mail server.
+	 * The number of tasks that run at the same time is therefore limited by a
+	 * {@link Semaphore}. Tasks exceeding that limit are parked on their own virtual thread
+	 * until a permit is released, which means that submitting a task never blocks the caller.
+	 */
+	static final class VirtualThreadExecutor implements Executor, AutoCloseable {
+
+		private final ExecutorService delegate;
+		private final Semaphore permits;
+		private final Duration shutdownTimeout;
+
+		VirtualThreadExecutor(String threadNamePrefix, int maxConcurrency, Duration shutdownTimeout) {
+			this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+			this.permits = new Semaphore(maxConcurrency);
+			this.shutdownTimeout = shutdownTimeout;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			delegate.execute(() -> {
+				permits.acquireUninterruptibly();
+
+				try {
+					task.run();
+				} finally {
+					permits.release();
+				}
+			});
+		}
+
+		/**
+		 * Returns the number of tasks that can still be started without waiting for a permit.
+		 * @return available concurrency permits
+		 */
+		int availablePermits() {
+			return permits.availablePermits();
+		}
+
+		/**
+		 * Stops accepting new tasks and waits for the running and pending tasks to complete
+		 * within the configured shutdown timeout. Tasks that did not complete in time are interrupted.
+		 */
+		@Override
+		public void close() {
+			delegate.shutdown();
+
+			try {
+				if (!delegate.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+					delegate.shutdownNow();
+				}
+			} catch (InterruptedException ex) {
+				delegate.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+	/**
+	 * Rejection policy that blocks the submitting thread until the task can be added to the
+	 * executor queue, or the configured timeout elapses.
+	 */
+	static final class BlockingSubmissionPolicy implements RejectedExecutionHandler {
+
+		private final long timeout;
+
+		BlockingSubmissionPolicy(Duration timeout) {
+			Assert.isTrue(!timeout.isNegative(), "Submission timeout can not be negative");
+			this.timeout = timeout.toNanos();
+		}
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Mailer executor has been shut down");
+			}
+
+			final boolean accepted;
+
+			try {
+				accepted = executor.getQueue().offer(task, timeout, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for a free Mailer executor slot", ex);
+			}
+
+			if (!accepted) {
+				throw new RejectedExecutionException("Mailer executor queue is full, no slot was freed within "
+						+ Duration.ofNanos(timeout));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Instruments the {@link TemplateEngine} and the {@link Transport} used by the {@link Mailer} that is
+ * registered by the {@link MailerAutoConfiguration}.
+ * <p>
+ * Implementations decorate both stages of the mail delivery, rendering and dispatching, for instance to
+ * record how long each of them takes. The {@link Mailer} itself, and the {@link Executor} that it uses to
+ * send mails asynchronously, can be decorated as well, for instance to observe the whole delivery.
+ * <p>
+ * When multiple instrumentations are registered, they are applied in their
+ * {@link org.springframework.core.annotation.Order order}, the last one being the outermost decorator.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+interface MailerInstrumentation {
+
+	/**
+	 * Decorates the {@link TemplateEngine} that renders the mail templates.
+	 *
+	 * @param engine the template engine to instrument, can't be {@literal null}
+	 * @return the instrumented template engine, never {@literal null}
+	 */
+	TemplateEngine instrument(TemplateEngine engine);
+
+	/**
+	 * Decorates the {@link Transport} that dispatches the rendered mails, including all the decorators
+	 * that were enabled by the {@link MailerProperties}.
+	 *
+	 * @param transport the transport to instrument, can't be {@literal null}
+	 * @return the instrumented transport, never {@literal null}
+	 */
+	Transport instrument(Transport transport);
+
+	/**
+	 * Decorates the {@link Executor} used by the {@link Mailer} to render and send mails asynchronously.
+	 * The executor is returned as is by default.
+	 *
+	 * @param executor the executor to instrument, can't be {@literal null}
+	 * @return the instrumented executor, never {@literal null}
+	 */
+	default Executor instrument(Executor executor) {
+		return executor;
+	}
+
+	/**
+	 * Decorates the {@link Mailer} that was created from the instrumented {@link TemplateEngine},
+	 * {@link Transport} and {@link Executor}. The mailer is returned as is by default.
+	 *
+	 * @param mailer the mailer to instrument, can't be {@literal null}
+	 * @return the instrumented mailer, never {@literal null}
+	 */
+	default Mailer instrument(Mailer mailer) {
+		return mailer;
+	}
+
+}
@@ -0,0 +1,333 @@
+package com.konfigyr.mail;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link MailerInstrumentation} that records Micrometer metrics for the rendering and dispatching of mails.
+ * <p>
+ * The following meters are registered once this {@link MeterBinder} is bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@value #RENDER_TIMER}: timer of the rendered templates, tagged by the {@code template} name and
+ *       the {@code outcome}</li>
+ *   <li>{@value #MESSAGE_SIZE}: distribution of the rendered template sizes in bytes, tagged by the
+ *       {@code template} name</li>
+ *   <li>{@value #SEND_TIMER}: timer of the dispatched mails, tagged by the {@code transport}, the
+ *       {@code outcome} and the {@code error.code} of the failure</li>
+ *   <li>{@code mail.render.active} and {@code mail.send.active}: gauges of the mails that are currently
+ *       being rendered and dispatched</li>
+ *   <li>{@code mail.retry.pending}: gauge of the mails that wait to be retried, or for an asynchronous rate
+ *       limit permit, when retries or rate limiting are enabled</li>
+ *   <li>{@code mail.circuit.breaker.state}, {@code mail.circuit.breaker.failure.rate} and
+ *       {@code mail.circuit.breaker.rejected}: state of the circuit breaker, when it is enabled</li>
+ * </ul>
+ * The template names are expected to be a small, fixed set, which keeps the number of tagged meters low.
+ * Meters are looked up once and cached by the instrumented components, so recording a measurement does not
+ * require a lookup in the {@link MeterRegistry}. Mails sent before the binder is bound are not recorded.
+ * <p>
+ * The {@value #SEND_TIMER} timer measures the whole dispatch, including the time spent waiting for retries,
+ * rate limit permits or domain shaping. Mails rejected by the rate limiter or the circuit breaker are
+ * recorded with their {@code QUOTA_EXCEEDED} and {@code CONNECTION_FAILED} error codes.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class MailerMetrics implements MailerInstrumentation, MeterBinder {
+
+	static final String RENDER_TIMER = "mail.render";
+
+	static final String SEND_TIMER = "mail.send";
+
+	static final String MESSAGE_SIZE = "mail.message.size";
+
+	private static final String OUTCOME_SUCCESS = "success";
+	private static final String OUTCOME_FAILURE = "failure";
+
+	private final String transport;
+	private final @Nullable TimerWheel timer;
+	private final @Nullable CircuitBreaker breaker;
+
+	private final AtomicInteger rendering = new AtomicInteger();
+	private final AtomicInteger sending = new AtomicInteger();
+
+	private final Map<String, TemplateMeters> templates = new ConcurrentHashMap<>();
+	private final AtomicReferenceArray<@Nullable Timer> sends =
+			new AtomicReferenceArray<>(MailingException.ErrorCode.values().length + 1);
+
+	private volatile @Nullable MeterRegistry registry;
+
+	/**
+	 * Creates new {@link MailerMetrics} for the given transport.
+	 *
+	 * @param transport name of the transport used as the {@code transport} tag value, can't be {@literal null}
+	 * @param timer timer wheel used to schedule the retries, can be {@literal null}
+	 * @param breaker circuit breaker that guards the transport, can be {@literal null}
+	 */
+	MailerMetrics(String transport, @Nullable TimerWheel timer, @Nullable CircuitBreaker breaker) {
+		Assert.hasText(transport, "Transport name can not be blank");
+
+		this.transport = transport;
+		this.timer = timer;
+		this.breaker = breaker;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("mail.render.active", rendering, AtomicInteger::get)
+			.description("Number of mail templates that are currently being rendered")
+			.register(registry);
+
+		Gauge.builder("mail.send.active", sending, AtomicInteger::get)
+			.description("Number of mails that are currently being dispatched")
+			.tag("transport", transport)
+			.register(registry);
+
+		if (timer != null) {
+			Gauge.builder("mail.retry.pending", timer, TimerWheel::pending)
+				.description("Number of mails that wait to be retried or for a rate limit permit")
+				.register(registry);
+		}
+
+		if (breaker != null) {
+			for (CircuitBreakerEvent.State state : CircuitBreakerEvent.State.values()) {
+				Gauge.builder("mail.circuit.breaker.state", breaker, it -> it.state() == state ? 1 : 0)
+					.description("Whether the mail transport circuit breaker is in the given state")
+					.tag("state", tag(state.name()))
+					.register(registry);
+			}
+
+			Gauge.builder("mail.circuit.breaker.failure.rate", breaker, CircuitBreaker::failureRate)
+				.description("Failure rate of the calls recorded by the mail transport circuit breaker")
+				.register(registry);
+
+			FunctionCounter.builder("mail.circuit.breaker.rejected", breaker, CircuitBreaker::rejected)
+				.description("Number of mails rejected by the open mail transport circuit breaker")
+				.register(registry);
+		}
+
+		templates.clear();
+
+		for (int i = 0; i < sends.length(); i++) {
+			sends.set(i, null);
+		}
+
+		this.registry = registry;
+	}
+
+	@Override
+	public TemplateEngine instrument(TemplateEngine delegate) {
+		return new MeteredTemplateEngine(delegate);
+	}
+
+	@Override
+	public Transport instrument(Transport delegate) {
+		return new MeteredTransport(delegate);
+	}
+
+	@Nullable
+	private TemplateMeters templateMeters(String template) {
+		final MeterRegistry registry = this.registry;
+
+		if (registry == null) {
+			return null;
+		}
+
+		return templates.computeIfAbsent(template, name -> new TemplateMeters(
+			renderTimer(registry, name, OUTCOME_SUCCESS),
+			renderTimer(registry, name, OUTCOME_FAILURE),
+			DistributionSummary.builder(MESSAGE_SIZE)
+				.description("Size of the rendered mail templates")
+				.baseUnit("bytes")
+				.tag("template", name)
+				.register(registry)
+		));
+	}
+
+	private Timer sendTimer(MeterRegistry registry, MailingException.@Nullable ErrorCode code) {
+		final int index = code == null ? 0 : code.ordinal() + 1;
+		Timer meter = sends.get(index);
+
+		if (meter == null) {
+			meter = Timer.builder(SEND_TIMER)
+				.description("Time taken to dispatch the mails")
+				.tag("transport", transport)
+				.tag("outcome", code == null ? OUTCOME_SUCCESS : OUTCOME_FAILURE)
+				.tag("error.code", code == null ? "none" : tag(code.name()))
+				.register(registry);
+
+			sends.set(index, meter);
+		}
+
+		return meter;
+	}
+
+	private static Timer renderTimer(MeterRegistry registry, String template, String outcome) {
+		return Timer.builder(RENDER_TIMER)
+			.description("Time taken to render the mail templates")
+			.tag("template", template)
+			.tag("outcome", outcome)
+			.register(registry);
+	}
+
+	private static MailingException.ErrorCode errorCode(Throwable ex) {
+		final Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+		return cause instanceof MailingException exception ? exception.getErrorCode()
+				: MailingException.ErrorCode.SEND_FAILED;
+	}
+
+	private static String tag(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	private record TemplateMeters(Timer success, Timer failure, DistributionSummary size) {
+	}
+
+	private final class MeteredTemplateEngine implements TemplateEngine {
+
+		private final TemplateEngine delegate;
+
+		private MeteredTemplateEngine(TemplateEngine delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Template render(Mail mail) throws IOException {
+			final TemplateMeters meters = templateMeters(mail.template());
+
+			if (meters == null) {
+				return delegate.render(mail);
+			}
+
+			final long start = System.nanoTime();
+			rendering.incrementAndGet();
+
+			try {
+				final Template template = delegate.render(mail);
+				meters.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				meters.size().record(template.size());
+				return template;
+			} catch (IOException | RuntimeException ex) {
+				meters.failure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				throw ex;
+			} finally {
+				rendering.decrementAndGet();
+			}
+		}
+
+	}
+
+	private final class MeteredTransport implements Transport {
+
+		private final Transport delegate;
+
+		private MeteredTransport(Transport delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void send(Mail mail, Template template) {
+			final MeterRegistry registry = MailerMetrics.this.registry;
+
+			if (registry == null) {
+				delegate.send(mail, template);
+				return;
+			}
+
+			final long start = System.nanoTime();
+			sending.incrementAndGet();
+
+			try {
+				delegate.send(mail, template);
+				record(registry, null, start, 1);
+			} catch (RuntimeException ex) {
+				record(registry, errorCode(ex), start, 1);
+				throw ex;
+			} finally {
+				sending.decrementAndGet();
+			}
+		}
+
+		@Override
+		public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+			final MeterRegistry registry = MailerMetrics.this.registry;
+
+			if (registry == null) {
+				return delegate.sendAsync(mail, template);
+			}
+
+			final long start = System.nanoTime();
+			sending.incrementAndGet();
+
+			CompletableFuture<Void> future;
+
+			try {
+				future = delegate.sendAsync(mail, template);
+			} catch (RuntimeException ex) {
+				future = CompletableFuture.failedFuture(ex);
+			}
+
+			return future.whenComplete((ignored, ex) -> {
+				sending.decrementAndGet();
+				record(registry, ex == null ? null : errorCode(ex), start, 1);
+			});
+		}
+
+		/**
+		 * Dispatches the batch using the delegate transport and records the result of every mail in the
+		 * batch, using the average time it took to dispatch a mail of the batch.
+		 *
+		 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+		 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+		 * @return the results for each mail in the batch, never {@literal null}
+		 */
+		@Override
+		public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+			final MeterRegistry registry = MailerMetrics.this.registry;
+
+			if (registry == null || mails.isEmpty()) {
+				return delegate.sendAll(mails, templates);
+			}
+
+			final long start = System.nanoTime();
+			sending.addAndGet(mails.size());
+
+			try {
+				final List<MailingResult> results = delegate.sendAll(mails, templates);
+
+				for (MailingResult result : results) {
+					record(registry, result.errorCode(), start, results.size());
+				}
+
+				return results;
+			} finally {
+				sending.addAndGet(-mails.size());
+			}
+		}
+
+		private void record(MeterRegistry registry, MailingException.@Nullable ErrorCode code, long start,
+				int count) {
+			sendTimer(registry, code).record((System.nanoTime() - start) / count, TimeUnit.NANOSECONDS);
+		}
+
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.konfigyr.mail;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * {@link MailerInstrumentation} that creates Micrometer {@link Observation observations} for the delivery of
+ * mails, which are exported as spans by the configured tracer.
+ * <p>
+ * Every mail sent by the {@link Mailer} is observed by a {@link MailObservationContext.Stage#SEND send}
+ * observation, which is the parent of the {@link MailObservationContext.Stage#RENDER render} and the
+ * {@link MailObservationContext.Stage#TRANSPORT transport} observations. Mails that are sent asynchronously
+ * are rendered on the {@link Mailer} executor, which is instrumented to propagate the parent observation to
+ * the executor thread. Batches sent using the {@link Mailer#sendAll(Collection)} and the
+ * {@link Mailer#sendMerged(MailMerge, Stream)} methods are not observed as a whole, only the rendering of each
+ * mail in the batch is observed.
+ * <p>
+ * When the {@link ObservationRegistry} is a no-op registry, or no observation handlers are registered, the
+ * instrumented components invoke their delegates directly without creating any observation.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class MailerObservations implements MailerInstrumentation {
+
+	private static final MailObservationConvention DEFAULT_CONVENTION = new DefaultMailObservationConvention();
+
+	private final ObservationRegistry registry;
+	private final @Nullable MailObservationConvention convention;
+
+	/**
+	 * Creates new {@link MailerObservations} that are registered in the given registry.
+	 *
+	 * @param registry the observation registry, can't be {@literal null}
+	 * @param convention the custom observation convention, can be {@literal null}
+	 */
+	MailerObservations(ObservationRegistry registry, @Nullable MailObservationConvention convention) {
+		Assert.notNull(registry, "Observation registry can not be null");
+
+		this.registry = registry;
+		this.convention = convention;
+	}
+
+	@Override
+	public Mailer instrument(Mailer mailer) {
+		return new ObservedMailer(mailer);
+	}
+
+	@Override
+	public Executor instrument(Executor executor) {
+		return task -> {
+			final Observation parent = registry.isNoop() ? null : registry.getCurrentObservation();
+			executor.execute(parent == null ? task : () -> parent.scoped(task));
+		};
+	}
+
+	@Override
+	public TemplateEngine instrument(TemplateEngine engine) {
+		return mail -> {
+			if (registry.isNoop()) {
+				return engine.render(mail);
+			}
+			return observation(mail, MailObservationContext.Stage.RENDER).observeChecked(() -> engine.render(mail));
+		};
+	}
+
+	@Override
+	public Transport instrument(Transport transport) {
+		return new ObservedTransport(transport);
+	}
+
+	private Observation observation(Mail mail, MailObservationContext.Stage stage) {
+		return Observation.createNotStarted(convention, DEFAULT_CONVENTION,
+				() -> new MailObservationContext(mail, stage), registry);
+	}
+
+	/**
+	 * Starts the observation and stops it once the future, returned by the action that is invoked within
+	 * the observation scope, completes.
+	 */
+	private static CompletableFuture<Void> observeAsync(Observation observation,
+			Supplier<CompletableFuture<Void>> action) {
+		observation.start();
+
+		CompletableFuture<Void> future;
+
+		try (Observation.Scope ignored = observation.openScope()) {
+			future = action.get();
+		} catch (RuntimeException ex) {
+			future = CompletableFuture.failedFuture(ex);
+		}
+
+		return future.whenComplete((result, ex) -> {
+			if (ex != null) {
+				observation.error(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+			}
+			observation.stop();
+		});
+	}
+
+	private final class ObservedMailer implements Mailer {
+
+		private final Mailer delegate;
+
+		private ObservedMailer(Mailer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void send(Mail mail) {
+			if (registry.isNoop()) {
+				delegate.send(mail);
+			} else {
+				observation(mail, MailObservationContext.Stage.SEND).observe(() -> delegate.send(mail));
+			}
+		}
+
+		@Override
+		public CompletableFuture<Void> sendAsync(Mail mail) {
+			if (registry.isNoop()) {
+				return delegate.sendAsync(mail);
+			}
+			return observeAsync(observation(mail, MailObservationContext.Stage.SEND), () -> delegate.sendAsync(mail));
+		}
+
+		@Override
+		public List<MailingResult> sendAll(Collection<Mail> mails) {
+			return delegate.sendAll(mails);
+		}
+
+		@Override
+		public Stream<MailingResult> sendMerged(MailMerge merge, Stream<MailMerge.Overlay> overlays) {
+			return delegate.sendMerged(merge, overlays);
+		}
+
+	}
+
+	private final class ObservedTransport implements Transport {
+
+		private final Transport delegate;
+
+		private ObservedTransport(Transport delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void send(Mail mail, Template template) {
+			if (registry.isNoop()) {
+				delegate.send(mail, template);
+			} else {
+				observation(mail, MailObservationContext.Stage.TRANSPORT).observe(() -> delegate.send(mail, template));
+			}
+		}
+
+		@Override
+		public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+			if (registry.isNoop()) {
+				return delegate.sendAsync(mail, template);
+			}
+			return observeAsync(observation(mail, MailObservationContext.Stage.TRANSPORT),
+					() -> delegate.sendAsync(mail, template));
+		}
+
+		@Override
+		public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+			return delegate.sendAll(mails, templates);
+		}
+
+	}
+
+}
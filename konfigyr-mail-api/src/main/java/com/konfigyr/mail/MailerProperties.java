@@ -0,0 +1,1487 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration properties used by the {@link MailerAutoConfiguration} to customize the
+ * {@link Mailer} pipeline.
+ * <p>
+ * Properties share the {@code spring.mail} namespace with the Spring Boot mail properties,
+ * each feature being configured in its own nested group, e.g. {@code spring.mail.async}.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@ConfigurationProperties(prefix = MailerProperties.PREFIX)
+public class MailerProperties {
+
+	static final String PREFIX = "spring.mail";
+
+	/**
+	 * Configuration of the executor that is used by {@link Mailer#sendAsync(Mail)}.
+	 */
+	private final Async async = new Async();
+
+	/**
+	 * Configuration of the durable mail outbox.
+	 */
+	private final Outbox outbox = new Outbox();
+
+	/**
+	 * Configuration of the binary mail codec.
+	 */
+	private final Codec codec = new Codec();
+
+	/**
+	 * Configuration of the retries of mails that failed with a transient error.
+	 */
+	private final Retry retry = new Retry();
+
+	/**
+	 * Configuration of the rate limit applied to the mail transport.
+	 */
+	private final RateLimit rateLimit = new RateLimit();
+
+	/**
+	 * Configuration of the traffic shaping per recipient domain.
+	 */
+	private final Shaping shaping = new Shaping();
+
+	/**
+	 * Configuration of the circuit breaker that guards the mail transport.
+	 */
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+	/** Creates a new {@link MailerProperties} instance. */
+	public MailerProperties() {
+	}
+
+	/**
+	 * Returns the configuration of the executor used to send mails asynchronously.
+	 * @return async executor properties, never {@literal null}
+	 */
+	public Async getAsync() {
+		return async;
+	}
+
+	/**
+	 * Returns the configuration of the durable mail outbox.
+	 * @return outbox properties, never {@literal null}
+	 */
+	public Outbox getOutbox() {
+		return outbox;
+	}
+
+	/**
+	 * Returns the configuration of the binary mail codec.
+	 * @return mail codec properties, never {@literal null}
+	 */
+	public Codec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Returns the configuration of the retries of mails that failed with a transient error.
+	 * @return retry properties, never {@literal null}
+	 */
+	public Retry getRetry() {
+		return retry;
+	}
+
+	/**
+	 * Returns the configuration of the rate limit applied to the mail transport.
+	 * @return rate limit properties, never {@literal null}
+	 */
+	public RateLimit getRateLimit() {
+		return rateLimit;
+	}
+
+	/**
+	 * Returns the configuration of the traffic shaping per recipient domain.
+	 * @return domain shaping properties, never {@literal null}
+	 */
+	public Shaping getShaping() {
+		return shaping;
+	}
+
+	/**
+	 * Returns the configuration of the circuit breaker that guards the mail transport.
+	 * @return circuit breaker properties, never {@literal null}
+	 */
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Configuration of the bounded executor that drains the mails submitted via
+	 * {@link Mailer#sendAsync(Mail)}.
+	 * <p>
+	 * The executor starts with {@code core-size} threads and buffers up to
+	 * {@code queue-capacity} pending mails. Once the queue is full, additional threads are
+	 * started up to {@code max-size}. When both the queue and the pool are saturated, the
+	 * submitting thread waits up to {@code submit-timeout} for a free queue slot before
+	 * the submission is rejected.
+	 * <p>
+	 * When {@code virtual-threads} is enabled, the pool settings are ignored. Every mail is
+	 * processed on a new virtual thread and {@code max-concurrency} limits how many of them
+	 * render and dispatch mails at the same time.
+	 */
+	public static class Async {
+
+		/**
+		 * Number of threads that are kept in the pool, even when idle.
+		 */
+		private int coreSize = 2;
+
+		/**
+		 * Maximum number of threads that can be started when the queue is full.
+		 */
+		private int maxSize = 8;
+
+		/**
+		 * Maximum number of mails that can wait in the queue to be sent.
+		 */
+		private int queueCapacity = 1000;
+
+		/**
+		 * Time limit for which threads above the core size may remain idle before being terminated.
+		 */
+		private Duration keepAlive = Duration.ofSeconds(60);
+
+		/**
+		 * Time limit for which the submitting thread waits for a free queue slot when the
+		 * executor is saturated. Use zero to reject the submission immediately.
+		 */
+		private Duration submitTimeout = Duration.ofSeconds(5);
+
+		/**
+		 * Time limit for which the executor waits for pending mails to be sent on shutdown.
+		 */
+		private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+		/**
+		 * Prefix used for the names of the executor threads.
+		 */
+		private String threadNamePrefix = "mailer-";
+
+		/**
+		 * Whether each mail should be rendered and sent on its own virtual thread instead of
+		 * using a bounded platform thread pool.
+		 */
+		private boolean virtualThreads = false;
+
+		/**
+		 * Maximum number of mails that are concurrently rendered and sent when virtual threads
+		 * are used. Additional mails wait, on their own virtual thread, for a permit.
+		 */
+		private int maxConcurrency = 256;
+
+		/** Creates a new {@link Async} instance. */
+		public Async() {
+		}
+
+		/**
+		 * Returns the number of threads that are kept in the pool.
+		 * @return core pool size
+		 */
+		public int getCoreSize() {
+			return coreSize;
+		}
+
+		/**
+		 * Sets the number of threads that are kept in the pool.
+		 * @param coreSize core pool size
+		 */
+		public void setCoreSize(int coreSize) {
+			this.coreSize = coreSize;
+		}
+
+		/**
+		 * Returns the maximum number of threads that can be started.
+		 * @return maximum pool size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Sets the maximum number of threads that can be started.
+		 * @param maxSize maximum pool size
+		 */
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Returns the maximum number of mails that can wait in the queue.
+		 * @return queue capacity
+		 */
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		/**
+		 * Sets the maximum number of mails that can wait in the queue.
+		 * @param queueCapacity queue capacity
+		 */
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		/**
+		 * Returns the time limit for which idle threads above the core size are kept alive.
+		 * @return thread keep alive duration
+		 */
+		public Duration getKeepAlive() {
+			return keepAlive;
+		}
+
+		/**
+		 * Sets the time limit for which idle threads above the core size are kept alive.
+		 * @param keepAlive thread keep alive duration
+		 */
+		public void setKeepAlive(Duration keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		/**
+		 * Returns the time limit for which the submitting thread waits for a free queue slot.
+		 * @return submission timeout
+		 */
+		public Duration getSubmitTimeout() {
+			return submitTimeout;
+		}
+
+		/**
+		 * Sets the time limit for which the submitting thread waits for a free queue slot.
+		 * @param submitTimeout submission timeout
+		 */
+		public void setSubmitTimeout(Duration submitTimeout) {
+			this.submitTimeout = submitTimeout;
+		}
+
+		/**
+		 * Returns the time limit for which pending mails are sent on shutdown.
+		 * @return shutdown timeout
+		 */
+		public Duration getShutdownTimeout() {
+			return shutdownTimeout;
+		}
+
+		/**
+		 * Sets the time limit for which pending mails are sent on shutdown.
+		 * @param shutdownTimeout shutdown timeout
+		 */
+		public void setShutdownTimeout(Duration shutdownTimeout) {
+			this.shutdownTimeout = shutdownTimeout;
+		}
+
+		/**
+		 * Returns the prefix used for the names of the executor threads.
+		 * @return thread name prefix
+		 */
+		public String getThreadNamePrefix() {
+			return threadNamePrefix;
+		}
+
+		/**
+		 * Sets the prefix used for the names of the executor threads.
+		 * @param threadNamePrefix thread name prefix
+		 */
+		public void setThreadNamePrefix(String threadNamePrefix) {
+			this.threadNamePrefix = threadNamePrefix;
+		}
+
+		/**
+		 * Returns whether mails should be sent using virtual threads.
+		 * @return {@literal true} when virtual threads should be used
+		 */
+		public boolean isVirtualThreads() {
+			return virtualThreads;
+		}
+
+		/**
+		 * Sets whether mails should be sent using virtual threads.
+		 * @param virtualThreads {@literal true} when virtual threads should be used
+		 */
+		public void setVirtualThreads(boolean virtualThreads) {
+			this.virtualThreads = virtualThreads;
+		}
+
+		/**
+		 * Returns the maximum number of mails that are concurrently sent using virtual threads.
+		 * @return maximum concurrency
+		 */
+		public int getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		/**
+		 * Sets the maximum number of mails that are concurrently sent using virtual threads.
+		 * @param maxConcurrency maximum concurrency
+		 */
+		public void setMaxConcurrency(int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+	}
+
+	/**
+	 * Configuration of the durable outbox that queues the mails in a local journal before they are sent.
+	 * <p>
+	 * When the outbox is enabled, the {@link Mailer} appends each mail to the journal located in the
+	 * {@code directory} and returns immediately. The mails are then sent by {@code workers} threads, and
+	 * the mails that were not sent before the application stopped are replayed on the next start.
+	 */
+	public static class Outbox {
+
+		/**
+		 * Whether mails should be queued in the durable outbox before they are sent.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Directory where the outbox journal files are stored.
+		 */
+		private File directory = new File("mail-outbox");
+
+		/**
+		 * Number of threads that send the queued mails.
+		 */
+		private int workers = 2;
+
+		/**
+		 * Maximum number of journaled mails that are kept in memory while they wait to be sent.
+		 */
+		private int queueCapacity = 10_000;
+
+		/**
+		 * Type of the journal that stores the queued mails.
+		 */
+		private Journal journal = Journal.MAPPED;
+
+		/**
+		 * Size of the journal segment files. Mails that are larger than the segment can not be queued
+		 * by the memory-mapped journal, the file journal writes them into a segment of their own.
+		 */
+		private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+		/**
+		 * Policy that defines when the appended mails are flushed to the storage device, protecting the
+		 * queued mails from an operating system crash at the cost of the throughput.
+		 */
+		private MailJournal.Sync sync = MailJournal.Sync.NONE;
+
+		/**
+		 * Time limit for which the appended mails are collected before they are flushed together,
+		 * used by the group sync policy.
+		 */
+		private Duration syncInterval = Duration.ofMillis(5);
+
+		/**
+		 * Time limit for which the outbox waits for the queued mails to be sent on shutdown.
+		 */
+		private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+		/** Creates a new {@link Outbox} instance. */
+		public Outbox() {
+		}
+
+		/**
+		 * Returns whether mails should be queued in the durable outbox.
+		 * @return {@literal true} when the outbox is enabled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether mails should be queued in the durable outbox.
+		 * @param enabled {@literal true} when the outbox is enabled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the directory where the outbox journal files are stored.
+		 * @return journal directory
+		 */
+		public File getDirectory() {
+			return directory;
+		}
+
+		/**
+		 * Sets the directory where the outbox journal files are stored.
+		 * @param directory journal directory
+		 */
+		public void setDirectory(File directory) {
+			this.directory = directory;
+		}
+
+		/**
+		 * Returns the number of threads that send the queued mails.
+		 * @return number of outbox workers
+		 */
+		public int getWorkers() {
+			return workers;
+		}
+
+		/**
+		 * Sets the number of threads that send the queued mails.
+		 * @param workers number of outbox workers
+		 */
+		public void setWorkers(int workers) {
+			this.workers = workers;
+		}
+
+		/**
+		 * Returns the maximum number of mails kept in memory while they wait to be sent.
+		 * @return queue capacity
+		 */
+		public int getQueueCapacity() {
+			return queueCapacity;
+		}
+
+		/**
+		 * Sets the maximum number of mails kept in memory while they wait to be sent.
+		 * @param queueCapacity queue capacity
+		 */
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+
+		/**
+		 * Returns the type of the journal that stores the queued mails.
+		 * @return journal type
+		 */
+		public Journal getJournal() {
+			return journal;
+		}
+
+		/**
+		 * Sets the type of the journal that stores the queued mails.
+		 * @param journal journal type
+		 */
+		public void setJournal(Journal journal) {
+			this.journal = journal;
+		}
+
+		/**
+		 * Returns the size of the journal segment files.
+		 * @return journal segment size
+		 */
+		public DataSize getSegmentSize() {
+			return segmentSize;
+		}
+
+		/**
+		 * Sets the size of the journal segment files.
+		 * @param segmentSize journal segment size
+		 */
+		public void setSegmentSize(DataSize segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		/**
+		 * Returns the policy that defines when the appended mails are flushed to the storage device.
+		 * @return journal sync policy
+		 */
+		public MailJournal.Sync getSync() {
+			return sync;
+		}
+
+		/**
+		 * Sets the policy that defines when the appended mails are flushed to the storage device.
+		 * @param sync journal sync policy
+		 */
+		public void setSync(MailJournal.Sync sync) {
+			this.sync = sync;
+		}
+
+		/**
+		 * Returns the time limit for which the appended mails are collected before they are flushed together.
+		 * @return group sync interval
+		 */
+		public Duration getSyncInterval() {
+			return syncInterval;
+		}
+
+		/**
+		 * Sets the time limit for which the appended mails are collected before they are flushed together.
+		 * @param syncInterval group sync interval
+		 */
+		public void setSyncInterval(Duration syncInterval) {
+			this.syncInterval = syncInterval;
+		}
+
+		/**
+		 * Returns the time limit for which queued mails are sent on shutdown.
+		 * @return shutdown timeout
+		 */
+		public Duration getShutdownTimeout() {
+			return shutdownTimeout;
+		}
+
+		/**
+		 * Sets the time limit for which queued mails are sent on shutdown.
+		 * @param shutdownTimeout shutdown timeout
+		 */
+		public void setShutdownTimeout(Duration shutdownTimeout) {
+			this.shutdownTimeout = shutdownTimeout;
+		}
+
+	}
+
+	/**
+	 * Configuration of the retries of mails that failed with a transient {@link MailingException.ErrorCode}.
+	 * <p>
+	 * Mails are only retried when their error code has a retry policy, by default those are the
+	 * {@code connection-failed} and {@code quota-exceeded} error codes. The policies use the backoff
+	 * defined by this group, unless they override it. Template rendering, message preparation and
+	 * authentication failures can not be retried.
+	 */
+	public static class Retry {
+
+		/**
+		 * Whether mails that failed with a transient error should be retried.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of attempts to send a mail, including the first one.
+		 */
+		private int maxAttempts = 3;
+
+		/**
+		 * Delay before the first retry.
+		 */
+		private Duration initialBackoff = Duration.ofSeconds(1);
+
+		/**
+		 * Factor by which the delay grows after each retry.
+		 */
+		private double multiplier = 2;
+
+		/**
+		 * Maximum delay before a retry.
+		 */
+		private Duration maxBackoff = Duration.ofMinutes(1);
+
+		/**
+		 * Fraction, between 0 and 1, by which the delays are randomized in both directions.
+		 */
+		private double jitter = 0.2;
+
+		/**
+		 * Resolution of the timer that schedules the retries and the rate limited asynchronous dispatches,
+		 * which are delayed by up to one tick.
+		 */
+		private Duration tick = Duration.ofMillis(10);
+
+		/**
+		 * Maximum number of retries that are concurrently sent. Retries that fall due while the limit is
+		 * reached wait, on their own virtual thread, for a permit.
+		 */
+		private int maxConcurrency = 16;
+
+		/**
+		 * Retry policies for each error code that should be retried.
+		 */
+		private Map<MailingException.ErrorCode, Policy> policies = new EnumMap<>(MailingException.ErrorCode.class);
+
+		/** Creates a new {@link Retry} instance. */
+		public Retry() {
+			policies.put(MailingException.ErrorCode.CONNECTION_FAILED, new Policy());
+			policies.put(MailingException.ErrorCode.QUOTA_EXCEEDED, new Policy());
+		}
+
+		/**
+		 * Returns whether mails that failed with a transient error should be retried.
+		 * @return {@literal true} when retries are enabled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether mails that failed with a transient error should be retried.
+		 * @param enabled {@literal true} when retries are enabled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of attempts to send a mail.
+		 * @return maximum number of attempts
+		 */
+		public int getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		/**
+		 * Sets the maximum number of attempts to send a mail.
+		 * @param maxAttempts maximum number of attempts
+		 */
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		/**
+		 * Returns the delay before the first retry.
+		 * @return initial backoff
+		 */
+		public Duration getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		/**
+		 * Sets the delay before the first retry.
+		 * @param initialBackoff initial backoff
+		 */
+		public void setInitialBackoff(Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		/**
+		 * Returns the factor by which the delay grows after each retry.
+		 * @return backoff multiplier
+		 */
+		public double getMultiplier() {
+			return multiplier;
+		}
+
+		/**
+		 * Sets the factor by which the delay grows after each retry.
+		 * @param multiplier backoff multiplier
+		 */
+		public void setMultiplier(double multiplier) {
+			this.multiplier = multiplier;
+		}
+
+		/**
+		 * Returns the maximum delay before a retry.
+		 * @return maximum backoff
+		 */
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		/**
+		 * Sets the maximum delay before a retry.
+		 * @param maxBackoff maximum backoff
+		 */
+		public void setMaxBackoff(Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		/**
+		 * Returns the fraction by which the delays are randomized.
+		 * @return backoff jitter
+		 */
+		public double getJitter() {
+			return jitter;
+		}
+
+		/**
+		 * Sets the fraction by which the delays are randomized.
+		 * @param jitter backoff jitter
+		 */
+		public void setJitter(double jitter) {
+			this.jitter = jitter;
+		}
+
+		/**
+		 * Returns the resolution of the timer that schedules the retries.
+		 * @return timer tick duration
+		 */
+		public Duration getTick() {
+			return tick;
+		}
+
+		/**
+		 * Sets the resolution of the timer that schedules the retries.
+		 * @param tick timer tick duration
+		 */
+		public void setTick(Duration tick) {
+			this.tick = tick;
+		}
+
+		/**
+		 * Returns the maximum number of retries that are concurrently sent.
+		 * @return maximum retry concurrency
+		 */
+		public int getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		/**
+		 * Sets the maximum number of retries that are concurrently sent.
+		 * @param maxConcurrency maximum retry concurrency
+		 */
+		public void setMaxConcurrency(int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		/**
+		 * Returns the retry policies for each error code that should be retried.
+		 * @return retry policies
+		 */
+		public Map<MailingException.ErrorCode, Policy> getPolicies() {
+			return policies;
+		}
+
+		/**
+		 * Sets the retry policies for each error code that should be retried.
+		 * @param policies retry policies
+		 */
+		public void setPolicies(Map<MailingException.ErrorCode, Policy> policies) {
+			this.policies = policies;
+		}
+
+	}
+
+	/**
+	 * Retry policy for a specific {@link MailingException.ErrorCode}. Unset values are inherited from the
+	 * {@link Retry} configuration.
+	 */
+	public static class Policy {
+
+		/**
+		 * Maximum number of attempts to send a mail, including the first one.
+		 */
+		private @Nullable Integer maxAttempts;
+
+		/**
+		 * Delay before the first retry.
+		 */
+		private @Nullable Duration initialBackoff;
+
+		/**
+		 * Factor by which the delay grows after each retry.
+		 */
+		private @Nullable Double multiplier;
+
+		/**
+		 * Maximum delay before a retry.
+		 */
+		private @Nullable Duration maxBackoff;
+
+		/**
+		 * Fraction, between 0 and 1, by which the delays are randomized in both directions.
+		 */
+		private @Nullable Double jitter;
+
+		/** Creates a new {@link Policy} instance. */
+		public Policy() {
+		}
+
+		/**
+		 * Returns the maximum number of attempts to send a mail.
+		 * @return maximum number of attempts, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Integer getMaxAttempts() {
+			return maxAttempts;
+		}
+
+		/**
+		 * Sets the maximum number of attempts to send a mail.
+		 * @param maxAttempts maximum number of attempts
+		 */
+		public void setMaxAttempts(@Nullable Integer maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+
+		/**
+		 * Returns the delay before the first retry.
+		 * @return initial backoff, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Duration getInitialBackoff() {
+			return initialBackoff;
+		}
+
+		/**
+		 * Sets the delay before the first retry.
+		 * @param initialBackoff initial backoff
+		 */
+		public void setInitialBackoff(@Nullable Duration initialBackoff) {
+			this.initialBackoff = initialBackoff;
+		}
+
+		/**
+		 * Returns the factor by which the delay grows after each retry.
+		 * @return backoff multiplier, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Double getMultiplier() {
+			return multiplier;
+		}
+
+		/**
+		 * Sets the factor by which the delay grows after each retry.
+		 * @param multiplier backoff multiplier
+		 */
+		public void setMultiplier(@Nullable Double multiplier) {
+			this.multiplier = multiplier;
+		}
+
+		/**
+		 * Returns the maximum delay before a retry.
+		 * @return maximum backoff, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Duration getMaxBackoff() {
+			return maxBackoff;
+		}
+
+		/**
+		 * Sets the maximum delay before a retry.
+		 * @param maxBackoff maximum backoff
+		 */
+		public void setMaxBackoff(@Nullable Duration maxBackoff) {
+			this.maxBackoff = maxBackoff;
+		}
+
+		/**
+		 * Returns the fraction by which the delays are randomized.
+		 * @return backoff jitter, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Double getJitter() {
+			return jitter;
+		}
+
+		/**
+		 * Sets the fraction by which the delays are randomized.
+		 * @param jitter backoff jitter
+		 */
+		public void setJitter(@Nullable Double jitter) {
+			this.jitter = jitter;
+		}
+
+	}
+
+	/**
+	 * Configuration of the token bucket rate limiter that limits how many mails are handed to the
+	 * {@link Transport} per second, minute or hour.
+	 * <p>
+	 * Each configured limit is enforced by its own token bucket that allows bursts of up to the limit.
+	 * When no permits are available, the {@code block} mode waits up to {@code max-wait} for a permit,
+	 * while the {@code fail-fast} mode fails the mail immediately. Mails that do not obtain a permit
+	 * fail with the {@code quota-exceeded} error code.
+	 */
+	public static class RateLimit {
+
+		/**
+		 * Whether the rate at which mails are sent should be limited.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of mails sent per second.
+		 */
+		private @Nullable Integer perSecond;
+
+		/**
+		 * Maximum number of mails sent per minute.
+		 */
+		private @Nullable Integer perMinute;
+
+		/**
+		 * Maximum number of mails sent per hour.
+		 */
+		private @Nullable Integer perHour;
+
+		/**
+		 * Whether mails should wait for a permit or fail immediately when the rate limit is exceeded.
+		 */
+		private RateLimitMode mode = RateLimitMode.BLOCK;
+
+		/**
+		 * Maximum time a mail waits for a permit in the blocking mode.
+		 */
+		private Duration maxWait = Duration.ofSeconds(30);
+
+		/** Creates a new {@link RateLimit} instance. */
+		public RateLimit() {
+		}
+
+		/**
+		 * Returns whether the rate at which mails are sent should be limited.
+		 * @return {@literal true} when the rate limit is enabled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether the rate at which mails are sent should be limited.
+		 * @param enabled {@literal true} when the rate limit is enabled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent per second.
+		 * @return mails per second, or {@literal null} when not limited
+		 */
+		@Nullable
+		public Integer getPerSecond() {
+			return perSecond;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent per second.
+		 * @param perSecond mails per second
+		 */
+		public void setPerSecond(@Nullable Integer perSecond) {
+			this.perSecond = perSecond;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent per minute.
+		 * @return mails per minute, or {@literal null} when not limited
+		 */
+		@Nullable
+		public Integer getPerMinute() {
+			return perMinute;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent per minute.
+		 * @param perMinute mails per minute
+		 */
+		public void setPerMinute(@Nullable Integer perMinute) {
+			this.perMinute = perMinute;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent per hour.
+		 * @return mails per hour, or {@literal null} when not limited
+		 */
+		@Nullable
+		public Integer getPerHour() {
+			return perHour;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent per hour.
+		 * @param perHour mails per hour
+		 */
+		public void setPerHour(@Nullable Integer perHour) {
+			this.perHour = perHour;
+		}
+
+		/**
+		 * Returns whether mails wait for a permit or fail immediately when the rate limit is exceeded.
+		 * @return rate limit mode, never {@literal null}
+		 */
+		public RateLimitMode getMode() {
+			return mode;
+		}
+
+		/**
+		 * Sets whether mails wait for a permit or fail immediately when the rate limit is exceeded.
+		 * @param mode rate limit mode
+		 */
+		public void setMode(RateLimitMode mode) {
+			this.mode = mode;
+		}
+
+		/**
+		 * Returns the maximum time a mail waits for a permit in the blocking mode.
+		 * @return maximum wait time, never {@literal null}
+		 */
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		/**
+		 * Sets the maximum time a mail waits for a permit in the blocking mode.
+		 * @param maxWait maximum wait time
+		 */
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+	}
+
+	/**
+	 * Configuration of the scheduler that shapes the outgoing mail traffic per recipient domain.
+	 * <p>
+	 * Mails are queued per domain of their primary recipient, and the queues are served in round-robin
+	 * order. Each domain is limited to {@code max-concurrency} concurrently sent mails and, optionally,
+	 * to {@code per-second} and {@code per-minute} sent mails. Limits for specific domains are defined
+	 * in the {@code domains} map, e.g. {@code spring.mail.shaping.domains[gmail.com].per-second=5},
+	 * where each limit that is not set uses the default value defined by this group.
+	 */
+	public static class Shaping {
+
+		/**
+		 * Whether the outgoing mail traffic should be shaped per recipient domain.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of mails that are sent concurrently to the same domain.
+		 */
+		private int maxConcurrency = 4;
+
+		/**
+		 * Maximum number of mails sent to the same domain per second.
+		 */
+		private @Nullable Integer perSecond;
+
+		/**
+		 * Maximum number of mails sent to the same domain per minute.
+		 */
+		private @Nullable Integer perMinute;
+
+		/**
+		 * Limits for specific recipient domains.
+		 */
+		private Map<String, Domain> domains = new LinkedHashMap<>();
+
+		/** Creates a new {@link Shaping} instance. */
+		public Shaping() {
+		}
+
+		/**
+		 * Returns whether the outgoing mail traffic should be shaped per recipient domain.
+		 * @return {@literal true} when domain shaping is enabled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether the outgoing mail traffic should be shaped per recipient domain.
+		 * @param enabled {@literal true} when domain shaping is enabled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of mails that are sent concurrently to the same domain.
+		 * @return maximum domain concurrency
+		 */
+		public int getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		/**
+		 * Sets the maximum number of mails that are sent concurrently to the same domain.
+		 * @param maxConcurrency maximum domain concurrency
+		 */
+		public void setMaxConcurrency(int maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent to the same domain per second.
+		 * @return mails per second, or {@literal null} when not limited
+		 */
+		@Nullable
+		public Integer getPerSecond() {
+			return perSecond;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent to the same domain per second.
+		 * @param perSecond mails per second
+		 */
+		public void setPerSecond(@Nullable Integer perSecond) {
+			this.perSecond = perSecond;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent to the same domain per minute.
+		 * @return mails per minute, or {@literal null} when not limited
+		 */
+		@Nullable
+		public Integer getPerMinute() {
+			return perMinute;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent to the same domain per minute.
+		 * @param perMinute mails per minute
+		 */
+		public void setPerMinute(@Nullable Integer perMinute) {
+			this.perMinute = perMinute;
+		}
+
+		/**
+		 * Returns the limits for specific recipient domains.
+		 * @return domain limits, never {@literal null}
+		 */
+		public Map<String, Domain> getDomains() {
+			return domains;
+		}
+
+		/**
+		 * Sets the limits for specific recipient domains.
+		 * @param domains domain limits
+		 */
+		public void setDomains(Map<String, Domain> domains) {
+			this.domains = domains;
+		}
+
+	}
+
+	/**
+	 * Limits of a specific recipient domain, limits that are not set use the default {@link Shaping} values.
+	 */
+	public static class Domain {
+
+		/**
+		 * Maximum number of mails that are sent concurrently to the domain.
+		 */
+		private @Nullable Integer maxConcurrency;
+
+		/**
+		 * Maximum number of mails sent to the domain per second.
+		 */
+		private @Nullable Integer perSecond;
+
+		/**
+		 * Maximum number of mails sent to the domain per minute.
+		 */
+		private @Nullable Integer perMinute;
+
+		/** Creates a new {@link Domain} instance. */
+		public Domain() {
+		}
+
+		/**
+		 * Returns the maximum number of mails that are sent concurrently to the domain.
+		 * @return maximum domain concurrency, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Integer getMaxConcurrency() {
+			return maxConcurrency;
+		}
+
+		/**
+		 * Sets the maximum number of mails that are sent concurrently to the domain.
+		 * @param maxConcurrency maximum domain concurrency
+		 */
+		public void setMaxConcurrency(@Nullable Integer maxConcurrency) {
+			this.maxConcurrency = maxConcurrency;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent to the domain per second.
+		 * @return mails per second, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Integer getPerSecond() {
+			return perSecond;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent to the domain per second.
+		 * @param perSecond mails per second
+		 */
+		public void setPerSecond(@Nullable Integer perSecond) {
+			this.perSecond = perSecond;
+		}
+
+		/**
+		 * Returns the maximum number of mails sent to the domain per minute.
+		 * @return mails per minute, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Integer getPerMinute() {
+			return perMinute;
+		}
+
+		/**
+		 * Sets the maximum number of mails sent to the domain per minute.
+		 * @param perMinute mails per minute
+		 */
+		public void setPerMinute(@Nullable Integer perMinute) {
+			this.perMinute = perMinute;
+		}
+
+	}
+
+	/**
+	 * Configuration of the circuit breaker that stops mails from being sent using the {@link Transport}
+	 * while the mail relay is unavailable.
+	 * <p>
+	 * The breaker opens once at least {@code minimum-calls} of the last {@code window-size} calls were
+	 * recorded and the ratio of calls that failed with one of the {@code error-codes} reaches the
+	 * {@code failure-rate-threshold}. While open, mails fail immediately with the {@code connection-failed}
+	 * error code. After the {@code wait-duration}, the breaker lets {@code half-open-calls} trial calls
+	 * through and closes once all of them succeed.
+	 */
+	public static class CircuitBreaker {
+
+		/**
+		 * Whether the mail transport should be guarded by a circuit breaker.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Ratio of failed calls, between 0 and 1, at which the circuit breaker opens.
+		 */
+		private double failureRateThreshold = 0.5;
+
+		/**
+		 * Number of most recent calls that are used to calculate the failure rate.
+		 */
+		private int windowSize = 20;
+
+		/**
+		 * Minimum number of recorded calls before the failure rate is calculated.
+		 */
+		private int minimumCalls = 10;
+
+		/**
+		 * Time for which the circuit breaker stays open before it permits trial calls.
+		 */
+		private Duration waitDuration = Duration.ofSeconds(30);
+
+		/**
+		 * Number of successful trial calls that close the half-open circuit breaker.
+		 */
+		private int halfOpenCalls = 3;
+
+		/**
+		 * Error codes that are recorded as failed calls.
+		 */
+		private Set<MailingException.ErrorCode> errorCodes = EnumSet.of(MailingException.ErrorCode.CONNECTION_FAILED);
+
+		/** Creates a new {@link CircuitBreaker} instance. */
+		public CircuitBreaker() {
+		}
+
+		/**
+		 * Returns whether the mail transport should be guarded by a circuit breaker.
+		 * @return {@literal true} when the circuit breaker is enabled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether the mail transport should be guarded by a circuit breaker.
+		 * @param enabled {@literal true} when the circuit breaker is enabled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the ratio of failed calls at which the circuit breaker opens.
+		 * @return failure rate threshold
+		 */
+		public double getFailureRateThreshold() {
+			return failureRateThreshold;
+		}
+
+		/**
+		 * Sets the ratio of failed calls at which the circuit breaker opens.
+		 * @param failureRateThreshold failure rate threshold
+		 */
+		public void setFailureRateThreshold(double failureRateThreshold) {
+			this.failureRateThreshold = failureRateThreshold;
+		}
+
+		/**
+		 * Returns the number of most recent calls that are used to calculate the failure rate.
+		 * @return sliding window size
+		 */
+		public int getWindowSize() {
+			return windowSize;
+		}
+
+		/**
+		 * Sets the number of most recent calls that are used to calculate the failure rate.
+		 * @param windowSize sliding window size
+		 */
+		public void setWindowSize(int windowSize) {
+			this.windowSize = windowSize;
+		}
+
+		/**
+		 * Returns the minimum number of recorded calls before the failure rate is calculated.
+		 * @return minimum number of calls
+		 */
+		public int getMinimumCalls() {
+			return minimumCalls;
+		}
+
+		/**
+		 * Sets the minimum number of recorded calls before the failure rate is calculated.
+		 * @param minimumCalls minimum number of calls
+		 */
+		public void setMinimumCalls(int minimumCalls) {
+			this.minimumCalls = minimumCalls;
+		}
+
+		/**
+		 * Returns the time for which the circuit breaker stays open before it permits trial calls.
+		 * @return wait duration in the open state
+		 */
+		public Duration getWaitDuration() {
+			return waitDuration;
+		}
+
+		/**
+		 * Sets the time for which the circuit breaker stays open before it permits trial calls.
+		 * @param waitDuration wait duration in the open state
+		 */
+		public void setWaitDuration(Duration waitDuration) {
+			this.waitDuration = waitDuration;
+		}
+
+		/**
+		 * Returns the number of successful trial calls that close the half-open circuit breaker.
+		 * @return number of half-open calls
+		 */
+		public int getHalfOpenCalls() {
+			return halfOpenCalls;
+		}
+
+		/**
+		 * Sets the number of successful trial calls that close the half-open circuit breaker.
+		 * @param halfOpenCalls number of half-open calls
+		 */
+		public void setHalfOpenCalls(int halfOpenCalls) {
+			this.halfOpenCalls = halfOpenCalls;
+		}
+
+		/**
+		 * Returns the error codes that are recorded as failed calls.
+		 * @return recorded error codes
+		 */
+		public Set<MailingException.ErrorCode> getErrorCodes() {
+			return errorCodes;
+		}
+
+		/**
+		 * Sets the error codes that are recorded as failed calls.
+		 * @param errorCodes recorded error codes
+		 */
+		public void setErrorCodes(Set<MailingException.ErrorCode> errorCodes) {
+			this.errorCodes = errorCodes;
+		}
+
+	}
+
+	/**
+	 * Configuration of the {@link MailCodec} that encodes the mails stored by the durable outbox.
+	 * <p>
+	 * Symbols listed in the {@code dictionary}, such as template names, subject codes or sender addresses,
+	 * are encoded as short references. Journaled mails remain readable when symbols are appended to the
+	 * dictionary, removing, reordering or inserting symbols makes them unreadable and fails the outbox recovery.
+	 * <p>
+	 * Attribute values without an {@link AttributeEncoder} are written using Java serialization, which is
+	 * limited to the JDK value types and the listed {@code serializable-types}.
+	 */
+	public static class Codec {
+
+		/**
+		 * Symbols that are encoded as references by the mail codec.
+		 */
+		private List<String> dictionary = new ArrayList<>();
+
+		/**
+		 * Types, other than the JDK value types, that the mail codec can write using Java serialization.
+		 */
+		private List<Class<?>> serializableTypes = new ArrayList<>();
+
+		/** Creates a new {@link Codec} instance. */
+		public Codec() {
+		}
+
+		/**
+		 * Returns the symbols that are encoded as references by the mail codec.
+		 * @return codec dictionary
+		 */
+		public List<String> getDictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * Sets the symbols that are encoded as references by the mail codec.
+		 * @param dictionary codec dictionary
+		 */
+		public void setDictionary(List<String> dictionary) {
+			this.dictionary = dictionary;
+		}
+
+		/**
+		 * Returns the types, other than the JDK value types, that can be written using Java serialization.
+		 * @return serializable types
+		 */
+		public List<Class<?>> getSerializableTypes() {
+			return serializableTypes;
+		}
+
+		/**
+		 * Sets the types, other than the JDK value types, that can be written using Java serialization.
+		 * @param serializableTypes serializable types
+		 */
+		public void setSerializableTypes(List<Class<?>> serializableTypes) {
+			this.serializableTypes = serializableTypes;
+		}
+
+	}
+
+	/**
+	 * Type of the {@link MailJournal} used by the durable outbox.
+	 */
+	public enum Journal {
+
+		/**
+		 * Journal that appends the mails to fixed-size, memory-mapped segment files.
+		 */
+		MAPPED,
+
+		/**
+		 * Journal that appends the mails to a single file using file channel writes.
+		 */
+		FILE
+
+	}
+
+	/**
+	 * Behavior of the rate limiter when the rate limit is exceeded.
+	 */
+	public enum RateLimitMode {
+
+		/**
+		 * Mails wait for a permit, up to the maximum wait time.
+		 */
+		BLOCK,
+
+		/**
+		 * Mails fail immediately with the {@link MailingException.ErrorCode#QUOTA_EXCEEDED} error code.
+		 */
+		FAIL_FAST
+
+	}
+
+}
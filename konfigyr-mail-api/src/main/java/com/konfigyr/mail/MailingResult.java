@@ -0,0 +1,78 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Immutable outcome of sending a single {@link Mail} as part of a batch.
+ * <p>
+ * Batch operations, such as {@link Mailer#sendAll(java.util.Collection)} or
+ * {@link Transport#sendAll(java.util.List, java.util.List)}, do not stop on the first failure.
+ * Instead, they report a result for every {@link Mail} in the batch, in the same order as the
+ * mails were given. A failed result carries the {@link MailingException} that would have been
+ * thrown if the mail was sent on its own.
+ *
+ * @param mail the mail this result belongs to, can't be {@literal null}
+ * @param exception the failure cause, {@literal null} when the mail was sent successfully
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see Mailer#sendAll(java.util.Collection)
+ * @see Transport#sendAll(java.util.List, java.util.List)
+ **/
+@NullMarked
+public record MailingResult(Mail mail, @Nullable MailingException exception) {
+
+	/**
+	 * Creates a new mailing result for the given mail and optional failure.
+	 *
+	 * @param mail the mail this result belongs to, can't be {@literal null}
+	 * @param exception the failure cause, {@literal null} when the mail was sent successfully
+	 * @throws IllegalArgumentException when mail is {@literal null}
+	 */
+	public MailingResult {
+		Assert.notNull(mail, "Mailing result needs to have a mail set");
+	}
+
+	/**
+	 * Creates a successful {@link MailingResult} for the given {@link Mail}.
+	 *
+	 * @param mail the mail that was sent, can't be {@literal null}
+	 * @return successful mailing result, never {@literal null}
+	 */
+	public static MailingResult success(Mail mail) {
+		return new MailingResult(mail, null);
+	}
+
+	/**
+	 * Creates a failed {@link MailingResult} for the given {@link Mail}.
+	 *
+	 * @param mail the mail that failed to be sent, can't be {@literal null}
+	 * @param exception the failure cause, can't be {@literal null}
+	 * @return failed mailing result, never {@literal null}
+	 */
+	public static MailingResult failure(Mail mail, MailingException exception) {
+		Assert.notNull(exception, "Failed mailing result needs to have an exception set");
+		return new MailingResult(mail, exception);
+	}
+
+	/**
+	 * Checks if the {@link Mail} was successfully sent.
+	 *
+	 * @return {@literal true} when the mail was sent, {@literal false} otherwise
+	 */
+	public boolean isSuccessful() {
+		return exception == null;
+	}
+
+	/**
+	 * Returns the {@link MailingException.ErrorCode} of the failure, if any.
+	 *
+	 * @return the error code, or {@literal null} when the mail was sent successfully
+	 */
+	@Nullable
+	public MailingException.ErrorCode errorCode() {
+		return exception == null ? null : exception.getErrorCode();
+	}
+
+}
@@ -0,0 +1,540 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link MailJournal} that stores mails and their acknowledgements in fixed-size, memory-mapped segment files.
+ * <p>
+ * Records are appended to the active segment by copying them into its memory mapping, which avoids a system
+ * call for every append. Once the active segment is full, a new segment is created. Each record consists of
+ * the following fields:
+ * <ul>
+ *     <li>payload length, as a 4 byte integer</li>
+ *     <li>CRC-32C checksum of the record type, identifier and payload, as a 4 byte integer</li>
+ *     <li>record type, either a mail entry or an acknowledgement, as a single byte</li>
+ *     <li>entry identifier, as an 8 byte long</li>
+ *     <li>{@link Mail} encoded by the {@link MailCodec}, empty for acknowledgements</li>
+ * </ul>
+ * When the journal is opened, segments are read until the first record whose checksum does not match,
+ * which discards records that were only partially written before a crash. Segments are deleted, oldest
+ * first, once every mail entry they contain is acknowledged. Mail entries that stay unacknowledged for a
+ * long time would keep their segment, and every newer one, from being deleted. When the oldest segment
+ * falls behind the active one by more than a segment, and only a small part of it is still outstanding,
+ * its outstanding entries are copied into the active segment, after which the oldest segment is deleted.
+ * <p>
+ * Segment files are unmapped when they are deleted or when the journal is closed, instead of waiting for
+ * the garbage collector to release their mappings, as files that are still mapped can not be deleted on
+ * some operating systems, like Windows. When the JVM does not support unmapping, mappings are left to the
+ * garbage collector.
+ * <p>
+ * Depending on the {@link MailJournal.Sync} policy, the active segment is flushed to the storage device
+ * after every append, or once for all the records appended within the group commit interval. Segments are
+ * always flushed before they are replaced by a new active segment, unless the {@link Sync#NONE} policy is used.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class MappedMailJournal implements MailJournal {
+
+	private static final Logger log = LoggerFactory.getLogger(MappedMailJournal.class);
+
+	static final String SEGMENT_PREFIX = "segment-";
+	static final String SEGMENT_SUFFIX = ".log";
+
+	static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES + Long.BYTES;
+
+	private static final byte ENTRY = 1;
+	private static final byte ACKNOWLEDGEMENT = 2;
+
+	/**
+	 * Outstanding entries of the oldest segment are relocated when they take up at most this fraction of it.
+	 */
+	private static final int RELOCATION_RATIO = 4;
+
+	private static final @Nullable MethodHandle CLEANER = cleaner();
+
+	private final Path directory;
+	private final int segmentSize;
+	private final MailCodec codec;
+	private final Sync sync;
+	private final @Nullable GroupCommit commit;
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final Map<Long, Segment> outstanding = new HashMap<>();
+	private final List<Entry> recovered;
+	private final CRC32C checksum = new CRC32C();
+	private final ByteBuffer scratch = ByteBuffer.allocate(Byte.BYTES + Long.BYTES);
+
+	private volatile Segment active;
+	private long sequence;
+	private boolean closed;
+
+	private MappedMailJournal(Path directory, int segmentSize, MailCodec codec, Sync sync, Duration interval)
+			throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.codec = codec;
+		this.sync = sync;
+		this.recovered = recover();
+		this.commit = sync == Sync.GROUP ? new GroupCommit("mail-journal-sync", () -> active.force(), interval)
+				: null;
+	}
+
+	/**
+	 * Opens, or creates, the memory-mapped journal in the given directory and recovers the entries that
+	 * were not acknowledged.
+	 *
+	 * @param directory journal directory, can't be {@literal null}
+	 * @param segmentSize size of the segment files in bytes
+	 * @param codec codec used to encode the journaled mails, can't be {@literal null}
+	 * @param sync policy that defines when appended records are flushed to the storage device
+	 * @param interval group commit interval, used by the {@link Sync#GROUP} policy
+	 * @return the opened memory-mapped journal, never {@literal null}
+	 * @throws IOException when the journal segments could not be created or read
+	 */
+	static MappedMailJournal open(Path directory, int segmentSize, MailCodec codec, Sync sync, Duration interval)
+			throws IOException {
+		Assert.notNull(directory, "Mail journal directory can not be null");
+		Assert.notNull(codec, "Mail codec can not be null");
+		Assert.notNull(sync, "Mail journal sync policy can not be null");
+		Assert.isTrue(segmentSize > HEADER_SIZE, "Mail journal segment size must be greater than " + HEADER_SIZE);
+
+		Files.createDirectories(directory);
+
+		return new MappedMailJournal(directory, segmentSize, codec, sync, interval);
+	}
+
+	@Override
+	public long append(Mail mail) throws IOException {
+		final byte[] payload = codec.encode(mail);
+
+		if (HEADER_SIZE + payload.length > segmentSize) {
+			throw new IOException("Mail of " + payload.length + " bytes exceeds the mail journal segment size of "
+					+ segmentSize + " bytes");
+		}
+
+		final long id;
+
+		synchronized (this) {
+			ensureOpen();
+			id = sequence++;
+
+			final Segment segment = writable(HEADER_SIZE + payload.length);
+			segment.add(id, write(segment, ENTRY, id, payload));
+			outstanding.put(id, segment);
+
+			if (sync == Sync.ALWAYS) {
+				segment.force();
+			}
+		}
+
+		if (commit != null) {
+			commit.written(id);
+			commit.await(id);
+		}
+
+		return id;
+	}
+
+	@Override
+	public synchronized void acknowledge(long id) throws IOException {
+		ensureOpen();
+
+		final Segment segment = outstanding.remove(id);
+
+		if (segment == null) {
+			return;
+		}
+
+		write(writable(HEADER_SIZE), ACKNOWLEDGEMENT, id, new byte[0]);
+		segment.remove(id);
+
+		compact();
+
+		if (outstanding.isEmpty()) {
+			recovered.clear();
+		}
+	}
+
+	@Override
+	public synchronized List<Entry> pending() {
+		return recovered.stream().filter(entry -> outstanding.containsKey(entry.id())).toList();
+	}
+
+	/**
+	 * Returns the number of appended entries that are not yet acknowledged.
+	 * @return number of outstanding entries
+	 */
+	synchronized int outstanding() {
+		return outstanding.size();
+	}
+
+	/**
+	 * Returns the number of segment files used by this journal.
+	 * @return number of segments
+	 */
+	synchronized int segments() {
+		return segments.size();
+	}
+
+	/**
+	 * Flushes the active segment, depending on the sync policy, and unmaps all segments. Appending or
+	 * acknowledging entries fails once the journal is closed.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		if (commit != null) {
+			commit.close();
+		}
+
+		if (sync != Sync.NONE) {
+			active.force();
+		}
+
+		segments.forEach(Segment::release);
+		segments.clear();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Mail journal is closed");
+		}
+	}
+
+	/**
+	 * Returns the active segment when it has enough space left for the record of the given size, otherwise
+	 * a new active segment is created.
+	 */
+	private Segment writable(int size) throws IOException {
+		final Segment segment = active;
+
+		if (segment.position + size <= segment.buffer.capacity()) {
+			return segment;
+		}
+
+		if (sync != Sync.NONE) {
+			segment.force();
+		}
+
+		active = roll();
+		return active;
+	}
+
+	private Segment roll() throws IOException {
+		final long index = segments.isEmpty() ? 0 : segments.getLast().index + 1;
+		final Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+
+		final MappedByteBuffer buffer;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		}
+
+		final Segment segment = new Segment(index, file, buffer);
+		segments.addLast(segment);
+		return segment;
+	}
+
+	/**
+	 * Deletes the oldest segments, except the active one, once all of their entries are acknowledged. Segments
+	 * are deleted in order, as acknowledgements of their entries may be stored in any of the newer segments.
+	 * The outstanding entries of the oldest segment are relocated, at most once per compaction, when it is
+	 * followed by more than one segment and they take up a small part of it.
+	 */
+	private void compact() throws IOException {
+		delete();
+
+		final Segment oldest = segments.getFirst();
+
+		if (segments.size() > 2 && oldest.live <= segmentSize / RELOCATION_RATIO) {
+			relocate(oldest);
+			delete();
+		}
+	}
+
+	private void delete() throws IOException {
+		while (segments.size() > 1 && segments.getFirst().entries.isEmpty()) {
+			final Segment segment = segments.removeFirst();
+			segment.release();
+			Files.deleteIfExists(segment.file);
+
+			log.debug("Deleted acknowledged mail journal segment {}", segment.file);
+		}
+	}
+
+	/**
+	 * Copies the outstanding entries of the segment into the active segment, using the same identifiers. The
+	 * copies are flushed before the segment is deleted, when the segment is not deleted before a crash, both
+	 * copies are read on recovery, and the newer one is used.
+	 */
+	private void relocate(Segment segment) throws IOException {
+		for (Map.Entry<Long, Integer> entry : List.copyOf(segment.entries.entrySet())) {
+			final long id = entry.getKey();
+			final int position = entry.getValue();
+			final byte[] payload = new byte[segment.buffer.getInt(position)];
+			segment.buffer.get(position + HEADER_SIZE, payload);
+
+			final Segment target = writable(HEADER_SIZE + payload.length);
+			target.add(id, write(target, ENTRY, id, payload));
+			outstanding.put(id, target);
+			segment.remove(id);
+		}
+
+		if (sync != Sync.NONE) {
+			active.force();
+		}
+
+		log.debug("Relocated outstanding mail journal entries from segment {}", segment.file);
+	}
+
+	/**
+	 * Writes the record at the current position of the segment and returns that position.
+	 */
+	private int write(Segment segment, byte type, long id, byte[] payload) {
+		final MappedByteBuffer buffer = segment.buffer;
+		final int position = segment.position;
+
+		buffer.putInt(position, payload.length);
+		buffer.put(position + 2 * Integer.BYTES, type);
+		buffer.putLong(position + 2 * Integer.BYTES + Byte.BYTES, id);
+		buffer.put(position + HEADER_SIZE, payload);
+		buffer.putInt(position + Integer.BYTES, checksum(type, id, payload));
+
+		segment.position = position + HEADER_SIZE + payload.length;
+		return position;
+	}
+
+	private int checksum(byte type, long id, byte[] payload) {
+		checksum.reset();
+		checksum.update(scratch.clear().put(type).putLong(id).flip());
+		checksum.update(payload);
+		return (int) checksum.getValue();
+	}
+
+	private List<Entry> recover() throws IOException {
+		final List<Path> files;
+
+		try (Stream<Path> stream = Files.list(directory)) {
+			files = stream.filter(MappedMailJournal::isSegment).sorted().toList();
+		}
+
+		final Map<Long, byte[]> payloads = new LinkedHashMap<>();
+		final Map<Long, Segment> locations = new HashMap<>();
+		final List<Entry> entries = new ArrayList<>();
+
+		try {
+			for (Path file : files) {
+				final Segment segment = map(file);
+				segments.addLast(segment);
+				read(segment, payloads, locations);
+			}
+
+			for (Map.Entry<Long, byte[]> payload : payloads.entrySet()) {
+				final long id = payload.getKey();
+				entries.add(new Entry(id, decode(id, payload.getValue())));
+				outstanding.put(id, locations.get(id));
+			}
+
+			active = segments.isEmpty() ? roll() : segments.getLast();
+			compact();
+		} catch (IOException | RuntimeException ex) {
+			segments.forEach(Segment::release);
+			throw ex;
+		}
+
+		if (!entries.isEmpty()) {
+			log.info("Recovered {} unacknowledged mail(s) from the mail journal", entries.size());
+		}
+
+		return entries;
+	}
+
+	/**
+	 * Decodes the unacknowledged entry, failing the recovery when the entry is unreadable.
+	 */
+	private Mail decode(long id, byte[] payload) throws IOException {
+		try {
+			return codec.decode(payload);
+		} catch (IOException ex) {
+			throw new IOException("Failed to decode unacknowledged mail journal entry " + id + ", make sure that "
+					+ "the mail codec dictionary and attribute encoders were not changed", ex);
+		}
+	}
+
+	private void read(Segment segment, Map<Long, byte[]> entries, Map<Long, Segment> locations) {
+		final MappedByteBuffer buffer = segment.buffer;
+		final int capacity = buffer.capacity();
+
+		int position = 0;
+
+		while (position + HEADER_SIZE <= capacity) {
+			final int length = buffer.getInt(position);
+			final int crc = buffer.getInt(position + Integer.BYTES);
+			final byte type = buffer.get(position + 2 * Integer.BYTES);
+			final long id = buffer.getLong(position + 2 * Integer.BYTES + Byte.BYTES);
+
+			if (type != ENTRY && type != ACKNOWLEDGEMENT || length < 0 || position + HEADER_SIZE + length > capacity) {
+				break;
+			}
+
+			final byte[] payload = new byte[length];
+			buffer.get(position + HEADER_SIZE, payload);
+
+			if (crc != checksum(type, id, payload)) {
+				log.warn("Discarding mail journal record with invalid checksum in segment {} at position {}",
+						segment.file, position);
+				break;
+			}
+
+			// relocated entries are read again from the newer segment when the older one was not yet deleted
+			final Segment location = type == ENTRY ? locations.put(id, segment) : locations.remove(id);
+
+			if (location != null) {
+				location.remove(id);
+			}
+
+			if (type == ENTRY) {
+				entries.put(id, payload);
+				segment.add(id, position);
+			} else {
+				entries.remove(id);
+			}
+
+			sequence = Math.max(sequence, id + 1);
+			position += HEADER_SIZE + length;
+		}
+
+		segment.position = position;
+
+		// clear the header of a partially written record, so it is not read again once new records are appended
+		if (position + HEADER_SIZE <= capacity) {
+			buffer.put(position, new byte[HEADER_SIZE]);
+		}
+	}
+
+	private static Segment map(Path file) throws IOException {
+		final String name = file.getFileName().toString();
+		final long index = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return new Segment(index, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+		}
+	}
+
+	private static boolean isSegment(Path file) {
+		final String name = file.getFileName().toString();
+		return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	/**
+	 * Looks up the {@code sun.misc.Unsafe#invokeCleaner} method that releases the mapping of a buffer.
+	 */
+	private static @Nullable MethodHandle cleaner() {
+		try {
+			final Class<?> type = Class.forName("sun.misc.Unsafe");
+			final Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+
+			return MethodHandles.lookup()
+				.findVirtual(type, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+				.bindTo(field.get(null));
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			log.debug("Mail journal segments can not be unmapped, they are released by the garbage collector", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Memory-mapped segment file of the journal, with the positions of its outstanding entries. The mapping is
+	 * only forced or released while holding the segment monitor, as the active segment is forced by the group
+	 * commit thread, outside the journal lock.
+	 */
+	private static final class Segment {
+
+		private final long index;
+		private final Path file;
+		private final MappedByteBuffer buffer;
+		private final Map<Long, Integer> entries = new HashMap<>();
+		private int position;
+		private int live;
+		private boolean released;
+
+		Segment(long index, Path file, MappedByteBuffer buffer) {
+			this.index = index;
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		void add(long id, int position) {
+			entries.put(id, position);
+			live += HEADER_SIZE + buffer.getInt(position);
+		}
+
+		void remove(long id) {
+			final Integer position = entries.remove(id);
+
+			if (position != null) {
+				live -= HEADER_SIZE + buffer.getInt(position);
+			}
+		}
+
+		synchronized void force() {
+			if (!released) {
+				buffer.force();
+			}
+		}
+
+		synchronized void release() {
+			if (released) {
+				return;
+			}
+
+			released = true;
+
+			if (CLEANER == null) {
+				return;
+			}
+
+			try {
+				CLEANER.invokeExact((ByteBuffer) buffer);
+			} catch (Throwable ex) {
+				log.warn("Failed to unmap mail journal segment {}", file, ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Mailer} decorator that durably queues the mails in a {@link MailJournal} before they are sent.
+ * <p>
+ * Sending a mail only appends it to the {@link MailJournal} and hands it to one of the outbox workers,
+ * the mail is then rendered and dispatched by the delegate {@link Mailer} on the worker thread. Once the
+ * delivery attempt completes, successfully or not, the journal entry is acknowledged. Failed deliveries
+ * are logged and are not retried by the outbox, retries are the responsibility of the {@link Transport}.
+ * <p>
+ * When the application stops, or crashes, before the queued mails are sent, their journal entries remain
+ * unacknowledged and the mails are replayed when the outbox is {@link #start() started} again. Mails are
+ * therefore delivered at least once.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class OutboxMailer implements Mailer, AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboxMailer.class);
+
+	private static final long POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final Mailer delegate;
+	private final MailJournal journal;
+	private final BlockingQueue<MailJournal.Entry> queue;
+	private final List<Thread> workers;
+	private final Duration shutdownTimeout;
+
+	private volatile boolean running;
+
+	OutboxMailer(Mailer delegate, MailJournal journal, int workers, int queueCapacity, Duration shutdownTimeout) {
+		Assert.notNull(delegate, "Delegate mailer can not be null");
+		Assert.notNull(journal, "Mail journal can not be null");
+		Assert.isTrue(workers > 0, "Number of outbox workers must be greater than zero");
+		Assert.isTrue(queueCapacity > 0, "Outbox queue capacity must be greater than zero");
+		Assert.notNull(shutdownTimeout, "Outbox shutdown timeout can not be null");
+
+		this.delegate = delegate;
+		this.journal = journal;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.workers = new ArrayList<>(workers);
+		this.shutdownTimeout = shutdownTimeout;
+
+		for (int i = 0; i < workers; i++) {
+			this.workers.add(Thread.ofPlatform().name("mail-outbox-" + i).daemon().unstarted(this::work));
+		}
+	}
+
+	/**
+	 * Starts the outbox workers and replays the mails that were not acknowledged in the {@link MailJournal}.
+	 *
+	 * @throws IOException when the pending journal entries could not be read
+	 */
+	synchronized void start() throws IOException {
+		Assert.state(!running, "Mail outbox is already started");
+
+		final List<MailJournal.Entry> pending = journal.pending();
+
+		running = true;
+		workers.forEach(Thread::start);
+
+		if (!pending.isEmpty()) {
+			log.info("Replaying {} mail(s) from the mail outbox journal", pending.size());
+
+			Thread.ofVirtual().name("mail-outbox-replay").start(() -> pending.forEach(this::enqueue));
+		}
+	}
+
+	/**
+	 * Appends the {@link Mail} to the {@link MailJournal} and queues it for sending. This method returns
+	 * once the mail is durably queued, it blocks while the outbox queue is full.
+	 *
+	 * @param mail mail message to be sent, can't be {@literal null}
+	 * @throws MailingException when the mail could not be appended to the journal
+	 */
+	@Override
+	public void send(Mail mail) {
+		Assert.state(running, "Mail outbox is not running");
+
+		final long id;
+
+		try {
+			id = journal.append(mail);
+		} catch (IOException ex) {
+			throw new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Failed to append mail with template '" + mail.template() + "' to the mail outbox journal",
+				ex
+			);
+		}
+
+		enqueue(new MailJournal.Entry(id, mail));
+	}
+
+	/**
+	 * Appends the {@link Mail} to the {@link MailJournal} and queues it for sending. The returned future
+	 * completes once the mail is durably queued, not when it is sent.
+	 *
+	 * @param mail mail message to be sent, can't be {@literal null}
+	 * @return future that completes when the mail is queued, never {@literal null}
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail) {
+		try {
+			send(mail);
+			return CompletableFuture.completedFuture(null);
+		} catch (RuntimeException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+	}
+
+	/**
+	 * Returns the number of mails that are queued in memory and wait to be sent by the outbox workers.
+	 * @return number of queued mails
+	 */
+	int queued() {
+		return queue.size();
+	}
+
+	/**
+	 * Stops the outbox workers, waiting up to the shutdown timeout for the queued mails to be sent.
+	 * Mails that were not sent in time remain in the {@link MailJournal} and are replayed on the next start.
+	 * The {@link MailJournal} itself is not closed.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+
+		final long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+
+		for (Thread worker : workers) {
+			try {
+				if (!worker.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))) {
+					worker.interrupt();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				workers.forEach(Thread::interrupt);
+				break;
+			}
+		}
+
+		if (!queue.isEmpty()) {
+			log.warn("Mail outbox stopped with {} queued mail(s), they would be sent after restart", queue.size());
+		}
+	}
+
+	private void enqueue(MailJournal.Entry entry) {
+		try {
+			queue.put(entry);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while queueing mail with template '{}', it would be sent after restart",
+					entry.mail().template());
+		}
+	}
+
+	private void work() {
+		while (true) {
+			final MailJournal.Entry entry;
+
+			try {
+				entry = queue.poll(POLL_INTERVAL, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException ex) {
+				return;
+			}
+
+			if (entry == null) {
+				if (running) {
+					continue;
+				}
+				return;
+			}
+
+			deliver(entry);
+		}
+	}
+
+	private void deliver(MailJournal.Entry entry) {
+		try {
+			delegate.send(entry.mail());
+		} catch (RuntimeException ex) {
+			if (Thread.currentThread().isInterrupted()) {
+				log.warn("Mail outbox worker was interrupted while sending mail with template '{}', "
+						+ "it would be sent after restart", entry.mail().template());
+				return;
+			}
+			log.error("Failed to send mail with template '{}' from the mail outbox", entry.mail().template(), ex);
+		}
+
+		try {
+			journal.acknowledge(entry.id());
+		} catch (IOException ex) {
+			log.warn("Failed to acknowledge mail outbox journal entry {}, the mail may be sent again after restart",
+					entry.id(), ex);
+		}
+	}
+
+}
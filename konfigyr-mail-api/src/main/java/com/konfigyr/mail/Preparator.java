@@ -3,8 +3,8 @@ package com.konfigyr.mail;
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
 
+import java.util.List;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 /**
  * Functional interface that can be used to prepare and configure the actual Mail message
@@ -36,13 +36,14 @@ public interface Preparator<T> {
 	 * and then applies the after function to the result.
 	 * <p>
 	 * If the execution of either {@link Preparator preparators} throws an exception, it
-	 * is relayed to the caller of the composed {@link Preparator}.
+	 * is relayed to the caller of the composed {@link Preparator}. Composed preparators are
+	 * kept in a flat array, instead of a nested chain, and {@link #noop()} preparators are skipped.
 	 *
 	 * @param next the preparator to apply after this one
 	 * @return a composed {@link Preparator}
 	 */
 	default Preparator<T> and(Preparator<T> next) {
-		return (Mail mail, T t) -> next.prepare(mail, prepare(mail, t));
+		return CompositePreparator.of(List.of(this, next));
 	}
 
 	/**
@@ -51,11 +52,11 @@ public interface Preparator<T> {
 	 * @return the no-operation {@link Preparator}
 	 */
 	static <T> Preparator<T> noop() {
-		return (mail, t) -> t;
+		return CompositePreparator.empty();
 	}
 
 	/**
-	 * Aggregates all the {@link Preparator preparators} in a single chained
+	 * Aggregates all the {@link Preparator preparators} in a single flattened
 	 * {@link Preparator} instance. When {@code preparators} is {@literal null} or yields
 	 * no elements, the returned preparator is equivalent to {@link #noop()}.
 	 *
@@ -68,11 +69,11 @@ public interface Preparator<T> {
 			return Preparator.noop();
 		}
 
-		return aggregate(StreamSupport.stream(preparators.spliterator(), false));
+		return CompositePreparator.of(preparators);
 	}
 
 	/**
-	 * Aggregates all the {@link Preparator preparators} in a single chained
+	 * Aggregates all the {@link Preparator preparators} in a single flattened
 	 * {@link Preparator} instance. When {@code preparators} is {@literal null} or yields
 	 * no elements, the returned preparator is equivalent to {@link #noop()}.
 	 *
@@ -85,7 +86,7 @@ public interface Preparator<T> {
 			return Preparator.noop();
 		}
 
-		return preparators.reduce(Preparator::and).orElseGet(Preparator::noop);
+		return CompositePreparator.of(preparators.toList());
 	}
 
 }
@@ -0,0 +1,269 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Transport} decorator that limits the rate at which mails are handed to the delegate transport
+ * using one or more {@link TokenBucket token buckets}, for example to stay below the sending limits of
+ * the upstream mail relay.
+ * <p>
+ * Every mail needs a permit from each bucket. When the buckets have no permits available the transport
+ * either waits for a permit, up to the maximum wait time, or fails fast. Mails that can not obtain a
+ * permit in time fail with {@link MailingException.ErrorCode#QUOTA_EXCEEDED}, which lets them be retried
+ * with a backoff when retries are enabled.
+ * <p>
+ * Mails sent using {@link #sendAsync(Mail, Template)} do not block the calling thread while they wait for
+ * a permit, the wait is scheduled on the {@link TimerWheel} and the mail is dispatched on a new virtual
+ * thread once the permit becomes available. Batches sent using {@link #sendAll(List, List)} are split into
+ * smaller batches, each one sent as soon as the permits for its mails are available.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see TokenBucket
+ **/
+@NullMarked
+final class RateLimitingTransport implements Transport {
+
+	private static final Logger log = LoggerFactory.getLogger(RateLimitingTransport.class);
+
+	private static final ThreadFactory THREADS = Thread.ofVirtual().name("mail-rate-limit-", 0).factory();
+
+	private final Transport delegate;
+	private final TokenBucket[] buckets;
+	private final long maxWait;
+	private final TimerWheel timer;
+	private final Executor executor;
+
+	RateLimitingTransport(Transport delegate, List<TokenBucket> buckets, Duration maxWait, TimerWheel timer) {
+		this(delegate, buckets, maxWait, timer, command -> THREADS.newThread(command).start());
+	}
+
+	RateLimitingTransport(Transport delegate, List<TokenBucket> buckets, Duration maxWait, TimerWheel timer,
+			Executor executor) {
+		Assert.notNull(delegate, "Delegate transport can not be null");
+		Assert.notEmpty(buckets, "At least one token bucket must be defined");
+		Assert.notNull(maxWait, "Maximum wait time can not be null");
+		Assert.isTrue(!maxWait.isNegative(), "Maximum wait time can not be negative");
+		Assert.notNull(timer, "Timer wheel can not be null");
+		Assert.notNull(executor, "Rate limit executor can not be null");
+
+		this.delegate = delegate;
+		this.buckets = buckets.toArray(TokenBucket[]::new);
+		this.maxWait = maxWait.toNanos();
+		this.timer = timer;
+		this.executor = executor;
+	}
+
+	/**
+	 * Creates a new {@link RateLimitingTransport} using the rate limits defined by the given configuration.
+	 *
+	 * @param delegate transport that sends the mails, can't be {@literal null}
+	 * @param properties rate limit configuration, can't be {@literal null}
+	 * @param timer timer wheel used to delay the asynchronous dispatches, can't be {@literal null}
+	 * @return the rate limiting transport, never {@literal null}
+	 */
+	static RateLimitingTransport create(Transport delegate, MailerProperties.RateLimit properties,
+			TimerWheel timer) {
+		final List<TokenBucket> buckets = new ArrayList<>(3);
+
+		if (properties.getPerSecond() != null) {
+			buckets.add(new TokenBucket(properties.getPerSecond(), Duration.ofSeconds(1)));
+		}
+		if (properties.getPerMinute() != null) {
+			buckets.add(new TokenBucket(properties.getPerMinute(), Duration.ofMinutes(1)));
+		}
+		if (properties.getPerHour() != null) {
+			buckets.add(new TokenBucket(properties.getPerHour(), Duration.ofHours(1)));
+		}
+
+		Assert.notEmpty(buckets, "At least one of the per-second, per-minute or per-hour rate limits must be set");
+
+		final Duration maxWait = properties.getMode() == MailerProperties.RateLimitMode.FAIL_FAST
+				? Duration.ZERO : properties.getMaxWait();
+
+		return new RateLimitingTransport(delegate, buckets, maxWait, timer);
+	}
+
+	@Override
+	public void send(Mail mail, Template template) {
+		final long wait = acquire(mail);
+
+		if (wait > 0) {
+			pause(mail, wait);
+		}
+
+		delegate.send(mail, template);
+	}
+
+	/**
+	 * Dispatches the mail using the delegate transport once a permit is available, without blocking the
+	 * calling thread while waiting for the permit.
+	 *
+	 * @param mail mail to be dispatched, including envelope metadata; never {@literal null}
+	 * @param template the fully-rendered template body and its content type; never {@literal null}
+	 * @return future that completes when the mail is dispatched, never {@literal null}
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		final long wait;
+
+		try {
+			wait = acquire(mail);
+		} catch (MailingException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+
+		if (wait == 0) {
+			return delegate.sendAsync(mail, template);
+		}
+
+		final CompletableFuture<Void> timeout = timer.schedule(Duration.ofNanos(wait));
+		final CompletableFuture<Void> result = timeout.thenComposeAsync(ignored -> delegate.sendAsync(mail, template),
+				executor);
+
+		result.whenComplete((ignored, ex) -> timeout.cancel(false));
+
+		return result;
+	}
+
+	/**
+	 * Sends the batch using the delegate transport, splitting it into smaller batches whenever the
+	 * transport needs to wait for permits. Mails that can not obtain a permit in time are reported as
+	 * {@link MailingException.ErrorCode#QUOTA_EXCEEDED} failures.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		final MailingResult[] results = new MailingResult[mails.size()];
+		final Batch batch = new Batch(mails.size());
+
+		for (int i = 0; i < mails.size(); i++) {
+			final Mail mail = mails.get(i);
+			final long wait;
+
+			try {
+				wait = acquire(mail);
+			} catch (MailingException ex) {
+				results[i] = MailingResult.failure(mail, ex);
+				continue;
+			}
+
+			if (wait > 0) {
+				batch.flush(results);
+
+				try {
+					pause(mail, wait);
+				} catch (MailingException ex) {
+					for (int j = i; j < mails.size(); j++) {
+						results[j] = MailingResult.failure(mails.get(j), ex);
+					}
+					return List.of(results);
+				}
+			}
+
+			batch.add(i, mail, templates.get(i));
+		}
+
+		batch.flush(results);
+
+		return List.of(results);
+	}
+
+	/**
+	 * Reserves a permit from every bucket, returning how long the caller needs to wait before using them.
+	 */
+	private long acquire(Mail mail) {
+		final long now = System.nanoTime();
+		long wait = 0;
+
+		for (int i = 0; i < buckets.length; i++) {
+			final long reserved = buckets[i].reserve(now, maxWait);
+
+			if (reserved < 0) {
+				for (int j = 0; j < i; j++) {
+					buckets[j].refund();
+				}
+
+				log.debug("Rate limit of {} exceeded for mail with template '{}'", buckets[i], mail.template());
+
+				throw new MailingException(
+					MailingException.ErrorCode.QUOTA_EXCEEDED,
+					"Rate limit of " + buckets[i].permits() + " mails per " + buckets[i].period()
+							+ " exceeded for mail with template '" + mail.template() + "'"
+				);
+			}
+
+			wait = Math.max(wait, reserved);
+		}
+
+		return wait;
+	}
+
+	private static void pause(Mail mail, long wait) {
+		try {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+
+			throw new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Interrupted while waiting for rate limit permit for mail with template '" + mail.template() + "'",
+				ex
+			);
+		}
+	}
+
+	/**
+	 * Mails of a batch that obtained their permits and are sent together using the delegate transport.
+	 */
+	private final class Batch {
+
+		private final List<Integer> indexes;
+		private final List<Mail> mails;
+		private final List<Template> templates;
+
+		Batch(int capacity) {
+			this.indexes = new ArrayList<>(capacity);
+			this.mails = new ArrayList<>(capacity);
+			this.templates = new ArrayList<>(capacity);
+		}
+
+		void add(int index, Mail mail, Template template) {
+			indexes.add(index);
+			mails.add(mail);
+			templates.add(template);
+		}
+
+		void flush(MailingResult[] results) {
+			if (mails.isEmpty()) {
+				return;
+			}
+
+			final List<MailingResult> sent = delegate.sendAll(List.copyOf(mails), List.copyOf(templates));
+
+			for (int i = 0; i < sent.size(); i++) {
+				results[indexes.get(i)] = sent.get(i);
+			}
+
+			indexes.clear();
+			mails.clear();
+			templates.clear();
+		}
+
+	}
+
+}
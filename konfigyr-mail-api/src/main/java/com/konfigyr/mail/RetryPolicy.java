@@ -0,0 +1,56 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Policy that defines how many times, and after which delay, the {@link RetryingTransport} retries sending
+ * a mail that failed with a specific {@link MailingException.ErrorCode}.
+ * <p>
+ * The delay before each retry grows exponentially, starting with the initial backoff and multiplied by the
+ * multiplier after each attempt, until it reaches the maximum backoff. The jitter randomizes each delay by
+ * the given fraction in both directions, so that mails that failed at the same time are not retried at the
+ * same time as well.
+ *
+ * @param maxAttempts maximum number of attempts, including the first one
+ * @param initialBackoff delay before the first retry
+ * @param multiplier factor by which the delay grows after each retry
+ * @param maxBackoff maximum delay before a retry
+ * @param jitter fraction, between {@literal 0} and {@literal 1}, by which the delays are randomized
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+record RetryPolicy(int maxAttempts, Duration initialBackoff, double multiplier, Duration maxBackoff, double jitter) {
+
+	RetryPolicy {
+		Assert.isTrue(maxAttempts > 0, "Maximum number of attempts must be greater than zero");
+		Assert.isTrue(!initialBackoff.isNegative(), "Initial backoff can not be negative");
+		Assert.isTrue(multiplier >= 1, "Backoff multiplier can not be less than one");
+		Assert.isTrue(maxBackoff.compareTo(initialBackoff) >= 0, "Maximum backoff can not be less than the initial backoff");
+		Assert.isTrue(jitter >= 0 && jitter <= 1, "Backoff jitter must be between zero and one");
+	}
+
+	/**
+	 * Calculates the delay before the next attempt, after the given number of failed attempts.
+	 *
+	 * @param attempts number of failed attempts, starting with one
+	 * @param random random generator used to apply the jitter
+	 * @return delay before the next attempt, never {@literal null}
+	 */
+	Duration backoff(int attempts, RandomGenerator random) {
+		final double max = maxBackoff.toNanos();
+
+		double delay = Math.min(initialBackoff.toNanos() * Math.pow(multiplier, attempts - 1), max);
+
+		if (jitter > 0) {
+			delay = Math.min(delay * (1 - jitter + 2 * jitter * random.nextDouble()), max);
+		}
+
+		return Duration.ofNanos((long) delay);
+	}
+
+}
@@ -0,0 +1,251 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link Transport} decorator that retries sending the mails that failed with a transient
+ * {@link MailingException.ErrorCode}, such as {@link MailingException.ErrorCode#CONNECTION_FAILED} or
+ * {@link MailingException.ErrorCode#QUOTA_EXCEEDED}.
+ * <p>
+ * Each {@link MailingException.ErrorCode} has its own {@link RetryPolicy}, failures with an error code that
+ * has no policy are not retried. Failures that can not be fixed by retrying, like template rendering, message
+ * preparation or authentication failures, can never be retried.
+ * <p>
+ * Retries are not delayed by sleeping threads. The backoff of every retry is scheduled on the {@link TimerWheel},
+ * and once it elapses the next attempt is dispatched on a new virtual thread, so a large number of delayed
+ * retries costs little more than their bucket entries in the wheel.
+ * <p>
+ * The number of attempts that are concurrently sent by the retry threads is limited by a {@link Semaphore}, so
+ * that the retries which fall due on the same tick, like when the mail relay recovers, do not all call the
+ * delegate transport at once. Retries that exceed that limit wait for a permit on their own virtual thread.
+ * <p>
+ * Mails sent using
+ * {@link #sendAsync(Mail, Template)} therefore do not block any thread while they wait for a retry, while
+ * {@link #send(Mail, Template)} and {@link #sendAll(List, List)} block the calling thread until the mails are
+ * either sent or all their attempts failed.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see RetryPolicy
+ **/
+@NullMarked
+final class RetryingTransport implements Transport {
+
+	private static final Logger log = LoggerFactory.getLogger(RetryingTransport.class);
+
+	private static final Set<MailingException.ErrorCode> NON_RETRYABLE = EnumSet.of(
+		MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED,
+		MailingException.ErrorCode.MESSAGE_PREPARATION_FAILED,
+		MailingException.ErrorCode.AUTHENTICATION_FAILED
+	);
+
+	private static final ThreadFactory THREADS = Thread.ofVirtual().name("mail-retry-", 0).factory();
+
+	private final Transport delegate;
+	private final Map<MailingException.ErrorCode, RetryPolicy> policies;
+	private final TimerWheel timer;
+	private final Executor executor;
+	private final Semaphore permits;
+
+	RetryingTransport(Transport delegate, Map<MailingException.ErrorCode, RetryPolicy> policies, TimerWheel timer,
+			int maxConcurrency) {
+		this(delegate, policies, timer, maxConcurrency, command -> THREADS.newThread(command).start());
+	}
+
+	RetryingTransport(Transport delegate, Map<MailingException.ErrorCode, RetryPolicy> policies, TimerWheel timer,
+			int maxConcurrency, Executor executor) {
+		Assert.notNull(delegate, "Delegate transport can not be null");
+		Assert.notNull(policies, "Retry policies can not be null");
+		Assert.notNull(timer, "Timer wheel can not be null");
+		Assert.isTrue(maxConcurrency > 0, "Retry concurrency must be greater than 0");
+		Assert.notNull(executor, "Retry executor can not be null");
+
+		for (MailingException.ErrorCode code : policies.keySet()) {
+			Assert.isTrue(!NON_RETRYABLE.contains(code), () -> "Mails that failed with " + code + " can not be retried");
+		}
+
+		this.delegate = delegate;
+		this.policies = policies.isEmpty() ? Map.of() : new EnumMap<>(policies);
+		this.timer = timer;
+		this.executor = executor;
+		this.permits = new Semaphore(maxConcurrency);
+	}
+
+	/**
+	 * Creates a new {@link RetryingTransport} using the retry policies defined by the given configuration.
+	 *
+	 * @param delegate transport that sends the mails, can't be {@literal null}
+	 * @param properties retry configuration, can't be {@literal null}
+	 * @param timer timer wheel used to schedule the retries, can't be {@literal null}
+	 * @return the retrying transport, never {@literal null}
+	 */
+	static RetryingTransport create(Transport delegate, MailerProperties.Retry properties, TimerWheel timer) {
+		final Map<MailingException.ErrorCode, RetryPolicy> policies = new EnumMap<>(MailingException.ErrorCode.class);
+
+		properties.getPolicies().forEach((code, policy) -> policies.put(code, new RetryPolicy(
+			policy.getMaxAttempts() == null ? properties.getMaxAttempts() : policy.getMaxAttempts(),
+			policy.getInitialBackoff() == null ? properties.getInitialBackoff() : policy.getInitialBackoff(),
+			policy.getMultiplier() == null ? properties.getMultiplier() : policy.getMultiplier(),
+			policy.getMaxBackoff() == null ? properties.getMaxBackoff() : policy.getMaxBackoff(),
+			policy.getJitter() == null ? properties.getJitter() : policy.getJitter()
+		)));
+
+		return new RetryingTransport(delegate, policies, timer, properties.getMaxConcurrency());
+	}
+
+	@Override
+	public void send(Mail mail, Template template) {
+		Transports.await(mail, sendAsync(mail, template));
+	}
+
+	/**
+	 * Sends the mail on the calling thread and, when the attempt fails with a retryable error code,
+	 * schedules the following attempts. The returned future completes when the mail is sent, or with
+	 * the {@link MailingException} of the last attempt. Cancelling the future cancels the pending retry, an
+	 * attempt that is already sending the mail is not interrupted and the future completes once it ends.
+	 *
+	 * @param mail mail to be dispatched, including envelope metadata; never {@literal null}
+	 * @param template the fully-rendered template body and its content type; never {@literal null}
+	 * @return future that completes when the mail is dispatched, never {@literal null}
+	 */
+	@Override
+	public CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		final Transports.Dispatch result = new Transports.Dispatch();
+		attempt(mail, template, 1, result);
+		return result;
+	}
+
+	/**
+	 * Sends the batch using the delegate transport and retries the mails of the batch that failed with a
+	 * retryable error code. Retried mails are sent one by one.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		final List<MailingResult> results = delegate.sendAll(mails, templates);
+		final List<@Nullable CompletableFuture<Void>> retries = new ArrayList<>(results.size());
+
+		for (int i = 0; i < results.size(); i++) {
+			final MailingException exception = results.get(i).exception();
+
+			if (exception == null || !isRetryable(exception, 1)) {
+				retries.add(null);
+				continue;
+			}
+
+			final Transports.Dispatch retry = new Transports.Dispatch();
+			retry(mails.get(i), templates.get(i), 1, exception, retry);
+			retries.add(retry);
+		}
+
+		final List<MailingResult> retried = new ArrayList<>(results.size());
+
+		for (int i = 0; i < results.size(); i++) {
+			final CompletableFuture<Void> retry = retries.get(i);
+
+			if (retry == null) {
+				retried.add(results.get(i));
+				continue;
+			}
+
+			final Mail mail = mails.get(i);
+
+			try {
+				Transports.await(mail, retry);
+				retried.add(MailingResult.success(mail));
+			} catch (MailingException ex) {
+				retried.add(MailingResult.failure(mail, ex));
+			}
+		}
+
+		return retried;
+	}
+
+	private void attempt(Mail mail, Template template, int attempt, Transports.Dispatch result) {
+		if (!result.begin()) {
+			return;
+		}
+
+		try {
+			delegate.send(mail, template);
+			result.complete(null);
+		} catch (MailingException ex) {
+			retry(mail, template, attempt, ex, result);
+		} catch (RuntimeException ex) {
+			result.completeExceptionally(new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Unexpected error while sending email with template '" + mail.template() + "'",
+				ex
+			));
+		} finally {
+			result.end();
+		}
+	}
+
+	private void retry(Mail mail, Template template, int attempts, MailingException ex,
+			Transports.Dispatch result) {
+		if (!isRetryable(ex, attempts)) {
+			result.completeExceptionally(ex);
+			return;
+		}
+
+		final RetryPolicy policy = policies.get(ex.getErrorCode());
+		final Duration backoff = policy.backoff(attempts, ThreadLocalRandom.current());
+
+		log.debug("Failed to send mail with template '{}' after {} attempt(s) with error code {}, retrying in {}",
+				mail.template(), attempts, ex.getErrorCode(), backoff);
+
+		final CompletableFuture<Void> timeout = timer.schedule(backoff);
+
+		result.whenComplete((ignored, failure) -> timeout.cancel(false));
+
+		timeout.whenComplete((ignored, failure) -> {
+			if (failure != null) {
+				result.completeExceptionally(ex);
+				return;
+			}
+
+			try {
+				executor.execute(() -> {
+					permits.acquireUninterruptibly();
+
+					try {
+						attempt(mail, template, attempts + 1, result);
+					} finally {
+						permits.release();
+					}
+				});
+			} catch (RejectedExecutionException rejected) {
+				ex.addSuppressed(rejected);
+				result.completeExceptionally(ex);
+			}
+		});
+	}
+
+	private boolean isRetryable(MailingException ex, int attempts) {
+		final RetryPolicy policy = policies.get(ex.getErrorCode());
+		return policy != null && attempts < policy.maxAttempts();
+	}
+
+}
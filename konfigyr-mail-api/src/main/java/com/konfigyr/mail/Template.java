@@ -1,19 +1,49 @@
 package com.konfigyr.mail;
 
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.MimeType;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+
 /**
  * Immutable Mail template object that is returned by the {@link TemplateEngine}.
+ * <p>
+ * The template contents are either held as a {@link String}, or are streamed by the {@link TemplateEngine}
+ * into a {@link TemplateBuffer}. Buffered templates should be consumed using the {@link #openStream()} method,
+ * which allows the {@link Transport} to stream large message bodies without materializing them on the heap.
+ * <p>
+ * HTML templates may carry a plain text {@link #alternative() alternative}, in which case the {@link Transport}
+ * should send both of them as a {@code multipart/alternative} message, letting the mail client choose which
+ * one to display.
+ * <p>
+ * The {@code buffer} and {@code alternative} components were added in {@code 1.1.0}, the constructor with the
+ * {@code contents} and {@code contentType} arguments is kept, while record patterns need to list all components.
+ * <p>
+ * Templates held as a {@link String} are compared by their contents. Buffered templates are compared
+ * by the identity of their {@link TemplateBuffer}, so that {@link #equals(Object)}, {@link #hashCode()}
+ * and {@link #toString()} never read the buffer and remain safe to call after the template was
+ * {@link #release() released}.
  *
- * @param contents the actual template content to be added the mail message, can't be {@literal blank}
+ * @param contents the template contents, {@literal null} for buffered templates
  * @param contentType defines which content type should be used for this template
+ * @param buffer the buffer holding the contents of buffered templates, {@literal null} otherwise
+ * @param alternative the plain text alternative of an HTML template, can be {@literal null}
  * @author Vladimir Spasic
  * @since 1.0.0
  **/
 @NullMarked
-public record Template(String contents, MimeType contentType) {
+public record Template(
+		@Nullable String contents,
+		MimeType contentType,
+		@Nullable TemplateBuffer buffer,
+		@Nullable Template alternative
+) {
 
 	/**
 	 * Canonical HTML content type ({@code text/html}).
@@ -25,6 +55,43 @@ public record Template(String contents, MimeType contentType) {
 	 */
 	public static final MimeType TEXT = MimeType.valueOf("text/plain");
 
+	/**
+	 * Creates a new Mail template instance that is either held as a {@link String} or buffered in the
+	 * given {@link TemplateBuffer}. The buffer is closed, if it was not closed already.
+	 *
+	 * @param contents the template contents, must be {@literal null} for buffered templates
+	 * @param contentType defines which content type should be used for this template
+	 * @param buffer the buffer holding the template contents, must not be empty
+	 * @param alternative the plain text alternative of an HTML template, can be {@literal null}
+	 * @throws IllegalArgumentException when template contents is blank, or when the alternative is invalid.
+	 * @throws UncheckedIOException when the buffer could not be closed.
+	 * @since 1.1.0
+	 */
+	public Template {
+		Assert.notNull(contentType, "Template content type can not be null");
+
+		if (buffer == null) {
+			Assert.hasText(contents, "Template contents can not be blank");
+		} else {
+			Assert.isNull(contents, "Buffered templates can not have string contents");
+
+			try {
+				buffer.close();
+			} catch (IOException ex) {
+				throw new UncheckedIOException("Failed to close template buffer", ex);
+			}
+
+			Assert.isTrue(buffer.size() > 0, "Template contents can not be blank");
+		}
+
+		if (alternative != null) {
+			Assert.isTrue(HTML.isCompatibleWith(contentType), "Only HTML templates can have a plain text alternative");
+			Assert.isTrue(TEXT.isCompatibleWith(alternative.contentType),
+					"Template alternative must be a plain text template");
+			Assert.isNull(alternative.alternative, "Template alternative can not have its own alternative");
+		}
+	}
+
 	/**
 	 * Creates a new Mail template instance with contents and content type.
 	 *
@@ -32,8 +99,8 @@ public record Template(String contents, MimeType contentType) {
 	 * @param contentType defines which content type should be used for this template
 	 * @throws IllegalArgumentException when template contents is blank.
 	 */
-	public Template {
-		Assert.hasText(contents, "Template contents can not be blank");
+	public Template(String contents, MimeType contentType) {
+		this(contents, contentType, null, null);
 	}
 
 	/**
@@ -58,4 +125,147 @@ public record Template(String contents, MimeType contentType) {
 		return new Template(contents, TEXT);
 	}
 
+	/**
+	 * Constructs a new {@link Template} instance whose contents were streamed into the given
+	 * {@link TemplateBuffer}. The buffer is closed, if it was not closed already.
+	 *
+	 * @param buffer the buffer holding the fully-rendered template contents; must not be empty
+	 * @param contentType defines which content type should be used for this template
+	 * @return a new buffered {@link Template}; never {@literal null}
+	 * @throws IllegalArgumentException when the buffer is empty.
+	 * @throws UncheckedIOException when the buffer could not be closed.
+	 */
+	public static Template buffered(TemplateBuffer buffer, MimeType contentType) {
+		Assert.notNull(buffer, "Template buffer can not be null");
+		return new Template(null, contentType, buffer, null);
+	}
+
+	/**
+	 * Creates a new {@link Template} that carries the given plain text template as its alternative.
+	 * Both templates are sent as a {@code multipart/alternative} message by the {@link Transport}.
+	 *
+	 * @param alternative the fully-rendered plain text alternative; can't be {@literal null}
+	 * @return a new {@link Template} with the plain text alternative; never {@literal null}
+	 * @throws IllegalArgumentException when this template is not an HTML template, or when the
+	 * alternative is not a plain text template.
+	 * @since 1.1.0
+	 */
+	public Template withAlternative(Template alternative) {
+		Assert.notNull(alternative, "Template alternative can not be null");
+		return new Template(contents, contentType, buffer, alternative);
+	}
+
+	/**
+	 * Returns the template contents as a {@link String}. For buffered templates this reads the whole
+	 * buffer into memory, prefer {@link #openStream()} when the template is {@link #isBuffered() buffered}.
+	 *
+	 * @return the template contents, never {@literal null}
+	 * @throws IllegalStateException when the buffered template was already {@link #release() released}
+	 */
+	@Override
+	public String contents() {
+		return buffer == null ? Objects.requireNonNull(contents) : buffer.contents();
+	}
+
+	/**
+	 * Returns the content type of this template.
+	 *
+	 * @return the template content type, never {@literal null}
+	 */
+	@Override
+	public MimeType contentType() {
+		return contentType;
+	}
+
+	/**
+	 * Returns the plain text alternative of this template, if any.
+	 *
+	 * @return the plain text alternative, or {@literal null} when there is none
+	 * @since 1.1.0
+	 */
+	@Nullable
+	@Override
+	public Template alternative() {
+		return alternative;
+	}
+
+	/**
+	 * Checks if the template contents are held in a {@link TemplateBuffer}.
+	 *
+	 * @return {@literal true} when the template is buffered
+	 */
+	public boolean isBuffered() {
+		return buffer != null;
+	}
+
+	/**
+	 * Opens a new {@link InputStream} that reads the template contents encoded using the
+	 * {@link TemplateBuffer#CHARSET}.
+	 *
+	 * @return template contents input stream, never {@literal null}
+	 * @throws IOException when the buffered contents could not be opened
+	 * @throws IllegalStateException when the buffered template was already {@link #release() released}
+	 */
+	public InputStream openStream() throws IOException {
+		if (buffer == null) {
+			return new ByteArrayInputStream(Objects.requireNonNull(contents).getBytes(TemplateBuffer.CHARSET));
+		}
+		return buffer.openStream();
+	}
+
+	/**
+	 * Returns the number of bytes of the template contents, including its plain text alternative, when
+	 * encoded using the {@link TemplateBuffer#CHARSET}.
+	 *
+	 * @return template size in bytes
+	 * @since 1.1.0
+	 */
+	long size() {
+		final long size = buffer == null ? encodedLength(Objects.requireNonNull(contents)) : buffer.size();
+		return alternative == null ? size : size + alternative.size();
+	}
+
+	/**
+	 * Releases the temporary file held by a buffered template whose contents were spilled to disk. This
+	 * method is invoked by the {@link Mailer} once the {@link Transport} dispatched the mail, it has no
+	 * effect for templates that are kept in memory.
+	 */
+	public void release() {
+		if (buffer != null) {
+			buffer.release();
+		}
+		if (alternative != null) {
+			alternative.release();
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (buffer != null) {
+			return "Template[buffered=" + buffer.size() + " bytes, contentType=" + contentType
+					+ ", alternative=" + alternative + "]";
+		}
+		return "Template[contents=" + contents + ", contentType=" + contentType + ", alternative=" + alternative + "]";
+	}
+
+	/**
+	 * Calculates the UTF-8 encoded length of the value without encoding it. Characters outside the basic
+	 * multilingual plane are stored as surrogate pairs, each half contributing two of their four bytes.
+	 */
+	private static long encodedLength(String value) {
+		long length = value.length();
+
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+
+			if (c >= 0x800) {
+				length += Character.isSurrogate(c) ? 1 : 2;
+			} else if (c >= 0x80) {
+				length++;
+			}
+		}
+
+		return length;
+	}
+
 }
@@ -0,0 +1,275 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.Cleaner;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link Writer} used by the {@link TemplateEngine} to stream the rendered template contents into a
+ * buffer, instead of materializing the whole message body as a {@link String}.
+ * <p>
+ * The contents are encoded using the {@link #CHARSET} as they are written and kept in memory until
+ * the buffer grows beyond the configured threshold, at which point they are spilled into a temporary
+ * file. The {@link Transport} can then stream the buffered contents directly into the message, using
+ * the {@link #openStream()} method, without ever holding the whole message body on the heap.
+ * <p>
+ * Temporary files are deleted when the buffer is {@link #release() released}, or at the latest once the
+ * buffer is no longer reachable. This class is not thread-safe, it is expected to be written by a single thread.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see Template#buffered(TemplateBuffer, org.springframework.util.MimeType)
+ **/
+@NullMarked
+public final class TemplateBuffer extends Writer {
+
+	/**
+	 * Charset used to encode the buffered template contents.
+	 */
+	public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+	/**
+	 * Default number of bytes that are kept in memory before the contents are spilled into a file.
+	 */
+	public static final int DEFAULT_THRESHOLD = 256 * 1024;
+
+	private static final Cleaner cleaner = Cleaner.create();
+
+	private final SpillingOutputStream output;
+	private final Writer writer;
+	private boolean closed;
+	private boolean released;
+
+	/**
+	 * Creates a new {@link TemplateBuffer} that spills its contents into a file once they exceed
+	 * the {@link #DEFAULT_THRESHOLD}.
+	 */
+	public TemplateBuffer() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new {@link TemplateBuffer} that spills its contents into a file once they exceed
+	 * the given number of bytes.
+	 *
+	 * @param threshold number of bytes kept in memory, must not be negative
+	 * @throws IllegalArgumentException when threshold is negative
+	 */
+	public TemplateBuffer(int threshold) {
+		Assert.isTrue(threshold >= 0, "Template buffer threshold can not be negative");
+
+		this.output = new SpillingOutputStream(threshold);
+		this.writer = new OutputStreamWriter(output, CHARSET);
+		cleaner.register(this, output.cleanup);
+	}
+
+	@Override
+	public void write(char[] buffer, int offset, int length) throws IOException {
+		ensureOpen();
+		writer.write(buffer, offset, length);
+	}
+
+	@Override
+	public void write(String value, int offset, int length) throws IOException {
+		ensureOpen();
+		writer.write(value, offset, length);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		writer.flush();
+	}
+
+	/**
+	 * Completes writing of the template contents. The buffered contents can be read once the buffer
+	 * is closed, closing it again has no effect.
+	 *
+	 * @throws IOException when the remaining contents could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			writer.close();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes, encoded using the {@link #CHARSET}, that were written to this buffer.
+	 * @return buffer size in bytes
+	 */
+	public long size() {
+		return output.size;
+	}
+
+	/**
+	 * Checks if the buffered contents exceeded the threshold and were spilled into a temporary file.
+	 * @return {@literal true} when contents are stored in a file
+	 */
+	public boolean isSpilled() {
+		return output.cleanup.file != null;
+	}
+
+	/**
+	 * Opens a new {@link InputStream} that reads the buffered contents encoded using the {@link #CHARSET}.
+	 *
+	 * @return input stream for the buffered contents, never {@literal null}
+	 * @throws IllegalStateException when the buffer is not yet closed, or was already released
+	 * @throws IOException when the spilled contents could not be opened
+	 */
+	public InputStream openStream() throws IOException {
+		Assert.state(!released, "Template buffer has been released");
+		Assert.state(closed, "Template buffer must be closed before its contents can be read");
+
+		final Path file = output.cleanup.file;
+		return file == null ? new ByteArrayInputStream(output.memory.toByteArray()) : Files.newInputStream(file);
+	}
+
+	/**
+	 * Reads the buffered contents into a {@link String}. This materializes the whole template on the
+	 * heap and should be avoided for large templates.
+	 *
+	 * @return buffered contents, never {@literal null}
+	 * @throws IllegalStateException when the buffer is not yet closed
+	 * @throws UncheckedIOException when the spilled contents could not be read
+	 */
+	public String contents() {
+		try (InputStream stream = openStream()) {
+			return new String(stream.readAllBytes(), CHARSET);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Failed to read template buffer contents", ex);
+		}
+	}
+
+	/**
+	 * Releases the temporary file that holds the spilled contents of this buffer, after which the
+	 * contents can no longer be read. Contents that are kept in memory remain readable and are
+	 * reclaimed together with the buffer itself.
+	 */
+	public void release() {
+		if (!isSpilled()) {
+			return;
+		}
+
+		released = true;
+
+		try {
+			close();
+		} catch (IOException ignore) {
+			// contents are discarded, write failures are no longer relevant
+		}
+
+		output.cleanup.run();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Template buffer is closed");
+		}
+	}
+
+	/**
+	 * Output stream that writes into memory until the threshold is reached, after which all
+	 * written bytes are moved into a temporary file.
+	 */
+	private static final class SpillingOutputStream extends OutputStream {
+
+		private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+		private final Cleanup cleanup = new Cleanup();
+		private final int threshold;
+
+		private @Nullable OutputStream file;
+		private long size;
+
+		SpillingOutputStream(int threshold) {
+			this.threshold = threshold;
+		}
+
+		@Override
+		public void write(int value) throws IOException {
+			target(1).write(value);
+			size++;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			target(length).write(bytes, offset, length);
+			size += length;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (file != null) {
+				file.flush();
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (file != null) {
+				file.close();
+			}
+		}
+
+		private OutputStream target(int length) throws IOException {
+			if (file != null) {
+				return file;
+			}
+
+			if (size + length <= threshold) {
+				return memory;
+			}
+
+			final Path path = Files.createTempFile("konfigyr-mail-", ".template");
+			cleanup.file = path;
+
+			file = Files.newOutputStream(path);
+			memory.writeTo(file);
+			memory.reset();
+
+			return file;
+		}
+
+	}
+
+	/**
+	 * Cleanup action that deletes the temporary file. It must not reference the buffer itself,
+	 * otherwise the buffer would never become unreachable.
+	 */
+	private static final class Cleanup implements Runnable {
+
+		private volatile @Nullable Path file;
+
+		@Override
+		public void run() {
+			final Path path = file;
+
+			if (path != null) {
+				file = null;
+
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException ignore) {
+					// the file would be removed together with other temporary files
+				}
+			}
+		}
+
+	}
+
+}
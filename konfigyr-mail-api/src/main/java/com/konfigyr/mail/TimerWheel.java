@@ -0,0 +1,327 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel that completes scheduled {@link CompletableFuture futures} once their delay elapses.
+ * <p>
+ * Timeouts are stored in a fixed number of buckets, each bucket holding the timeouts that expire within the
+ * same tick of the wheel, while timeouts that expire after a full rotation of the wheel keep track of the
+ * remaining rotations. A single thread advances the wheel once per tick and completes the expired timeouts
+ * of the current bucket, which makes scheduling and cancelling a timeout a constant time operation and lets
+ * thousands of pending timeouts share one thread, at the cost of the timeouts being completed up to one tick
+ * late.
+ * <p>
+ * Timeouts are completed by the wheel thread, dependent actions that block or take long to complete should
+ * be executed asynchronously. Timeouts that are still pending when the wheel is closed are cancelled.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class TimerWheel implements AutoCloseable {
+
+	private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+	private final long tick;
+	private final Bucket[] buckets;
+	private final int mask;
+	private final long origin;
+	private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+	private final Queue<Timeout> cancellations = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pending = new AtomicInteger();
+	private final Thread worker;
+
+	private volatile boolean running = true;
+	private long ticks;
+
+	/**
+	 * Creates and starts a new timing wheel.
+	 *
+	 * @param name name of the wheel thread, can't be {@literal null}
+	 * @param tick duration of a single tick of the wheel, must be positive
+	 * @param size number of buckets in the wheel, rounded up to the next power of two
+	 */
+	TimerWheel(String name, Duration tick, int size) {
+		Assert.hasText(name, "Timer wheel name can not be blank");
+		Assert.isTrue(tick.toNanos() > 0, "Timer wheel tick duration must be positive");
+		Assert.isTrue(size > 0 && size <= 1 << 20, "Timer wheel size must be between 1 and " + (1 << 20));
+
+		final int capacity = Integer.highestOneBit(size) == size ? size : Integer.highestOneBit(size) << 1;
+
+		this.tick = tick.toNanos();
+		this.buckets = new Bucket[capacity];
+		this.mask = capacity - 1;
+		this.origin = System.nanoTime();
+
+		for (int i = 0; i < capacity; i++) {
+			buckets[i] = new Bucket();
+		}
+
+		this.worker = Thread.ofPlatform().name(name).daemon().start(this::run);
+	}
+
+	/**
+	 * Schedules a timeout that completes once the given delay elapses. Cancelling the returned future removes
+	 * the timeout from the wheel.
+	 *
+	 * @param delay delay after which the timeout completes, negative delays are treated as zero
+	 * @return the future that completes when the timeout expires, never {@literal null}
+	 */
+	CompletableFuture<Void> schedule(Duration delay) {
+		Assert.notNull(delay, "Timeout delay can not be null");
+
+		final Timeout timeout = new Timeout(System.nanoTime() - origin + Math.max(0, delay.toNanos()));
+
+		if (!running) {
+			timeout.cancel(false);
+			return timeout;
+		}
+
+		pending.incrementAndGet();
+		additions.add(timeout);
+
+		// the wheel may have been closed after the timeout was added, in which case it is cancelled here
+		if (!running) {
+			cancelAdditions();
+		}
+
+		return timeout;
+	}
+
+	/**
+	 * Returns the number of timeouts that were scheduled and did not yet expire or were cancelled.
+	 * @return number of pending timeouts
+	 */
+	int pending() {
+		return pending.get();
+	}
+
+	/**
+	 * Stops the wheel thread and cancels all pending timeouts.
+	 */
+	@Override
+	public void close() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		LockSupport.unpark(worker);
+
+		try {
+			worker.join();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (Bucket bucket : buckets) {
+			bucket.cancelAll();
+		}
+
+		cancelAdditions();
+	}
+
+	private void run() {
+		while (running) {
+			final long deadline = awaitNextTick();
+
+			if (deadline < 0) {
+				return;
+			}
+
+			removeCancellations();
+			transferAdditions();
+
+			buckets[(int) (ticks & mask)].expire(deadline);
+			ticks++;
+		}
+	}
+
+	/**
+	 * Parks the wheel thread until the next tick, returning the current time relative to the wheel origin,
+	 * or {@literal -1} when the wheel was closed in the meantime.
+	 */
+	private long awaitNextTick() {
+		final long deadline = tick * (ticks + 1);
+
+		while (running) {
+			final long now = System.nanoTime() - origin;
+
+			if (now >= deadline) {
+				return now;
+			}
+
+			LockSupport.parkNanos(this, deadline - now);
+		}
+
+		return -1;
+	}
+
+	private void transferAdditions() {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			final Timeout timeout = additions.poll();
+
+			if (timeout == null) {
+				return;
+			}
+
+			if (timeout.isDone()) {
+				continue;
+			}
+
+			final long expiresAt = timeout.deadline / tick;
+
+			timeout.rounds = (expiresAt - ticks) / buckets.length;
+			buckets[(int) (Math.max(expiresAt, ticks) & mask)].add(timeout);
+		}
+	}
+
+	private void removeCancellations() {
+		Timeout timeout;
+
+		while ((timeout = cancellations.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void cancelAdditions() {
+		Timeout timeout;
+
+		while ((timeout = additions.poll()) != null) {
+			timeout.cancel(false);
+		}
+	}
+
+	/**
+	 * Future that is completed by the wheel once its deadline, relative to the wheel origin, is reached.
+	 */
+	private final class Timeout extends CompletableFuture<Void> {
+
+		private final long deadline;
+		private long rounds;
+		private @Nullable Bucket bucket;
+		private @Nullable Timeout previous;
+		private @Nullable Timeout next;
+
+		Timeout(long deadline) {
+			this.deadline = deadline;
+		}
+
+		void expire() {
+			if (super.complete(null)) {
+				pending.decrementAndGet();
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (!super.completeExceptionally(new CancellationException("Timeout was cancelled"))) {
+				return false;
+			}
+
+			pending.decrementAndGet();
+			cancellations.add(this);
+			return true;
+		}
+
+		@Override
+		public boolean complete(@Nullable Void value) {
+			throw new UnsupportedOperationException("Timeouts can only be completed by the timer wheel");
+		}
+
+		@Override
+		public boolean completeExceptionally(Throwable ex) {
+			throw new UnsupportedOperationException("Timeouts can only be completed by the timer wheel");
+		}
+
+	}
+
+	/**
+	 * Doubly linked list of timeouts that is only accessed by the wheel thread.
+	 */
+	private final class Bucket {
+
+		private @Nullable Timeout head;
+		private @Nullable Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.previous = tail;
+				tail = timeout;
+			}
+		}
+
+		void expire(long now) {
+			Timeout timeout = head;
+
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+
+				if (timeout.isDone()) {
+					remove(timeout);
+				} else if (timeout.rounds <= 0 && timeout.deadline <= now) {
+					remove(timeout);
+					timeout.expire();
+				} else if (timeout.rounds > 0) {
+					timeout.rounds--;
+				}
+
+				timeout = next;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.bucket != this) {
+				return;
+			}
+
+			if (timeout.previous != null) {
+				timeout.previous.next = timeout.next;
+			}
+			if (timeout.next != null) {
+				timeout.next.previous = timeout.previous;
+			}
+			if (timeout == head) {
+				head = timeout.next;
+			}
+			if (timeout == tail) {
+				tail = timeout.previous;
+			}
+
+			timeout.previous = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		void cancelAll() {
+			Timeout timeout = head;
+
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+				remove(timeout);
+				timeout.cancel(false);
+				timeout = next;
+			}
+		}
+
+	}
+
+}
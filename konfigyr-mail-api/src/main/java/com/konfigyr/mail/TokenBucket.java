@@ -0,0 +1,123 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that hands out a fixed number of permits per period.
+ * <p>
+ * Instead of refilling a token counter on a schedule, the bucket is implemented as a generic cell rate
+ * algorithm that keeps a single timestamp: the theoretical arrival time of the next permit. Each reserved
+ * permit moves the timestamp forward by one emission interval, the period divided by the number of permits,
+ * and a permit is available as long as the timestamp is not more than the burst tolerance ahead of the
+ * current time. This makes the bucket behave exactly like one that holds up to {@code permits} tokens and
+ * refills one token every emission interval, while reserving a permit is a single compare-and-set operation.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class TokenBucket {
+
+	private final int permits;
+	private final Duration period;
+	private final long interval;
+	private final long tolerance;
+	private final AtomicLong arrival;
+
+	/**
+	 * Creates a new token bucket that starts full.
+	 *
+	 * @param permits number of permits handed out per period, must be positive
+	 * @param period period in which the permits are handed out, must be positive
+	 */
+	TokenBucket(int permits, Duration period) {
+		Assert.isTrue(permits > 0, "Number of permits must be greater than zero");
+		Assert.notNull(period, "Rate limit period can not be null");
+		Assert.isTrue(period.toNanos() >= permits, "Rate limit period is too short for " + permits + " permits");
+
+		this.permits = permits;
+		this.period = period;
+		this.interval = period.toNanos() / permits;
+		this.tolerance = interval * (permits - 1);
+		this.arrival = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Reserves a permit and returns the time the caller needs to wait before the permit can be used.
+	 * When the caller would need to wait longer than the given maximum wait time, the permit is not
+	 * reserved and {@literal -1} is returned.
+	 *
+	 * @param now current {@link System#nanoTime()} value
+	 * @param maxWait maximum time in nanoseconds the caller is willing to wait, zero to only reserve
+	 *                a permit that is immediately available
+	 * @return time to wait in nanoseconds, or {@literal -1} when no permit was reserved
+	 */
+	long reserve(long now, long maxWait) {
+		while (true) {
+			final long current = arrival.get();
+			final long next = Math.max(current, now);
+			final long wait = Math.max(0, next - tolerance - now);
+
+			if (wait > maxWait) {
+				return -1;
+			}
+
+			if (arrival.compareAndSet(current, next + interval)) {
+				return wait;
+			}
+		}
+	}
+
+	/**
+	 * Returns the time until the next permit becomes available, without reserving it.
+	 *
+	 * @param now current {@link System#nanoTime()} value
+	 * @return time until the next permit is available in nanoseconds, zero when it is available now
+	 */
+	long delay(long now) {
+		return Math.max(0, arrival.get() - tolerance - now);
+	}
+
+	/**
+	 * Checks if all permits of the bucket are available.
+	 *
+	 * @param now current {@link System#nanoTime()} value
+	 * @return {@literal true} when the bucket is full
+	 */
+	boolean isFull(long now) {
+		return arrival.get() <= now;
+	}
+
+	/**
+	 * Returns a previously reserved permit that was not used back to the bucket.
+	 */
+	void refund() {
+		arrival.addAndGet(-interval);
+	}
+
+	/**
+	 * Returns the number of permits handed out per period.
+	 * @return number of permits
+	 */
+	int permits() {
+		return permits;
+	}
+
+	/**
+	 * Returns the period in which the permits are handed out.
+	 * @return rate limit period, never {@literal null}
+	 */
+	Duration period() {
+		return period;
+	}
+
+	@Override
+	public String toString() {
+		return "TokenBucket(" + permits + " per " + period + ")";
+	}
+
+}
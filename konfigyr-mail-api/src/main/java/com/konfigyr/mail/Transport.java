@@ -1,6 +1,11 @@
 package com.konfigyr.mail;
 
 import org.jspecify.annotations.NullMarked;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface that defines how a fully-rendered {@link Mail} should be dispatched to its
@@ -62,6 +67,9 @@ public interface Transport {
 	 * </ul>
 	 * This ensures callers of {@link Mailer} only ever need to handle a single exception
 	 * type regardless of which transport is in use.
+	 * <p>
+	 * The {@link Template} is released once this method returns, implementations must not return, even when
+	 * the calling thread is interrupted, while the template is still being used to dispatch the mail.
 	 *
 	 * @param mail mail to be dispatched, including envelope metadata; never {@literal null}
 	 * @param template the fully-rendered template body and its content type; never {@literal null}
@@ -69,4 +77,71 @@ public interface Transport {
 	 */
 	void send(Mail mail, Template template);
 
+	/**
+	 * Dispatches the given {@link Mail} using the fully-rendered {@link Template}, returning a future that
+	 * completes once the mail is dispatched, or completes exceptionally with a {@link MailingException}.
+	 * <p>
+	 * The {@link Template} must not be released before the returned future completes. The default
+	 * implementation dispatches the mail on the calling thread using {@link #send(Mail, Template)}.
+	 * Implementations that delay the dispatch, for instance to retry it after a backoff, should override
+	 * this method so that no thread is blocked while the dispatch is delayed.
+	 *
+	 * @param mail mail to be dispatched, including envelope metadata; never {@literal null}
+	 * @param template the fully-rendered template body and its content type; never {@literal null}
+	 * @return future that completes when the mail is dispatched, never {@literal null}
+	 * @since 1.1.0
+	 */
+	default CompletableFuture<Void> sendAsync(Mail mail, Template template) {
+		try {
+			send(mail, template);
+			return CompletableFuture.completedFuture(null);
+		} catch (RuntimeException ex) {
+			return CompletableFuture.failedFuture(ex);
+		}
+	}
+
+	/**
+	 * Dispatches a batch of {@link Mail mails} using their fully-rendered {@link Template templates}.
+	 * <p>
+	 * The {@link Template} at a given index is the rendered body of the {@link Mail} at the same index.
+	 * Unlike {@link #send(Mail, Template)}, this method does not throw on the first failure. Every mail
+	 * in the batch gets its own {@link MailingResult}, which either marks it as sent or carries the
+	 * {@link MailingException} that describes why it failed. Results are returned in the order of the
+	 * given mails.
+	 * <p>
+	 * The default implementation dispatches each mail using {@link #send(Mail, Template)}. Implementations
+	 * are encouraged to override it when the underlying infrastructure can amortize costly setup, such as
+	 * opening and authenticating a connection, across the whole batch.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 * @throws IllegalArgumentException when the number of mails and templates differ
+	 * @since 1.1.0
+	 */
+	default List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		Assert.isTrue(mails.size() == templates.size(), "Each mail in the batch must have its rendered template");
+
+		final List<MailingResult> results = new ArrayList<>(mails.size());
+
+		for (int i = 0; i < mails.size(); i++) {
+			final Mail mail = mails.get(i);
+
+			try {
+				send(mail, templates.get(i));
+				results.add(MailingResult.success(mail));
+			} catch (MailingException ex) {
+				results.add(MailingResult.failure(mail, ex));
+			} catch (RuntimeException ex) {
+				results.add(MailingResult.failure(mail, new MailingException(
+					MailingException.ErrorCode.SEND_FAILED,
+					"Unexpected error while sending email with template '" + mail.template() + "'",
+					ex
+				)));
+			}
+		}
+
+		return results;
+	}
+
 }
@@ -0,0 +1,144 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helper methods shared by the {@link Transport} decorators that dispatch mails asynchronously.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class Transports {
+
+	private Transports() {
+	}
+
+	/**
+	 * Waits for the asynchronous dispatch of the mail to complete, rethrowing its failure as a
+	 * {@link MailingException}. When the calling thread is interrupted, the dispatch is cancelled and
+	 * this method waits for an attempt that is already sending the mail to finish, as the caller releases
+	 * the {@link Template} once this method returns.
+	 *
+	 * @param mail mail that is being dispatched, can't be {@literal null}
+	 * @param future future that completes when the mail is dispatched, can't be {@literal null}
+	 * @throws MailingException when the mail could not be dispatched
+	 */
+	static void await(Mail mail, CompletableFuture<Void> future) {
+		try {
+			future.get();
+		} catch (InterruptedException ex) {
+			future.cancel(false);
+			future.exceptionally(ignore -> null).join();
+			Thread.currentThread().interrupt();
+
+			throw new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Interrupted while sending mail with template '" + mail.template() + "'",
+				ex
+			);
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+
+			throw new MailingException(
+				MailingException.ErrorCode.SEND_FAILED,
+				"Unexpected error while sending email with template '" + mail.template() + "'",
+				ex.getCause()
+			);
+		}
+	}
+
+	/**
+	 * Future of a mail dispatch that may be sent by more than one attempt, like a retried or a queued mail.
+	 * <p>
+	 * Cancelling this future stops any further attempts, but does not complete it while an attempt is still
+	 * sending the mail. The cancellation is completed once that attempt ends, which guarantees that the
+	 * {@link Template} is no longer used by the transport once this future completes and can be released.
+	 */
+	static final class Dispatch extends CompletableFuture<Void> {
+
+		private boolean running;
+		private boolean cancelled;
+		private @Nullable CompletableFuture<?> attempt;
+
+		/**
+		 * Marks the start of an attempt to send the mail.
+		 *
+		 * @return {@literal false} when the dispatch was completed or cancelled and no attempt should be made
+		 */
+		synchronized boolean begin() {
+			if (cancelled || isDone()) {
+				return false;
+			}
+
+			running = true;
+			return true;
+		}
+
+		/**
+		 * Registers the future of the attempt that was started by {@link #begin()}, which is cancelled
+		 * together with this dispatch.
+		 *
+		 * @param attempt future of the running attempt, can't be {@literal null}
+		 */
+		void attempt(CompletableFuture<?> attempt) {
+			synchronized (this) {
+				if (!cancelled) {
+					this.attempt = attempt;
+					return;
+				}
+			}
+
+			attempt.cancel(false);
+		}
+
+		/**
+		 * Marks the end of the attempt, completing the cancellation that was requested while it was running.
+		 */
+		void end() {
+			synchronized (this) {
+				running = false;
+				attempt = null;
+
+				if (!cancelled) {
+					return;
+				}
+			}
+
+			super.cancel(false);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			final CompletableFuture<?> attempt;
+
+			synchronized (this) {
+				if (isDone()) {
+					return isCancelled();
+				}
+
+				cancelled = true;
+
+				if (!running) {
+					return super.cancel(mayInterruptIfRunning);
+				}
+
+				attempt = this.attempt;
+			}
+
+			if (attempt != null) {
+				attempt.cancel(false);
+			}
+
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.konfigyr.mail.CircuitBreakerEvent.State.CLOSED;
+import static com.konfigyr.mail.CircuitBreakerEvent.State.HALF_OPEN;
+import static com.konfigyr.mail.CircuitBreakerEvent.State.OPEN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CircuitBreakerTest {
+
+	final AtomicLong clock = new AtomicLong();
+	final List<CircuitBreakerEvent> events = new ArrayList<>();
+
+	final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(30), 2, events::add,
+			clock::get);
+
+	@Test
+	@DisplayName("should stay closed until the minimum number of calls is recorded")
+	void shouldRequireMinimumCalls() {
+		record(true, true, true);
+
+		assertThat(breaker.state()).isEqualTo(CLOSED);
+		assertThat(breaker.failureRate()).isEqualTo(1);
+		assertThat(breaker.tryAcquire()).isNotNull();
+		assertThat(events).isEmpty();
+	}
+
+	@Test
+	@DisplayName("should open once the failure rate reaches the threshold")
+	void shouldOpen() {
+		record(false, true, false, true);
+
+		assertThat(breaker.state()).isEqualTo(OPEN);
+		assertThat(breaker.tryAcquire()).isNull();
+		assertThat(breaker.rejected()).isOne();
+		assertThat(events).containsExactly(new CircuitBreakerEvent(CLOSED, OPEN, 0.5));
+	}
+
+	@Test
+	@DisplayName("should calculate the failure rate using the most recent calls")
+	void shouldSlideWindow() {
+		record(false, false, false, false, false, false, false, false, false, false);
+
+		assertThat(breaker.state()).isEqualTo(CLOSED);
+		assertThat(breaker.failureRate()).isZero();
+
+		record(true, true, true, true);
+
+		assertThat(breaker.state()).isEqualTo(CLOSED);
+		assertThat(breaker.failureRate()).isEqualTo(0.4);
+
+		record(true);
+
+		assertThat(breaker.state()).isEqualTo(OPEN);
+	}
+
+	@Test
+	@DisplayName("should permit a limited number of trial calls once the wait duration elapses")
+	void shouldTransitionToHalfOpen() {
+		record(true, true, true, true);
+
+		clock.addAndGet(Duration.ofSeconds(29).toNanos());
+		assertThat(breaker.tryAcquire()).isNull();
+
+		clock.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertThat(breaker.tryAcquire()).isNotNull();
+		assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+		assertThat(breaker.tryAcquire()).isNotNull();
+		assertThat(breaker.tryAcquire())
+			.as("should not permit more trial calls than configured")
+			.isNull();
+
+		assertThat(events).extracting(CircuitBreakerEvent::state).containsExactly(OPEN, HALF_OPEN);
+	}
+
+	@Test
+	@DisplayName("should close once all trial calls succeed")
+	void shouldClose() {
+		record(true, true, true, true);
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		final var first = breaker.tryAcquire();
+		final var second = breaker.tryAcquire();
+
+		assertThat(first).isNotNull();
+		assertThat(second).isNotNull();
+
+		first.record(false);
+		assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+
+		second.record(false);
+		assertThat(breaker.state()).isEqualTo(CLOSED);
+		assertThat(breaker.failureRate())
+			.as("should reset the window when closed")
+			.isZero();
+
+		assertThat(events).extracting(CircuitBreakerEvent::state).containsExactly(OPEN, HALF_OPEN, CLOSED);
+	}
+
+	@Test
+	@DisplayName("should open again when a trial call fails")
+	void shouldReopen() {
+		record(true, true, true, true);
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		final var trial = breaker.tryAcquire();
+
+		assertThat(trial).isNotNull();
+		trial.record(true);
+
+		assertThat(breaker.state()).isEqualTo(OPEN);
+		assertThat(breaker.tryAcquire())
+			.as("should wait for another wait duration")
+			.isNull();
+
+		assertThat(events).extracting(CircuitBreakerEvent::state).containsExactly(OPEN, HALF_OPEN, OPEN);
+	}
+
+	@Test
+	@DisplayName("should ignore outcomes of calls that were permitted before the last state transition")
+	void shouldIgnoreStalePermits() {
+		final var stale = breaker.tryAcquire();
+
+		assertThat(stale).isNotNull();
+
+		record(true, true, true, true);
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		final var first = breaker.tryAcquire();
+		final var second = breaker.tryAcquire();
+
+		assertThat(first).isNotNull();
+		assertThat(second).isNotNull();
+		assertThat(breaker.state()).isEqualTo(HALF_OPEN);
+
+		stale.record(false);
+		first.record(false);
+
+		assertThat(breaker.state())
+			.as("should not count the call permitted while closed as a trial call")
+			.isEqualTo(HALF_OPEN);
+
+		second.record(false);
+
+		assertThat(breaker.state()).isEqualTo(CLOSED);
+
+		first.record(true);
+		second.record(true);
+
+		assertThat(breaker.failureRate())
+			.as("should not record trial outcomes once closed")
+			.isZero();
+	}
+
+	@Test
+	@DisplayName("should not fail calls when the event listener fails")
+	void shouldIgnoreListenerFailures() {
+		final var failing = new CircuitBreaker(1, 1, 1, Duration.ZERO, 1, event -> {
+			throw new IllegalStateException("Listener failure");
+		});
+
+		failing.tryAcquire().record(true);
+
+		assertThat(failing.state()).isEqualTo(OPEN);
+		assertThat(failing.tryAcquire()).isNotNull();
+	}
+
+	@Test
+	@DisplayName("should validate circuit breaker arguments")
+	void shouldValidateArguments() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new CircuitBreaker(10, 20, 0.5, Duration.ZERO, 1, events::add))
+			.withMessageContaining("minimum calls");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new CircuitBreaker(10, 5, 0, Duration.ZERO, 1, events::add))
+			.withMessageContaining("failure rate threshold");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new CircuitBreaker(10, 5, 0.5, Duration.ofSeconds(-1), 1, events::add))
+			.withMessageContaining("wait duration");
+	}
+
+	void record(boolean... outcomes) {
+		for (boolean failed : outcomes) {
+			breaker.tryAcquire().record(failed);
+		}
+	}
+
+}
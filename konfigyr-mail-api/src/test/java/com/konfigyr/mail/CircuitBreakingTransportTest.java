@@ -0,0 +1,147 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakingTransportTest {
+
+	@Mock
+	Transport delegate;
+
+	List<CircuitBreakerEvent> events = new ArrayList<>();
+
+	CircuitBreaker breaker = new CircuitBreaker(4, 2, 1, Duration.ofHours(1), 1, events::add);
+
+	CircuitBreakingTransport transport;
+
+	Mail mail = Mail.builder()
+		.subject("test-subject")
+		.template("template")
+		.to("test@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Hello</p>");
+
+	MailingException connectionFailure = new MailingException(MailingException.ErrorCode.CONNECTION_FAILED,
+			"Connection timed out");
+
+	@Test
+	@DisplayName("should fail fast without using the delegate transport once the circuit breaker opens")
+	void shouldFailFastWhenOpen() {
+		transport = new CircuitBreakingTransport(delegate, breaker, Set.of(MailingException.ErrorCode.CONNECTION_FAILED));
+
+		doThrow(connectionFailure).when(delegate).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template)).isSameAs(connectionFailure);
+		assertThatThrownBy(() -> transport.send(mail, template)).isSameAs(connectionFailure);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isInstanceOf(MailingException.class)
+			.isNotSameAs(connectionFailure)
+			.hasMessageContaining("circuit breaker is OPEN")
+			.returns(MailingException.ErrorCode.CONNECTION_FAILED, ex -> ((MailingException) ex).getErrorCode());
+
+		verify(delegate, times(2)).send(mail, template);
+		assertThat(events).extracting(CircuitBreakerEvent::state).containsExactly(CircuitBreakerEvent.State.OPEN);
+	}
+
+	@Test
+	@DisplayName("should record failures with error codes that are not recorded as successful calls")
+	void shouldIgnoreOtherErrorCodes() {
+		transport = new CircuitBreakingTransport(delegate, breaker, Set.of(MailingException.ErrorCode.CONNECTION_FAILED));
+
+		final var rejected = new MailingException(MailingException.ErrorCode.SEND_FAILED, "Recipient rejected");
+
+		doThrow(rejected).when(delegate).send(mail, template);
+
+		for (int i = 0; i < 5; i++) {
+			assertThatThrownBy(() -> transport.send(mail, template)).isSameAs(rejected);
+		}
+
+		assertThat(breaker.state()).isEqualTo(CircuitBreakerEvent.State.CLOSED);
+		assertThat(breaker.failureRate()).isZero();
+	}
+
+	@Test
+	@DisplayName("should record the outcome of asynchronously sent mails")
+	void shouldRecordAsyncOutcome() {
+		transport = new CircuitBreakingTransport(delegate, breaker, Set.of(MailingException.ErrorCode.CONNECTION_FAILED));
+
+		doReturn(CompletableFuture.failedFuture(connectionFailure)).when(delegate).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template)).isCompletedExceptionally();
+		assertThat(transport.sendAsync(mail, template)).isCompletedExceptionally();
+
+		assertThat(transport.sendAsync(mail, template))
+			.failsWithin(Duration.ZERO)
+			.withThrowableThat()
+			.havingCause()
+			.withMessageContaining("circuit breaker is OPEN");
+
+		verify(delegate, times(2)).sendAsync(mail, template);
+	}
+
+	@Test
+	@DisplayName("should return a failed future when the delegate transport fails to send the mail asynchronously")
+	void shouldFailAsyncDispatch() {
+		transport = new CircuitBreakingTransport(delegate, breaker, Set.of(MailingException.ErrorCode.CONNECTION_FAILED));
+
+		doThrow(connectionFailure).when(delegate).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template))
+			.failsWithin(Duration.ZERO)
+			.withThrowableThat()
+			.havingCause()
+			.isSameAs(connectionFailure);
+
+		assertThat(breaker.failureRate()).isOne();
+	}
+
+	@Test
+	@DisplayName("should record a batch as failed when any mail failed with a recorded error code")
+	void shouldRecordBatchOutcome() {
+		transport = new CircuitBreakingTransport(delegate, breaker, Set.of(MailingException.ErrorCode.CONNECTION_FAILED));
+
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("other")
+			.to("test@konfigyr.com")
+			.build();
+		final var mails = List.of(mail, other);
+		final var templates = List.of(template, template);
+
+		doReturn(List.of(MailingResult.success(mail), MailingResult.failure(other, connectionFailure)))
+			.when(delegate).sendAll(mails, templates);
+
+		transport.sendAll(mails, templates);
+		transport.sendAll(mails, templates);
+
+		assertThat(transport.sendAll(mails, templates))
+			.hasSize(2)
+			.allSatisfy(result -> assertThat(result)
+				.returns(MailingException.ErrorCode.CONNECTION_FAILED, MailingResult::errorCode)
+				.extracting(MailingResult::exception)
+				.isNotSameAs(connectionFailure));
+
+		verify(delegate, times(2)).sendAll(mails, templates);
+		verifyNoMoreInteractions(delegate);
+	}
+
+}
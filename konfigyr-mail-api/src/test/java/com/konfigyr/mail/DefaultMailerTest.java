@@ -1,13 +1,32 @@
 package com.konfigyr.mail;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.jspecify.annotations.Nullable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -112,4 +131,343 @@ class DefaultMailerTest {
 		assertThatThrownBy(() -> mailer.send(mail)).isSameAs(cause);
 	}
 
+	@Test
+	@DisplayName("should render template and dispatch via transport using the executor")
+	void shouldSendMailAsync() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var executor = spy(new DirectExecutor());
+		doReturn(template).when(engine).render(mail);
+		doCallRealMethod().when(transport).sendAsync(mail, template);
+
+		assertThat(Mailer.of(engine, transport, executor).sendAsync(mail))
+			.succeedsWithin(Duration.ofSeconds(1));
+
+		final var order = inOrder(executor, engine, transport);
+		order.verify(executor).execute(any());
+		order.verify(engine).render(mail);
+		order.verify(transport).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should not dispatch mails on the calling thread when the template was already rendered")
+	void shouldNotSendMailAsyncOnCallingThread() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var caller = Thread.currentThread();
+		final var sender = new AtomicReference<Thread>();
+		// runs the task on another thread and waits for it, so the template is rendered before the call returns
+		final Executor executor = command -> {
+			try {
+				Thread.ofPlatform().start(command).join();
+			} catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		};
+
+		doReturn(template).when(engine).render(mail);
+		doCallRealMethod().when(transport).sendAsync(mail, template);
+		doAnswer(invocation -> {
+			sender.set(Thread.currentThread());
+			return null;
+		}).when(transport).send(mail, template);
+
+		assertThat(Mailer.of(engine, transport, executor).sendAsync(mail))
+			.succeedsWithin(Duration.ofSeconds(1));
+
+		assertThat(sender.get())
+			.isNotNull()
+			.isNotSameAs(caller);
+	}
+
+	@Test
+	@DisplayName("should complete async send once the transport completes the dispatch")
+	void shouldWaitForAsyncTransportDispatch() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var dispatched = new CompletableFuture<Void>();
+		doReturn(template).when(engine).render(mail);
+		doReturn(dispatched).when(transport).sendAsync(mail, template);
+
+		final var future = Mailer.of(engine, transport, new DirectExecutor()).sendAsync(mail);
+
+		assertThat(future).isNotDone();
+
+		dispatched.completeExceptionally(new MailingException(MailingException.ErrorCode.QUOTA_EXCEEDED, "quota"));
+
+		assertThat(future)
+			.failsWithin(Duration.ofSeconds(1))
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(MailingException.class)
+			.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, ex -> ((MailingException) ex).getErrorCode());
+
+		verify(transport, never()).send(any(), any());
+	}
+
+	@Test
+	@DisplayName("should complete async send exceptionally with the MailingException")
+	void shouldFailToSendMailAsync() throws IOException {
+		final var cause = new IOException("template not found");
+		doThrow(cause).when(engine).render(mail);
+
+		assertThat(Mailer.of(engine, transport, new DirectExecutor()).sendAsync(mail))
+			.failsWithin(Duration.ofSeconds(1))
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(MailingException.class)
+			.withCause(cause);
+
+		verifyNoInteractions(transport);
+	}
+
+	@Test
+	@DisplayName("should complete async send exceptionally when executor rejects the mail")
+	void shouldFailToSendMailAsyncWhenRejected() {
+		final Executor executor = task -> {
+			throw new RejectedExecutionException("queue is full");
+		};
+
+		assertThat(Mailer.of(engine, transport, executor).sendAsync(mail))
+			.isCompletedExceptionally()
+			.failsWithin(Duration.ofSeconds(1))
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(MailingException.class)
+			.returns(MailingException.ErrorCode.SEND_FAILED, ex -> ((MailingException) ex).getErrorCode());
+
+		verifyNoInteractions(engine, transport);
+	}
+
+	@Test
+	@DisplayName("should render batch and dispatch rendered mails via transport in a single invocation")
+	void shouldSendAllMails() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var failing = Mail.builder()
+			.subject("test-subject")
+			.template("failing-template")
+			.to("test@konfigyr.com")
+			.build();
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("other-template")
+			.to("test@konfigyr.com")
+			.build();
+		final var exception = new MailingException(MailingException.ErrorCode.SEND_FAILED, "rejected");
+
+		doReturn(template).when(engine).render(mail);
+		doReturn(template).when(engine).render(other);
+		doThrow(new IOException("template not found")).when(engine).render(failing);
+		doReturn(List.of(MailingResult.success(mail), MailingResult.failure(other, exception)))
+			.when(transport).sendAll(List.of(mail, other), List.of(template, template));
+
+		assertThat(mailer.sendAll(List.of(mail, failing, other)))
+			.satisfiesExactly(
+				result -> assertThat(result).isEqualTo(MailingResult.success(mail)),
+				result -> assertThat(result)
+					.returns(failing, MailingResult::mail)
+					.returns(MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED, MailingResult::errorCode),
+				result -> assertThat(result).isEqualTo(MailingResult.failure(other, exception))
+			);
+
+		verify(transport).sendAll(List.of(mail, other), List.of(template, template));
+		verifyNoMoreInteractions(transport);
+	}
+
+	@Test
+	@DisplayName("should fail every rendered mail in the batch when transport fails unexpectedly")
+	void shouldFailAllMailsWhenTransportFails() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		doReturn(template).when(engine).render(mail);
+		doThrow(new IllegalStateException("unexpected")).when(transport).sendAll(List.of(mail), List.of(template));
+
+		assertThat(mailer.sendAll(List.of(mail)))
+			.singleElement()
+			.returns(false, MailingResult::isSuccessful)
+			.returns(MailingException.ErrorCode.SEND_FAILED, MailingResult::errorCode);
+	}
+
+	@Test
+	@DisplayName("should fail fast when transport does not return a result for each mail in the batch")
+	void shouldFailWhenTransportReturnsIncompleteResults() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		doReturn(template).when(engine).render(mail);
+		doReturn(List.of()).when(transport).sendAll(List.of(mail), List.of(template));
+
+		assertThatIllegalStateException()
+			.isThrownBy(() -> mailer.sendAll(List.of(mail)))
+			.withMessageContaining("0 result(s) for a batch of 1 email(s)");
+	}
+
+	@Test
+	@DisplayName("should render merged mails in parallel and dispatch them in chunks")
+	void shouldSendMergedMails() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var merge = MailMerge.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.attribute("campaign", "spring")
+			.build();
+
+		doReturn(template).when(engine).render(any());
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(transport).sendAll(anyList(), anyList());
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final List<MailingResult> results = Mailer.of(engine, transport, executor)
+				.sendMerged(merge, overlays(DefaultMailer.MERGE_CHUNK_SIZE + 6, null))
+				.toList();
+
+			assertThat(results)
+				.hasSize(DefaultMailer.MERGE_CHUNK_SIZE + 6)
+				.allMatch(MailingResult::isSuccessful);
+
+			assertThat(results.get(1).mail())
+				.returns("test-template", Mail::template)
+				.returns(Set.of(Recipient.to("recipient-1@konfigyr.com")), Mail::recipients)
+				.returns(Map.of("campaign", "spring", "index", 1), Mail::attributes);
+		}
+
+		verify(engine, times(DefaultMailer.MERGE_CHUNK_SIZE + 6)).render(any());
+		verify(transport, times(2)).sendAll(anyList(), anyList());
+	}
+
+	@Test
+	@DisplayName("should report merged mails that failed to render without dispatching them")
+	void shouldFailToRenderMergedMails() throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var merge = MailMerge.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.build();
+
+		doAnswer(invocation -> {
+			if (invocation.<Mail>getArgument(0).attributes().get("index").equals(1)) {
+				throw new IOException("template not found");
+			}
+			return template;
+		}).when(engine).render(any());
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(transport).sendAll(anyList(), anyList());
+
+		assertThat(mailer.sendMerged(merge, overlays(3, null)))
+			.extracting(MailingResult::errorCode)
+			.containsExactly(null, MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED, null);
+
+		verify(transport).sendAll(argThat(mails -> mails.size() == 2), argThat(templates -> templates.size() == 2));
+	}
+
+	@Test
+	@DisplayName("should lazily pull merge overlays and close them with the result stream")
+	void shouldLazilySendMergedMails() throws IOException {
+		final var pulled = new AtomicInteger();
+		final var closed = new AtomicBoolean();
+		final var merge = MailMerge.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.build();
+
+		doReturn(Template.html("<p>Hello</p>")).when(engine).render(any());
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(transport).sendAll(anyList(), anyList());
+
+		try (var results = Mailer.of(engine, transport, new DirectExecutor())
+				.sendMerged(merge, overlays(10_000, pulled).onClose(() -> closed.set(true)))) {
+			assertThat(results.findFirst())
+				.hasValueSatisfying(result -> assertThat(result.isSuccessful()).isTrue());
+		}
+
+		assertThat(pulled)
+			.as("should only pull the dispatched chunk and the chunk that is rendered ahead")
+			.hasValue(DefaultMailer.MERGE_CHUNK_SIZE * 2);
+
+		assertThat(closed).isTrue();
+	}
+
+	@Test
+	@DisplayName("should release merged mails that were rendered ahead when the result stream fails")
+	void shouldReleaseRenderedMergedMails() throws IOException {
+		final var buffers = new ArrayList<TemplateBuffer>();
+		final var merge = MailMerge.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.build();
+
+		doAnswer(invocation -> {
+			final var buffer = new TemplateBuffer(0);
+			buffer.write("<p>Hello</p>");
+			buffers.add(buffer);
+			return Template.buffered(buffer, Template.HTML);
+		}).when(engine).render(any());
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(transport).sendAll(anyList(), anyList());
+
+		final var results = Mailer.of(engine, transport, new DirectExecutor())
+			.sendMerged(merge, overlays(DefaultMailer.MERGE_CHUNK_SIZE * 3, null));
+
+		assertThatIllegalStateException()
+			.isThrownBy(() -> results.forEach(result -> {
+				throw new IllegalStateException("consumer failure");
+			}));
+
+		assertThat(buffers)
+			.as("should render the dispatched chunk and the chunk that is rendered ahead")
+			.hasSize(DefaultMailer.MERGE_CHUNK_SIZE * 2)
+			.noneMatch(TemplateBuffer::isSpilled);
+	}
+
+	@Test
+	@DisplayName("should emit flight recorder events for rendered and failed templates")
+	void shouldRecordRenderEvents(@TempDir Path directory) throws IOException {
+		final var template = Template.html("<p>Hello</p>");
+		final var failing = Mail.builder()
+			.subject("test-subject")
+			.template("failing-template")
+			.to("test@konfigyr.com")
+			.build();
+
+		doReturn(template).when(engine).render(mail);
+		doThrow(new IOException("template not found")).when(engine).render(failing);
+
+		final Path file = directory.resolve("recording.jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(MailRenderEvent.NAME);
+			recording.start();
+
+			mailer.send(mail);
+			assertThatExceptionOfType(MailingException.class).isThrownBy(() -> mailer.send(failing));
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		assertThat(RecordingFile.readAllEvents(file))
+			.filteredOn(event -> MailRenderEvent.NAME.equals(event.getEventType().getName()))
+			.satisfiesExactly(
+				event -> assertThat(event)
+					.returns("test-template", it -> it.getString("template"))
+					.returns(12L, it -> it.getLong("size"))
+					.returns(null, it -> it.getString("errorCode")),
+				event -> assertThat(event)
+					.returns("failing-template", it -> it.getString("template"))
+					.returns(0L, it -> it.getLong("size"))
+					.returns("TEMPLATE_RENDERING_FAILED", it -> it.getString("errorCode"))
+			);
+	}
+
+	static Stream<MailMerge.Overlay> overlays(int count, @Nullable AtomicInteger pulled) {
+		return IntStream.range(0, count)
+			.peek(index -> {
+				if (pulled != null) {
+					pulled.incrementAndGet();
+				}
+			})
+			.mapToObj(index -> MailMerge.Overlay.to("recipient-" + index + "@konfigyr.com", Map.of("index", index)));
+	}
+
+	static class DirectExecutor implements Executor {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	}
+
 }
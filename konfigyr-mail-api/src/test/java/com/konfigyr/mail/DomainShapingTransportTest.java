@@ -0,0 +1,201 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DomainShapingTransportTest {
+
+	@Mock
+	Transport delegate;
+
+	Template template = Template.html("<p>Hello</p>");
+
+	Queue<Runnable> tasks = new ArrayDeque<>();
+
+	@Test
+	@DisplayName("should resolve the domain of the primary recipient")
+	void shouldResolveDomain() {
+		assertThat(DomainShapingTransport.domain(Mail.builder().template("t").subject("s")
+				.cc("cc@example.com").to("to@Gmail.COM").build()))
+			.isEqualTo("gmail.com");
+
+		assertThat(DomainShapingTransport.domain(Mail.builder().template("t").subject("s")
+				.bcc("bcc@outlook.com").cc("cc@example.com").build()))
+			.isEqualTo("outlook.com");
+	}
+
+	@Test
+	@DisplayName("should limit the number of mails sent concurrently to the same domain")
+	void shouldLimitDomainConcurrency() {
+		final var transport = transport(new DomainShapingTransport.Limits(2, null, null), Map.of());
+		final var dispatches = new ArrayDeque<CompletableFuture<Void>>();
+
+		stubDispatches(dispatches);
+
+		final var futures = IntStream.range(0, 5)
+			.mapToObj(i -> transport.sendAsync(mail("user" + i + "@gmail.com"), template))
+			.toList();
+
+		assertThat(tasks).hasSize(2);
+		runTasks();
+		assertThat(dispatches).hasSize(2);
+
+		dispatches.poll().complete(null);
+
+		assertThat(futures.get(0)).isCompleted();
+		assertThat(tasks)
+			.as("should dispatch the next mail once a concurrency slot is released")
+			.hasSize(1);
+	}
+
+	@Test
+	@DisplayName("should not let a large domain backlog delay the mails for other domains")
+	void shouldServeDomainsFairly() {
+		final var transport = transport(new DomainShapingTransport.Limits(1, null, null), Map.of());
+		final var dispatches = new ArrayDeque<CompletableFuture<Void>>();
+
+		stubDispatches(dispatches);
+
+		IntStream.range(0, 100).forEach(i -> transport.sendAsync(mail("user" + i + "@gmail.com"), template));
+
+		final var other = transport.sendAsync(mail("user@example.com"), template);
+
+		assertThat(tasks).hasSize(2);
+		runTasks();
+
+		dispatches.pollLast().complete(null);
+
+		assertThat(other).isCompleted();
+		assertThat(transport.lanes()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("should apply domain specific limits")
+	void shouldApplyDomainLimits() {
+		final var transport = transport(new DomainShapingTransport.Limits(10, null, null),
+				Map.of("GMAIL.com", new DomainShapingTransport.Limits(10, null, 2)));
+
+		IntStream.range(0, 3).forEach(i -> transport.sendAsync(mail("user" + i + "@gmail.com"), template));
+		IntStream.range(0, 3).forEach(i -> transport.sendAsync(mail("user" + i + "@example.com"), template));
+
+		assertThat(tasks)
+			.as("should only dispatch two mails per minute to gmail.com")
+			.hasSize(5);
+	}
+
+	@Test
+	@DisplayName("should dispatch rate limited mails once the domain obtains new permits")
+	void shouldRateLimitDomain() {
+		final var transport = new DomainShapingTransport(delegate, new DomainShapingTransport.Limits(4, 20, null),
+				Map.of(), Runnable::run);
+		final long start = System.nanoTime();
+
+		doCallRealMethod().when(delegate).sendAsync(any(), any());
+
+		final var futures = IntStream.range(0, 22)
+			.mapToObj(i -> transport.sendAsync(mail("user" + i + "@gmail.com"), template))
+			.toArray(CompletableFuture[]::new);
+
+		assertThat(CompletableFuture.allOf(futures)).succeedsWithin(Duration.ofSeconds(1));
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(90));
+
+		verify(delegate, times(22)).send(any(), any());
+	}
+
+	@Test
+	@DisplayName("should not dispatch queued mails that were cancelled")
+	void shouldSkipCancelledMails() {
+		final var transport = transport(new DomainShapingTransport.Limits(1, null, null), Map.of());
+		final var dispatches = new ArrayDeque<CompletableFuture<Void>>();
+		final var first = mail("first@gmail.com");
+		final var second = mail("second@gmail.com");
+
+		stubDispatches(dispatches);
+
+		transport.sendAsync(first, template);
+		transport.sendAsync(second, template).cancel(false);
+
+		runTasks();
+		dispatches.poll().complete(null);
+
+		assertThat(tasks).isEmpty();
+		verify(delegate).sendAsync(first, template);
+		verify(delegate, never()).sendAsync(second, template);
+	}
+
+	@Test
+	@DisplayName("should report failed and unexpected delegate failures as mailing exceptions")
+	void shouldReportFailures() {
+		final var transport = new DomainShapingTransport(delegate, new DomainShapingTransport.Limits(1, null, null),
+				Map.of(), Runnable::run);
+		final var sent = mail("sent@example.com");
+		final var failed = mail("failed@example.com");
+		final var unexpected = mail("unexpected@gmail.com");
+		final var failure = new MailingException(MailingException.ErrorCode.CONNECTION_FAILED, "Connection failed");
+
+		doReturn(CompletableFuture.completedFuture(null)).when(delegate).sendAsync(sent, template);
+		doReturn(CompletableFuture.failedFuture(failure)).when(delegate).sendAsync(failed, template);
+		doThrow(new IllegalStateException("unexpected")).when(delegate).sendAsync(unexpected, template);
+
+		assertThat(transport.sendAll(List.of(sent, failed, unexpected), List.of(template, template, template)))
+			.satisfiesExactly(
+				result -> assertThat(result).isEqualTo(MailingResult.success(sent)),
+				result -> assertThat(result).isEqualTo(MailingResult.failure(failed, failure)),
+				result -> assertThat(result)
+					.returns(unexpected, MailingResult::mail)
+					.returns(MailingException.ErrorCode.SEND_FAILED, MailingResult::errorCode)
+			);
+	}
+
+	DomainShapingTransport transport(DomainShapingTransport.Limits defaults,
+			Map<String, DomainShapingTransport.Limits> domains) {
+		return new DomainShapingTransport(delegate, defaults, domains, tasks::add);
+	}
+
+	void stubDispatches(Queue<CompletableFuture<Void>> dispatches) {
+		doAnswer(invocation -> {
+			final CompletableFuture<Void> dispatch = new CompletableFuture<>();
+			dispatches.add(dispatch);
+			return dispatch;
+		}).when(delegate).sendAsync(any(), any());
+	}
+
+	void runTasks() {
+		Runnable task;
+
+		while ((task = tasks.poll()) != null) {
+			task.run();
+		}
+	}
+
+	static Mail mail(String recipient) {
+		return Mail.builder()
+			.template("template")
+			.subject("subject")
+			.to(recipient)
+			.build();
+	}
+
+}
@@ -0,0 +1,209 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class FailoverTransportTest {
+
+	@Mock
+	Transport primary;
+
+	@Mock
+	Transport secondary;
+
+	final AtomicLong clock = new AtomicLong();
+
+	Mail mail = Mail.builder()
+		.subject("test-subject")
+		.template("template")
+		.to("test@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Hello</p>");
+
+	MailingException connectionFailure = new MailingException(MailingException.ErrorCode.CONNECTION_FAILED,
+			"Connection refused");
+
+	@Test
+	@DisplayName("should distribute mails across relays proportionally to their weights")
+	void shouldDistributeByWeight() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 2, 1);
+
+		for (int i = 0; i < 6; i++) {
+			transport.send(mail, template);
+		}
+
+		final InOrder order = inOrder(primary, secondary);
+		order.verify(primary).send(mail, template);
+		order.verify(secondary).send(mail, template);
+		order.verify(primary, times(2)).send(mail, template);
+		order.verify(secondary).send(mail, template);
+		order.verify(primary).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should select the relay with the fewest mails in flight")
+	void shouldSelectLeastInFlight() {
+		final var transport = transport(FailoverTransport.Strategy.LEAST_IN_FLIGHT, 1, 1);
+		final var pending = new CompletableFuture<Void>();
+
+		doReturn(pending).when(primary).sendAsync(mail, template);
+		doReturn(CompletableFuture.completedFuture(null)).when(secondary).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template)).isNotDone();
+		assertThat(transport.sendAsync(mail, template)).isCompleted();
+		assertThat(transport.sendAsync(mail, template)).isCompleted();
+
+		verify(primary).sendAsync(mail, template);
+		verify(secondary, times(2)).sendAsync(mail, template);
+	}
+
+	@Test
+	@DisplayName("should fail over to the next relay and eject the failed relay")
+	void shouldFailover() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+
+		doThrow(connectionFailure).when(primary).send(mail, template);
+
+		transport.send(mail, template);
+		transport.send(mail, template);
+		transport.send(mail, template);
+
+		verify(primary).send(mail, template);
+		verify(secondary, times(3)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should select the ejected relay again once the ejection time elapses")
+	void shouldRestoreEjectedRelay() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+
+		doThrow(connectionFailure).doNothing().when(primary).send(mail, template);
+
+		transport.send(mail, template);
+		transport.send(mail, template);
+
+		clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+		transport.send(mail, template);
+		transport.send(mail, template);
+
+		verify(primary, times(2)).send(mail, template);
+		verify(secondary, times(3)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should not fail over when the relay fails with other error codes")
+	void shouldNotFailoverForOtherErrorCodes() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+		final var rejected = new MailingException(MailingException.ErrorCode.SEND_FAILED, "Recipient rejected");
+
+		doThrow(rejected).when(primary).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template)).isSameAs(rejected);
+
+		verifyNoInteractions(secondary);
+	}
+
+	@Test
+	@DisplayName("should fail with the suppressed failures of all relays when every relay fails")
+	void shouldFailWhenAllRelaysFail() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+		final var authenticationFailure = new MailingException(MailingException.ErrorCode.AUTHENTICATION_FAILED,
+				"Invalid credentials");
+
+		doThrow(connectionFailure).when(primary).send(mail, template);
+		doThrow(authenticationFailure).when(secondary).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isSameAs(connectionFailure)
+			.hasSuppressedException(authenticationFailure);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.as("should still use the ejected relays as the last resort")
+			.isSameAs(connectionFailure);
+
+		verify(primary, times(2)).send(mail, template);
+		verify(secondary, times(2)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should fail over asynchronously sent mails")
+	void shouldFailoverAsync() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+
+		doReturn(CompletableFuture.failedFuture(connectionFailure)).when(primary).sendAsync(mail, template);
+		doReturn(CompletableFuture.completedFuture(null)).when(secondary).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template)).isCompleted();
+
+		verify(primary).sendAsync(mail, template);
+		verify(secondary).sendAsync(mail, template);
+	}
+
+	@Test
+	@DisplayName("should send the mails of a batch that failed with a failover error code using the next relay")
+	void shouldFailoverBatch() {
+		final var transport = transport(FailoverTransport.Strategy.ROUND_ROBIN, 1, 1);
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("other")
+			.to("test@konfigyr.com")
+			.build();
+
+		doReturn(List.of(MailingResult.success(mail), MailingResult.failure(other, connectionFailure)))
+			.when(primary).sendAll(List.of(mail, other), List.of(template, template));
+		doReturn(List.of(MailingResult.success(other)))
+			.when(secondary).sendAll(List.of(other), List.of(template));
+
+		assertThat(transport.sendAll(List.of(mail, other), List.of(template, template)))
+			.containsExactly(MailingResult.success(mail), MailingResult.success(other));
+	}
+
+	@Test
+	@DisplayName("should validate failover transport arguments")
+	void shouldValidateArguments() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new FailoverTransport(List.of(), FailoverTransport.Strategy.ROUND_ROBIN,
+					Duration.ZERO, Set.of(MailingException.ErrorCode.CONNECTION_FAILED)))
+			.withMessageContaining("At least one mail relay");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new FailoverTransport.Relay("primary", primary, 0))
+			.withMessageContaining("weight");
+	}
+
+	FailoverTransport transport(FailoverTransport.Strategy strategy, int primaryWeight, int secondaryWeight) {
+		return new FailoverTransport(
+			List.of(
+				new FailoverTransport.Relay("primary", primary, primaryWeight),
+				new FailoverTransport.Relay("secondary", secondary, secondaryWeight)
+			),
+			strategy,
+			Duration.ofSeconds(30),
+			Set.of(MailingException.ErrorCode.CONNECTION_FAILED, MailingException.ErrorCode.AUTHENTICATION_FAILED),
+			clock::get
+		);
+	}
+
+}
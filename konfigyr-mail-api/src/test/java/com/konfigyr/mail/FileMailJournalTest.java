@@ -0,0 +1,261 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.tuple;
+
+class FileMailJournalTest {
+
+	@TempDir
+	Path directory;
+
+	Mail mail;
+
+	@BeforeEach
+	void setup() {
+		mail = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.to("test@konfigyr.com")
+			.build();
+	}
+
+	@Test
+	@DisplayName("should replay unacknowledged mails after the journal is reopened")
+	void shouldReplayUnacknowledgedMails() throws Exception {
+		final var welcome = Mail.builder()
+			.subject("welcome-subject")
+			.template("welcome")
+			.to("test@konfigyr.com")
+			.build();
+		final var reminder = Mail.builder()
+			.subject("reminder-subject")
+			.template("reminder")
+			.to("test@konfigyr.com")
+			.build();
+		final long first, second, third;
+
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			first = journal.append(welcome);
+			second = journal.append(mail);
+			third = journal.append(reminder);
+
+			journal.acknowledge(second);
+
+			assertThat(journal.outstanding()).isEqualTo(2);
+		}
+
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(MailJournal.Entry::id, entry -> entry.mail().template())
+				.containsExactly(
+					tuple(first, "welcome"),
+					tuple(third, "reminder")
+				);
+
+			assertThat(journal.append(mail))
+				.as("should continue the entry sequence")
+				.isGreaterThan(third);
+		}
+	}
+
+	@Test
+	@DisplayName("should truncate the active segment once all mails are acknowledged")
+	void shouldCompactJournal() throws Exception {
+		try (var journal = open(MailJournal.Sync.ALWAYS)) {
+			final long first = journal.append(mail);
+			final long second = journal.append(mail);
+
+			journal.acknowledge(first);
+
+			assertThat(Files.size(directory.resolve(segment(0)))).isPositive();
+			assertThat(Files.size(directory.resolve(acknowledgements(0)))).isEqualTo(Long.BYTES);
+
+			journal.acknowledge(second);
+			journal.acknowledge(second);
+
+			assertThat(journal.outstanding()).isZero();
+			assertThat(journal.pending()).isEmpty();
+		}
+
+		assertThat(directory.resolve(segment(0))).isEmptyFile();
+		assertThat(directory.resolve(acknowledgements(0))).isEmptyFile();
+	}
+
+	@Test
+	@DisplayName("should roll segments and delete them once all their mails are acknowledged")
+	void shouldCompactSegments() throws Exception {
+		final int record = FileMailJournal.HEADER_SIZE + MailCodec.defaults().encode(mail).length;
+
+		try (var journal = open(2 * record, MailJournal.Sync.ALWAYS)) {
+			final long first = journal.append(mail);
+			final long second = journal.append(mail);
+
+			assertThat(journal.segments()).isEqualTo(1);
+
+			final long third = journal.append(mail);
+
+			assertThat(journal.segments()).isEqualTo(2);
+			assertThat(directory.resolve(segment(1))).exists();
+
+			journal.acknowledge(first);
+
+			assertThat(journal.segments()).isEqualTo(2);
+
+			journal.acknowledge(second);
+
+			assertThat(journal.segments()).isEqualTo(1);
+			assertThat(directory.resolve(segment(0))).doesNotExist();
+			assertThat(directory.resolve(acknowledgements(0))).doesNotExist();
+
+			journal.acknowledge(third);
+
+			assertThat(journal.outstanding()).isZero();
+			assertThat(journal.segments())
+				.as("should keep the active segment")
+				.isEqualTo(1);
+		}
+
+		try (var journal = open(2 * record, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending()).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("should not grow the journal while there is always a mail in flight")
+	void shouldCompactUnderSteadyLoad() throws Exception {
+		final int record = FileMailJournal.HEADER_SIZE + MailCodec.defaults().encode(mail).length;
+		long previous;
+
+		try (var journal = open(4 * record, MailJournal.Sync.NONE)) {
+			previous = journal.append(mail);
+
+			for (int i = 1; i < 100; i++) {
+				final long next = journal.append(mail);
+				journal.acknowledge(previous);
+				previous = next;
+
+				assertThat(journal.outstanding()).isOne();
+				assertThat(journal.segments()).isLessThanOrEqualTo(2);
+			}
+		}
+
+		try (var journal = open(4 * record, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(MailJournal.Entry::id)
+				.containsExactly(previous);
+		}
+	}
+
+	@Test
+	@DisplayName("should discard partially written journal records")
+	void shouldDiscardTornRecords() throws Exception {
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			journal.append(mail);
+		}
+
+		final Path file = directory.resolve(segment(0));
+		final long size = Files.size(file);
+
+		try (var channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			channel.write(ByteBuffer.allocate(20).putInt(512).putLong(1).putInt(42).flip());
+		}
+
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(entry -> entry.mail().template())
+				.containsExactly("test-template");
+		}
+
+		assertThat(file).hasSize(size);
+	}
+
+	@Test
+	@DisplayName("should delete acknowledgements of segments that were already deleted")
+	void shouldDeleteOrphanedAcknowledgements() throws Exception {
+		Files.write(directory.resolve(acknowledgements(7)), new byte[Long.BYTES]);
+
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			assertThat(journal.pending()).isEmpty();
+		}
+
+		assertThat(directory.resolve(acknowledgements(7))).doesNotExist();
+	}
+
+	@Test
+	@DisplayName("should fail the recovery when an unacknowledged mail can not be decoded")
+	void shouldFailRecoveryOfUndecodableMails() throws Exception {
+		final var codec = MailCodec.builder().dictionary("welcome-template", "noreply@konfigyr.com").build();
+		final var changed = MailCodec.builder().dictionary("noreply@konfigyr.com", "welcome-template").build();
+		final var extended = MailCodec.builder()
+			.dictionary("welcome-template", "noreply@konfigyr.com", "password-reset")
+			.build();
+
+		try (var journal = FileMailJournal.open(directory, 1024 * 1024, codec, MailJournal.Sync.NONE, Duration.ZERO)) {
+			journal.append(Mail.builder()
+				.subject("welcome-subject")
+				.template("welcome-template")
+				.to("test@konfigyr.com")
+				.build());
+		}
+
+		assertThatIOException()
+			.isThrownBy(() -> FileMailJournal.open(directory, 1024 * 1024, changed, MailJournal.Sync.NONE, Duration.ZERO))
+			.withMessageContaining("Failed to decode unacknowledged mail journal entry 0");
+
+		try (var journal = FileMailJournal.open(directory, 1024 * 1024, extended, MailJournal.Sync.NONE, Duration.ZERO)) {
+			assertThat(journal.pending())
+				.as("should still replay the mail after the journal failed to recover")
+				.extracting(entry -> entry.mail().template())
+				.containsExactly("welcome-template");
+		}
+	}
+
+	@Test
+	@DisplayName("should fail to append mails with attributes that can not be serialized")
+	void shouldFailToAppendNonSerializableMail() throws Exception {
+		final var unserializable = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.attribute("value", new Object())
+			.to("test@konfigyr.com")
+			.build();
+
+		try (var journal = open(MailJournal.Sync.NONE)) {
+			assertThatIOException().isThrownBy(() -> journal.append(unserializable));
+
+			assertThat(journal.outstanding()).isZero();
+		}
+	}
+
+	FileMailJournal open(MailJournal.Sync sync) throws IOException {
+		return open(1024 * 1024, sync);
+	}
+
+	FileMailJournal open(int segmentSize, MailJournal.Sync sync) throws IOException {
+		return FileMailJournal.open(directory, segmentSize, MailCodec.defaults(), sync, Duration.ZERO);
+	}
+
+	static String segment(long index) {
+		return String.format("%s%020d%s", FileMailJournal.SEGMENT_PREFIX, index, FileMailJournal.SEGMENT_SUFFIX);
+	}
+
+	static String acknowledgements(long index) {
+		return String.format("%s%020d%s", FileMailJournal.ACKNOWLEDGEMENTS_PREFIX, index,
+				FileMailJournal.SEGMENT_SUFFIX);
+	}
+
+}
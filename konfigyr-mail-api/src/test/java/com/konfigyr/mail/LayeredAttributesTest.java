@@ -0,0 +1,92 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class LayeredAttributesTest {
+
+	final Map<String, Object> base = new LinkedHashMap<>(Map.of("catalog", "products", "footer", "konfigyr"));
+
+	@Test
+	@DisplayName("should layer the overlay attributes on top of the base attributes")
+	void shouldLayerAttributes() {
+		final var overlay = new LinkedHashMap<String, Object>();
+		overlay.put("name", "John");
+		overlay.put("footer", "custom");
+
+		final Map<String, Object> attributes = LayeredAttributes.of(base, overlay);
+
+		assertThat(attributes)
+			.isInstanceOf(LayeredAttributes.class)
+			.hasSize(3)
+			.containsEntry("name", "John")
+			.containsEntry("footer", "custom")
+			.containsEntry("catalog", "products")
+			.doesNotContainKey("unknown")
+			.isEqualTo(Map.of("name", "John", "footer", "custom", "catalog", "products"));
+
+		assertThat(attributes.keySet())
+			.as("should iterate the overlay attributes before the base attributes")
+			.containsExactly("name", "footer", "catalog");
+
+		assertThat(attributes.hashCode()).isEqualTo(Map.of("name", "John", "footer", "custom",
+				"catalog", "products").hashCode());
+	}
+
+	@Test
+	@DisplayName("should not create a layered view when one of the layers is empty")
+	void shouldNotLayerEmptyAttributes() {
+		assertThat(LayeredAttributes.of(base, Map.of()))
+			.isNotInstanceOf(LayeredAttributes.class)
+			.isEqualTo(base);
+
+		assertThat(LayeredAttributes.of(Map.of(), base))
+			.isNotInstanceOf(LayeredAttributes.class)
+			.isEqualTo(base);
+	}
+
+	@Test
+	@DisplayName("should be a read-only view of the layered attributes")
+	void shouldBeReadOnly() {
+		final Map<String, Object> attributes = LayeredAttributes.of(base, Map.of("name", "John"));
+
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> attributes.put("name", "Jane"));
+
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> attributes.remove("catalog"));
+
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> attributes.entrySet().iterator().next().setValue("Jane"));
+
+		assertThat(base).hasSize(2);
+	}
+
+	@Test
+	@DisplayName("should serialize and deserialize layered attributes")
+	void shouldSerializeLayeredAttributes() throws Exception {
+		final Map<String, Object> attributes = LayeredAttributes.of(base, Map.of("name", "John"));
+		final var bytes = new ByteArrayOutputStream();
+
+		try (var output = new ObjectOutputStream(bytes)) {
+			output.writeObject(attributes);
+		}
+
+		try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			assertThat(input.readObject())
+				.isInstanceOf(LayeredAttributes.class)
+				.isEqualTo(attributes);
+		}
+	}
+
+}
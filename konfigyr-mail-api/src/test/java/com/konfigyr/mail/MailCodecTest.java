@@ -0,0 +1,346 @@
+package com.konfigyr.mail;
+
+import com.konfigyr.mail.test.MailAssert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MailCodecTest {
+
+	@Test
+	@DisplayName("should encode and decode all mail properties")
+	void shouldRoundTripMail() throws Exception {
+		final var mail = Mail.builder()
+			.subject("test-subject", "argument", 42)
+			.template("test-template")
+			.to("to@konfigyr.com", "Recipient")
+			.cc("cc@konfigyr.com")
+			.bcc("bcc@konfigyr.com")
+			.from("sender@konfigyr.com", "Sender")
+			.replyTo("reply@konfigyr.com", "Reply")
+			.encoding(StandardCharsets.ISO_8859_1)
+			.locale(Locale.forLanguageTag("de-AT"))
+			.build();
+
+		final var decoded = MailCodec.defaults().decode(MailCodec.defaults().encode(mail));
+
+		MailAssert.assertThat(decoded)
+			.hasTemplate("test-template")
+			.hasSubject("test-subject", "argument", 42)
+			.hasRecipients(
+				Recipient.to("to@konfigyr.com", "Recipient"),
+				Recipient.cc("cc@konfigyr.com"),
+				Recipient.bcc("bcc@konfigyr.com")
+			)
+			.sentBy(new Address("sender@konfigyr.com", "Sender"))
+			.hasReplyTo(new Address("reply@konfigyr.com", "Reply"))
+			.hasEncoding(StandardCharsets.ISO_8859_1)
+			.hasLocale(Locale.forLanguageTag("de-AT"));
+
+		assertThat(decoded.from()).isEqualTo(mail.from());
+	}
+
+	@Test
+	@DisplayName("should encode and decode natively supported attribute values")
+	void shouldRoundTripAttributes() throws Exception {
+		final Map<String, Object> nested = new LinkedHashMap<>();
+		nested.put("key", "value");
+		nested.put(7, null);
+
+		final var mail = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to("to@konfigyr.com")
+			.attribute("string", "Zdravo, svete")
+			.attribute("true", true)
+			.attribute("false", false)
+			.attribute("integer", Integer.MIN_VALUE)
+			.attribute("long", -123456789012L)
+			.attribute("double", 12.5)
+			.attribute("decimal", new BigDecimal("1999.990"))
+			.attribute("instant", Instant.parse("2024-05-04T10:15:30.123456789Z"))
+			.attribute("date", LocalDate.of(1969, 7, 20))
+			.attribute("list", List.of("a", 1, 2L))
+			.attribute("set", Set.of("b"))
+			.attribute("map", nested)
+			.attribute("serializable", YearMonth.of(2024, 5))
+			.build();
+
+		final var decoded = MailCodec.defaults().decode(MailCodec.defaults().encode(mail));
+
+		assertThat(decoded.attributes())
+			.containsExactlyEntriesOf(mail.attributes());
+	}
+
+	@Test
+	@DisplayName("should write repeated symbols as references")
+	void shouldInternRepeatedSymbols() throws Exception {
+		final var address = "a.very.long.mail.address@konfigyr.com";
+
+		final var single = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to(address)
+			.build();
+
+		final var repeated = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to(address)
+			.from(address)
+			.replyTo(address)
+			.build();
+
+		assertThat(MailCodec.defaults().encode(repeated))
+			.as("repeated address should only add a reference per occurrence")
+			.hasSizeLessThan(MailCodec.defaults().encode(single).length + 10);
+	}
+
+	@Test
+	@DisplayName("should write dictionary symbols as references")
+	void shouldUseDictionary() throws Exception {
+		final var codec = MailCodec.builder()
+			.dictionary("welcome-template", "welcome.subject", "noreply@konfigyr.com")
+			.build();
+
+		final var mail = Mail.builder()
+			.subject("welcome.subject")
+			.template("welcome-template")
+			.from("noreply@konfigyr.com")
+			.to("to@konfigyr.com")
+			.build();
+
+		final byte[] encoded = codec.encode(mail);
+
+		assertThat(encoded).hasSizeLessThan(MailCodec.defaults().encode(mail).length - 40);
+
+		MailAssert.assertThat(codec.decode(encoded))
+			.hasSubject("welcome.subject")
+			.hasTemplate("welcome-template")
+			.sentBy(new Address("noreply@konfigyr.com"));
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().decode(encoded))
+			.withMessageContaining("different dictionary");
+	}
+
+	@Test
+	@DisplayName("should decode mails encoded with a dictionary that was extended by appending symbols")
+	void shouldDecodeWithAppendedDictionary() throws Exception {
+		final var codec = MailCodec.builder().dictionary("welcome-template", "welcome.subject").build();
+
+		final var mail = Mail.builder()
+			.subject("welcome.subject")
+			.template("welcome-template")
+			.to("to@konfigyr.com")
+			.build();
+
+		final byte[] encoded = codec.encode(mail);
+
+		MailAssert.assertThat(MailCodec.builder().dictionary("welcome-template", "welcome.subject", "to@konfigyr.com")
+				.build().decode(encoded))
+			.hasSubject("welcome.subject")
+			.hasTemplate("welcome-template")
+			.hasRecipients(Recipient.to("to@konfigyr.com"));
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.builder().dictionary("welcome.subject", "welcome-template").build()
+				.decode(encoded))
+			.withMessageContaining("different dictionary");
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.builder().dictionary("welcome-template").build().decode(encoded))
+			.withMessageContaining("different dictionary");
+	}
+
+	@Test
+	@DisplayName("should distinguish missing subject arguments from empty ones")
+	void shouldRoundTripMissingSubjectArguments() throws Exception {
+		final var missing = Mail.builder()
+			.subject(new Subject("subject", (Object[]) null))
+			.template("template")
+			.to("to@konfigyr.com")
+			.build();
+
+		final var empty = Mail.builder()
+			.subject(new Subject("subject"))
+			.template("template")
+			.to("to@konfigyr.com")
+			.build();
+
+		assertThat(MailCodec.defaults().decode(MailCodec.defaults().encode(missing)).subject().arguments())
+			.isNull();
+
+		assertThat(MailCodec.defaults().decode(MailCodec.defaults().encode(empty)).subject().arguments())
+			.isEmpty();
+	}
+
+	@Test
+	@DisplayName("should only use Java serialization for JDK value types and registered serializable types")
+	void shouldRestrictSerializableTypes() throws Exception {
+		final var mail = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to("to@konfigyr.com")
+			.attribute("amount", new Amount(42, "EUR"))
+			.build();
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().encode(mail))
+			.isInstanceOf(NotSerializableException.class)
+			.withMessageContaining(Amount.class.getName());
+
+		final var codec = MailCodec.builder().serializable(Amount.class).build();
+		final byte[] encoded = codec.encode(mail);
+
+		assertThat(codec.decode(encoded).attributes())
+			.containsEntry("amount", new Amount(42, "EUR"));
+
+		assertThatIOException()
+			.as("should reject the serialized value when it is not registered with the decoding codec")
+			.isThrownBy(() -> MailCodec.defaults().decode(encoded))
+			.isInstanceOf(InvalidClassException.class);
+	}
+
+	@Test
+	@DisplayName("should produce smaller output than Java serialization")
+	void shouldBeSmallerThanJavaSerialization() throws Exception {
+		final var mail = Mail.builder()
+			.subject("Subject for template")
+			.template("template")
+			.attribute("name", "John Doe")
+			.to("to@konfigyr.com")
+			.build();
+		final var bytes = new ByteArrayOutputStream();
+
+		try (var stream = new ObjectOutputStream(bytes)) {
+			stream.writeObject(mail);
+		}
+
+		assertThat(MailCodec.defaults().encode(mail))
+			.hasSizeLessThan(bytes.size() / 4);
+	}
+
+	@Test
+	@DisplayName("should encode attribute values using the registered attribute encoder")
+	void shouldUseAttributeEncoder() throws Exception {
+		final var codec = MailCodec.builder()
+			.encoder(new PointEncoder())
+			.build();
+
+		final var mail = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to("to@konfigyr.com")
+			.attribute("point", new Point(3, -4))
+			.attribute("points", List.of(new Point(1, 2)))
+			.build();
+
+		MailAssert.assertThat(codec.decode(codec.encode(mail)))
+			.hasAttribute("point", new Point(3, -4))
+			.hasAttribute("points", List.of(new Point(1, 2)));
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().decode(codec.encode(mail)))
+			.withMessageContaining("point");
+	}
+
+	@Test
+	@DisplayName("should fail to register attribute encoders with the same name")
+	void shouldRejectDuplicateEncoders() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> MailCodec.builder().encoder(new PointEncoder()).encoder(new PointEncoder()).build())
+			.withMessageContaining("point");
+	}
+
+	@Test
+	@DisplayName("should fail to encode attribute values that are not serializable")
+	void shouldFailToEncodeUnsupportedValue() {
+		final var mail = Mail.builder()
+			.subject("subject")
+			.template("template")
+			.to("to@konfigyr.com")
+			.attribute("value", new Object())
+			.build();
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().encode(mail))
+			.isInstanceOf(NotSerializableException.class);
+	}
+
+	@Test
+	@DisplayName("should fail to decode malformed or unsupported input")
+	void shouldFailToDecodeMalformedInput() throws Exception {
+		final var mail = Mail.builder()
+			.subject("Subject for template")
+			.template("template")
+			.attribute("name", "John Doe")
+			.to("to@konfigyr.com")
+			.build();
+		final byte[] encoded = MailCodec.defaults().encode(mail);
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().decode(Arrays.copyOf(encoded, encoded.length - 3)));
+
+		encoded[0] = 42;
+
+		assertThatIOException()
+			.isThrownBy(() -> MailCodec.defaults().decode(encoded))
+			.withMessageContaining("Unsupported mail codec version: 42");
+	}
+
+	record Point(int x, int y) {
+	}
+
+	record Amount(long cents, String currency) implements Serializable {
+	}
+
+	static final class PointEncoder implements AttributeEncoder<Point> {
+
+		@Override
+		public String name() {
+			return "point";
+		}
+
+		@Override
+		public Class<Point> type() {
+			return Point.class;
+		}
+
+		@Override
+		public void encode(Point value, DataOutput output) throws IOException {
+			output.writeInt(value.x());
+			output.writeInt(value.y());
+		}
+
+		@Override
+		public Point decode(DataInput input) throws IOException {
+			return new Point(input.readInt(), input.readInt());
+		}
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.konfigyr.mail;
+
+import com.konfigyr.mail.test.MailAssert;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MailMergeTest {
+
+	@Test
+	@DisplayName("should merge the overlay with the shared mail merge definition")
+	void shouldMergeMail() {
+		final var merge = MailMerge.builder()
+			.subject("test-subject", "argument")
+			.template("test-template")
+			.attribute("campaign", "spring")
+			.attributes(Map.of("greeting", "Hello"))
+			.from(new Address("sender@konfigyr.com"))
+			.replyTo(new Address("reply-to@konfigyr.com"))
+			.encoding(StandardCharsets.ISO_8859_1)
+			.locale(Locale.GERMAN)
+			.build();
+
+		final var mail = merge.mail(MailMerge.Overlay.of(Recipient.cc("cc@konfigyr.com", "CC"),
+				Map.of("greeting", "Hallo", "name", "John")));
+
+		MailAssert.assertThat(mail)
+			.hasTemplate("test-template")
+			.hasEncoding(StandardCharsets.ISO_8859_1)
+			.hasLocale(Locale.GERMAN)
+			.hasSubject("test-subject", "argument")
+			.sentBy(new Address("sender@konfigyr.com"))
+			.hasReplyTo(new Address("reply-to@konfigyr.com"))
+			.hasRecipients(Recipient.cc("cc@konfigyr.com", "CC"))
+			.hasAttribute("campaign", "spring")
+			.hasAttribute("greeting", "Hallo")
+			.hasAttribute("name", "John");
+	}
+
+	@Test
+	@DisplayName("should validate the mail merge definition and overlays")
+	void shouldValidateMailMerge() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> MailMerge.builder().template("test-template").build())
+			.withMessageContaining("subject");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> MailMerge.builder().subject("test-subject").build())
+			.withMessageContaining("template");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new MailMerge.Overlay(Set.of(), Map.of()))
+			.withMessageContaining("recipient");
+	}
+
+}
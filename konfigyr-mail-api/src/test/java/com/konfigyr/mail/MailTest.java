@@ -5,6 +5,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.context.MessageSourceResolvable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 import java.util.Map;
@@ -52,4 +56,75 @@ class MailTest {
 			.returns(mail.subject().arguments(), MessageSourceResolvable::getArguments);
 	}
 
+	@Test
+	@DisplayName("should layer mail attributes on top of the shared attributes without copying them")
+	void shouldCreateMailWithSharedAttributes() {
+		final Map<String, Object> shared = Map.of("catalog", "products", "greeting", "Hello");
+
+		final var mail = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.sharedAttributes(shared)
+			.attribute("greeting", "Hallo")
+			.to("to@konfigyr.com")
+			.build();
+
+		MailAssert.assertThat(mail)
+			.hasAttribute("catalog", "products")
+			.hasAttribute("greeting", "Hallo");
+
+		assertThat(mail.attributes())
+			.isInstanceOf(LayeredAttributes.class)
+			.hasSize(2);
+	}
+
+	@Test
+	@DisplayName("should not change the built mail when the builder attributes are modified")
+	void shouldSnapshotBuilderAttributes() {
+		final var builder = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.sharedAttributes(Map.of("catalog", "products"))
+			.attribute("greeting", "Hallo")
+			.to("to@konfigyr.com");
+
+		final var mail = builder.build();
+
+		builder.attribute("name", "John Doe");
+
+		assertThat(mail.attributes())
+			.hasSize(2)
+			.containsOnlyKeys("catalog", "greeting");
+	}
+
+	@Test
+	@DisplayName("should serialize and deserialize mail instance")
+	void shouldSerializeMail() throws Exception {
+		final var mail = Mail.builder()
+			.subject("test-subject", "argument")
+			.template("test-template")
+			.attribute("key", "value")
+			.to("to@konfigyr.com")
+			.from("sender@konfigyr.com", "Sender")
+			.encoding(StandardCharsets.ISO_8859_1)
+			.locale(Locale.GERMAN)
+			.build();
+
+		final var bytes = new ByteArrayOutputStream();
+
+		try (var stream = new ObjectOutputStream(bytes)) {
+			stream.writeObject(mail);
+		}
+
+		try (var stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			MailAssert.assertThat((Mail) stream.readObject())
+				.hasTemplate("test-template")
+				.hasEncoding(StandardCharsets.ISO_8859_1)
+				.hasLocale(Locale.GERMAN)
+				.hasSubject("test-subject", "argument")
+				.sentBy(new Address("sender@konfigyr.com", "Sender"))
+				.hasAttribute("key", "value");
+		}
+	}
+
 }
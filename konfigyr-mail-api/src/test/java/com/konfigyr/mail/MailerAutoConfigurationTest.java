@@ -1,16 +1,34 @@
 package com.konfigyr.mail;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +45,7 @@ class MailerAutoConfigurationTest {
 	@BeforeEach
 	void setup() {
 		runner = new ApplicationContextRunner()
+			.withClassLoader(new FilteredClassLoader(MeterRegistry.class, ObservationRegistry.class))
 			.withConfiguration(AutoConfigurations.of(MailerAutoConfiguration.class));
 	}
 
@@ -80,8 +99,293 @@ class MailerAutoConfigurationTest {
 				.hasSingleBean(MailerAutoConfiguration.class)
 				.hasSingleBean(Mailer.class)
 				.hasBean("defaultMailer")
+				.doesNotHaveBean(TimerWheel.class)
 				.getBean(Mailer.class)
 				.isInstanceOf(DefaultMailer.class));
 	}
 
+	@Test
+	@DisplayName("should decorate the transport with retries when enabled")
+	void shouldAutoconfigureRetries() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.retry.enabled=true", "spring.mail.retry.tick=5ms",
+					"spring.mail.retry.policies.send-failed.max-attempts=2")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(TimerWheel.class)
+				.getBean(Mailer.class)
+				.extracting("transport")
+				.isInstanceOf(RetryingTransport.class));
+	}
+
+	@Test
+	@DisplayName("should decorate the transport with a rate limiter when enabled")
+	void shouldAutoconfigureRateLimit() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.rate-limit.enabled=true", "spring.mail.rate-limit.per-second=10",
+					"spring.mail.rate-limit.per-hour=1000", "spring.mail.rate-limit.mode=fail-fast")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(TimerWheel.class)
+				.getBean(Mailer.class)
+				.extracting("transport")
+				.isInstanceOf(RateLimitingTransport.class)
+				.extracting("buckets")
+				.asInstanceOf(InstanceOfAssertFactories.array(TokenBucket[].class))
+				.extracting(TokenBucket::permits)
+				.containsExactly(10, 1000));
+	}
+
+	@Test
+	@DisplayName("should decorate the transport with the domain traffic shaper when enabled")
+	void shouldAutoconfigureDomainShaping() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.shaping.enabled=true", "spring.mail.shaping.max-concurrency=8",
+					"spring.mail.shaping.domains[gmail.com].per-second=5")
+			.run(context -> assertThat(context).hasNotFailed()
+				.getBean(Mailer.class)
+				.extracting("transport")
+				.isInstanceOf(DomainShapingTransport.class)
+				.extracting("domains")
+				.asInstanceOf(InstanceOfAssertFactories.map(String.class, DomainShapingTransport.Limits.class))
+				.containsExactly(entry("gmail.com", new DomainShapingTransport.Limits(8, 5, null))));
+	}
+
+	@Test
+	@DisplayName("should guard the transport with a circuit breaker that publishes state transition events")
+	void shouldAutoconfigureCircuitBreaker() {
+		final var events = new ArrayList<CircuitBreakerEvent>();
+
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withBean(ApplicationListener.class, () -> (ApplicationListener<ApplicationEvent>) event -> {
+				if (event instanceof PayloadApplicationEvent<?> payload
+						&& payload.getPayload() instanceof CircuitBreakerEvent transition) {
+					events.add(transition);
+				}
+			})
+			.withPropertyValues("spring.mail.circuit-breaker.enabled=true",
+					"spring.mail.circuit-breaker.window-size=2", "spring.mail.circuit-breaker.minimum-calls=1")
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(CircuitBreaker.class)
+					.getBean(Mailer.class)
+					.extracting("transport")
+					.isInstanceOf(CircuitBreakingTransport.class);
+
+				context.getBean(CircuitBreaker.class).tryAcquire().record(true);
+			});
+
+		assertThat(events).containsExactly(new CircuitBreakerEvent(CircuitBreakerEvent.State.CLOSED,
+				CircuitBreakerEvent.State.OPEN, 1));
+	}
+
+	@Test
+	@DisplayName("should instrument the mailer with metrics that are recorded once bound to a meter registry")
+	void shouldAutoconfigureMetrics() throws Exception {
+		final var mail = Mail.builder()
+			.subject("Subject for welcome")
+			.template("welcome")
+			.to("to@konfigyr.com")
+			.build();
+		final var registry = new SimpleMeterRegistry();
+
+		doReturn(Template.html("<p>Welcome</p>")).when(engine).render(mail);
+
+		runner.withClassLoader(MeterRegistry.class.getClassLoader())
+			.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(MailerMetrics.class);
+
+				context.getBean(MailerMetrics.class).bindTo(registry);
+				context.getBean(Mailer.class).send(mail);
+			});
+
+		assertThat(registry.get(MailerMetrics.RENDER_TIMER).tag("template", "welcome").timer().count()).isOne();
+		assertThat(registry.get(MailerMetrics.SEND_TIMER).tag("outcome", "success").timer().count()).isOne();
+	}
+
+	@Test
+	@DisplayName("should not instrument the mailer when Micrometer is not present")
+	void shouldNotAutoconfigureMetricsWithoutMicrometer() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Mailer.class)
+				.doesNotHaveBean(MailerMetrics.class)
+				.getBean(Mailer.class)
+				.extracting("transport")
+				.isSameAs(transport));
+	}
+
+	@Test
+	@DisplayName("should observe the mail delivery using the observation registry")
+	void shouldAutoconfigureObservations() throws Exception {
+		final var mail = Mail.builder()
+			.subject("Subject for welcome")
+			.template("welcome")
+			.to("to@konfigyr.com")
+			.build();
+		final var registry = ObservationRegistry.create();
+		final var observed = new ArrayList<String>();
+
+		registry.observationConfig().observationHandler(new ObservationHandler<>() {
+			@Override
+			public void onStart(Observation.Context context) {
+				observed.add(context.getContextualName());
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return true;
+			}
+		});
+
+		doReturn(Template.html("<p>Welcome</p>")).when(engine).render(mail);
+
+		runner.withClassLoader(ObservationRegistry.class.getClassLoader())
+			.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withBean(ObservationRegistry.class, () -> registry)
+			.withBean(MailObservationConvention.class, () -> new DefaultMailObservationConvention() {
+				@Override
+				public String getContextualName(MailObservationContext context) {
+					return "custom " + super.getContextualName(context);
+				}
+			})
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(MailerObservations.class);
+
+				context.getBean(Mailer.class).send(mail);
+			});
+
+		assertThat(observed)
+			.containsExactly("custom mail send", "custom mail render", "custom mail transport");
+	}
+
+	@Test
+	@DisplayName("should fail to start when rate limiter is enabled without any rate limits")
+	void shouldFailForMissingRateLimits() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.rate-limit.enabled=true")
+			.run(context -> assertThat(context).hasFailed()
+				.getFailure()
+				.hasRootCauseInstanceOf(IllegalArgumentException.class));
+	}
+
+	@Test
+	@DisplayName("should fail to start when retry policy is defined for a non-retryable error code")
+	void shouldFailForNonRetryableRetryPolicy() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.retry.enabled=true",
+					"spring.mail.retry.policies.authentication-failed.max-attempts=2")
+			.run(context -> assertThat(context).hasFailed()
+				.getFailure()
+				.hasRootCauseInstanceOf(IllegalArgumentException.class)
+				.rootCause()
+				.hasMessageContaining("AUTHENTICATION_FAILED"));
+	}
+
+	@Test
+	@DisplayName("should register bounded mailer executor configured from properties")
+	void shouldAutoconfigureExecutor() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.async.core-size=1", "spring.mail.async.max-size=4",
+					"spring.mail.async.queue-capacity=10", "spring.mail.async.thread-name-prefix=test-mailer-")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasBean(MailerAutoConfiguration.EXECUTOR_BEAN_NAME)
+				.getBean(MailerAutoConfiguration.EXECUTOR_BEAN_NAME, ThreadPoolTaskExecutor.class)
+				.returns(1, ThreadPoolTaskExecutor::getCorePoolSize)
+				.returns(4, ThreadPoolTaskExecutor::getMaxPoolSize)
+				.returns(10, ThreadPoolTaskExecutor::getQueueCapacity)
+				.returns("test-mailer-", ThreadPoolTaskExecutor::getThreadNamePrefix));
+	}
+
+	@Test
+	@DisplayName("should register virtual thread mailer executor when enabled")
+	void shouldAutoconfigureVirtualThreadExecutor() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.async.virtual-threads=true", "spring.mail.async.max-concurrency=16")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasBean(MailerAutoConfiguration.EXECUTOR_BEAN_NAME)
+				.doesNotHaveBean(ThreadPoolTaskExecutor.class)
+				.getBean(MailerAutoConfiguration.EXECUTOR_BEAN_NAME)
+				.isInstanceOf(MailerExecutors.VirtualThreadExecutor.class)
+				.returns(16, executor -> ((MailerExecutors.VirtualThreadExecutor) executor).availablePermits()));
+	}
+
+	@Test
+	@DisplayName("should register mail codec with configured dictionary, serializable types and attribute encoders")
+	void shouldAutoconfigureMailCodec() {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withBean(MailCodecTest.PointEncoder.class)
+			.withPropertyValues("spring.mail.codec.dictionary=template,to@konfigyr.com",
+					"spring.mail.codec.serializable-types=" + MailCodecTest.Amount.class.getName())
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(MailCodec.class);
+
+				final var codec = context.getBean(MailCodec.class);
+				final var mail = Mail.builder()
+					.subject("subject")
+					.template("template")
+					.to("to@konfigyr.com")
+					.attribute("point", new MailCodecTest.Point(1, 2))
+					.attribute("amount", new MailCodecTest.Amount(42, "EUR"))
+					.build();
+
+				final byte[] encoded = codec.encode(mail);
+
+				assertThat(codec.decode(encoded).attributes())
+					.containsEntry("point", new MailCodecTest.Point(1, 2))
+					.containsEntry("amount", new MailCodecTest.Amount(42, "EUR"));
+
+				assertThatIOException()
+					.as("should use the configured dictionary")
+					.isThrownBy(() -> MailCodec.defaults().decode(encoded));
+			});
+	}
+
+	@Test
+	@DisplayName("should register outbox mailer with memory-mapped journal when enabled")
+	void shouldAutoconfigureOutbox(@TempDir Path directory) {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.outbox.enabled=true", "spring.mail.outbox.directory=" + directory)
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Mailer.class)
+				.hasBean("outboxMailer")
+				.doesNotHaveBean("defaultMailer")
+				.hasSingleBean(MailJournal.class)
+				.getBean(Mailer.class)
+				.isInstanceOf(OutboxMailer.class));
+
+		assertThat(directory).isDirectoryContaining("glob:**/" + MappedMailJournal.SEGMENT_PREFIX + "*");
+	}
+
+	@Test
+	@DisplayName("should register outbox mailer with file journal and group sync policy")
+	void shouldAutoconfigureOutboxWithFileJournal(@TempDir Path directory) {
+		runner.withBean(TemplateEngine.class, () -> engine)
+			.withBean(Transport.class, () -> transport)
+			.withPropertyValues("spring.mail.outbox.enabled=true", "spring.mail.outbox.directory=" + directory,
+					"spring.mail.outbox.journal=file", "spring.mail.outbox.sync=group",
+					"spring.mail.outbox.sync-interval=1ms")
+			.run(context -> assertThat(context).hasNotFailed()
+				.getBean(MailJournal.class)
+				.isInstanceOf(FileMailJournal.class));
+
+		assertThat(directory.resolve(FileMailJournal.SEGMENT_PREFIX + "0".repeat(20) + FileMailJournal.SEGMENT_SUFFIX))
+			.exists();
+	}
+
 }
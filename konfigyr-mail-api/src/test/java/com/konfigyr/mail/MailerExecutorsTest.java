@@ -0,0 +1,97 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MailerExecutorsTest {
+
+	@Test
+	@DisplayName("should reject submission when executor queue is not freed within the timeout")
+	void shouldApplyBackPressure() {
+		final var policy = new MailerExecutors.BlockingSubmissionPolicy(Duration.ofMillis(20));
+		final var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), policy);
+
+		try {
+			executor.getQueue().add(() -> { });
+
+			assertThatExceptionOfType(RejectedExecutionException.class)
+				.isThrownBy(() -> policy.rejectedExecution(() -> { }, executor))
+				.withMessageContaining("Mailer executor queue is full");
+
+			executor.getQueue().clear();
+
+			assertThatNoException().isThrownBy(() -> policy.rejectedExecution(() -> { }, executor));
+			assertThat(executor.getQueue()).hasSize(1);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThatExceptionOfType(RejectedExecutionException.class)
+			.isThrownBy(() -> policy.rejectedExecution(() -> { }, executor))
+			.withMessageContaining("shut down");
+	}
+
+	@Test
+	@DisplayName("should run tasks on virtual threads while limiting their concurrency")
+	void shouldLimitVirtualThreadConcurrency() throws Exception {
+		final var properties = new MailerProperties.Async();
+		properties.setMaxConcurrency(2);
+
+		final var release = new CountDownLatch(1);
+		final var started = new CountDownLatch(2);
+		final var completed = new CountDownLatch(5);
+		final var running = new AtomicInteger();
+		final var virtual = new AtomicInteger();
+
+		try (var executor = MailerExecutors.virtual(properties)) {
+			for (int i = 0; i < 5; i++) {
+				executor.execute(() -> {
+					running.incrementAndGet();
+					if (Thread.currentThread().isVirtual()) {
+						virtual.incrementAndGet();
+					}
+					started.countDown();
+
+					try {
+						release.await();
+					} catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+					}
+
+					completed.countDown();
+				});
+			}
+
+			assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+			assertThat(running).hasValue(2);
+			assertThat(executor.availablePermits()).isZero();
+
+			release.countDown();
+
+			assertThat(completed.await(1, TimeUnit.SECONDS)).isTrue();
+			assertThat(running).hasValue(5);
+			assertThat(virtual).hasValue(5);
+		}
+	}
+
+	@Test
+	@DisplayName("should reject tasks once the virtual thread executor is closed")
+	void shouldRejectTasksWhenClosed() {
+		final var executor = MailerExecutors.virtual(new MailerProperties.Async());
+		executor.close();
+
+		assertThatExceptionOfType(RejectedExecutionException.class)
+			.isThrownBy(() -> executor.execute(() -> { }));
+	}
+
+}
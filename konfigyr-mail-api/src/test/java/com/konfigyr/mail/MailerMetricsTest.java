@@ -0,0 +1,169 @@
+package com.konfigyr.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MailerMetricsTest {
+
+	@Mock
+	TemplateEngine engine;
+
+	@Mock
+	Transport delegate;
+
+	SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	MailerMetrics metrics = new MailerMetrics("TestTransport", null, null);
+
+	Mail mail = Mail.builder()
+		.subject("test-subject")
+		.template("welcome")
+		.to("test@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Grüße</p>");
+
+	@Test
+	@DisplayName("should record the render time and the size of rendered templates")
+	void shouldRecordRender() throws IOException {
+		metrics.bindTo(registry);
+
+		doReturn(template).when(engine).render(mail);
+
+		assertThat(metrics.instrument(engine).render(mail)).isSameAs(template);
+
+		assertThat(registry.get(MailerMetrics.RENDER_TIMER).tags("template", "welcome", "outcome", "success")
+				.timer().count()).isOne();
+
+		assertThat(registry.get(MailerMetrics.MESSAGE_SIZE).tag("template", "welcome").summary().totalAmount())
+			.as("should measure the UTF-8 encoded size of the template")
+			.isEqualTo(14);
+	}
+
+	@Test
+	@DisplayName("should record failed template rendering")
+	void shouldRecordRenderFailure() throws IOException {
+		metrics.bindTo(registry);
+
+		doThrow(new IOException("Template not found")).when(engine).render(mail);
+
+		assertThatIOException().isThrownBy(() -> metrics.instrument(engine).render(mail));
+
+		assertThat(registry.get(MailerMetrics.RENDER_TIMER).tags("template", "welcome", "outcome", "failure")
+				.timer().count()).isOne();
+		assertThat(registry.get("mail.render.active").gauge().value()).isZero();
+	}
+
+	@Test
+	@DisplayName("should record dispatched mails tagged by the transport and error code")
+	void shouldRecordSend() {
+		metrics.bindTo(registry);
+
+		final Transport transport = metrics.instrument(delegate);
+
+		transport.send(mail, template);
+
+		doThrow(new MailingException(MailingException.ErrorCode.CONNECTION_FAILED, "Connection refused"))
+			.when(delegate).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template)).isInstanceOf(MailingException.class);
+
+		assertThat(registry.get(MailerMetrics.SEND_TIMER)
+				.tags("transport", "TestTransport", "outcome", "success", "error.code", "none")
+				.timer().count()).isOne();
+
+		assertThat(registry.get(MailerMetrics.SEND_TIMER)
+				.tags("transport", "TestTransport", "outcome", "failure", "error.code", "connection_failed")
+				.timer().count()).isOne();
+
+		assertThat(registry.get("mail.send.active").gauge().value()).isZero();
+	}
+
+	@Test
+	@DisplayName("should record asynchronously dispatched mails once they complete")
+	void shouldRecordSendAsync() {
+		metrics.bindTo(registry);
+
+		final var pending = new CompletableFuture<Void>();
+		doReturn(pending).when(delegate).sendAsync(mail, template);
+
+		final CompletableFuture<Void> future = metrics.instrument(delegate).sendAsync(mail, template);
+
+		assertThat(registry.get("mail.send.active").gauge().value()).isOne();
+		assertThat(registry.find(MailerMetrics.SEND_TIMER).timer()).isNull();
+
+		pending.completeExceptionally(new MailingException(MailingException.ErrorCode.QUOTA_EXCEEDED, "Slow down"));
+
+		assertThat(future).failsWithin(Duration.ZERO);
+		assertThat(registry.get(MailerMetrics.SEND_TIMER).tag("error.code", "quota_exceeded").timer().count())
+			.isOne();
+		assertThat(registry.get("mail.send.active").gauge().value()).isZero();
+	}
+
+	@Test
+	@DisplayName("should record the result of every mail in a batch")
+	void shouldRecordBatch() {
+		metrics.bindTo(registry);
+
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("other")
+			.to("test@konfigyr.com")
+			.build();
+		final var failure = new MailingException(MailingException.ErrorCode.SEND_FAILED, "Recipient rejected");
+
+		doReturn(List.of(MailingResult.success(mail), MailingResult.failure(other, failure)))
+			.when(delegate).sendAll(List.of(mail, other), List.of(template, template));
+
+		metrics.instrument(delegate).sendAll(List.of(mail, other), List.of(template, template));
+
+		assertThat(registry.get(MailerMetrics.SEND_TIMER).tag("outcome", "success").timer().count()).isOne();
+		assertThat(registry.get(MailerMetrics.SEND_TIMER).tag("error.code", "send_failed").timer().count()).isOne();
+	}
+
+	@Test
+	@DisplayName("should not record metrics before the binder is bound to a meter registry")
+	void shouldNotRecordWhenNotBound() {
+		metrics.instrument(delegate).send(mail, template);
+
+		verify(delegate).send(mail, template);
+
+		metrics.bindTo(registry);
+
+		assertThat(registry.find(MailerMetrics.SEND_TIMER).timer()).isNull();
+	}
+
+	@Test
+	@DisplayName("should register the circuit breaker state and rejected mails")
+	void shouldBindCircuitBreaker() {
+		final var breaker = new CircuitBreaker(1, 1, 1, Duration.ofHours(1), 1, event -> { });
+		new MailerMetrics("TestTransport", null, breaker).bindTo(registry);
+
+		assertThat(registry.get("mail.circuit.breaker.state").tag("state", "closed").gauge().value()).isOne();
+
+		breaker.tryAcquire().record(true);
+		breaker.tryAcquire();
+
+		assertThat(registry.get("mail.circuit.breaker.state").tag("state", "closed").gauge().value()).isZero();
+		assertThat(registry.get("mail.circuit.breaker.state").tag("state", "open").gauge().value()).isOne();
+		assertThat(registry.get("mail.circuit.breaker.failure.rate").gauge().value()).isOne();
+		assertThat(registry.get("mail.circuit.breaker.rejected").functionCounter().count()).isOne();
+	}
+
+}
@@ -0,0 +1,205 @@
+package com.konfigyr.mail;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class MailerObservationsTest {
+
+	@Mock
+	TemplateEngine engine;
+
+	@Mock
+	Transport transport;
+
+	ObservationRegistry registry;
+
+	Queue<MailObservationContext> observed = new ConcurrentLinkedQueue<>();
+
+	Mail mail = Mail.builder()
+		.subject("Subject for welcome")
+		.template("welcome")
+		.to("to@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Welcome</p>");
+
+	@BeforeEach
+	void setup() {
+		registry = ObservationRegistry.create();
+		registry.observationConfig().observationHandler(new ObservationHandler<>() {
+			@Override
+			public void onStop(Observation.Context context) {
+				observed.add((MailObservationContext) context);
+			}
+
+			@Override
+			public boolean supportsContext(Observation.Context context) {
+				return context instanceof MailObservationContext;
+			}
+		});
+	}
+
+	@Test
+	@DisplayName("should observe rendering and dispatching as children of the send observation")
+	void shouldObserveSend() throws IOException {
+		doReturn(template).when(engine).render(mail);
+
+		mailer(new MailerObservations(registry, null), Runnable::run).send(mail);
+
+		assertThat(observed)
+			.extracting(MailObservationContext::getStage)
+			.containsExactly(MailObservationContext.Stage.RENDER, MailObservationContext.Stage.TRANSPORT,
+					MailObservationContext.Stage.SEND);
+
+		final MailObservationContext send = context(MailObservationContext.Stage.SEND);
+
+		assertThat(send)
+			.returns(DefaultMailObservationConvention.NAME, MailObservationContext::getName)
+			.returns("mail send", MailObservationContext::getContextualName)
+			.returns(null, MailObservationContext::getParentObservation)
+			.returns(KeyValues.of(
+				KeyValue.of("mail.error.code", "none"),
+				KeyValue.of("mail.stage", "send"),
+				KeyValue.of("mail.template", "welcome")
+			), MailObservationContext::getLowCardinalityKeyValues)
+			.returns(KeyValues.of("mail.recipients", String.valueOf(mail.recipients().size())),
+				MailObservationContext::getHighCardinalityKeyValues);
+
+		assertThat(context(MailObservationContext.Stage.RENDER).getParentObservation())
+			.isNotNull()
+			.extracting(ObservationView::getContextView)
+			.isSameAs(send);
+
+		assertThat(context(MailObservationContext.Stage.TRANSPORT).getParentObservation())
+			.isNotNull()
+			.extracting(ObservationView::getContextView)
+			.isSameAs(send);
+	}
+
+	@Test
+	@DisplayName("should record the error code of the failed delivery stage")
+	void shouldObserveRenderFailure() throws IOException {
+		doThrow(new IOException("Template not found")).when(engine).render(mail);
+
+		final Mailer mailer = mailer(new MailerObservations(registry, null), Runnable::run);
+
+		assertThatExceptionOfType(MailingException.class)
+			.isThrownBy(() -> mailer.send(mail));
+
+		assertThat(observed)
+			.extracting(MailObservationContext::getStage)
+			.containsExactly(MailObservationContext.Stage.RENDER, MailObservationContext.Stage.SEND);
+
+		assertThat(context(MailObservationContext.Stage.RENDER))
+			.returns(MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED, MailObservationContext::getErrorCode)
+			.extracting(it -> it.getLowCardinalityKeyValue("mail.error.code"))
+			.returns("template_rendering_failed", KeyValue::getValue);
+
+		assertThat(context(MailObservationContext.Stage.SEND))
+			.returns(MailingException.ErrorCode.TEMPLATE_RENDERING_FAILED, MailObservationContext::getErrorCode);
+
+		verifyNoInteractions(transport);
+	}
+
+	@Test
+	@DisplayName("should propagate the send observation to the executor when sending mails asynchronously")
+	void shouldObserveSendAsync() throws IOException {
+		final var failure = new MailingException(MailingException.ErrorCode.CONNECTION_FAILED, "Connection refused");
+
+		doReturn(template).when(engine).render(mail);
+		doReturn(CompletableFuture.failedFuture(failure)).when(transport).sendAsync(mail, template);
+
+		final CompletableFuture<Void> future = mailer(new MailerObservations(registry, null),
+				task -> Thread.ofVirtual().start(task)).sendAsync(mail);
+
+		assertThat(future).failsWithin(Duration.ofSeconds(5));
+
+		final MailObservationContext send = context(MailObservationContext.Stage.SEND);
+
+		assertThat(send)
+			.returns(MailingException.ErrorCode.CONNECTION_FAILED, MailObservationContext::getErrorCode);
+
+		assertThat(context(MailObservationContext.Stage.RENDER).getParentObservation())
+			.as("should propagate the parent observation to the executor thread")
+			.isNotNull()
+			.extracting(ObservationView::getContextView)
+			.isSameAs(send);
+
+		assertThat(context(MailObservationContext.Stage.TRANSPORT))
+			.returns(MailingException.ErrorCode.CONNECTION_FAILED, MailObservationContext::getErrorCode)
+			.extracting(MailObservationContext::getParentObservation)
+			.isNotNull()
+			.extracting(ObservationView::getContextView)
+			.isSameAs(send);
+	}
+
+	@Test
+	@DisplayName("should use the custom observation convention")
+	void shouldUseCustomConvention() throws IOException {
+		doReturn(template).when(engine).render(mail);
+
+		final var convention = new DefaultMailObservationConvention() {
+			@Override
+			public String getName() {
+				return "custom.mail";
+			}
+		};
+
+		mailer(new MailerObservations(registry, convention), Runnable::run).send(mail);
+
+		assertThat(observed)
+			.hasSize(3)
+			.extracting(MailObservationContext::getName)
+			.containsOnly("custom.mail");
+	}
+
+	@Test
+	@DisplayName("should invoke the delegates directly when observations are not enabled")
+	void shouldNotObserveWithoutHandlers() throws IOException {
+		doReturn(template).when(engine).render(mail);
+
+		mailer(new MailerObservations(ObservationRegistry.NOOP, null), Runnable::run).send(mail);
+		mailer(new MailerObservations(ObservationRegistry.create(), null), Runnable::run).send(mail);
+
+		verify(transport, times(2)).send(mail, template);
+		assertThat(observed).isEmpty();
+	}
+
+	private Mailer mailer(MailerObservations observations, Executor executor) {
+		return observations.instrument(Mailer.of(observations.instrument(engine),
+				observations.instrument(transport), observations.instrument(executor)));
+	}
+
+	private MailObservationContext context(MailObservationContext.Stage stage) {
+		return observed.stream()
+			.filter(context -> context.getStage() == stage)
+			.findFirst()
+			.orElseThrow();
+	}
+
+}
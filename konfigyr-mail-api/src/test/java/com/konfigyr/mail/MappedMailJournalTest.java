@@ -0,0 +1,283 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MappedMailJournalTest {
+
+	static final int SEGMENT_SIZE = 64 * 1024;
+
+	@TempDir
+	Path directory;
+
+	Mail mail;
+
+	@BeforeEach
+	void setup() {
+		mail = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.to("test@konfigyr.com")
+			.build();
+	}
+
+	@Test
+	@DisplayName("should replay unacknowledged mails after the journal is reopened")
+	void shouldReplayUnacknowledgedMails() throws Exception {
+		final var welcome = Mail.builder()
+			.subject("welcome-subject")
+			.template("welcome")
+			.to("test@konfigyr.com")
+			.build();
+		final var reminder = Mail.builder()
+			.subject("reminder-subject")
+			.template("reminder")
+			.to("test@konfigyr.com")
+			.build();
+		final long first, second, third;
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			first = journal.append(welcome);
+			second = journal.append(mail);
+			third = journal.append(reminder);
+
+			journal.acknowledge(second);
+
+			assertThat(journal.outstanding()).isEqualTo(2);
+		}
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(MailJournal.Entry::id, entry -> entry.mail().template())
+				.containsExactly(
+					tuple(first, "welcome"),
+					tuple(third, "reminder")
+				);
+
+			assertThat(journal.append(mail))
+				.as("should continue the entry sequence")
+				.isGreaterThan(third);
+		}
+	}
+
+	@Test
+	@DisplayName("should discard journal records with an invalid checksum and continue writing after them")
+	void shouldDiscardCorruptedRecords() throws Exception {
+		final var welcome = Mail.builder()
+			.subject("welcome-subject")
+			.template("welcome")
+			.to("test@konfigyr.com")
+			.build();
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			journal.append(welcome);
+			journal.append(mail);
+		}
+
+		final Path segment = directory.resolve(segment(0));
+
+		try (var channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+			channel.read(length, 0);
+
+			final long position = MappedMailJournal.HEADER_SIZE + length.flip().getInt()
+					+ MappedMailJournal.HEADER_SIZE + 16;
+
+			channel.write(ByteBuffer.wrap(new byte[] { 42, 42, 42, 42 }), position);
+		}
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(entry -> entry.mail().template())
+				.containsExactly("welcome");
+
+			journal.append(mail);
+		}
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(entry -> entry.mail().template())
+				.containsExactly("welcome", "test-template");
+		}
+	}
+
+	@Test
+	@DisplayName("should roll segments and delete them once all their mails are acknowledged")
+	void shouldCompactSegments() throws Exception {
+		final int record = MappedMailJournal.HEADER_SIZE + MailCodec.defaults().encode(mail).length;
+		final int size = 2 * record + MappedMailJournal.HEADER_SIZE;
+
+		try (var journal = open(size, MailJournal.Sync.ALWAYS)) {
+			final long first = journal.append(mail);
+			final long second = journal.append(mail);
+
+			assertThat(journal.segments()).isEqualTo(1);
+
+			final long third = journal.append(mail);
+
+			assertThat(journal.segments()).isEqualTo(2);
+			assertThat(directory.resolve(segment(1))).exists();
+
+			journal.acknowledge(first);
+
+			assertThat(journal.segments()).isEqualTo(2);
+
+			journal.acknowledge(second);
+
+			assertThat(journal.segments()).isEqualTo(1);
+			assertThat(directory.resolve(segment(0))).doesNotExist();
+
+			journal.acknowledge(third);
+
+			assertThat(journal.outstanding()).isZero();
+			assertThat(journal.segments())
+				.as("should keep the active segment")
+				.isEqualTo(1);
+		}
+
+		try (var journal = open(size, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending()).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("should flush concurrently appended mails using a group commit")
+	void shouldGroupCommitAppendedMails() throws Exception {
+		try (var journal = MappedMailJournal.open(directory, SEGMENT_SIZE, MailCodec.defaults(),
+				MailJournal.Sync.GROUP, Duration.ofMillis(2))) {
+			final var futures = IntStream.range(0, 16)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+					try {
+						return journal.append(mail);
+					} catch (Exception ex) {
+						throw new IllegalStateException(ex);
+					}
+				}))
+				.toArray(CompletableFuture[]::new);
+
+			assertThat(CompletableFuture.allOf(futures)).succeedsWithin(Duration.ofSeconds(5));
+			assertThat(journal.outstanding()).isEqualTo(16);
+		}
+
+		try (var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending()).hasSize(16);
+		}
+	}
+
+	@Test
+	@DisplayName("should fail the recovery when an unacknowledged mail can not be decoded")
+	void shouldFailRecoveryOfUndecodableMails() throws Exception {
+		final var codec = MailCodec.builder().dictionary("welcome-template", "noreply@konfigyr.com").build();
+		final var changed = MailCodec.builder().dictionary("noreply@konfigyr.com", "welcome-template").build();
+		final var extended = MailCodec.builder()
+			.dictionary("welcome-template", "noreply@konfigyr.com", "password-reset")
+			.build();
+
+		try (var journal = MappedMailJournal.open(directory, SEGMENT_SIZE, codec, MailJournal.Sync.NONE, Duration.ZERO)) {
+			journal.append(Mail.builder()
+				.subject("welcome-subject")
+				.template("welcome-template")
+				.to("test@konfigyr.com")
+				.build());
+		}
+
+		assertThatIOException()
+			.isThrownBy(() -> MappedMailJournal.open(directory, SEGMENT_SIZE, changed, MailJournal.Sync.NONE, Duration.ZERO))
+			.withMessageContaining("Failed to decode unacknowledged mail journal entry 0");
+
+		try (var journal = MappedMailJournal.open(directory, SEGMENT_SIZE, extended, MailJournal.Sync.NONE, Duration.ZERO)) {
+			assertThat(journal.pending())
+				.as("should still replay the mail after the journal failed to recover")
+				.extracting(entry -> entry.mail().template())
+				.containsExactly("welcome-template");
+		}
+	}
+
+	@Test
+	@DisplayName("should relocate mails that are not acknowledged for a long time so old segments can be deleted")
+	void shouldRelocatePinnedEntries() throws Exception {
+		final int record = MappedMailJournal.HEADER_SIZE + MailCodec.defaults().encode(mail).length;
+		final int size = 8 * record;
+		final long pinned;
+
+		try (var journal = open(size, MailJournal.Sync.ALWAYS)) {
+			pinned = journal.append(mail);
+
+			for (int i = 0; i < 100; i++) {
+				journal.acknowledge(journal.append(mail));
+
+				assertThat(journal.segments())
+					.as("should not keep the segment of the pinned mail")
+					.isLessThanOrEqualTo(3);
+			}
+
+			assertThat(directory.resolve(segment(0))).doesNotExist();
+			assertThat(journal.outstanding()).isEqualTo(1);
+		}
+
+		try (var journal = open(size, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending())
+				.extracting(MailJournal.Entry::id)
+				.containsExactly(pinned);
+
+			journal.acknowledge(pinned);
+		}
+
+		try (var journal = open(size, MailJournal.Sync.NONE)) {
+			assertThat(journal.pending()).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("should unmap segments and reject appends once the journal is closed")
+	void shouldRejectAppendsWhenClosed() throws Exception {
+		final var journal = open(SEGMENT_SIZE, MailJournal.Sync.NONE);
+		final long id = journal.append(mail);
+
+		journal.close();
+
+		assertThatIOException()
+			.isThrownBy(() -> journal.append(mail))
+			.withMessageContaining("closed");
+
+		assertThatIOException()
+			.isThrownBy(() -> journal.acknowledge(id))
+			.withMessageContaining("closed");
+	}
+
+	@Test
+	@DisplayName("should fail to append mails that are larger than the journal segment")
+	void shouldFailToAppendOversizedMail() throws Exception {
+		try (var journal = open(32, MailJournal.Sync.NONE)) {
+			assertThatIOException()
+				.isThrownBy(() -> journal.append(mail))
+				.withMessageContaining("exceeds the mail journal segment size");
+
+			assertThat(journal.outstanding()).isZero();
+		}
+	}
+
+	MappedMailJournal open(int segmentSize, MailJournal.Sync sync) throws IOException {
+		return MappedMailJournal.open(directory, segmentSize, MailCodec.defaults(), sync, Duration.ZERO);
+	}
+
+	static String segment(long index) {
+		return String.format("%s%020d%s", MappedMailJournal.SEGMENT_PREFIX, index, MappedMailJournal.SEGMENT_SUFFIX);
+	}
+
+}
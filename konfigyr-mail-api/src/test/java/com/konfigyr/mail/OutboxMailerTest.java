@@ -0,0 +1,141 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxMailerTest {
+
+	@Mock
+	Mailer delegate;
+
+	@TempDir
+	Path directory;
+
+	FileMailJournal journal;
+	OutboxMailer mailer;
+	Mail mail;
+
+	@BeforeEach
+	void setup() throws Exception {
+		mail = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.to("test@konfigyr.com")
+			.build();
+
+		journal = FileMailJournal.open(directory, 1024 * 1024, MailCodec.defaults(), MailJournal.Sync.NONE,
+				Duration.ZERO);
+		mailer = new OutboxMailer(delegate, journal, 2, 100, Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		mailer.close();
+		journal.close();
+	}
+
+	@Test
+	@DisplayName("should journal mail and send it using the delegate mailer")
+	void shouldSendJournaledMail() throws Exception {
+		mailer.start();
+
+		assertThat(mailer.sendAsync(mail)).isCompleted();
+
+		verify(delegate, timeout(1000)).send(mail);
+		awaitAcknowledged();
+	}
+
+	@Test
+	@DisplayName("should replay unacknowledged mails when started")
+	void shouldReplayPendingMails() throws Exception {
+		final var first = Mail.builder()
+			.subject("first-subject")
+			.template("first")
+			.to("test@konfigyr.com")
+			.build();
+		final var second = Mail.builder()
+			.subject("second-subject")
+			.template("second")
+			.to("test@konfigyr.com")
+			.build();
+
+		journal.append(first);
+		journal.append(second);
+		journal.close();
+
+		journal = FileMailJournal.open(directory, 1024 * 1024, MailCodec.defaults(), MailJournal.Sync.NONE,
+				Duration.ZERO);
+		mailer = new OutboxMailer(delegate, journal, 1, 1, Duration.ofSeconds(5));
+		mailer.start();
+
+		verify(delegate, timeout(1000)).send(argThat(it -> "first".equals(it.template())));
+		verify(delegate, timeout(1000)).send(argThat(it -> "second".equals(it.template())));
+		awaitAcknowledged();
+	}
+
+	@Test
+	@DisplayName("should acknowledge mails that failed to be sent")
+	void shouldAcknowledgeFailedMails() throws Exception {
+		doThrow(new MailingException(MailingException.ErrorCode.SEND_FAILED, "Failed"))
+			.when(delegate).send(mail);
+
+		mailer.start();
+		mailer.send(mail);
+
+		verify(delegate, timeout(1000)).send(mail);
+		awaitAcknowledged();
+	}
+
+	@Test
+	@DisplayName("should not accept mails when the outbox is not running")
+	void shouldRejectMailsWhenStopped() throws Exception {
+		assertThatIllegalStateException().isThrownBy(() -> mailer.send(mail));
+
+		mailer.start();
+		mailer.close();
+
+		assertThat(mailer.sendAsync(mail)).isCompletedExceptionally();
+		assertThat(journal.outstanding()).isZero();
+	}
+
+	@Test
+	@DisplayName("should fail with send failed error code when the mail can not be appended to the journal")
+	void shouldFailWhenJournalAppendFails() throws Exception {
+		mailer.start();
+		journal.close();
+
+		assertThatThrownBy(() -> mailer.send(mail))
+			.isInstanceOf(MailingException.class)
+			.hasMessageContaining("outbox journal")
+			.returns(MailingException.ErrorCode.SEND_FAILED, ex -> ((MailingException) ex).getErrorCode());
+	}
+
+	void awaitAcknowledged() throws InterruptedException {
+		final long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+
+		while (journal.outstanding() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(journal.outstanding()).isZero();
+	}
+
+}
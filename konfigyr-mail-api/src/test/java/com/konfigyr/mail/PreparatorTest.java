@@ -47,6 +47,37 @@ class PreparatorTest {
 		assertThat(Preparator.aggregate((Stream<Preparator<String>>) null).prepare(mail, "target")).isEqualTo("target");
 	}
 
+	@Test
+	@DisplayName("should flatten chained and aggregated preparators")
+	void shouldFlattenPreparators() throws Exception {
+		final var chained = preparatorAppend(";1").and(preparatorAppend(";2"))
+			.and(Preparator.noop())
+			.and(preparatorAppend(";3"));
+
+		final var preparator = Preparator.aggregate(Stream.of(chained, Preparator.noop(), preparatorAppend(";4")));
+
+		assertThat(preparator)
+			.isInstanceOf(CompositePreparator.class)
+			.returns(4, it -> ((CompositePreparator<String>) it).size());
+
+		assertThat(preparator.prepare(mail, "0")).isEqualTo("0;1;2;3;4");
+	}
+
+	@Test
+	@DisplayName("should not wrap single or no-operation preparators")
+	void shouldNotWrapSinglePreparator() throws Exception {
+		final var single = preparatorAppend(";1");
+
+		assertThat(Preparator.aggregate(List.of(Preparator.noop(), single, Preparator.noop())))
+			.isSameAs(single);
+
+		assertThat(Preparator.<String>noop().and(Preparator.noop()))
+			.isSameAs(Preparator.noop());
+
+		assertThat(Preparator.aggregate(Stream.<Preparator<String>>empty()).prepare(mail, "target"))
+			.isEqualTo("target");
+	}
+
 	static Preparator<String> preparatorAppend(String value) {
 		return (mail, target) -> target + value;
 	}
@@ -0,0 +1,233 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitingTransportTest {
+
+	@Mock
+	Transport delegate;
+
+	Mail mail = Mail.builder()
+		.subject("test-subject")
+		.template("template")
+		.to("test@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Hello</p>");
+
+	TimerWheel timer = new TimerWheel("test-timer", Duration.ofMillis(1), 8);
+
+	@AfterEach
+	void cleanup() {
+		timer.close();
+	}
+
+	@Test
+	@DisplayName("should fail fast with quota exceeded error once the rate limit is exceeded")
+	void shouldFailFast() {
+		final var transport = transport(2, Duration.ofHours(1), Duration.ZERO);
+
+		transport.send(mail, template);
+		transport.send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isInstanceOf(MailingException.class)
+			.hasMessageContaining("Rate limit of 2 mails per PT1H exceeded")
+			.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, ex -> ((MailingException) ex).getErrorCode());
+
+		verify(delegate, times(2)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should wait for the next permit in the blocking mode")
+	void shouldWaitForPermit() {
+		final var transport = transport(20, Duration.ofSeconds(1), Duration.ofSeconds(1));
+		final long start = System.nanoTime();
+
+		for (int i = 0; i < 22; i++) {
+			transport.send(mail, template);
+		}
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start))
+			.as("should wait for two permits that are refilled every 50ms")
+			.isGreaterThanOrEqualTo(Duration.ofMillis(90));
+
+		verify(delegate, times(22)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should fail with quota exceeded error when the permit can not be obtained within maximum wait time")
+	void shouldFailWhenMaximumWaitIsExceeded() {
+		final var transport = transport(1, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+		transport.send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isInstanceOf(MailingException.class)
+			.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, ex -> ((MailingException) ex).getErrorCode());
+	}
+
+	@Test
+	@DisplayName("should require permits from all configured buckets and refund them when one is exhausted")
+	void shouldEnforceAllBuckets() {
+		final var perSecond = new TokenBucket(10, Duration.ofSeconds(1));
+		final var perHour = new TokenBucket(1, Duration.ofHours(1));
+		final var transport = new RateLimitingTransport(delegate, List.of(perSecond, perHour), Duration.ZERO,
+				timer);
+
+		transport.send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isInstanceOf(MailingException.class)
+			.hasMessageContaining("1 mails per PT1H");
+
+		assertThat(perSecond.reserve(System.nanoTime(), 0))
+			.as("should refund the permit reserved from the per second bucket")
+			.isZero();
+	}
+
+	@Test
+	@DisplayName("should dispatch asynchronous mails once the permit is available without blocking")
+	void shouldDelayAsyncDispatch() {
+		final var transport = transport(1, Duration.ofMillis(200), Duration.ofSeconds(1));
+
+		doCallRealMethod().when(delegate).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template)).isCompleted();
+
+		final CompletableFuture<Void> delayed = transport.sendAsync(mail, template);
+
+		assertThat(delayed).isNotDone();
+		assertThat(timer.pending())
+			.as("should wait for the permit on the timer wheel")
+			.isOne();
+		assertThat(delayed).succeedsWithin(Duration.ofSeconds(1));
+
+		verify(delegate, times(2)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should fail asynchronous mails that exceed the rate limit")
+	void shouldFailAsyncDispatch() {
+		final var transport = transport(1, Duration.ofHours(1), Duration.ZERO);
+
+		doCallRealMethod().when(delegate).sendAsync(mail, template);
+
+		assertThat(transport.sendAsync(mail, template)).isCompleted();
+		assertThat(transport.sendAsync(mail, template))
+			.failsWithin(Duration.ZERO)
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(MailingException.class)
+			.withMessageContaining("Rate limit of 1 mails per PT1H exceeded");
+
+		verify(delegate).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should report mails of a batch that exceed the rate limit as failed results")
+	void shouldLimitBatch() {
+		final var transport = transport(2, Duration.ofHours(1), Duration.ZERO);
+		final var first = Mail.builder()
+			.subject("test-subject")
+			.template("first")
+			.to("test@konfigyr.com")
+			.build();
+		final var second = Mail.builder()
+			.subject("test-subject")
+			.template("second")
+			.to("test@konfigyr.com")
+			.build();
+		final var third = Mail.builder()
+			.subject("test-subject")
+			.template("third")
+			.to("test@konfigyr.com")
+			.build();
+		final var mails = List.of(first, second, third);
+
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(delegate).sendAll(anyList(), anyList());
+
+		assertThat(transport.sendAll(mails, List.of(template, template, template)))
+			.satisfiesExactly(
+				result -> assertThat(result).isEqualTo(MailingResult.success(mails.get(0))),
+				result -> assertThat(result).isEqualTo(MailingResult.success(mails.get(1))),
+				result -> assertThat(result)
+					.returns(mails.get(2), MailingResult::mail)
+					.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, MailingResult::errorCode)
+			);
+
+		verify(delegate).sendAll(mails.subList(0, 2), List.of(template, template));
+	}
+
+	@Test
+	@DisplayName("should split the batch when waiting for permits")
+	void shouldSplitBatch() {
+		final var transport = transport(2, Duration.ofMillis(100), Duration.ofSeconds(1));
+		final var first = Mail.builder()
+			.subject("test-subject")
+			.template("first")
+			.to("test@konfigyr.com")
+			.build();
+		final var second = Mail.builder()
+			.subject("test-subject")
+			.template("second")
+			.to("test@konfigyr.com")
+			.build();
+		final var third = Mail.builder()
+			.subject("test-subject")
+			.template("third")
+			.to("test@konfigyr.com")
+			.build();
+		final var mails = List.of(first, second, third);
+
+		doAnswer(invocation -> invocation.<List<Mail>>getArgument(0).stream().map(MailingResult::success).toList())
+			.when(delegate).sendAll(anyList(), anyList());
+
+		assertThat(transport.sendAll(mails, List.of(template, template, template)))
+			.extracting(MailingResult::isSuccessful)
+			.containsExactly(true, true, true);
+
+		verify(delegate).sendAll(mails.subList(0, 2), List.of(template, template));
+		verify(delegate).sendAll(mails.subList(2, 3), List.of(template));
+	}
+
+	@Test
+	@DisplayName("should require at least one rate limit to be configured")
+	void shouldRequireRateLimit() {
+		final var properties = new MailerProperties.RateLimit();
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> RateLimitingTransport.create(delegate, properties, timer))
+			.withMessageContaining("rate limits must be set");
+
+		properties.setPerMinute(60);
+
+		assertThat(RateLimitingTransport.create(delegate, properties, timer)).isNotNull();
+		verifyNoInteractions(delegate);
+	}
+
+	RateLimitingTransport transport(int permits, Duration period, Duration maxWait) {
+		return new RateLimitingTransport(delegate, List.of(new TokenBucket(permits, period)), maxWait, timer);
+	}
+
+}
@@ -0,0 +1,316 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RetryingTransportTest {
+
+	static final RetryPolicy IMMEDIATE = new RetryPolicy(3, Duration.ZERO, 1, Duration.ZERO, 0);
+
+	@Mock
+	Transport delegate;
+
+	TimerWheel timer = new TimerWheel("test-timer", Duration.ofMillis(1), 8);
+
+	Mail mail = Mail.builder()
+		.subject("test-subject")
+		.template("template")
+		.to("test@konfigyr.com")
+		.build();
+	Template template = Template.html("<p>Hello</p>");
+
+	@AfterEach
+	void cleanup() {
+		timer.close();
+	}
+
+	@Test
+	@DisplayName("should retry mails that failed with a retryable error code")
+	void shouldRetryTransientFailure() {
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, IMMEDIATE));
+
+		doThrow(failure(MailingException.ErrorCode.CONNECTION_FAILED))
+			.doNothing()
+			.when(delegate).send(mail, template);
+
+		transport.send(mail, template);
+
+		verify(delegate, times(2)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should throw the last failure once all attempts are exhausted")
+	void shouldExhaustAttempts() {
+		final var transport = transport(Map.of(MailingException.ErrorCode.QUOTA_EXCEEDED, IMMEDIATE));
+		final var failure = failure(MailingException.ErrorCode.QUOTA_EXCEEDED);
+
+		doThrow(failure).when(delegate).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isSameAs(failure);
+
+		verify(delegate, times(3)).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should not retry mails that failed with an error code without a retry policy")
+	void shouldNotRetryWithoutPolicy() {
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, IMMEDIATE));
+		final var failure = failure(MailingException.ErrorCode.SEND_FAILED);
+
+		doThrow(failure).when(delegate).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isSameAs(failure);
+
+		verify(delegate).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should wrap unexpected exceptions thrown by the delegate transport")
+	void shouldWrapUnexpectedFailure() {
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, IMMEDIATE));
+		final var cause = new IllegalStateException("unexpected");
+
+		doThrow(cause).when(delegate).send(mail, template);
+
+		assertThatThrownBy(() -> transport.send(mail, template))
+			.isInstanceOf(MailingException.class)
+			.hasCause(cause)
+			.returns(MailingException.ErrorCode.SEND_FAILED, ex -> ((MailingException) ex).getErrorCode());
+	}
+
+	@Test
+	@DisplayName("should not allow retry policies for error codes that can not be fixed by retrying")
+	void shouldRejectNonRetryablePolicies() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> transport(Map.of(MailingException.ErrorCode.AUTHENTICATION_FAILED, IMMEDIATE)))
+			.withMessageContaining("AUTHENTICATION_FAILED");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> transport(Map.of(MailingException.ErrorCode.MESSAGE_PREPARATION_FAILED, IMMEDIATE)))
+			.withMessageContaining("MESSAGE_PREPARATION_FAILED");
+	}
+
+	@Test
+	@DisplayName("should schedule delayed retries on the timer wheel without blocking the caller")
+	void shouldScheduleRetryOnTimerWheel() {
+		final var policy = new RetryPolicy(3, Duration.ofHours(1), 2, Duration.ofHours(2), 0);
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, policy));
+
+		doThrow(failure(MailingException.ErrorCode.CONNECTION_FAILED)).when(delegate).send(mail, template);
+
+		final var future = transport.sendAsync(mail, template);
+
+		assertThat(future).isNotDone();
+		assertThat(timer.pending()).isOne();
+
+		future.cancel(false);
+
+		assertThat(timer.pending())
+			.as("should cancel the scheduled retry")
+			.isZero();
+		verify(delegate).send(mail, template);
+	}
+
+	@Test
+	@DisplayName("should wait for the running attempt to finish when the sending thread is interrupted")
+	void shouldAwaitRunningAttemptWhenInterrupted() throws Exception {
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, IMMEDIATE));
+		final var started = new CountDownLatch(1);
+		final var finish = new CountDownLatch(1);
+		final var failure = new AtomicReference<Throwable>();
+
+		doThrow(failure(MailingException.ErrorCode.CONNECTION_FAILED))
+			.doAnswer(invocation -> {
+				started.countDown();
+				finish.await();
+				return null;
+			})
+			.when(delegate).send(mail, template);
+
+		final var sender = new Thread(() -> {
+			try {
+				transport.send(mail, template);
+			} catch (Throwable ex) {
+				failure.set(ex);
+			}
+		});
+
+		sender.start();
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		sender.interrupt();
+		sender.join(100);
+
+		assertThat(sender.isAlive())
+			.as("should not return while the template is still being sent")
+			.isTrue();
+
+		finish.countDown();
+		sender.join(5000);
+
+		assertThat(sender.isAlive()).isFalse();
+		assertThat(failure.get())
+			.isInstanceOf(MailingException.class)
+			.hasMessageContaining("Interrupted");
+	}
+
+	@Test
+	@DisplayName("should limit the number of retries that are concurrently sent")
+	void shouldLimitRetryConcurrency() {
+		final var transport = new RetryingTransport(delegate,
+				Map.of(MailingException.ErrorCode.CONNECTION_FAILED, IMMEDIATE), timer, 1);
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("other")
+			.to("test@konfigyr.com")
+			.build();
+		final var running = new AtomicInteger();
+		final var concurrency = new AtomicInteger();
+		final var release = new CountDownLatch(1);
+		final Answer<Void> sending = invocation -> {
+			concurrency.accumulateAndGet(running.incrementAndGet(), Math::max);
+
+			try {
+				release.await();
+			} finally {
+				running.decrementAndGet();
+			}
+			return null;
+		};
+
+		doThrow(failure(MailingException.ErrorCode.CONNECTION_FAILED))
+			.doAnswer(sending)
+			.when(delegate).send(mail, template);
+
+		doThrow(failure(MailingException.ErrorCode.CONNECTION_FAILED))
+			.doAnswer(sending)
+			.when(delegate).send(other, template);
+
+		final var first = transport.sendAsync(mail, template);
+		final var second = transport.sendAsync(other, template);
+
+		verify(delegate, after(200).times(3)).send(any(Mail.class), eq(template));
+
+		release.countDown();
+
+		assertThat(first).succeedsWithin(Duration.ofSeconds(5));
+		assertThat(second).succeedsWithin(Duration.ofSeconds(5));
+		assertThat(concurrency).hasValue(1);
+
+		verify(delegate, times(4)).send(any(Mail.class), eq(template));
+	}
+
+	@Test
+	@DisplayName("should fail pending retries when the timer wheel is closed")
+	void shouldFailPendingRetriesOnClose() {
+		final var policy = new RetryPolicy(3, Duration.ofHours(1), 2, Duration.ofHours(2), 0);
+		final var transport = transport(Map.of(MailingException.ErrorCode.CONNECTION_FAILED, policy));
+		final var failure = failure(MailingException.ErrorCode.CONNECTION_FAILED);
+
+		doThrow(failure).when(delegate).send(mail, template);
+
+		final var future = transport.sendAsync(mail, template);
+
+		timer.close();
+
+		assertThat(future)
+			.failsWithin(Duration.ofSeconds(1))
+			.withThrowableThat()
+			.havingCause()
+			.isSameAs(failure);
+	}
+
+	@Test
+	@DisplayName("should retry failed mails of a batch")
+	void shouldRetryFailedBatchMails() {
+		final var transport = transport(Map.of(MailingException.ErrorCode.QUOTA_EXCEEDED, IMMEDIATE));
+		final var failing = Mail.builder()
+			.subject("test-subject")
+			.template("failing")
+			.to("test@konfigyr.com")
+			.build();
+		final var rejected = Mail.builder()
+			.subject("test-subject")
+			.template("rejected")
+			.to("test@konfigyr.com")
+			.build();
+		final var rejection = failure(MailingException.ErrorCode.SEND_FAILED);
+
+		doReturn(List.of(
+			MailingResult.success(mail),
+			MailingResult.failure(failing, failure(MailingException.ErrorCode.QUOTA_EXCEEDED)),
+			MailingResult.failure(rejected, rejection)
+		)).when(delegate).sendAll(List.of(mail, failing, rejected), List.of(template, template, template));
+
+		doNothing().when(delegate).send(failing, template);
+
+		assertThat(transport.sendAll(List.of(mail, failing, rejected), List.of(template, template, template)))
+			.containsExactly(
+				MailingResult.success(mail),
+				MailingResult.success(failing),
+				MailingResult.failure(rejected, rejection)
+			);
+
+		verify(delegate).send(failing, template);
+	}
+
+	@Test
+	@DisplayName("should calculate exponential backoff capped by the maximum backoff")
+	void shouldCalculateBackoff() {
+		final var policy = new RetryPolicy(10, Duration.ofSeconds(1), 2, Duration.ofSeconds(10), 0);
+
+		assertThat(policy.backoff(1, new Random())).isEqualTo(Duration.ofSeconds(1));
+		assertThat(policy.backoff(2, new Random())).isEqualTo(Duration.ofSeconds(2));
+		assertThat(policy.backoff(3, new Random())).isEqualTo(Duration.ofSeconds(4));
+		assertThat(policy.backoff(5, new Random())).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	@DisplayName("should randomize backoff using the jitter")
+	void shouldApplyJitter() {
+		final var policy = new RetryPolicy(10, Duration.ofSeconds(4), 2, Duration.ofMinutes(1), 0.5);
+		final var random = new Random(42);
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(policy.backoff(1, random)).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(6));
+		}
+	}
+
+	RetryingTransport transport(Map<MailingException.ErrorCode, RetryPolicy> policies) {
+		return new RetryingTransport(delegate, policies, timer, 16, Runnable::run);
+	}
+
+	static MailingException failure(MailingException.ErrorCode code) {
+		return new MailingException(code, "Failed with " + code);
+	}
+
+}
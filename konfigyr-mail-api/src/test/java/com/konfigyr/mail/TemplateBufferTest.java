@@ -0,0 +1,114 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TemplateBufferTest {
+
+	@Test
+	@DisplayName("should keep template contents in memory when below threshold")
+	void shouldBufferInMemory() throws IOException {
+		final var buffer = new TemplateBuffer(64);
+		buffer.write("<p>Hello</p>");
+
+		final var template = Template.buffered(buffer, Template.HTML);
+
+		assertThat(buffer.isSpilled()).isFalse();
+		assertThat(buffer.size()).isEqualTo(12);
+
+		assertThat(template)
+			.returns(true, Template::isBuffered)
+			.returns("<p>Hello</p>", Template::contents)
+			.returns(Template.HTML, Template::contentType)
+			.isNotEqualTo(Template.html("<p>Hello</p>"));
+
+		template.release();
+
+		assertThat(template.contents())
+			.as("in memory contents should remain readable after release")
+			.isEqualTo("<p>Hello</p>");
+	}
+
+	@Test
+	@DisplayName("should spill template contents into a file when threshold is exceeded")
+	void shouldSpillIntoFile() throws IOException {
+		final var contents = "Grüße ".repeat(100);
+		final var buffer = new TemplateBuffer(32);
+		buffer.write(contents);
+
+		final var template = Template.buffered(buffer, Template.TEXT);
+
+		assertThat(buffer.isSpilled()).isTrue();
+		assertThat(buffer.size()).isEqualTo(contents.getBytes(TemplateBuffer.CHARSET).length);
+
+		try (InputStream stream = template.openStream()) {
+			assertThat(stream).hasBinaryContent(contents.getBytes(TemplateBuffer.CHARSET));
+		}
+
+		template.release();
+
+		assertThat(buffer.isSpilled()).isFalse();
+
+		assertThatIllegalStateException()
+			.isThrownBy(template::openStream)
+			.withMessageContaining("released");
+
+		assertThatNoException()
+			.as("value methods should not read the released buffer")
+			.isThrownBy(() -> {
+				assertThat(template).isEqualTo(template).hasSameHashCodeAs(template);
+				assertThat(template).hasToString("Template[buffered=" + buffer.size()
+						+ " bytes, contentType=text/plain, alternative=null]");
+			});
+	}
+
+	@Test
+	@DisplayName("should not read template buffer contents before it is closed")
+	void shouldNotReadOpenBuffer() throws IOException {
+		final var buffer = new TemplateBuffer();
+		buffer.write("contents");
+
+		assertThatIllegalStateException()
+			.isThrownBy(buffer::openStream)
+			.withMessageContaining("must be closed");
+
+		buffer.close();
+
+		assertThatIOException()
+			.isThrownBy(() -> buffer.write("more contents"))
+			.withMessageContaining("closed");
+	}
+
+	@Test
+	@DisplayName("should fail to create a template from an empty buffer")
+	void shouldNotCreateEmptyTemplate() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> Template.buffered(new TemplateBuffer(), Template.HTML))
+			.withMessageContaining("can not be blank");
+	}
+
+	@Test
+	@DisplayName("should carry the template buffer as a record component of the template")
+	void shouldCreateBufferedTemplateRecord() throws IOException {
+		final var buffer = new TemplateBuffer(64);
+		buffer.write("<p>Hello</p>");
+
+		final var template = new Template(null, Template.HTML, buffer, Template.text("Hello"));
+
+		assertThat(template)
+			.isInstanceOf(Record.class)
+			.isEqualTo(Template.buffered(buffer, Template.HTML).withAlternative(Template.text("Hello")))
+			.returns(buffer, Template::buffer)
+			.returns("<p>Hello</p>", Template::contents);
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new Template("<p>Hello</p>", Template.HTML, buffer, null))
+			.withMessageContaining("can not have string contents");
+	}
+
+}
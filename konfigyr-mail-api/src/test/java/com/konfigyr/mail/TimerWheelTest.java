@@ -0,0 +1,95 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class TimerWheelTest {
+
+	TimerWheel timer = new TimerWheel("test-timer", Duration.ofMillis(1), 8);
+
+	@AfterEach
+	void cleanup() {
+		timer.close();
+	}
+
+	@Test
+	@DisplayName("should complete timeouts once their delay elapses")
+	void shouldCompleteTimeout() {
+		final long start = System.nanoTime();
+		final var timeout = timer.schedule(Duration.ofMillis(30));
+
+		assertThat(timeout).isNotDone();
+		assertThat(timer.pending()).isOne();
+
+		assertThat(timeout).succeedsWithin(Duration.ofSeconds(1));
+		assertThat(Duration.ofNanos(System.nanoTime() - start))
+			.as("should not complete before the delay spanning multiple wheel rotations elapses")
+			.isGreaterThanOrEqualTo(Duration.ofMillis(30));
+		assertThat(timer.pending()).isZero();
+	}
+
+	@Test
+	@DisplayName("should complete timeouts with zero or negative delays on the next tick")
+	void shouldCompleteExpiredTimeout() {
+		assertThat(timer.schedule(Duration.ZERO)).succeedsWithin(Duration.ofSeconds(1));
+		assertThat(timer.schedule(Duration.ofMillis(-5))).succeedsWithin(Duration.ofSeconds(1));
+	}
+
+	@Test
+	@DisplayName("should complete a large number of timeouts using a single thread")
+	void shouldCompleteManyTimeouts() {
+		final var timeouts = IntStream.range(0, 10_000)
+			.mapToObj(i -> timer.schedule(Duration.ofMillis(ThreadLocalRandom.current().nextInt(50))))
+			.toArray(CompletableFuture[]::new);
+
+		assertThat(CompletableFuture.allOf(timeouts)).succeedsWithin(Duration.ofSeconds(5));
+		assertThat(timer.pending()).isZero();
+	}
+
+	@Test
+	@DisplayName("should remove cancelled timeouts from the wheel")
+	void shouldCancelTimeout() {
+		final var timeout = timer.schedule(Duration.ofHours(1));
+
+		assertThat(timeout.cancel(false)).isTrue();
+		assertThat(timeout).isCancelled();
+		assertThat(timer.pending()).isZero();
+	}
+
+	@Test
+	@DisplayName("should cancel pending timeouts when the wheel is closed")
+	void shouldCancelPendingTimeoutsOnClose() {
+		final var timeout = timer.schedule(Duration.ofHours(1));
+
+		timer.close();
+
+		assertThat(timeout).isCancelled();
+		assertThat(timer.schedule(Duration.ZERO))
+			.as("should cancel timeouts scheduled after the wheel is closed")
+			.isCancelled();
+		assertThat(timer.pending()).isZero();
+	}
+
+	@Test
+	@DisplayName("should not allow timeouts to be completed outside of the wheel")
+	void shouldNotCompleteTimeoutManually() {
+		final var timeout = timer.schedule(Duration.ofHours(1));
+
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> timeout.complete(null));
+
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+			.isThrownBy(() -> timeout.completeExceptionally(new CancellationException()));
+	}
+
+}
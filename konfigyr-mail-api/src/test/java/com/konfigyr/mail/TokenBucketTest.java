@@ -0,0 +1,136 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TokenBucketTest {
+
+	static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+	@Test
+	@DisplayName("should hand out a full burst of permits without waiting")
+	void shouldAllowBurst() {
+		final var bucket = new TokenBucket(10, Duration.ofSeconds(1));
+		final long now = System.nanoTime();
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(bucket.reserve(now, 0)).isZero();
+		}
+
+		assertThat(bucket.reserve(now, 0))
+			.as("should not reserve a permit once the bucket is empty")
+			.isEqualTo(-1);
+	}
+
+	@Test
+	@DisplayName("should return the time to wait for the next permit")
+	void shouldReserveFuturePermits() {
+		final var bucket = new TokenBucket(2, Duration.ofSeconds(1));
+		final long now = System.nanoTime();
+
+		assertThat(bucket.reserve(now, SECOND)).isZero();
+		assertThat(bucket.reserve(now, SECOND)).isZero();
+		assertThat(bucket.reserve(now, SECOND)).isEqualTo(SECOND / 2);
+		assertThat(bucket.reserve(now, SECOND)).isEqualTo(SECOND);
+		assertThat(bucket.reserve(now, SECOND))
+			.as("should not reserve permits that exceed the maximum wait time")
+			.isEqualTo(-1);
+	}
+
+	@Test
+	@DisplayName("should refill one permit per emission interval")
+	void shouldRefillPermits() {
+		final var bucket = new TokenBucket(4, Duration.ofSeconds(1));
+		final long now = System.nanoTime();
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(bucket.reserve(now, 0)).isZero();
+		}
+
+		assertThat(bucket.reserve(now + SECOND / 8, 0)).isEqualTo(-1);
+		assertThat(bucket.reserve(now + SECOND / 4, 0)).isZero();
+		assertThat(bucket.reserve(now + SECOND / 4, 0)).isEqualTo(-1);
+	}
+
+	@Test
+	@DisplayName("should not accumulate more permits than the bucket capacity")
+	void shouldCapPermits() {
+		final var bucket = new TokenBucket(3, Duration.ofSeconds(1));
+		final long later = System.nanoTime() + Duration.ofHours(1).toNanos();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.reserve(later, 0)).isZero();
+		}
+
+		assertThat(bucket.reserve(later, 0)).isEqualTo(-1);
+	}
+
+	@Test
+	@DisplayName("should report the delay until the next permit without reserving it")
+	void shouldReportDelay() {
+		final var bucket = new TokenBucket(2, Duration.ofSeconds(1));
+		final long now = System.nanoTime();
+
+		assertThat(bucket.isFull(now)).isTrue();
+		assertThat(bucket.reserve(now, 0)).isZero();
+		assertThat(bucket.isFull(now)).isFalse();
+		assertThat(bucket.delay(now)).isZero();
+		assertThat(bucket.reserve(now, 0)).isZero();
+		assertThat(bucket.delay(now)).isEqualTo(SECOND / 2);
+		assertThat(bucket.delay(now)).isEqualTo(SECOND / 2);
+		assertThat(bucket.isFull(now + SECOND)).isTrue();
+	}
+
+	@Test
+	@DisplayName("should return refunded permits to the bucket")
+	void shouldRefundPermits() {
+		final var bucket = new TokenBucket(1, Duration.ofSeconds(1));
+		final long now = System.nanoTime();
+
+		assertThat(bucket.reserve(now, 0)).isZero();
+		assertThat(bucket.reserve(now, 0)).isEqualTo(-1);
+
+		bucket.refund();
+
+		assertThat(bucket.reserve(now, 0)).isZero();
+	}
+
+	@Test
+	@DisplayName("should hand out each permit exactly once to concurrent callers")
+	void shouldReserveConcurrently() throws Exception {
+		final var bucket = new TokenBucket(1000, Duration.ofHours(1));
+		final var reserved = new AtomicInteger();
+		final long now = System.nanoTime();
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			IntStream.range(0, 5000).forEach(i -> executor.execute(() -> {
+				if (bucket.reserve(now, 0) == 0) {
+					reserved.incrementAndGet();
+				}
+			}));
+		}
+
+		assertThat(reserved).hasValue(1000);
+	}
+
+	@Test
+	@DisplayName("should validate token bucket arguments")
+	void shouldValidateArguments() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new TokenBucket(0, Duration.ofSeconds(1)))
+			.withMessageContaining("permits must be greater than zero");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new TokenBucket(10, Duration.ofNanos(5)))
+			.withMessageContaining("period is too short");
+	}
+
+}
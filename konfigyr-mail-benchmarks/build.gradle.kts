@@ -0,0 +1,33 @@
+plugins {
+    alias(libs.plugins.jmh)
+}
+
+description = "Konfigyr Mail JMH benchmarks"
+
+dependencies {
+    jmhImplementation(project(":konfigyr-mail-smtp"))
+    jmhImplementation(project(":konfigyr-mail-thymeleaf"))
+
+    jmhImplementation(libs.spring.starter.mail)
+    jmhImplementation(libs.thymeleaf)
+    jmhImplementation(libs.greenmail)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    includeTests = false
+
+    // select benchmarks with `-Pjmh.includes=MailCodec`, all benchmarks are run by default
+    includes = providers.gradleProperty("jmh.includes").map { listOf(it) }.orElse(emptyList())
+
+    fork = 2
+    warmupIterations = 3
+    warmup = "2s"
+    iterations = 5
+    timeOnIteration = "2s"
+    profilers = listOf("gc")
+
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    humanOutputFile = layout.buildDirectory.file("results/jmh/human.txt")
+}
@@ -0,0 +1,35 @@
+package com.konfigyr.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the creation of {@link Mail} instances using the {@link Mail.Builder}, which validates the
+ * recipient addresses and copies the attributes and recipients into immutable collections.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MailBuilderBenchmark {
+
+	@Benchmark
+	public Mail build() {
+		return Mails.welcome();
+	}
+
+	@Benchmark
+	public Mail buildMinimal() {
+		return Mail.builder()
+			.subject("mail.welcome.subject")
+			.template(Mails.TEMPLATE)
+			.to("john.doe@konfigyr.com")
+			.build();
+	}
+
+}
@@ -0,0 +1,79 @@
+package com.konfigyr.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the binary {@link MailCodec} with the default Java serialization of the
+ * {@link Mail}. The size of the encoded mails is compared by the {@code MailCodecTest}.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MailCodecBenchmark {
+
+	MailCodec codec;
+	Mail mail;
+
+	byte[] encoded;
+	byte[] serialized;
+
+	@Setup
+	public void setup() throws IOException {
+		codec = MailCodec.builder()
+			.dictionary("welcome", "info@konfigyr.com", "support@konfigyr.com", "audit@konfigyr.com")
+			.build();
+		mail = Mails.welcome();
+
+		encoded = codec.encode(mail);
+		serialized = serialize(mail);
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		return codec.encode(mail);
+	}
+
+	@Benchmark
+	public Mail decode() throws IOException {
+		return codec.decode(encoded);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return serialize(mail);
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return input.readObject();
+		}
+	}
+
+	private static byte[] serialize(Mail mail) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+			output.writeObject(mail);
+		}
+
+		return bytes.toByteArray();
+	}
+
+}
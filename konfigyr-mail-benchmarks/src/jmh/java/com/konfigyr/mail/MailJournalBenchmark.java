@@ -0,0 +1,146 @@
+package com.konfigyr.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks appending and acknowledging a mail in the outbox {@link MailJournal journals}, compared with
+ * writing the encoded mail into a plain {@link FileChannel}. Journals do not flush the appended mails to
+ * the storage device, so the results are not dominated by the speed of the device.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MailJournalBenchmark {
+
+	private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+	@Param({ "MAPPED", "FILE", "CHANNEL" })
+	Journal journal;
+
+	Path directory;
+	MailJournal target;
+	Mail mail;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("mail-journal-benchmark");
+		target = journal.open(directory, MailCodec.defaults());
+		mail = Mails.welcome();
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		target.close();
+		FileSystemUtils.deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public long appendAndAcknowledge() throws IOException {
+		final long id = target.append(mail);
+		target.acknowledge(id);
+		return id;
+	}
+
+	/**
+	 * Journal implementations that are compared.
+	 */
+	public enum Journal {
+
+		MAPPED {
+			@Override
+			MailJournal open(Path directory, MailCodec codec) throws IOException {
+				return MappedMailJournal.open(directory, SEGMENT_SIZE, codec, MailJournal.Sync.NONE, Duration.ZERO);
+			}
+		},
+
+		FILE {
+			@Override
+			MailJournal open(Path directory, MailCodec codec) throws IOException {
+				return FileMailJournal.open(directory, SEGMENT_SIZE, codec, MailJournal.Sync.NONE, Duration.ZERO);
+			}
+		},
+
+		CHANNEL {
+			@Override
+			MailJournal open(Path directory, MailCodec codec) throws IOException {
+				return new ChannelJournal(directory.resolve("mails.log"), codec);
+			}
+		};
+
+		abstract MailJournal open(Path directory, MailCodec codec) throws IOException;
+
+	}
+
+	/**
+	 * Baseline journal that writes the encoded mails into a {@link FileChannel}, without record checksums
+	 * or acknowledgements. The file is truncated once it reaches the segment size.
+	 */
+	static final class ChannelJournal implements MailJournal {
+
+		private final FileChannel channel;
+		private final MailCodec codec;
+		private long sequence;
+
+		ChannelJournal(Path file, MailCodec codec) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			this.codec = codec;
+		}
+
+		@Override
+		public long append(Mail mail) throws IOException {
+			final byte[] payload = codec.encode(mail);
+			final ByteBuffer[] record = {
+				ByteBuffer.allocate(Integer.BYTES + Long.BYTES).putInt(payload.length).putLong(sequence).flip(),
+				ByteBuffer.wrap(payload)
+			};
+
+			while (record[1].hasRemaining()) {
+				channel.write(record);
+			}
+
+			if (channel.position() > SEGMENT_SIZE) {
+				channel.truncate(0);
+			}
+
+			return sequence++;
+		}
+
+		@Override
+		public void acknowledge(long id) {
+		}
+
+		@Override
+		public List<Entry> pending() {
+			return List.of();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+
+	}
+
+}
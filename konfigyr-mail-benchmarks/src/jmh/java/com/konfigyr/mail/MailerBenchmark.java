@@ -0,0 +1,90 @@
+package com.konfigyr.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the whole mail delivery pipeline, the {@link Mailer} renders the mail template using the
+ * {@link ThymeleafTemplateEngine} and sends it using the {@link JavaMailSenderTransport} to an in-process
+ * GreenMail SMTP server, with and without the {@link SmtpConnectionPool}.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MailerBenchmark {
+
+	private static final ServerSetup SERVER = ServerSetupTest.SMTP.dynamicPort();
+
+	@Param({ "false", "true" })
+	boolean pooled;
+
+	GreenMail smtp;
+	@Nullable SmtpConnectionPool pool;
+	Mailer mailer;
+	Mail mail;
+
+	@Setup
+	public void setup() {
+		smtp = new GreenMail(SERVER);
+		smtp.start();
+
+		final JavaMailSenderImpl sender = new JavaMailSenderImpl();
+		sender.setHost(SERVER.getBindAddress());
+		sender.setPort(smtp.getSmtp().getPort());
+
+		JavaMailSenderImpl transportSender = sender;
+
+		if (pooled) {
+			pool = new SmtpConnectionPool(SmtpConnectionPool.connector(sender), 4, Duration.ofMinutes(1),
+					Duration.ofSeconds(5));
+			transportSender = new PooledJavaMailSender(sender, pool,
+					JavaMailSenderTransport.DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+		}
+
+		final Transport transport = new JavaMailSenderTransport(transportSender, Mails.messageSource(), List.of(),
+				JavaMailSenderTransport.DEFAULT_MAX_MESSAGES_PER_CONNECTION,
+				InternetAddressCache.create(new JavaMailSenderTransportProperties.AddressCache()), null);
+
+		mailer = Mailer.of(Mails.thymeleaf(ThymeleafTemplateEngine.TextAlternative.NONE), transport);
+		mail = Mails.welcome();
+	}
+
+	@TearDown(Level.Iteration)
+	public void purge() throws Exception {
+		smtp.purgeEmailFromAllMailboxes();
+	}
+
+	@TearDown
+	public void teardown() {
+		if (pool != null) {
+			pool.close();
+		}
+		smtp.stop();
+	}
+
+	@Benchmark
+	public void send() {
+		mailer.send(mail);
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.springframework.context.MessageSource;
+import org.springframework.context.support.StaticMessageSource;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mails, templates and components that are shared by the benchmarks.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class Mails {
+
+	/**
+	 * Name of the Thymeleaf template that is located in the {@code templates} classpath directory.
+	 */
+	static final String TEMPLATE = "welcome";
+
+	private Mails() {
+	}
+
+	/**
+	 * Creates a welcome mail with a few recipients and template attributes.
+	 *
+	 * @return welcome mail, never {@literal null}
+	 */
+	static Mail welcome() {
+		return Mail.builder()
+			.subject("mail.welcome.subject", "Konfigyr")
+			.template(TEMPLATE)
+			.from("info@konfigyr.com", "Konfigyr")
+			.to("john.doe@konfigyr.com", "John Doe")
+			.cc("jane.doe@konfigyr.com")
+			.bcc("audit@konfigyr.com")
+			.replyTo("support@konfigyr.com")
+			.attribute("name", "John Doe")
+			.attribute("organization", "konfigyr")
+			.attribute("items", List.of("Namespaces", "Services", "Profiles", "Vaults"))
+			.locale(Locale.ENGLISH)
+			.build();
+	}
+
+	/**
+	 * Creates a {@link MessageSource} that resolves the subject of the welcome mail.
+	 *
+	 * @return message source, never {@literal null}
+	 */
+	static MessageSource messageSource() {
+		final StaticMessageSource messageSource = new StaticMessageSource();
+		messageSource.addMessage("mail.welcome.subject", Locale.ENGLISH, "Welcome to {0}");
+		return messageSource;
+	}
+
+	/**
+	 * Creates a {@link ThymeleafTemplateEngine} that resolves the templates from the {@code templates}
+	 * classpath directory and caches the parsed templates.
+	 *
+	 * @param alternative strategy used to render the plain text alternative, can't be {@literal null}
+	 * @return Thymeleaf mail template engine, never {@literal null}
+	 */
+	static ThymeleafTemplateEngine thymeleaf(ThymeleafTemplateEngine.TextAlternative alternative) {
+		final ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".html");
+		resolver.setTemplateMode(TemplateMode.HTML);
+		resolver.setCharacterEncoding("UTF-8");
+		resolver.setCacheable(true);
+
+		final SpringTemplateEngine thymeleaf = new SpringTemplateEngine();
+		thymeleaf.setTemplateResolver(resolver);
+
+		return new ThymeleafTemplateEngine(thymeleaf, TemplateBuffer.DEFAULT_THRESHOLD, alternative);
+	}
+
+	/**
+	 * Creates an HTML template with the rendered contents of the welcome mail.
+	 *
+	 * @return welcome mail template, never {@literal null}
+	 */
+	static Template html() {
+		return Template.html("""
+			<!DOCTYPE html>
+			<html>
+			<head><meta charset="utf-8"><title>Welcome to Konfigyr</title></head>
+			<body>
+				<h1>Welcome John Doe,</h1>
+				<p>Your account for the <strong>konfigyr</strong> namespace is ready.</p>
+				<table><tr><td>Namespaces</td></tr><tr><td>Services</td></tr></table>
+			</body>
+			</html>
+			""");
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the preparation of MIME messages by the {@link JavaMailSenderTransport}, including the address
+ * and subject resolution, the {@link Preparator} chain and the encoding of the message body. Prepared messages
+ * are written to a discarding output stream instead of being sent to an SMTP server.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MimeMessageBenchmark {
+
+	private static final int BATCH_SIZE = 10;
+
+	@Param({ "TEXT", "HTML", "ALTERNATIVE", "BUFFERED" })
+	Body body;
+
+	JavaMailSenderTransport transport;
+	Mail mail;
+	Template template;
+
+	List<Mail> mails;
+	List<Template> templates;
+
+	@Setup
+	public void setup() throws IOException {
+		transport = new JavaMailSenderTransport(new DiscardingMailSender(), Mails.messageSource(), List.of(),
+				JavaMailSenderTransport.DEFAULT_MAX_MESSAGES_PER_CONNECTION,
+				InternetAddressCache.create(new JavaMailSenderTransportProperties.AddressCache()), null);
+
+		mail = Mails.welcome();
+		template = body.create();
+
+		mails = Collections.nCopies(BATCH_SIZE, mail);
+		templates = Collections.nCopies(BATCH_SIZE, template);
+	}
+
+	@Benchmark
+	public void send() {
+		transport.send(mail, template);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public List<MailingResult> sendAll() {
+		return transport.sendAll(mails, templates);
+	}
+
+	/**
+	 * Message bodies that are written by the transport.
+	 */
+	public enum Body {
+
+		TEXT {
+			@Override
+			Template create() {
+				return Template.text("Welcome John Doe, your account for the konfigyr namespace is ready.");
+			}
+		},
+
+		HTML {
+			@Override
+			Template create() {
+				return Mails.html();
+			}
+		},
+
+		ALTERNATIVE {
+			@Override
+			Template create() {
+				return Mails.html().withAlternative(TEXT.create());
+			}
+		},
+
+		BUFFERED {
+			@Override
+			Template create() throws IOException {
+				final TemplateBuffer buffer = new TemplateBuffer();
+				buffer.write(Mails.html().contents());
+				return Template.buffered(buffer, Template.HTML);
+			}
+		};
+
+		abstract Template create() throws IOException;
+
+	}
+
+	/**
+	 * {@link JavaMailSenderImpl} that encodes the prepared messages without sending them.
+	 */
+	static final class DiscardingMailSender extends JavaMailSenderImpl {
+
+		@Override
+		protected void doSend(MimeMessage[] messages, Object @Nullable [] originalMessages) {
+			for (MimeMessage message : messages) {
+				try {
+					message.saveChanges();
+					message.writeTo(OutputStream.nullOutputStream());
+				} catch (IOException | MessagingException ex) {
+					throw new MailSendException("Failed to write mail message", ex);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.konfigyr.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the flattened {@link Preparator#aggregate(Iterable) aggregated} preparator chain, which is built
+ * once by the SMTP transport, with the chain composed using {@link Preparator#and(Preparator)} and with a
+ * chain of nested lambdas, where every preparator invokes the next one.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreparatorBenchmark {
+
+	@Param({ "2", "8", "32" })
+	int size;
+
+	Mail mail;
+	Preparator<StringBuilder> aggregated;
+	Preparator<StringBuilder> composed;
+	Preparator<StringBuilder> nested;
+
+	@Setup
+	public void setup() {
+		final List<Preparator<StringBuilder>> preparators = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			final char marker = (char) ('a' + i % 26);
+			preparators.add((mail, target) -> target.append(marker));
+		}
+
+		mail = Mails.welcome();
+		aggregated = Preparator.aggregate(preparators);
+		composed = preparators.stream().reduce(Preparator.noop(), Preparator::and);
+		nested = preparators.stream().reduce(Preparator.noop(), PreparatorBenchmark::nest);
+	}
+
+	@Benchmark
+	public StringBuilder aggregated() throws Exception {
+		return aggregated.prepare(mail, new StringBuilder(size));
+	}
+
+	@Benchmark
+	public StringBuilder composed() throws Exception {
+		return composed.prepare(mail, new StringBuilder(size));
+	}
+
+	@Benchmark
+	public StringBuilder nested() throws Exception {
+		return nested.prepare(mail, new StringBuilder(size));
+	}
+
+	private static <T> Preparator<T> nest(Preparator<T> first, Preparator<T> next) {
+		return (mail, target) -> next.prepare(mail, first.prepare(mail, target));
+	}
+
+}
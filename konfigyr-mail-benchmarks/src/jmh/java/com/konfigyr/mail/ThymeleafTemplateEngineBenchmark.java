@@ -0,0 +1,45 @@
+package com.konfigyr.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the rendering of mail templates by the {@link ThymeleafTemplateEngine}, with and without the
+ * plain text alternative that is derived from the rendered HTML.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ThymeleafTemplateEngineBenchmark {
+
+	@Param({ "NONE", "DERIVED" })
+	ThymeleafTemplateEngine.TextAlternative alternative;
+
+	ThymeleafTemplateEngine engine;
+	Mail mail;
+
+	@Setup
+	public void setup() {
+		engine = Mails.thymeleaf(alternative);
+		mail = Mails.welcome();
+	}
+
+	@Benchmark
+	public Template render() {
+		final Template template = engine.render(mail);
+		template.release();
+		return template;
+	}
+
+}
@@ -5,7 +5,9 @@ dependencies {
     api(libs.jmail)
 
     compileOnly(libs.spring.starter.mail)
+    compileOnly(libs.micrometer.core)
 
     testImplementation(libs.spring.starter.mail)
     testImplementation(libs.greenmail)
+    testImplementation(libs.micrometer.core)
 }
@@ -0,0 +1,35 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+
+/**
+ * Hit and miss statistics of the caches used by the SMTP {@link Transport}.
+ *
+ * @param hits number of lookups that used the cached value
+ * @param misses number of lookups that had to create the value
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see InternetAddressCache
+ * @see SubjectCache
+ **/
+@NullMarked
+public record CacheStatistics(long hits, long misses) {
+
+	/**
+	 * Returns the total number of cache lookups.
+	 * @return number of lookups
+	 */
+	public long lookups() {
+		return hits + misses;
+	}
+
+	/**
+	 * Returns the ratio of lookups that used the cached value.
+	 * @return hit ratio between {@code 0} and {@code 1}, or {@code 0} when there were no lookups
+	 */
+	public double hitRatio() {
+		final long lookups = lookups();
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent least recently used cache whose entries can expire after a time-to-live.
+ * <p>
+ * Values are created by the generator function on a cache miss, or once the cached value expires.
+ * The cache keeps track of the number of lookups and misses, which are exposed as {@link CacheStatistics}.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class ExpiringLruCache<K, V> {
+
+	private final ConcurrentLruCache<K, Entry<V>> cache;
+	private final long ttl;
+	private final LongSupplier ticker;
+	private final LongAdder lookups = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	ExpiringLruCache(int maxSize, @Nullable Duration ttl, Function<K, V> generator, LongSupplier ticker) {
+		Assert.isTrue(maxSize >= 0, "Cache size can not be negative");
+		Assert.isTrue(ttl == null || ttl.isPositive(), "Cache time-to-live must be positive");
+		Assert.notNull(generator, "Cache value generator can not be null");
+		Assert.notNull(ticker, "Cache ticker can not be null");
+
+		this.ttl = ttl == null ? Long.MAX_VALUE : ttl.toNanos();
+		this.ticker = ticker;
+		this.cache = new ConcurrentLruCache<>(maxSize, key -> generate(generator, key));
+	}
+
+	/**
+	 * Returns the cached value for the given key, generating a new one when there is no value cached
+	 * or when the cached value expired.
+	 *
+	 * @param key cache key, can't be {@literal null}
+	 * @return cached value, never {@literal null}
+	 */
+	V get(K key) {
+		lookups.increment();
+
+		Entry<V> entry = cache.get(key);
+
+		if (entry.isExpired(ticker.getAsLong())) {
+			cache.remove(key);
+			entry = cache.get(key);
+		}
+
+		return entry.value();
+	}
+
+	int size() {
+		return cache.size();
+	}
+
+	void clear() {
+		cache.clear();
+	}
+
+	CacheStatistics statistics() {
+		final long misses = this.misses.sum();
+		return new CacheStatistics(Math.max(0, lookups.sum() - misses), misses);
+	}
+
+	private Entry<V> generate(Function<K, V> generator, K key) {
+		misses.increment();
+
+		final V value = generator.apply(key);
+		return new Entry<>(value, ttl == Long.MAX_VALUE ? Long.MAX_VALUE : ticker.getAsLong() + ttl);
+	}
+
+	private record Entry<V>(V value, long expiresAt) {
+
+		boolean isExpired(long now) {
+			return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+		}
+
+	}
+
+}
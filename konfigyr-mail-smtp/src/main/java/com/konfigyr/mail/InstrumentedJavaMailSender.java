@@ -0,0 +1,81 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of the {@link JavaMailSenderImpl} that emits a {@link SmtpConnectEvent} for every SMTP connection
+ * it opens, or fails to open. Connections are opened exactly as in the {@link JavaMailSenderImpl}, either for
+ * every send operation or by the {@link SmtpConnectionPool}.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see SmtpConnectEvent
+ **/
+@NullMarked
+class InstrumentedJavaMailSender extends JavaMailSenderImpl {
+
+	/**
+	 * Creates a new sender without any SMTP session or server settings.
+	 */
+	InstrumentedJavaMailSender() {
+	}
+
+	/**
+	 * Creates a new sender that copies the SMTP session and server settings of the given sender.
+	 *
+	 * @param sender the sender whose settings are copied, can't be {@literal null}
+	 */
+	InstrumentedJavaMailSender(JavaMailSenderImpl sender) {
+		Assert.notNull(sender, "Java mail sender can not be null");
+
+		setSession(sender.getSession());
+		setProtocol(sender.getProtocol());
+		setHost(sender.getHost());
+		setPort(sender.getPort());
+		setUsername(sender.getUsername());
+		setPassword(sender.getPassword());
+		setDefaultEncoding(sender.getDefaultEncoding());
+		setDefaultFileTypeMap(sender.getDefaultFileTypeMap());
+	}
+
+	/**
+	 * Returns the given sender when it already emits the {@link SmtpConnectEvent}, otherwise creates a new
+	 * {@link InstrumentedJavaMailSender} that copies its settings.
+	 *
+	 * @param sender the sender to instrument, can't be {@literal null}
+	 * @return the instrumented sender, never {@literal null}
+	 */
+	static InstrumentedJavaMailSender of(JavaMailSenderImpl sender) {
+		return sender instanceof InstrumentedJavaMailSender instrumented
+				? instrumented
+				: new InstrumentedJavaMailSender(sender);
+	}
+
+	@Override
+	protected Transport connectTransport() throws MessagingException {
+		final SmtpConnectEvent event = new SmtpConnectEvent();
+		event.begin();
+
+		final Transport transport;
+
+		try {
+			transport = super.connectTransport();
+		} catch (MessagingException ex) {
+			final MailingException.ErrorCode code = ex instanceof AuthenticationFailedException
+				? MailingException.ErrorCode.AUTHENTICATION_FAILED
+				: MailingException.ErrorCode.CONNECTION_FAILED;
+
+			event.complete(getHost(), getPort(), code);
+			throw ex;
+		}
+
+		event.complete(getHost(), getPort(), null);
+		return transport;
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.internet.InternetAddress;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent cache of validated {@link Address mail addresses} and the {@link InternetAddress}
+ * instances they resolve to.
+ * <p>
+ * Validating an email address and creating the {@link InternetAddress} is repeated for every recipient of
+ * every message, while in most applications the same addresses are used over and over again. This cache
+ * keeps the outcome of the address resolution, including validation failures, for the most recently used
+ * addresses until the configured time-to-live expires.
+ * <p>
+ * As {@link InternetAddress} is mutable, each lookup returns a copy of the cached instance.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see JavaMailSenderTransportProperties.AddressCache
+ **/
+@NullMarked
+public final class InternetAddressCache {
+
+	private final ExpiringLruCache<Address, Resolution> cache;
+
+	InternetAddressCache(int maxSize, @Nullable Duration ttl, Function<Address, InternetAddress> resolver) {
+		this(maxSize, ttl, resolver, System::nanoTime);
+	}
+
+	InternetAddressCache(int maxSize, @Nullable Duration ttl, Function<Address, InternetAddress> resolver,
+			LongSupplier ticker) {
+		Assert.notNull(resolver, "Internet address resolver can not be null");
+
+		this.cache = new ExpiringLruCache<>(maxSize, ttl, address -> resolve(resolver, address), ticker);
+	}
+
+	/**
+	 * Creates a new {@link InternetAddressCache} using the given configuration properties.
+	 *
+	 * @param properties address cache configuration, can't be {@literal null}
+	 * @return the internet address cache, never {@literal null}
+	 */
+	static InternetAddressCache create(JavaMailSenderTransportProperties.AddressCache properties) {
+		return new InternetAddressCache(properties.getMaxSize(), properties.getTtl(),
+				JavaMailSenderTransport::toInternetAddress);
+	}
+
+	/**
+	 * Creates a new {@link InternetAddressCache} that does not keep any addresses and resolves them on
+	 * every lookup.
+	 *
+	 * @return the internet address cache that does not cache, never {@literal null}
+	 */
+	static InternetAddressCache disabled() {
+		return new InternetAddressCache(0, null, JavaMailSenderTransport::toInternetAddress);
+	}
+
+	/**
+	 * Resolves the {@link InternetAddress} for the given {@link Address}, using the cached result when
+	 * one is present and did not expire.
+	 *
+	 * @param address the address to resolve, can't be {@literal null}
+	 * @return the resolved internet address, never {@literal null}
+	 * @throws MailPreparationException when the address is not a valid email address
+	 */
+	public InternetAddress get(Address address) {
+		return cache.get(address).address();
+	}
+
+	/**
+	 * Returns the number of addresses that are currently cached.
+	 * @return cache size
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the hit and miss statistics of this cache.
+	 * @return address cache statistics, never {@literal null}
+	 */
+	public CacheStatistics statistics() {
+		return cache.statistics();
+	}
+
+	/**
+	 * Removes all cached addresses.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	private static Resolution resolve(Function<Address, InternetAddress> resolver, Address address) {
+		try {
+			return new Resolution(resolver.apply(address), null);
+		} catch (MailPreparationException ex) {
+			return new Resolution(null, ex);
+		}
+	}
+
+	private record Resolution(@Nullable InternetAddress resolved, @Nullable MailPreparationException failure) {
+
+		InternetAddress address() {
+			if (failure != null) {
+				throw new MailPreparationException(Objects.toString(failure.getMessage()), failure);
+			}
+			return (InternetAddress) Objects.requireNonNull(resolved).clone();
+		}
+
+	}
+
+}
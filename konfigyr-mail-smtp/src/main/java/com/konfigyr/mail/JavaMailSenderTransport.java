@@ -2,9 +2,19 @@ package com.konfigyr.mail;
 
 import com.sanctionco.jmail.EmailValidationResult;
 import com.sanctionco.jmail.JMail;
+import jakarta.activation.DataHandler;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.AddressException;
 import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.internet.MimePart;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
@@ -16,13 +26,25 @@ import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
 
 import java.io.UnsupportedEncodingException;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * {@link Transport} implementation that dispatches mail via SMTP using Spring's {@link JavaMailSender}.
+ * <p>
+ * Every dispatch emits a {@link MailDispatchEvent} that is recorded by the Java Flight Recorder when the
+ * event is enabled, allowing mail latency to be correlated with other activity in the recording.
  *
  * @author Vladimir Spasic
  * @since 1.0.0
@@ -32,8 +54,21 @@ class JavaMailSenderTransport implements Transport {
 
 	private static final Logger log = LoggerFactory.getLogger(JavaMailSenderTransport.class);
 
+	/**
+	 * Default maximum number of messages that are sent over a single SMTP connection.
+	 */
+	static final int DEFAULT_MAX_MESSAGES_PER_CONNECTION = 100;
+
+	private static final String HEADER_CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+	private static final String MULTIPART_SUBTYPE_ALTERNATIVE = "alternative";
+
+	private static final int SMTP_SERVICE_NOT_AVAILABLE = 421;
+	private static final int SMTP_INSUFFICIENT_STORAGE = 452;
+	private static final int SMTP_STORAGE_EXCEEDED = 552;
+
 	private final JavaMailSender sender;
 	private final Preparator<MimeMessageHelper> preparator;
+	private final int maxMessagesPerConnection;
 
 	/**
 	 * Creates a {@link JavaMailSenderTransport} that chains address setup, subject
@@ -48,77 +83,234 @@ class JavaMailSenderTransport implements Transport {
 		MessageSource messageSource,
 		Iterable<Preparator<MimeMessageHelper>> additionalPreparators
 	) {
+		this(sender, messageSource, additionalPreparators, DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+	}
+
+	/**
+	 * Creates a {@link JavaMailSenderTransport} that chains address setup, subject
+	 * resolution, and any additional preparators in that order, and that sends batches
+	 * in chunks of at most {@code maxMessagesPerConnection} messages per SMTP session.
+	 * Mail addresses are validated on every use.
+	 *
+	 * @param sender the Spring {@link JavaMailSender} used to dispatch messages
+	 * @param messageSource used to resolve and translate the mail subject
+	 * @param additionalPreparators optional extra preparators appended at the end of the chain
+	 * @param maxMessagesPerConnection maximum number of messages sent over one SMTP session
+	 */
+	JavaMailSenderTransport(
+		JavaMailSender sender,
+		MessageSource messageSource,
+		Iterable<Preparator<MimeMessageHelper>> additionalPreparators,
+		int maxMessagesPerConnection
+	) {
+		this(sender, messageSource, additionalPreparators, maxMessagesPerConnection, InternetAddressCache.disabled(),
+				null);
+	}
+
+	/**
+	 * Creates a {@link JavaMailSenderTransport} that chains address setup, subject
+	 * resolution, and any additional preparators in that order, and that sends batches
+	 * in chunks of at most {@code maxMessagesPerConnection} messages per SMTP session.
+	 * <p>
+	 * The {@link Preparator} chain is flattened once, when the transport is created, and the
+	 * message body is written after the chain for every message. Recipient and sender addresses
+	 * are resolved using the given {@link InternetAddressCache}.
+	 *
+	 * @param sender the Spring {@link JavaMailSender} used to dispatch messages
+	 * @param messageSource used to resolve and translate the mail subject
+	 * @param additionalPreparators optional extra preparators appended at the end of the chain
+	 * @param maxMessagesPerConnection maximum number of messages sent over one SMTP session
+	 * @param addressCache cache used to resolve the validated recipient and sender addresses
+	 * @param subjectCache optional cache of resolved subjects, when {@literal null} the subject is resolved
+	 * using the {@link MessageSource} for every message
+	 */
+	JavaMailSenderTransport(
+		JavaMailSender sender,
+		MessageSource messageSource,
+		Iterable<Preparator<MimeMessageHelper>> additionalPreparators,
+		int maxMessagesPerConnection,
+		InternetAddressCache addressCache,
+		@Nullable SubjectCache subjectCache
+	) {
+		Assert.isTrue(maxMessagesPerConnection > 0, "Maximum messages per SMTP connection must be greater than zero");
+
 		this.sender = sender;
-		this.preparator = addresses()
-			.and(subject(messageSource))
-			.and(Preparator.aggregate(additionalPreparators));
+		this.maxMessagesPerConnection = maxMessagesPerConnection;
+		this.preparator = Preparator.aggregate(Stream.concat(
+			Stream.of(addresses(addressCache), subjectCache == null ? subject(messageSource) : subject(subjectCache)),
+			StreamSupport.stream(additionalPreparators.spliterator(), false)
+		));
 	}
 
 	@Override
 	public void send(Mail mail, Template template) {
 		log.debug("Dispatching mail with template '{}' via SMTP", mail.template());
 
+		final MailDispatchEvent event = new MailDispatchEvent();
+		event.begin();
+
+		try {
+			sender.send(mime -> prepare(mail, template, mime));
+		} catch (MailException ex) {
+			final MailingException exception = translate(mail, ex);
+			event.complete(mail, template, exception.getErrorCode());
+			throw exception;
+		}
+
+		event.complete(mail, template, null);
+	}
+
+	/**
+	 * Prepares a {@link MimeMessage} for every mail in the batch and dispatches them using
+	 * {@link JavaMailSender#send(MimeMessage...)} invocations of at most {@code maxMessagesPerConnection}
+	 * messages. This allows the {@link JavaMailSender} to deliver the batch over one SMTP session,
+	 * repeating the {@code MAIL FROM}, {@code RCPT TO} and {@code DATA} commands for each message,
+	 * instead of opening, and authenticating, a new connection for every message.
+	 * <p>
+	 * Mails that could not be prepared are not dispatched and are reported with the
+	 * {@link MailingException.ErrorCode#MESSAGE_PREPARATION_FAILED} error code. Messages that
+	 * were rejected by the SMTP server are reported individually, without affecting the delivery
+	 * of the remaining messages in the batch.
+	 *
+	 * @param mails mails to be dispatched, including envelope metadata; never {@literal null}
+	 * @param templates the fully-rendered template bodies, one for each mail; never {@literal null}
+	 * @return the results for each mail in the batch, never {@literal null}
+	 */
+	@Override
+	public List<MailingResult> sendAll(List<Mail> mails, List<Template> templates) {
+		Assert.isTrue(mails.size() == templates.size(), "Each mail in the batch must have its rendered template");
+
+		log.debug("Dispatching batch of {} mail(s) via SMTP", mails.size());
+
+		final MailingResult[] results = new MailingResult[mails.size()];
+		final List<MimeMessage> messages = new ArrayList<>(mails.size());
+		final List<Integer> positions = new ArrayList<>(mails.size());
+
+		for (int i = 0; i < mails.size(); i++) {
+			final Mail mail = mails.get(i);
+
+			try {
+				final MimeMessage message = sender.createMimeMessage();
+				prepare(mail, templates.get(i), message);
+				messages.add(message);
+				positions.add(i);
+			} catch (MailException ex) {
+				results[i] = MailingResult.failure(mail, translate(mail, ex));
+			}
+		}
+
+		for (int from = 0; from < messages.size(); from += maxMessagesPerConnection) {
+			final int to = Math.min(from + maxMessagesPerConnection, messages.size());
+			dispatch(mails, templates, messages.subList(from, to), positions.subList(from, to), results);
+		}
+
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				results[i] = MailingResult.success(mails.get(i));
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	private void dispatch(List<Mail> mails, List<Template> templates, List<MimeMessage> messages,
+			List<Integer> positions, MailingResult[] results) {
+		final MailDispatchEvent event = new MailDispatchEvent();
+		event.begin();
+
 		try {
-			sender.send(mime -> {
-				final MimeMessageHelper helper = new MimeMessageHelper(mime, mail.encoding().name());
-
-				try {
-					preparator.and(body(template)).prepare(mail, helper);
-				} catch (MailException ex) {
-					throw ex;
-				} catch (Exception ex) {
-					throw new MailPreparationException("Unexpected error while preparing mail message", ex);
+			sender.send(messages.toArray(MimeMessage[]::new));
+		} catch (MailSendException ex) {
+			final Map<Object, Exception> failures = ex.getFailedMessages();
+
+			for (int i = 0; i < messages.size(); i++) {
+				final Exception failure = failures.get(messages.get(i));
+
+				if (failure != null) {
+					final Mail mail = mails.get(positions.get(i));
+					results[positions.get(i)] = MailingResult.failure(mail, translate(mail,
+							new MailSendException("Failed to send mail via SMTP", failure)));
 				}
-			});
-		} catch (MailAuthenticationException ex) {
-			throw new MailingException(
+			}
+		} catch (MailException ex) {
+			for (int position : positions) {
+				final Mail mail = mails.get(position);
+				results[position] = MailingResult.failure(mail, translate(mail, ex));
+			}
+		}
+
+		event.complete(templates, positions, results);
+	}
+
+	private void prepare(Mail mail, Template template, MimeMessage mime) {
+		try {
+			final MimeMessageHelper helper = new MimeMessageHelper(mime, mail.encoding().name());
+			body(template, preparator.prepare(mail, helper));
+		} catch (MailException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new MailPreparationException("Unexpected error while preparing mail message", ex);
+		}
+	}
+
+	static MailingException translate(Mail mail, MailException ex) {
+		if (ex instanceof MailAuthenticationException) {
+			return new MailingException(
 				MailingException.ErrorCode.AUTHENTICATION_FAILED,
 				"SMTP authentication failed",
 				ex
 			);
-		} catch (MailPreparationException | MailParseException ex) {
-			throw new MailingException(
+		}
+		if (ex instanceof MailPreparationException || ex instanceof MailParseException) {
+			return new MailingException(
 				MailingException.ErrorCode.MESSAGE_PREPARATION_FAILED,
 				"Failed to prepare mail message for template '" + mail.template() + "'",
 				ex
 			);
-		} catch (MailSendException ex) {
-			throw new MailingException(
-				isConnectionError(ex)
-					? MailingException.ErrorCode.CONNECTION_FAILED
-					: MailingException.ErrorCode.SEND_FAILED,
-				"Failed to send mail via SMTP",
+		}
+		if (ex instanceof MailSendException && isQuotaError(ex)) {
+			return new MailingException(
+				MailingException.ErrorCode.QUOTA_EXCEEDED,
+				"SMTP server sending limit exceeded",
 				ex
 			);
-		} catch (MailException ex) {
-			throw new MailingException(
-				MailingException.ErrorCode.SEND_FAILED,
+		}
+		if (ex instanceof MailSendException && isConnectionError(ex)) {
+			return new MailingException(
+				MailingException.ErrorCode.CONNECTION_FAILED,
 				"Failed to send mail via SMTP",
 				ex
 			);
 		}
+		return new MailingException(
+			MailingException.ErrorCode.SEND_FAILED,
+			"Failed to send mail via SMTP",
+			ex
+		);
 	}
 
-	static Preparator<MimeMessageHelper> addresses() {
+	static Preparator<MimeMessageHelper> addresses(InternetAddressCache cache) {
+		Assert.notNull(cache, "Internet address cache can not be null");
+
 		return (mail, helper) -> {
 			for (var recipient : mail.recipients()) {
 				if (Recipient.Type.TO == recipient.type()) {
-					helper.addTo(toInternetAddress(recipient.address()));
+					helper.addTo(cache.get(recipient.address()));
 				}
 				if (Recipient.Type.CC == recipient.type()) {
-					helper.addCc(toInternetAddress(recipient.address()));
+					helper.addCc(cache.get(recipient.address()));
 				}
 				if (Recipient.Type.BCC == recipient.type()) {
-					helper.addBcc(toInternetAddress(recipient.address()));
+					helper.addBcc(cache.get(recipient.address()));
 				}
 			}
 
 			if (mail.from() != null) {
-				helper.setFrom(toInternetAddress(mail.from()));
+				helper.setFrom(cache.get(mail.from()));
 			}
 
 			for (var replyTo : mail.replyTo()) {
-				helper.setReplyTo(toInternetAddress(replyTo));
+				helper.setReplyTo(cache.get(replyTo));
 			}
 
 			return helper;
@@ -129,55 +321,127 @@ class JavaMailSenderTransport implements Transport {
 		Assert.notNull(messageSource, "Mail Message Source can not be null");
 
 		return (mail, helper) -> {
-			final Subject subject = mail.subject();
-			String message;
-
-			try {
-				message = messageSource.getMessage(subject.toResolvable(), mail.locale());
-			} catch (Exception ex) {
-				log.warn("Failed to lookup Mail message subject for code '{}', using default subject value instead.",
-						subject.value(), ex);
-				message = null;
-			}
-
-			if (message == null) {
-				message = subject.value();
-			}
+			helper.setSubject(resolveSubject(messageSource, mail.subject(), mail.locale()));
+			return helper;
+		};
+	}
 
-			helper.setSubject(message);
+	static Preparator<MimeMessageHelper> subject(SubjectCache cache) {
+		Assert.notNull(cache, "Mail subject cache can not be null");
 
+		return (mail, helper) -> {
+			helper.setSubject(cache.get(mail.subject(), mail.locale()));
 			return helper;
 		};
 	}
 
-	static Preparator<MimeMessageHelper> body(Template template) {
+	/**
+	 * Resolves the localized subject using the {@link MessageSource}, falling back to the subject value
+	 * when the lookup fails.
+	 */
+	static String resolveSubject(MessageSource messageSource, Subject subject, Locale locale) {
+		String message;
+
+		try {
+			message = messageSource.getMessage(subject.toResolvable(), locale);
+		} catch (Exception ex) {
+			log.warn("Failed to lookup Mail message subject for code '{}', using default subject value instead.",
+					subject.value(), ex);
+			message = null;
+		}
+
+		return message == null ? subject.value() : message;
+	}
+
+	/**
+	 * Writes the {@link Template} contents into the message body. This is the final, fixed, stage of the
+	 * message preparation that is applied after the {@link Preparator} chain, as it depends on the template
+	 * that is rendered for each message and can not be part of the chain that is built upfront.
+	 */
+	static void body(Template template, MimeMessageHelper helper) throws MessagingException {
+		final MimeType contentType = contentType(template);
+		final Template alternative = template.alternative();
+
+		if (alternative != null) {
+			if (contentType(alternative) != Template.TEXT || contentType != Template.HTML) {
+				throw new MailPreparationException("Unsupported template alternative content type: "
+						+ alternative.contentType());
+			}
+
+			final MimeMultipart multipart = new MimeMultipart(MULTIPART_SUBTYPE_ALTERNATIVE);
+			multipart.addBodyPart(part(alternative, Template.TEXT, helper.getEncoding()));
+			multipart.addBodyPart(part(template, Template.HTML, helper.getEncoding()));
+			helper.getMimeMessage().setContent(multipart);
+		} else if (template.isBuffered()) {
+			stream(helper.getMimeMessage(), template, contentType, helper.getEncoding());
+		} else {
+			helper.setText(template.contents(), contentType == Template.HTML);
+		}
+	}
+
+	/**
+	 * Resolves which of the supported content types, {@link Template#HTML} or {@link Template#TEXT},
+	 * is compatible with the content type of the {@link Template}.
+	 */
+	private static MimeType contentType(Template template) {
 		if (Template.HTML.isCompatibleWith(template.contentType())) {
-			return (mail, helper) -> {
-				helper.setText(template.contents(), true);
-				return helper;
-			};
+			return Template.HTML;
 		}
 		if (Template.TEXT.isCompatibleWith(template.contentType())) {
-			return (mail, helper) -> {
-				helper.setText(template.contents(), false);
-				return helper;
-			};
+			return Template.TEXT;
 		}
 		throw new MailPreparationException("Unsupported template content type: " + template.contentType());
 	}
 
+	/**
+	 * Creates the MIME body part of the {@code multipart/alternative} message for the given {@link Template}.
+	 */
+	private static MimeBodyPart part(Template template, MimeType contentType, @Nullable String encoding)
+			throws MessagingException {
+		final MimeBodyPart part = new MimeBodyPart();
+
+		if (template.isBuffered()) {
+			stream(part, template, contentType, encoding);
+		} else {
+			part.setText(template.contents(), encoding, contentType.getSubtype());
+		}
+
+		return part;
+	}
+
+	/**
+	 * Streams the buffered {@link Template} contents directly into the MIME part, using the charset of the
+	 * {@link Mail#encoding() mail}, or {@code UTF-8} when none is set. The quoted-printable transfer encoding
+	 * is set upfront so that Jakarta Mail does not need to read the whole body to detect the appropriate encoding.
+	 */
+	static void stream(MimePart part, Template template, MimeType contentType, @Nullable String encoding)
+			throws MessagingException {
+		final Charset charset = encoding == null ? TemplateBuffer.CHARSET : Charset.forName(encoding);
+		part.setDataHandler(new DataHandler(new TemplateDataSource(template, contentType, charset)));
+		part.setHeader(HEADER_CONTENT_TRANSFER_ENCODING, "quoted-printable");
+	}
+
 	static Preparator<MimeMessageHelper> sender(String email, String name) {
 		Assert.hasText(email, "Default mail sender email address can not be null");
 
 		return sender(new Address(email, name));
 	}
 
+	/**
+	 * Creates a {@link Preparator} that sets the default sender address for mails without a
+	 * {@link Mail#from() sender}. The address is validated once, when the preparator is created, and
+	 * each mail receives its own copy, as the {@link InternetAddress} is mutable.
+	 *
+	 * @throws MailPreparationException when the default sender address is not valid
+	 */
 	static Preparator<MimeMessageHelper> sender(Address defaultSender) {
 		Assert.notNull(defaultSender, "Default mail sender address can not be null");
 
+		final InternetAddress address = toInternetAddress(defaultSender);
+
 		return (mail, helper) -> {
 			if (mail.from() == null) {
-				helper.setFrom(toInternetAddress(defaultSender));
+				helper.setFrom((InternetAddress) address.clone());
 			}
 
 			return helper;
@@ -202,9 +466,54 @@ class JavaMailSenderTransport implements Transport {
 		}
 	}
 
-	private static boolean isConnectionError(MailSendException ex) {
+	/**
+	 * Checks whether the failure was caused by an unreachable server or a closed channel, including the
+	 * SMTP {@code 421} reply, which the server uses when it is shutting down or can not serve the session.
+	 */
+	private static boolean isConnectionError(MailException ex) {
 		final Throwable cause = ex.getMostSpecificCause();
-		return cause instanceof ConnectException || cause instanceof SocketTimeoutException;
+
+		if (cause instanceof ConnectException || cause instanceof SocketTimeoutException) {
+			return true;
+		}
+
+		final Integer code = replyCode(ex);
+		return code != null && code == SMTP_SERVICE_NOT_AVAILABLE;
+	}
+
+	/**
+	 * Checks whether the failure was caused by the SMTP {@code 452} or {@code 552} reply, which the server
+	 * uses when the storage or the sending quota of the mailbox is exceeded.
+	 */
+	private static boolean isQuotaError(MailException ex) {
+		final Integer code = replyCode(ex);
+		return code != null && (code == SMTP_INSUFFICIENT_STORAGE || code == SMTP_STORAGE_EXCEEDED);
+	}
+
+	/**
+	 * Extracts the SMTP reply code from the first SMTP exception found in the cause chain.
+	 *
+	 * @param ex the exception to inspect
+	 * @return the SMTP reply code, or {@literal null} when the failure did not carry one
+	 */
+	@Nullable
+	static Integer replyCode(Throwable ex) {
+		Throwable cause = ex;
+
+		while (cause != null) {
+			if (cause instanceof SMTPSendFailedException failure) {
+				return failure.getReturnCode();
+			}
+			if (cause instanceof SMTPAddressFailedException failure) {
+				return failure.getReturnCode();
+			}
+			if (cause instanceof SMTPSenderFailedException failure) {
+				return failure.getReturnCode();
+			}
+			cause = cause.getCause();
+		}
+
+		return null;
 	}
 
 }
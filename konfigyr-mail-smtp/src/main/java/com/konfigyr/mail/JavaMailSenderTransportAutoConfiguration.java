@@ -1,20 +1,31 @@
 package com.konfigyr.mail;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.mail.autoconfigure.MailSenderAutoConfiguration;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Autoconfigures a {@link Transport} bean backed by Spring's {@link JavaMailSender}.
  * <p>
@@ -31,6 +42,27 @@ import org.springframework.mail.javamail.MimeMessageHelper;
  * Any {@code Preparator<MimeMessageHelper>} beans present in the application context are
  * automatically appended to the preparator chain, after the built-in address and subject
  * steps.
+ * <p>
+ * When the {@code spring.mail.pool.enabled} property is set, an {@link SmtpConnectionPool}
+ * is registered and the {@link Transport} sends messages over pooled SMTP connections that
+ * are reused across messages. Pooling requires the {@link JavaMailSender} bean to be a
+ * {@link JavaMailSenderImpl}, as configured by the Spring Boot mail autoconfiguration. When a
+ * different {@link JavaMailSender} is defined, messages are sent without pooled connections.
+ * <p>
+ * Batches of mails are delivered over a single SMTP session, up to the number of messages set
+ * by the {@code spring.mail.batch.max-messages-per-connection} property.
+ * <p>
+ * Validated mail addresses are kept in an {@link InternetAddressCache}, which can be configured, or
+ * disabled, using the {@code spring.mail.address-cache} properties. Resolved subjects can be cached in a
+ * {@link SubjectCache} by setting the {@code spring.mail.subject-cache.enabled} property.
+ * <p>
+ * When the {@code spring.mail.failover.enabled} property is set, mails are distributed across the relay
+ * configured by the Spring Boot mail properties and the additional relays configured by the
+ * {@code spring.mail.failover.relays} properties, using a {@link FailoverTransport} that fails over to the
+ * next relay when one of them is unavailable.
+ * <p>
+ * When Micrometer is present, the statistics of the caches and the SMTP connection pool are exposed as meters
+ * by the {@link SmtpMetrics} binder.
  *
  * @author Vladimir Spasic
  * @since 1.0.0
@@ -41,21 +73,86 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 @ConditionalOnMissingBean(Transport.class)
 @AutoConfigureBefore(MailerAutoConfiguration.class)
 @AutoConfigureAfter(MailSenderAutoConfiguration.class)
+@EnableConfigurationProperties(JavaMailSenderTransportProperties.class)
 public class JavaMailSenderTransportAutoConfiguration {
 
+	private static final Logger log = LoggerFactory.getLogger(JavaMailSenderTransportAutoConfiguration.class);
+
 	/** Creates a new {@link JavaMailSenderTransportAutoConfiguration} instance. */
 	public JavaMailSenderTransportAutoConfiguration() {
 	}
 
 	static final String SENDER_PROPERTY = "spring.mail.sender";
 
+	static final String POOL_PROPERTY = JavaMailSenderTransportProperties.PREFIX + ".pool";
+
+	static final String ADDRESS_CACHE_PROPERTY = JavaMailSenderTransportProperties.PREFIX + ".address-cache";
+
+	static final String SUBJECT_CACHE_PROPERTY = JavaMailSenderTransportProperties.PREFIX + ".subject-cache";
+
+	static final String FAILOVER_PROPERTY = JavaMailSenderTransportProperties.PREFIX + ".failover";
+
+	static final String DEFAULT_RELAY_NAME = "default";
+
 	@Bean
 	Transport javaMailSenderTransport(
 		JavaMailSender sender,
 		MessageSource messageSource,
-		ObjectProvider<Preparator<MimeMessageHelper>> preparators
+		ObjectProvider<Preparator<MimeMessageHelper>> preparators,
+		ObjectProvider<SmtpConnectionPool> pool,
+		ObjectProvider<InternetAddressCache> addressCache,
+		ObjectProvider<SubjectCache> subjectCache,
+		ObjectProvider<SmtpRelays> relays,
+		JavaMailSenderTransportProperties properties
 	) {
-		return new JavaMailSenderTransport(sender, messageSource, preparators);
+		final SmtpConnectionPool connections = pool.getIfAvailable();
+		final InternetAddressCache addresses = addressCache.getIfAvailable(InternetAddressCache::disabled);
+		final SubjectCache subjects = subjectCache.getIfAvailable();
+		final int maxMessagesPerConnection = properties.getBatch().getMaxMessagesPerConnection();
+		final Transport transport = transport(sender, connections, messageSource, preparators,
+				maxMessagesPerConnection, addresses, subjects);
+		final SmtpRelays additional = relays.getIfAvailable();
+
+		if (additional == null) {
+			return transport;
+		}
+
+		final JavaMailSenderTransportProperties.Failover failover = properties.getFailover();
+		final List<FailoverTransport.Relay> members = new ArrayList<>();
+		members.add(new FailoverTransport.Relay(DEFAULT_RELAY_NAME, transport, failover.getWeight()));
+
+		for (SmtpRelays.SmtpRelay relay : additional.relays()) {
+			members.add(new FailoverTransport.Relay(relay.name(), transport(relay.sender(), relay.pool(),
+					messageSource, preparators, maxMessagesPerConnection, addresses, subjects), relay.weight()));
+		}
+
+		return new FailoverTransport(members, failover.getStrategy(), failover.getEjectionTime(),
+				failover.getErrorCodes());
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = FAILOVER_PROPERTY, name = "enabled", havingValue = "true")
+	SmtpRelays smtpRelays(JavaMailSender sender, JavaMailSenderTransportProperties properties) {
+		return SmtpRelays.create(sender, properties);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = ADDRESS_CACHE_PROPERTY, name = "enabled", havingValue = "true", matchIfMissing = true)
+	InternetAddressCache internetAddressCache(JavaMailSenderTransportProperties properties) {
+		return InternetAddressCache.create(properties.getAddressCache());
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = SUBJECT_CACHE_PROPERTY, name = "enabled", havingValue = "true")
+	SubjectCache subjectCache(MessageSource messageSource, JavaMailSenderTransportProperties properties) {
+		return SubjectCache.create(properties.getSubjectCache(), messageSource);
+	}
+
+	@Bean
+	@ConditionalOnBean(JavaMailSenderImpl.class)
+	@ConditionalOnProperty(prefix = POOL_PROPERTY, name = "enabled", havingValue = "true")
+	SmtpConnectionPool smtpConnectionPool(JavaMailSenderImpl sender, JavaMailSenderTransportProperties properties) {
+		return SmtpConnectionPool.create(sender, properties.getPool());
 	}
 
 	@Bean
@@ -67,4 +164,57 @@ public class JavaMailSenderTransportAutoConfiguration {
 		);
 	}
 
+	@Configuration(proxyBeanMethods = false)
+	@ConditionalOnClass(MeterRegistry.class)
+	static class SmtpMetricsConfiguration {
+
+		@Bean
+		SmtpMetrics smtpMetrics(ObjectProvider<InternetAddressCache> addressCache,
+				ObjectProvider<SubjectCache> subjectCache, ObjectProvider<SmtpConnectionPool> pool) {
+			return new SmtpMetrics(addressCache.getIfAvailable(), subjectCache.getIfAvailable(),
+					pool.getIfAvailable());
+		}
+
+	}
+
+	private static Transport transport(
+		JavaMailSender sender,
+		@Nullable SmtpConnectionPool connections,
+		MessageSource messageSource,
+		Iterable<Preparator<MimeMessageHelper>> preparators,
+		int maxMessagesPerConnection,
+		InternetAddressCache addresses,
+		@Nullable SubjectCache subjects
+	) {
+		if (connections == null || !(sender instanceof JavaMailSenderImpl impl)) {
+			if (connections != null) {
+				log.warn("SMTP connection pooling requires a JavaMailSenderImpl, sending mails using {} without "
+						+ "pooled connections", sender.getClass().getName());
+			}
+
+			return new JavaMailSenderTransport(instrument(sender), messageSource, preparators,
+					maxMessagesPerConnection, addresses, subjects);
+		}
+
+		return new JavaMailSenderTransport(
+			new PooledJavaMailSender(impl, connections, maxMessagesPerConnection),
+			messageSource,
+			preparators,
+			maxMessagesPerConnection,
+			addresses,
+			subjects
+		);
+	}
+
+	/**
+	 * Replaces the {@link JavaMailSenderImpl} created by Spring Boot with an {@link InstrumentedJavaMailSender}
+	 * that emits the {@link SmtpConnectEvent}. Other senders, including subclasses of the
+	 * {@link JavaMailSenderImpl}, are used as they are, as copying them would lose their customizations.
+	 */
+	private static JavaMailSender instrument(JavaMailSender sender) {
+		return sender.getClass() == JavaMailSenderImpl.class
+				? InstrumentedJavaMailSender.of((JavaMailSenderImpl) sender)
+				: sender;
+	}
+
 }
@@ -0,0 +1,692 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Configuration properties used by the {@link JavaMailSenderTransportAutoConfiguration} to
+ * customize the SMTP {@link Transport}.
+ * <p>
+ * Properties share the {@code spring.mail} namespace with the Spring Boot mail properties that
+ * configure the {@link org.springframework.mail.javamail.JavaMailSender}, each feature being
+ * configured in its own nested group, e.g. {@code spring.mail.pool}.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@ConfigurationProperties(prefix = JavaMailSenderTransportProperties.PREFIX)
+public class JavaMailSenderTransportProperties {
+
+	static final String PREFIX = "spring.mail";
+
+	/**
+	 * Configuration of the SMTP connection pool.
+	 */
+	private final Pool pool = new Pool();
+
+	/**
+	 * Configuration of the SMTP session batching.
+	 */
+	private final Batch batch = new Batch();
+
+	/**
+	 * Configuration of the validated mail address cache.
+	 */
+	private final AddressCache addressCache = new AddressCache();
+
+	/**
+	 * Configuration of the resolved mail subject cache.
+	 */
+	private final SubjectCache subjectCache = new SubjectCache();
+
+	/**
+	 * Configuration of the additional mail relays used for load balancing and failover.
+	 */
+	private final Failover failover = new Failover();
+
+	/** Creates a new {@link JavaMailSenderTransportProperties} instance. */
+	public JavaMailSenderTransportProperties() {
+	}
+
+	/**
+	 * Returns the configuration of the SMTP connection pool.
+	 * @return connection pool properties, never {@literal null}
+	 */
+	public Pool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Returns the configuration of the SMTP session batching.
+	 * @return batching properties, never {@literal null}
+	 */
+	public Batch getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Returns the configuration of the validated mail address cache.
+	 * @return address cache properties, never {@literal null}
+	 */
+	public AddressCache getAddressCache() {
+		return addressCache;
+	}
+
+	/**
+	 * Returns the configuration of the resolved mail subject cache.
+	 * @return subject cache properties, never {@literal null}
+	 */
+	public SubjectCache getSubjectCache() {
+		return subjectCache;
+	}
+
+	/**
+	 * Returns the configuration of the additional mail relays used for load balancing and failover.
+	 * @return failover properties, never {@literal null}
+	 */
+	public Failover getFailover() {
+		return failover;
+	}
+
+	/**
+	 * Configuration of the pool that keeps authenticated SMTP connections open and reuses them
+	 * across messages, instead of opening, negotiating TLS and authenticating a new connection
+	 * for every message.
+	 */
+	public static class Pool {
+
+		/**
+		 * Whether SMTP connections should be pooled and reused across messages.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of SMTP connections that can be open at the same time.
+		 */
+		private int maxSize = 4;
+
+		/**
+		 * Time limit for which an idle SMTP connection is kept open in the pool.
+		 */
+		private Duration maxIdleTime = Duration.ofSeconds(60);
+
+		/**
+		 * Time limit for which a sender waits for a connection when all of them are in use.
+		 */
+		private Duration maxWait = Duration.ofSeconds(10);
+
+		/** Creates a new {@link Pool} instance. */
+		public Pool() {
+		}
+
+		/**
+		 * Returns whether SMTP connections should be pooled.
+		 * @return {@literal true} when SMTP connections should be pooled
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether SMTP connections should be pooled.
+		 * @param enabled {@literal true} when SMTP connections should be pooled
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of open SMTP connections.
+		 * @return maximum pool size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Sets the maximum number of open SMTP connections.
+		 * @param maxSize maximum pool size
+		 */
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Returns the time limit for which an idle SMTP connection is kept open.
+		 * @return maximum idle time
+		 */
+		public Duration getMaxIdleTime() {
+			return maxIdleTime;
+		}
+
+		/**
+		 * Sets the time limit for which an idle SMTP connection is kept open.
+		 * @param maxIdleTime maximum idle time
+		 */
+		public void setMaxIdleTime(Duration maxIdleTime) {
+			this.maxIdleTime = maxIdleTime;
+		}
+
+		/**
+		 * Returns the time limit for which a sender waits for a free connection.
+		 * @return maximum wait time
+		 */
+		public Duration getMaxWait() {
+			return maxWait;
+		}
+
+		/**
+		 * Sets the time limit for which a sender waits for a free connection.
+		 * @param maxWait maximum wait time
+		 */
+		public void setMaxWait(Duration maxWait) {
+			this.maxWait = maxWait;
+		}
+
+	}
+
+	/**
+	 * Configuration of how batches of mails are delivered over SMTP sessions. Messages in a batch
+	 * are sent over a single SMTP session, repeating the {@code MAIL FROM}, {@code RCPT TO} and
+	 * {@code DATA} commands for each message, until the session limit is reached.
+	 */
+	public static class Batch {
+
+		/**
+		 * Maximum number of messages that are sent over a single SMTP connection before it is closed
+		 * and a new one is opened. Many SMTP servers limit the number of messages per session.
+		 */
+		private int maxMessagesPerConnection = 100;
+
+		/** Creates a new {@link Batch} instance. */
+		public Batch() {
+		}
+
+		/**
+		 * Returns the maximum number of messages sent over a single SMTP connection.
+		 * @return maximum messages per connection
+		 */
+		public int getMaxMessagesPerConnection() {
+			return maxMessagesPerConnection;
+		}
+
+		/**
+		 * Sets the maximum number of messages sent over a single SMTP connection.
+		 * @param maxMessagesPerConnection maximum messages per connection
+		 */
+		public void setMaxMessagesPerConnection(int maxMessagesPerConnection) {
+			this.maxMessagesPerConnection = maxMessagesPerConnection;
+		}
+
+	}
+
+	/**
+	 * Configuration of the cache that keeps validated mail addresses, and the internet addresses they
+	 * resolve to, so that recipients that repeat across messages are not validated over and over again.
+	 */
+	public static class AddressCache {
+
+		/**
+		 * Whether validated mail addresses should be cached.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Maximum number of mail addresses that are kept in the cache.
+		 */
+		private int maxSize = 10_000;
+
+		/**
+		 * Time-to-live of the cached mail addresses. When not set, addresses are only evicted
+		 * when the cache is full.
+		 */
+		private @Nullable Duration ttl = Duration.ofHours(1);
+
+		/** Creates a new {@link AddressCache} instance. */
+		public AddressCache() {
+		}
+
+		/**
+		 * Returns whether validated mail addresses should be cached.
+		 * @return {@literal true} when mail addresses should be cached
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether validated mail addresses should be cached.
+		 * @param enabled {@literal true} when mail addresses should be cached
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of cached mail addresses.
+		 * @return maximum cache size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Sets the maximum number of cached mail addresses.
+		 * @param maxSize maximum cache size
+		 */
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Returns the time-to-live of the cached mail addresses.
+		 * @return cache entry time-to-live, can be {@literal null}
+		 */
+		@Nullable
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		/**
+		 * Sets the time-to-live of the cached mail addresses.
+		 * @param ttl cache entry time-to-live, can be {@literal null}
+		 */
+		public void setTtl(@Nullable Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+	/**
+	 * Configuration of the cache that keeps the mail subjects resolved by the
+	 * {@link org.springframework.context.MessageSource}, keyed by the subject code, locale and arguments.
+	 * The cache is disabled by default, as the subject messages may be reloaded at runtime.
+	 */
+	public static class SubjectCache {
+
+		/**
+		 * Whether resolved mail subjects should be cached.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of resolved mail subjects that are kept in the cache.
+		 */
+		private int maxSize = 1_000;
+
+		/**
+		 * Time-to-live of the cached mail subjects. When not set, subjects are only evicted
+		 * when the cache is full.
+		 */
+		private @Nullable Duration ttl;
+
+		/** Creates a new {@link SubjectCache} instance. */
+		public SubjectCache() {
+		}
+
+		/**
+		 * Returns whether resolved mail subjects should be cached.
+		 * @return {@literal true} when mail subjects should be cached
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether resolved mail subjects should be cached.
+		 * @param enabled {@literal true} when mail subjects should be cached
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the maximum number of cached mail subjects.
+		 * @return maximum cache size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Sets the maximum number of cached mail subjects.
+		 * @param maxSize maximum cache size
+		 */
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Returns the time-to-live of the cached mail subjects.
+		 * @return cache entry time-to-live, can be {@literal null}
+		 */
+		@Nullable
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		/**
+		 * Sets the time-to-live of the cached mail subjects.
+		 * @param ttl cache entry time-to-live, can be {@literal null}
+		 */
+		public void setTtl(@Nullable Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+	/**
+	 * Configuration of the additional SMTP relays that share the load with the relay configured by the
+	 * Spring Boot mail properties. Mails are distributed across the relays using the selection strategy,
+	 * and a relay that fails with one of the failover error codes is ejected for the ejection time while
+	 * its mails are sent using the next relay.
+	 */
+	public static class Failover {
+
+		/**
+		 * Whether mails should be distributed across multiple mail relays.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * Strategy used to select the relay that sends the next mail.
+		 */
+		private FailoverTransport.Strategy strategy = FailoverTransport.Strategy.ROUND_ROBIN;
+
+		/**
+		 * Weight of the relay configured by the Spring Boot mail properties, relative to the weights of
+		 * the additional relays.
+		 */
+		private int weight = 1;
+
+		/**
+		 * Time for which a failed relay is not used while other relays are available.
+		 */
+		private Duration ejectionTime = Duration.ofSeconds(30);
+
+		/**
+		 * Error codes that cause the mail to be sent using the next relay.
+		 */
+		private Set<MailingException.ErrorCode> errorCodes = EnumSet.of(MailingException.ErrorCode.CONNECTION_FAILED,
+				MailingException.ErrorCode.AUTHENTICATION_FAILED);
+
+		/**
+		 * Additional mail relays, keyed by their names.
+		 */
+		private Map<String, Relay> relays = new LinkedHashMap<>();
+
+		/** Creates a new {@link Failover} instance. */
+		public Failover() {
+		}
+
+		/**
+		 * Returns whether mails should be distributed across multiple mail relays.
+		 * @return {@literal true} when multiple mail relays should be used
+		 */
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		/**
+		 * Sets whether mails should be distributed across multiple mail relays.
+		 * @param enabled {@literal true} when multiple mail relays should be used
+		 */
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		/**
+		 * Returns the strategy used to select the relay that sends the next mail.
+		 * @return relay selection strategy
+		 */
+		public FailoverTransport.Strategy getStrategy() {
+			return strategy;
+		}
+
+		/**
+		 * Sets the strategy used to select the relay that sends the next mail.
+		 * @param strategy relay selection strategy
+		 */
+		public void setStrategy(FailoverTransport.Strategy strategy) {
+			this.strategy = strategy;
+		}
+
+		/**
+		 * Returns the weight of the relay configured by the Spring Boot mail properties.
+		 * @return default relay weight
+		 */
+		public int getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Sets the weight of the relay configured by the Spring Boot mail properties.
+		 * @param weight default relay weight
+		 */
+		public void setWeight(int weight) {
+			this.weight = weight;
+		}
+
+		/**
+		 * Returns the time for which a failed relay is not used while other relays are available.
+		 * @return relay ejection time
+		 */
+		public Duration getEjectionTime() {
+			return ejectionTime;
+		}
+
+		/**
+		 * Sets the time for which a failed relay is not used while other relays are available.
+		 * @param ejectionTime relay ejection time
+		 */
+		public void setEjectionTime(Duration ejectionTime) {
+			this.ejectionTime = ejectionTime;
+		}
+
+		/**
+		 * Returns the error codes that cause the mail to be sent using the next relay.
+		 * @return failover error codes
+		 */
+		public Set<MailingException.ErrorCode> getErrorCodes() {
+			return errorCodes;
+		}
+
+		/**
+		 * Sets the error codes that cause the mail to be sent using the next relay.
+		 * @param errorCodes failover error codes
+		 */
+		public void setErrorCodes(Set<MailingException.ErrorCode> errorCodes) {
+			this.errorCodes = errorCodes;
+		}
+
+		/**
+		 * Returns the additional mail relays, keyed by their names.
+		 * @return additional mail relays
+		 */
+		public Map<String, Relay> getRelays() {
+			return relays;
+		}
+
+		/**
+		 * Sets the additional mail relays, keyed by their names.
+		 * @param relays additional mail relays
+		 */
+		public void setRelays(Map<String, Relay> relays) {
+			this.relays = relays;
+		}
+
+	}
+
+	/**
+	 * Configuration of an additional SMTP relay. Settings that are not set are inherited from the relay
+	 * configured by the Spring Boot mail properties, and the JavaMail properties are merged with its ones.
+	 */
+	public static class Relay {
+
+		/**
+		 * SMTP server host of the relay.
+		 */
+		private @Nullable String host;
+
+		/**
+		 * SMTP server port of the relay.
+		 */
+		private @Nullable Integer port;
+
+		/**
+		 * Login user of the SMTP server.
+		 */
+		private @Nullable String username;
+
+		/**
+		 * Login password of the SMTP server.
+		 */
+		private @Nullable String password;
+
+		/**
+		 * Protocol used by the SMTP server.
+		 */
+		private @Nullable String protocol;
+
+		/**
+		 * Share of the mails sent using this relay, relative to the other relays.
+		 */
+		private int weight = 1;
+
+		/**
+		 * Additional JavaMail session properties of the relay.
+		 */
+		private Map<String, String> properties = new LinkedHashMap<>();
+
+		/** Creates a new {@link Relay} instance. */
+		public Relay() {
+		}
+
+		/**
+		 * Returns the SMTP server host of the relay.
+		 * @return relay host, can be {@literal null}
+		 */
+		@Nullable
+		public String getHost() {
+			return host;
+		}
+
+		/**
+		 * Sets the SMTP server host of the relay.
+		 * @param host relay host
+		 */
+		public void setHost(@Nullable String host) {
+			this.host = host;
+		}
+
+		/**
+		 * Returns the SMTP server port of the relay.
+		 * @return relay port, or {@literal null} when inherited
+		 */
+		@Nullable
+		public Integer getPort() {
+			return port;
+		}
+
+		/**
+		 * Sets the SMTP server port of the relay.
+		 * @param port relay port
+		 */
+		public void setPort(@Nullable Integer port) {
+			this.port = port;
+		}
+
+		/**
+		 * Returns the login user of the SMTP server.
+		 * @return login user, or {@literal null} when inherited
+		 */
+		@Nullable
+		public String getUsername() {
+			return username;
+		}
+
+		/**
+		 * Sets the login user of the SMTP server.
+		 * @param username login user
+		 */
+		public void setUsername(@Nullable String username) {
+			this.username = username;
+		}
+
+		/**
+		 * Returns the login password of the SMTP server.
+		 * @return login password, or {@literal null} when inherited
+		 */
+		@Nullable
+		public String getPassword() {
+			return password;
+		}
+
+		/**
+		 * Sets the login password of the SMTP server.
+		 * @param password login password
+		 */
+		public void setPassword(@Nullable String password) {
+			this.password = password;
+		}
+
+		/**
+		 * Returns the protocol used by the SMTP server.
+		 * @return protocol, or {@literal null} when inherited
+		 */
+		@Nullable
+		public String getProtocol() {
+			return protocol;
+		}
+
+		/**
+		 * Sets the protocol used by the SMTP server.
+		 * @param protocol protocol
+		 */
+		public void setProtocol(@Nullable String protocol) {
+			this.protocol = protocol;
+		}
+
+		/**
+		 * Returns the share of the mails sent using this relay.
+		 * @return relay weight
+		 */
+		public int getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Sets the share of the mails sent using this relay.
+		 * @param weight relay weight
+		 */
+		public void setWeight(int weight) {
+			this.weight = weight;
+		}
+
+		/**
+		 * Returns the additional JavaMail session properties of the relay.
+		 * @return JavaMail session properties
+		 */
+		public Map<String, String> getProperties() {
+			return properties;
+		}
+
+		/**
+		 * Sets the additional JavaMail session properties of the relay.
+		 * @param properties JavaMail session properties
+		 */
+		public void setProperties(Map<String, String> properties) {
+			this.properties = properties;
+		}
+
+	}
+
+}
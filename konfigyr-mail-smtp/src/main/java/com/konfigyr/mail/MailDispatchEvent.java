@@ -0,0 +1,107 @@
+package com.konfigyr.mail;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Java Flight Recorder event that is emitted by the SMTP {@link Transport} once it dispatched a single mail,
+ * or a chunk of mails from a batch that is sent over one SMTP session.
+ * <p>
+ * The event fields are only populated when the event is enabled in the recording and its duration exceeds
+ * the configured threshold, which keeps the cost of a disabled event close to zero.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@Name(MailDispatchEvent.NAME)
+@Label("Mail Dispatch")
+@Category({ "Konfigyr", "Mail" })
+@Description("Dispatching of mail messages to the SMTP server")
+@StackTrace(false)
+final class MailDispatchEvent extends Event {
+
+	static final String NAME = "com.konfigyr.mail.MailDispatch";
+
+	@Label("Template")
+	@Description("Name of the mail template, not set for batches")
+	@Nullable String template;
+
+	@Label("Messages")
+	@Description("Number of dispatched messages")
+	int messages;
+
+	@Label("Failed Messages")
+	@Description("Number of messages that were rejected")
+	int failed;
+
+	@Label("Size")
+	@Description("Size of the rendered templates of the dispatched messages")
+	@DataAmount
+	long size;
+
+	@Label("Error Code")
+	@Description("Error code of the first rejected message, if any")
+	@Nullable String errorCode;
+
+	/**
+	 * Ends the event and commits it, when it should be committed, for a single dispatched mail.
+	 *
+	 * @param mail the dispatched mail, can't be {@literal null}
+	 * @param rendered the rendered template of the mail, can't be {@literal null}
+	 * @param code the error code of the dispatch failure, or {@literal null} when the mail was sent
+	 */
+	void complete(Mail mail, Template rendered, MailingException.@Nullable ErrorCode code) {
+		end();
+
+		if (shouldCommit()) {
+			template = mail.template();
+			messages = 1;
+			failed = code == null ? 0 : 1;
+			size = rendered.size();
+			errorCode = code == null ? null : code.name();
+			commit();
+		}
+	}
+
+	/**
+	 * Ends the event and commits it, when it should be committed, for a chunk of mails from a batch.
+	 *
+	 * @param templates the rendered templates of all mails in the batch, can't be {@literal null}
+	 * @param positions positions of the dispatched mails in the batch, can't be {@literal null}
+	 * @param results results of the mails in the batch, rejected mails are already reported as failures
+	 */
+	void complete(List<Template> templates, List<Integer> positions, @Nullable MailingResult[] results) {
+		end();
+
+		if (shouldCommit()) {
+			messages = positions.size();
+
+			for (int position : positions) {
+				final MailingResult result = results[position];
+				final MailingException.@Nullable ErrorCode code = result == null ? null : result.errorCode();
+
+				if (code != null) {
+					if (errorCode == null) {
+						errorCode = code.name();
+					}
+					failed++;
+				}
+
+				size += templates.get(position).size();
+			}
+
+			commit();
+		}
+	}
+
+}
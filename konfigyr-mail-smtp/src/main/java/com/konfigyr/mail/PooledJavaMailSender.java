@@ -0,0 +1,123 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.util.Assert;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Extension of the {@link JavaMailSenderImpl} that sends messages over connections borrowed from
+ * the {@link SmtpConnectionPool}, instead of opening a new SMTP connection for every send operation.
+ * <p>
+ * The sender copies the SMTP session and server settings from the {@link JavaMailSenderImpl} that
+ * was configured by Spring Boot. Message preparation and error reporting behave exactly as in the
+ * {@link JavaMailSenderImpl}, only the connection handling differs.
+ * <p>
+ * Messages are sent over a single SMTP session until the maximum number of messages per
+ * connection is reached, after which the connection is closed and a new one is borrowed. When
+ * the server rejects a message the session is reset using the {@code RSET} command, allowing the
+ * remaining messages to be sent over the same connection.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see SmtpConnectionPool
+ **/
+@NullMarked
+class PooledJavaMailSender extends InstrumentedJavaMailSender {
+
+	private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+	private final SmtpConnectionPool pool;
+	private final int maxMessagesPerConnection;
+
+	PooledJavaMailSender(JavaMailSenderImpl sender, SmtpConnectionPool pool, int maxMessagesPerConnection) {
+		super(sender);
+
+		Assert.notNull(pool, "SMTP connection pool can not be null");
+		Assert.isTrue(maxMessagesPerConnection > 0, "Maximum messages per SMTP connection must be greater than zero");
+
+		this.pool = pool;
+		this.maxMessagesPerConnection = maxMessagesPerConnection;
+	}
+
+	@Override
+	protected void doSend(MimeMessage[] messages, @Nullable Object[] originalMessages) throws MailException {
+		final Map<Object, Exception> failures = new LinkedHashMap<>();
+		SmtpConnectionPool.Connection connection = null;
+
+		try {
+			for (int i = 0; i < messages.length; i++) {
+				if (connection == null) {
+					try {
+						connection = pool.borrow();
+					} catch (AuthenticationFailedException ex) {
+						throw new MailAuthenticationException(ex);
+					} catch (Exception ex) {
+						for (int j = i; j < messages.length; j++) {
+							failures.put(original(messages, originalMessages, j), ex);
+						}
+						throw new MailSendException("Mail server connection failed", ex, failures);
+					}
+				}
+
+				try {
+					send(connection, messages[i]);
+				} catch (Exception ex) {
+					failures.put(original(messages, originalMessages, i), ex);
+
+					if (!connection.reset()) {
+						pool.invalidate(connection);
+						connection = null;
+						continue;
+					}
+				}
+
+				connection.sent();
+
+				if (connection.messages() >= maxMessagesPerConnection) {
+					pool.invalidate(connection);
+					connection = null;
+				}
+			}
+		} finally {
+			if (connection != null) {
+				pool.release(connection);
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			throw new MailSendException(failures);
+		}
+	}
+
+	private static void send(SmtpConnectionPool.Connection connection, MimeMessage message) throws MessagingException {
+		if (message.getSentDate() == null) {
+			message.setSentDate(new Date());
+		}
+
+		final String messageId = message.getMessageID();
+		message.saveChanges();
+
+		if (messageId != null) {
+			message.setHeader(HEADER_MESSAGE_ID, messageId);
+		}
+
+		final jakarta.mail.Address[] addresses = message.getAllRecipients();
+		connection.transport().sendMessage(message, addresses == null ? new jakarta.mail.Address[0] : addresses);
+	}
+
+	private static Object original(MimeMessage[] messages, @Nullable Object[] originalMessages, int index) {
+		return originalMessages == null ? messages[index] : originalMessages[index];
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.konfigyr.mail;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Java Flight Recorder event that is emitted once the {@link InstrumentedJavaMailSender} opened, or failed to
+ * open, a new SMTP connection, which includes the TCP handshake, the SMTP greeting, the TLS negotiation and the
+ * authentication. Connections are opened by the {@link SmtpConnectionPool}, or for every send operation when
+ * connection pooling is disabled.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@Name(SmtpConnectEvent.NAME)
+@Label("SMTP Connect")
+@Category({ "Konfigyr", "Mail" })
+@Description("Opening of a new SMTP connection")
+@StackTrace(false)
+final class SmtpConnectEvent extends Event {
+
+	static final String NAME = "com.konfigyr.mail.SmtpConnect";
+
+	@Label("Host")
+	@Description("Host name of the SMTP server")
+	@Nullable String host;
+
+	@Label("Port")
+	@Description("Port of the SMTP server, or -1 when the protocol default port is used")
+	int port;
+
+	@Label("Error Code")
+	@Description("Error code of the connection failure, if any")
+	@Nullable String errorCode;
+
+	/**
+	 * Ends the event and commits it, when it should be committed.
+	 *
+	 * @param host the host name of the SMTP server, can be {@literal null}
+	 * @param port the port of the SMTP server
+	 * @param code the error code of the connection failure, or {@literal null} when the connection was opened
+	 */
+	void complete(@Nullable String host, int port, MailingException.@Nullable ErrorCode code) {
+		end();
+
+		if (shouldCommit()) {
+			this.host = host;
+			this.port = port;
+			this.errorCode = code == null ? null : code.name();
+			commit();
+		}
+	}
+
+}
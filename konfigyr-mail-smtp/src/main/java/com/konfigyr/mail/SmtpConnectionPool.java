@@ -0,0 +1,291 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.MessagingException;
+import org.eclipse.angus.mail.smtp.SMTPTransport;
+import org.jspecify.annotations.NullMarked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of connected, and authenticated, Jakarta Mail SMTP {@link jakarta.mail.Transport transports}
+ * that are reused across messages.
+ * <p>
+ * Opening an SMTP connection requires a TCP handshake, the SMTP greeting, the optional TLS
+ * negotiation and authentication, which usually takes much longer than sending the message
+ * itself. The pool keeps up to {@code maxSize} connections open and hands them out to senders.
+ * Idle connections are checked with an SMTP {@code NOOP} command before they are handed out
+ * and are closed once they have been idle for longer than the configured {@code maxIdleTime}.
+ * <p>
+ * When all connections are in use, senders wait up to {@code maxWait} for one to be released.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class SmtpConnectionPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(SmtpConnectionPool.class);
+
+	private final Connector connector;
+	private final Semaphore permits;
+	private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+	private final long maxIdleTime;
+	private final long maxWait;
+
+	private volatile boolean closed;
+
+	SmtpConnectionPool(Connector connector, int maxSize, Duration maxIdleTime, Duration maxWait) {
+		Assert.notNull(connector, "SMTP connector can not be null");
+		Assert.isTrue(maxSize > 0, "SMTP connection pool size must be greater than zero");
+
+		this.connector = connector;
+		this.permits = new Semaphore(maxSize, true);
+		this.maxIdleTime = maxIdleTime.toNanos();
+		this.maxWait = maxWait.toNanos();
+	}
+
+	/**
+	 * Creates a new {@link SmtpConnectionPool} that opens connections using the session and the
+	 * server settings of the given {@link JavaMailSenderImpl}.
+	 *
+	 * @param sender the sender that holds the SMTP session and server settings, can't be {@literal null}
+	 * @param properties the connection pool properties, can't be {@literal null}
+	 * @return the SMTP connection pool, never {@literal null}
+	 */
+	static SmtpConnectionPool create(JavaMailSenderImpl sender, JavaMailSenderTransportProperties.Pool properties) {
+		return new SmtpConnectionPool(connector(sender), properties.getMaxSize(), properties.getMaxIdleTime(),
+				properties.getMaxWait());
+	}
+
+	/**
+	 * Creates a {@link Connector} that opens connections the same way as the {@link JavaMailSenderImpl} would,
+	 * using an {@link InstrumentedJavaMailSender}, which emits a {@link SmtpConnectEvent} for every connection
+	 * attempt that is recorded by the Java Flight Recorder.
+	 *
+	 * @param sender the sender that holds the SMTP session and server settings, can't be {@literal null}
+	 * @return the SMTP connector, never {@literal null}
+	 */
+	static Connector connector(JavaMailSenderImpl sender) {
+		return InstrumentedJavaMailSender.of(sender)::connectTransport;
+	}
+
+	/**
+	 * Borrows a healthy connection from the pool, opening a new one when no idle connection is
+	 * available. Borrowed connections must be returned to the pool using the
+	 * {@link #release(Connection)} or the {@link #invalidate(Connection)} methods.
+	 *
+	 * @return the borrowed connection, never {@literal null}
+	 * @throws MessagingException when a new connection could not be opened, or when no connection
+	 * was released within the maximum wait time
+	 */
+	Connection borrow() throws MessagingException {
+		if (closed) {
+			throw new MessagingException("SMTP connection pool has been closed");
+		}
+
+		try {
+			if (!permits.tryAcquire(maxWait, TimeUnit.NANOSECONDS)) {
+				throw new MessagingException("Timed out while waiting for an available SMTP connection");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new MessagingException("Interrupted while waiting for an available SMTP connection", ex);
+		}
+
+		try {
+			Connection connection;
+
+			while ((connection = idle.pollFirst()) != null) {
+				if (connection.isExpired(maxIdleTime) || !connection.isConnected()) {
+					log.debug("Discarding stale SMTP connection: {}", connection);
+					connection.close();
+				} else {
+					return connection;
+				}
+			}
+
+			connection = new Connection(connector.connect());
+			log.debug("Opened new SMTP connection: {}", connection);
+
+			return connection;
+		} catch (MessagingException | RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the borrowed connection back to the pool so it can be reused by other senders.
+	 *
+	 * @param connection the borrowed connection, can't be {@literal null}
+	 */
+	void release(Connection connection) {
+		try {
+			if (closed) {
+				connection.close();
+			} else {
+				connection.touch();
+				idle.offerFirst(connection);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Closes the borrowed connection, without returning it to the pool. This method should be used
+	 * when the connection is broken or should otherwise no longer be used.
+	 *
+	 * @param connection the borrowed connection, can't be {@literal null}
+	 */
+	void invalidate(Connection connection) {
+		try {
+			connection.close();
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Returns the number of idle connections that are currently kept in the pool.
+	 * @return number of idle connections
+	 */
+	int idle() {
+		return idle.size();
+	}
+
+	/**
+	 * Closes all idle connections. Connections that are currently borrowed are closed once they
+	 * are released back to the pool.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+
+		Connection connection;
+
+		while ((connection = idle.pollFirst()) != null) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Functional interface that opens a new, connected and authenticated, SMTP transport.
+	 */
+	@FunctionalInterface
+	interface Connector {
+
+		/**
+		 * Opens a new SMTP connection.
+		 *
+		 * @return connected transport, never {@literal null}
+		 * @throws MessagingException when the connection could not be established
+		 */
+		jakarta.mail.Transport connect() throws MessagingException;
+
+	}
+
+	/**
+	 * Pooled SMTP connection, wrapping the connected Jakarta Mail {@link jakarta.mail.Transport}.
+	 */
+	static final class Connection {
+
+		private static final int SMTP_OK = 250;
+
+		private final jakarta.mail.Transport transport;
+		private volatile long lastUsed;
+		private int messages;
+
+		Connection(jakarta.mail.Transport transport) {
+			this.transport = transport;
+			this.lastUsed = System.nanoTime();
+		}
+
+		/**
+		 * Returns the connected Jakarta Mail transport.
+		 * @return SMTP transport, never {@literal null}
+		 */
+		jakarta.mail.Transport transport() {
+			return transport;
+		}
+
+		/**
+		 * Checks if the connection is still usable. For SMTP transports this issues a {@code NOOP}
+		 * command to the server and closes the connection when the server does not respond.
+		 *
+		 * @return {@literal true} when the connection is usable
+		 */
+		boolean isConnected() {
+			try {
+				return transport.isConnected();
+			} catch (RuntimeException ex) {
+				return false;
+			}
+		}
+
+		/**
+		 * Resets the SMTP session state by issuing the {@code RSET} command, discarding the envelope
+		 * of a failed message so the connection can be used to send the next one.
+		 *
+		 * @return {@literal true} when the server accepted the reset and the connection is still usable
+		 */
+		boolean reset() {
+			if (!(transport instanceof SMTPTransport smtp)) {
+				return isConnected();
+			}
+
+			try {
+				return smtp.simpleCommand("RSET") == SMTP_OK;
+			} catch (MessagingException | RuntimeException ex) {
+				log.debug("Failed to reset SMTP connection: {}", this, ex);
+				return false;
+			}
+		}
+
+		/**
+		 * Returns the number of messages that were sent over this connection.
+		 * @return number of sent messages
+		 */
+		int messages() {
+			return messages;
+		}
+
+		/**
+		 * Increments the number of messages that were sent over this connection.
+		 */
+		void sent() {
+			messages++;
+		}
+
+		boolean isExpired(long maxIdleTime) {
+			return System.nanoTime() - lastUsed > maxIdleTime;
+		}
+
+		void touch() {
+			lastUsed = System.nanoTime();
+		}
+
+		void close() {
+			try {
+				transport.close();
+			} catch (MessagingException | RuntimeException ex) {
+				log.debug("Failed to close SMTP connection: {}", this, ex);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "SmtpConnection(" + transport.getURLName() + ")";
+		}
+
+	}
+
+}
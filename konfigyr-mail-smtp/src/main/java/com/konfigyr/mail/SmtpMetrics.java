@@ -0,0 +1,79 @@
+package com.konfigyr.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link MeterBinder} that registers the Micrometer meters of the SMTP {@link Transport} components.
+ * <p>
+ * The {@code mail.cache.gets} counter, tagged by the {@code cache} name and the {@code result} of the lookup,
+ * and the {@code mail.cache.size} gauge are registered for the {@link InternetAddressCache} and the
+ * {@link SubjectCache}. The {@code mail.smtp.connections.idle} gauge is registered for the
+ * {@link SmtpConnectionPool}. Components that are not enabled are skipped.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class SmtpMetrics implements MeterBinder {
+
+	private final @Nullable InternetAddressCache addressCache;
+	private final @Nullable SubjectCache subjectCache;
+	private final @Nullable SmtpConnectionPool pool;
+
+	SmtpMetrics(@Nullable InternetAddressCache addressCache, @Nullable SubjectCache subjectCache,
+			@Nullable SmtpConnectionPool pool) {
+		this.addressCache = addressCache;
+		this.subjectCache = subjectCache;
+		this.pool = pool;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (addressCache != null) {
+			bindCache(registry, "addresses", addressCache, InternetAddressCache::statistics, InternetAddressCache::size);
+		}
+
+		if (subjectCache != null) {
+			bindCache(registry, "subjects", subjectCache, SubjectCache::statistics, SubjectCache::size);
+		}
+
+		if (pool != null) {
+			Gauge.builder("mail.smtp.connections.idle", pool, SmtpConnectionPool::idle)
+				.description("Number of idle SMTP connections that are kept in the pool")
+				.register(registry);
+		}
+	}
+
+	/**
+	 * Registers the meters of the cache, which are bound to the cache instance itself, as Micrometer keeps
+	 * only a weak reference to the object whose state is measured.
+	 */
+	private static <T> void bindCache(MeterRegistry registry, String name, T cache,
+			Function<T, CacheStatistics> statistics, ToIntFunction<T> size) {
+		FunctionCounter.builder("mail.cache.gets", cache, it -> statistics.apply(it).hits())
+			.description("Number of cache lookups that found a cached value")
+			.tag("cache", name)
+			.tag("result", "hit")
+			.register(registry);
+
+		FunctionCounter.builder("mail.cache.gets", cache, it -> statistics.apply(it).misses())
+			.description("Number of cache lookups that did not find a cached value")
+			.tag("cache", name)
+			.tag("result", "miss")
+			.register(registry);
+
+		Gauge.builder("mail.cache.size", cache, size::applyAsInt)
+			.description("Number of values that are currently cached")
+			.tag("cache", name)
+			.register(registry);
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Additional SMTP relays configured by the {@code spring.mail.failover.relays} properties.
+ * <p>
+ * Each relay gets its own {@link JavaMailSenderImpl}, which inherits the settings that are not configured
+ * for the relay from the {@link JavaMailSenderImpl} configured by Spring Boot, and its own
+ * {@link SmtpConnectionPool} when connection pooling is enabled. The pools are closed together with the relays.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see FailoverTransport
+ **/
+@NullMarked
+final class SmtpRelays implements AutoCloseable {
+
+	private final List<SmtpRelay> relays;
+
+	SmtpRelays(List<SmtpRelay> relays) {
+		this.relays = List.copyOf(relays);
+	}
+
+	/**
+	 * Creates the SMTP relays configured by the given properties.
+	 *
+	 * @param defaults the sender configured by Spring Boot whose settings are inherited, can't be {@literal null}
+	 * @param properties the SMTP transport properties, can't be {@literal null}
+	 * @return the SMTP relays, never {@literal null}
+	 */
+	static SmtpRelays create(JavaMailSender defaults, JavaMailSenderTransportProperties properties) {
+		Assert.isInstanceOf(JavaMailSenderImpl.class, defaults, "SMTP relay failover requires a JavaMailSenderImpl");
+		Assert.notEmpty(properties.getFailover().getRelays(), "At least one additional SMTP relay must be configured");
+
+		final List<SmtpRelay> relays = new ArrayList<>();
+
+		for (Map.Entry<String, JavaMailSenderTransportProperties.Relay> entry :
+				properties.getFailover().getRelays().entrySet()) {
+			final JavaMailSenderImpl sender = sender(entry.getKey(), (JavaMailSenderImpl) defaults, entry.getValue());
+			final SmtpConnectionPool pool = properties.getPool().isEnabled()
+					? SmtpConnectionPool.create(sender, properties.getPool()) : null;
+
+			relays.add(new SmtpRelay(entry.getKey(), sender, pool, entry.getValue().getWeight()));
+		}
+
+		return new SmtpRelays(relays);
+	}
+
+	static JavaMailSenderImpl sender(String name, JavaMailSenderImpl defaults,
+			JavaMailSenderTransportProperties.Relay relay) {
+		Assert.hasText(relay.getHost(), "SMTP relay '" + name + "' must have a host");
+
+		final JavaMailSenderImpl sender = new InstrumentedJavaMailSender();
+		sender.setHost(relay.getHost());
+		sender.setPort(relay.getPort() == null ? defaults.getPort() : relay.getPort());
+		sender.setUsername(relay.getUsername() == null ? defaults.getUsername() : relay.getUsername());
+		sender.setPassword(relay.getPassword() == null ? defaults.getPassword() : relay.getPassword());
+		sender.setProtocol(relay.getProtocol() == null ? defaults.getProtocol() : relay.getProtocol());
+		sender.setDefaultEncoding(defaults.getDefaultEncoding());
+
+		final Properties javaMailProperties = new Properties();
+		javaMailProperties.putAll(defaults.getJavaMailProperties());
+		javaMailProperties.putAll(relay.getProperties());
+		sender.setJavaMailProperties(javaMailProperties);
+
+		return sender;
+	}
+
+	/**
+	 * Returns the SMTP relays in the order in which they were configured.
+	 *
+	 * @return the SMTP relays, never {@literal null}
+	 */
+	List<SmtpRelay> relays() {
+		return relays;
+	}
+
+	@Override
+	public void close() {
+		for (SmtpRelay relay : relays) {
+			final SmtpConnectionPool pool = relay.pool();
+
+			if (pool != null) {
+				pool.close();
+			}
+		}
+	}
+
+	/**
+	 * Additional SMTP relay with its sender and the optional connection pool.
+	 *
+	 * @param name name of the relay, can't be {@literal null}
+	 * @param sender sender configured for the relay, can't be {@literal null}
+	 * @param pool connection pool of the relay, or {@literal null} when pooling is disabled
+	 * @param weight share of the mails sent using this relay
+	 */
+	record SmtpRelay(String name, JavaMailSenderImpl sender, @Nullable SmtpConnectionPool pool, int weight) {
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.context.MessageSource;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent cache of localized mail subjects resolved by the {@link MessageSource}.
+ * <p>
+ * Subjects are cached by their {@link Subject#value() code}, {@link Locale} and formatting
+ * {@link Subject#arguments() arguments}. Subject codes that are missing from the {@link MessageSource}
+ * are cached as well, using the subject value as the resolved subject, so that a failed lookup is only
+ * performed, and logged, once per cache entry instead of once per message.
+ * <p>
+ * The cache should be used when the subject messages do not change at runtime, or when the time-to-live
+ * is set to match how often the {@link MessageSource} is reloaded.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see JavaMailSenderTransportProperties.SubjectCache
+ **/
+@NullMarked
+public final class SubjectCache {
+
+	private final ExpiringLruCache<Key, String> cache;
+
+	SubjectCache(int maxSize, @Nullable Duration ttl, BiFunction<Subject, Locale, String> resolver) {
+		this(maxSize, ttl, resolver, System::nanoTime);
+	}
+
+	SubjectCache(int maxSize, @Nullable Duration ttl, BiFunction<Subject, Locale, String> resolver,
+			LongSupplier ticker) {
+		Assert.notNull(resolver, "Subject resolver can not be null");
+
+		this.cache = new ExpiringLruCache<>(maxSize, ttl, key -> resolver.apply(key.subject, key.locale), ticker);
+	}
+
+	/**
+	 * Creates a new {@link SubjectCache} that resolves subjects using the given {@link MessageSource}.
+	 *
+	 * @param properties subject cache configuration, can't be {@literal null}
+	 * @param messageSource message source used to resolve subjects, can't be {@literal null}
+	 * @return the subject cache, never {@literal null}
+	 */
+	static SubjectCache create(JavaMailSenderTransportProperties.SubjectCache properties, MessageSource messageSource) {
+		Assert.notNull(messageSource, "Mail Message Source can not be null");
+
+		return new SubjectCache(properties.getMaxSize(), properties.getTtl(),
+				(subject, locale) -> JavaMailSenderTransport.resolveSubject(messageSource, subject, locale));
+	}
+
+	/**
+	 * Resolves the localized subject value, using the cached subject when one is present and did not expire.
+	 *
+	 * @param subject the subject to resolve, can't be {@literal null}
+	 * @param locale the locale for which the subject is resolved, can't be {@literal null}
+	 * @return the localized subject, never {@literal null}
+	 */
+	public String get(Subject subject, Locale locale) {
+		return cache.get(new Key(subject, locale));
+	}
+
+	/**
+	 * Returns the number of subjects that are currently cached.
+	 * @return cache size
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the hit and miss statistics of this cache.
+	 * @return subject cache statistics, never {@literal null}
+	 */
+	public CacheStatistics statistics() {
+		return cache.statistics();
+	}
+
+	/**
+	 * Removes all cached subjects.
+	 */
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Cache key that compares the subject arguments by their contents, the {@link Subject} record compares
+	 * its argument array by reference.
+	 */
+	private static final class Key {
+
+		private final Subject subject;
+		private final Locale locale;
+		private final int hash;
+
+		Key(Subject subject, Locale locale) {
+			this.subject = subject;
+			this.locale = locale;
+			this.hash = 31 * (31 * subject.value().hashCode() + locale.hashCode()) + Arrays.hashCode(subject.arguments());
+		}
+
+		@Override
+		public boolean equals(@Nullable Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key other)) {
+				return false;
+			}
+			return hash == other.hash && subject.value().equals(other.subject.value())
+					&& locale.equals(other.locale) && Arrays.equals(subject.arguments(), other.subject.arguments());
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
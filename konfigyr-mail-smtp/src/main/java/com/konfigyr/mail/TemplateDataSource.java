@@ -0,0 +1,143 @@
+package com.konfigyr.mail;
+
+import jakarta.activation.DataSource;
+import org.jspecify.annotations.NullMarked;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Jakarta Activation {@link DataSource} that streams the contents of a {@link Template} into the
+ * MIME message body, without materializing the template contents as a {@link String}.
+ * <p>
+ * The template contents are encoded using the {@link Mail#encoding() mail charset}, which is declared
+ * as the {@code charset} parameter of the content type. Templates are stored using the
+ * {@link TemplateBuffer#CHARSET}, contents are streamed as they are when the mail uses the same charset,
+ * otherwise they are transcoded while they are being read.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class TemplateDataSource implements DataSource {
+
+	private final Template template;
+	private final Charset charset;
+	private final String contentType;
+
+	TemplateDataSource(Template template, MimeType contentType, Charset charset) {
+		this.template = template;
+		this.charset = charset;
+		this.contentType = new MimeType(contentType, charset).toString();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		final InputStream stream = template.openStream();
+
+		if (TemplateBuffer.CHARSET.equals(charset)) {
+			return stream;
+		}
+
+		return new TranscodingInputStream(new InputStreamReader(stream, TemplateBuffer.CHARSET), charset);
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		throw new IOException("Template data source is read-only");
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public String getName() {
+		return "template";
+	}
+
+	/**
+	 * {@link InputStream} that encodes the characters read from the {@link Reader} using the target
+	 * {@link Charset}. Characters that can not be encoded are replaced, like {@link String#getBytes(Charset)} does.
+	 */
+	static final class TranscodingInputStream extends InputStream {
+
+		private final Reader reader;
+		private final CharsetEncoder encoder;
+		private final CharBuffer chars = CharBuffer.allocate(4096).flip();
+		private final ByteBuffer bytes = ByteBuffer.allocate(8192).flip();
+
+		private boolean eof;
+		private boolean flushed;
+
+		TranscodingInputStream(Reader reader, Charset charset) {
+			this.reader = reader;
+			this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!bytes.hasRemaining() && !fill()) {
+				return -1;
+			}
+			return bytes.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+
+			if (!bytes.hasRemaining() && !fill()) {
+				return -1;
+			}
+
+			final int count = Math.min(length, bytes.remaining());
+			bytes.get(buffer, offset, count);
+			return count;
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+
+		private boolean fill() throws IOException {
+			bytes.clear();
+
+			while (bytes.position() == 0 && !flushed) {
+				if (!eof) {
+					chars.compact();
+					eof = reader.read(chars) < 0;
+					chars.flip();
+				}
+
+				if (encoder.encode(chars, bytes, eof).isOverflow()) {
+					break;
+				}
+
+				if (eof) {
+					flushed = encoder.flush(bytes).isUnderflow();
+				}
+			}
+
+			bytes.flip();
+			return bytes.hasRemaining();
+		}
+
+	}
+
+}
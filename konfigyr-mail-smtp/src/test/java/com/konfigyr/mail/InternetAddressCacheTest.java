@@ -0,0 +1,113 @@
+package com.konfigyr.mail;
+
+import jakarta.mail.internet.InternetAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailPreparationException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InternetAddressCacheTest {
+
+	final AtomicInteger resolutions = new AtomicInteger();
+	final AtomicLong ticker = new AtomicLong();
+
+	final Function<Address, InternetAddress> resolver = address -> {
+		resolutions.incrementAndGet();
+		return JavaMailSenderTransport.toInternetAddress(address);
+	};
+
+	@Test
+	@DisplayName("should resolve and cache validated internet addresses")
+	void shouldCacheAddresses() throws Exception {
+		final var cache = new InternetAddressCache(10, null, resolver, ticker::get);
+		final var address = new Address("john.doe@konfigyr.com", "John Doe");
+
+		final var first = cache.get(address);
+		final var second = cache.get(address);
+
+		assertThat(first)
+			.isEqualTo(new InternetAddress("john.doe@konfigyr.com", "John Doe"))
+			.isEqualTo(second)
+			.as("should return a copy of the cached address")
+			.isNotSameAs(second);
+
+		assertThat(resolutions).hasValue(1);
+
+		assertThat(cache.statistics())
+			.returns(1L, CacheStatistics::hits)
+			.returns(1L, CacheStatistics::misses)
+			.returns(0.5, CacheStatistics::hitRatio);
+	}
+
+	@Test
+	@DisplayName("should cache address validation failures")
+	void shouldCacheFailures() {
+		final var cache = new InternetAddressCache(10, null, resolver, ticker::get);
+		final var address = new Address("invalid-address");
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> cache.get(address))
+				.isInstanceOf(MailPreparationException.class)
+				.hasMessageContaining("Address validation failed");
+		}
+
+		assertThat(resolutions).hasValue(1);
+		assertThat(cache.statistics().lookups()).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("should resolve addresses again once their time-to-live expires")
+	void shouldExpireAddresses() {
+		final var cache = new InternetAddressCache(10, Duration.ofMinutes(1), resolver, ticker::get);
+		final var address = new Address("john.doe@konfigyr.com");
+
+		cache.get(address);
+		ticker.addAndGet(Duration.ofSeconds(59).toNanos());
+		cache.get(address);
+
+		assertThat(resolutions).hasValue(1);
+
+		ticker.addAndGet(Duration.ofSeconds(1).toNanos());
+		cache.get(address);
+
+		assertThat(resolutions).hasValue(2);
+		assertThat(cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("should evict least recently used addresses when cache is full")
+	void shouldEvictAddresses() {
+		final var cache = new InternetAddressCache(2, null, resolver, ticker::get);
+
+		cache.get(new Address("first@konfigyr.com"));
+		cache.get(new Address("second@konfigyr.com"));
+		cache.get(new Address("third@konfigyr.com"));
+		cache.get(new Address("first@konfigyr.com"));
+
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(resolutions).hasValue(4);
+	}
+
+	@Test
+	@DisplayName("should resolve addresses on every lookup when caching is disabled")
+	void shouldNotCacheWhenDisabled() {
+		final var cache = InternetAddressCache.disabled();
+		final var address = new Address("john.doe@konfigyr.com");
+
+		cache.get(address);
+		cache.get(address);
+
+		assertThat(cache.size()).isZero();
+		assertThat(cache.statistics())
+			.returns(0L, CacheStatistics::hits)
+			.returns(2L, CacheStatistics::misses);
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.konfigyr.mail;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,9 +10,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
@@ -72,6 +79,177 @@ class JavaMailSenderTransportAutoConfigurationTest {
 				.hasBean("defaultSenderPreparator"));
 	}
 
+	@Test
+	@DisplayName("should fail to register the default sender preparator with an invalid sender address")
+	void shouldValidateDefaultSender() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withPropertyValues("spring.mail.sender.email=invalid-address")
+			.run(context -> assertThat(context).hasFailed()
+				.getFailure()
+				.rootCause()
+				.isInstanceOf(MailPreparationException.class)
+				.hasMessageContaining("Address validation failed"));
+	}
+
+	@Test
+	@DisplayName("should not register SMTP connection pool by default")
+	void shouldNotAutoconfigureConnectionPool() {
+		runner.withBean(JavaMailSender.class, JavaMailSenderImpl::new)
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.doesNotHaveBean(SmtpConnectionPool.class));
+	}
+
+	@Test
+	@DisplayName("should register transport with SMTP connection pool when enabled")
+	void shouldAutoconfigureConnectionPool() {
+		runner.withBean(JavaMailSenderImpl.class, JavaMailSenderImpl::new)
+			.withPropertyValues("spring.mail.pool.enabled=true", "spring.mail.pool.max-size=8")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.hasSingleBean(SmtpConnectionPool.class)
+				.getBean(JavaMailSenderTransportProperties.class)
+				.returns(8, it -> it.getPool().getMaxSize()));
+	}
+
+	@Test
+	@DisplayName("should register transport without SMTP connection pool for unsupported java mail sender")
+	void shouldNotAutoconfigureConnectionPoolForUnsupportedSender() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withPropertyValues("spring.mail.pool.enabled=true")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.doesNotHaveBean(SmtpConnectionPool.class));
+	}
+
+	@Test
+	@DisplayName("should send mails without pooled connections when the pool can not be used by the java mail sender")
+	void shouldNotUsePoolForUnsupportedSender() {
+		final var pool = SmtpConnectionPool.create(new JavaMailSenderImpl(),
+				new JavaMailSenderTransportProperties().getPool());
+
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withBean(SmtpConnectionPool.class, () -> pool, definition -> definition.setDestroyMethodName("close"))
+			.run(context -> assertThat(context).hasNotFailed()
+				.getBean(Transport.class)
+				.isInstanceOf(JavaMailSenderTransport.class)
+				.extracting("sender")
+				.isSameAs(sender));
+	}
+
+	@Test
+	@DisplayName("should distribute mails across the default and additional relays when failover is enabled")
+	void shouldAutoconfigureFailover() {
+		runner.withBean(JavaMailSender.class, () -> {
+				final var sender = new JavaMailSenderImpl();
+				sender.setHost("smtp.konfigyr.com");
+				sender.setPort(587);
+				sender.setUsername("konfigyr");
+				sender.getJavaMailProperties().setProperty("mail.smtp.starttls.enable", "true");
+				return sender;
+			})
+			.withPropertyValues("spring.mail.failover.enabled=true", "spring.mail.failover.weight=3",
+					"spring.mail.failover.strategy=least-in-flight",
+					"spring.mail.failover.relays[backup].host=backup.konfigyr.com",
+					"spring.mail.failover.relays[backup].username=backup",
+					"spring.mail.failover.relays[backup].properties[mail.smtp.timeout]=5000")
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(SmtpRelays.class)
+					.getBean(Transport.class)
+					.asInstanceOf(InstanceOfAssertFactories.type(FailoverTransport.class))
+					.extracting(FailoverTransport::relays, InstanceOfAssertFactories.list(FailoverTransport.Relay.class))
+					.extracting(FailoverTransport.Relay::name, FailoverTransport.Relay::weight)
+					.containsExactly(tuple("default", 3), tuple("backup", 1));
+
+				assertThat(context.getBean(SmtpRelays.class).relays())
+					.singleElement()
+					.extracting(SmtpRelays.SmtpRelay::sender)
+					.returns("backup.konfigyr.com", JavaMailSenderImpl::getHost)
+					.returns(587, JavaMailSenderImpl::getPort)
+					.returns("backup", JavaMailSenderImpl::getUsername)
+					.satisfies(sender -> assertThat(sender.getJavaMailProperties())
+						.containsEntry("mail.smtp.starttls.enable", "true")
+						.containsEntry("mail.smtp.timeout", "5000"));
+			});
+	}
+
+	@Test
+	@DisplayName("should fail to register failover transport without additional relays")
+	void shouldFailToAutoconfigureFailoverWithoutRelays() {
+		runner.withBean(JavaMailSender.class, JavaMailSenderImpl::new)
+			.withPropertyValues("spring.mail.failover.enabled=true")
+			.run(context -> assertThat(context).hasFailed()
+				.getFailure()
+				.hasRootCauseInstanceOf(IllegalArgumentException.class));
+	}
+
+	@Test
+	@DisplayName("should register validated address cache by default")
+	void shouldAutoconfigureAddressCache() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withPropertyValues("spring.mail.address-cache.max-size=50", "spring.mail.address-cache.ttl=5m")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.hasSingleBean(InternetAddressCache.class)
+				.getBean(JavaMailSenderTransportProperties.class)
+				.returns(50, it -> it.getAddressCache().getMaxSize())
+				.returns(Duration.ofMinutes(5), it -> it.getAddressCache().getTtl()));
+	}
+
+	@Test
+	@DisplayName("should not register validated address cache when disabled")
+	void shouldNotAutoconfigureAddressCache() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withPropertyValues("spring.mail.address-cache.enabled=false")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.doesNotHaveBean(InternetAddressCache.class));
+	}
+
+	@Test
+	@DisplayName("should not register subject cache by default")
+	void shouldNotAutoconfigureSubjectCache() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.doesNotHaveBean(SubjectCache.class));
+	}
+
+	@Test
+	@DisplayName("should register subject cache when enabled")
+	void shouldAutoconfigureSubjectCache() {
+		runner.withBean(JavaMailSender.class, () -> sender)
+			.withPropertyValues("spring.mail.subject-cache.enabled=true", "spring.mail.subject-cache.max-size=20")
+			.run(context -> assertThat(context).hasNotFailed()
+				.hasSingleBean(Transport.class)
+				.hasSingleBean(SubjectCache.class)
+				.getBean(JavaMailSenderTransportProperties.class)
+				.returns(20, it -> it.getSubjectCache().getMaxSize()));
+	}
+
+	@Test
+	@DisplayName("should register cache and connection pool meters")
+	void shouldAutoconfigureMetrics() {
+		final var registry = new SimpleMeterRegistry();
+
+		runner.withBean(JavaMailSenderImpl.class, JavaMailSenderImpl::new)
+			.withPropertyValues("spring.mail.pool.enabled=true", "spring.mail.subject-cache.enabled=true")
+			.run(context -> {
+				assertThat(context).hasNotFailed()
+					.hasSingleBean(SmtpMetrics.class);
+
+				context.getBean(SmtpMetrics.class).bindTo(registry);
+				context.getBean(InternetAddressCache.class).get(new Address("john.doe@konfigyr.com"));
+			});
+
+		assertThat(registry.get("mail.cache.gets").tags("cache", "addresses", "result", "miss").functionCounter()
+				.count()).isOne();
+		assertThat(registry.get("mail.cache.size").tag("cache", "addresses").gauge().value()).isOne();
+		assertThat(registry.get("mail.cache.size").tag("cache", "subjects").gauge().value()).isZero();
+		assertThat(registry.get("mail.smtp.connections.idle").gauge().value()).isZero();
+	}
+
 	@Test
 	@DisplayName("should be registered before MailerAutoConfiguration so Mailer is wired with SMTP transport")
 	void shouldAutoconfigureBeforeMailerAutoConfiguration() {
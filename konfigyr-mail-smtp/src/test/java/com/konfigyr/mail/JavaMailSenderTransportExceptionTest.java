@@ -1,5 +1,11 @@
 package com.konfigyr.mail;
 
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,10 +22,15 @@ import org.springframework.mail.javamail.MimeMessagePreparator;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
 import java.util.List;
+import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class JavaMailSenderTransportExceptionTest {
@@ -94,6 +105,35 @@ class JavaMailSenderTransportExceptionTest {
 			.withCauseInstanceOf(MailSendException.class);
 	}
 
+	@Test
+	@DisplayName("should map MailSendException with SMTP 421 reply code to CONNECTION_FAILED")
+	void shouldMapServiceNotAvailable() {
+		final var cause = new SMTPSendFailedException("DATA", 421, "421 4.3.2 Service not available", null, null,
+				null, null);
+
+		doThrow(new MailSendException("service not available", cause))
+			.when(sender).send(any(MimeMessagePreparator.class));
+
+		assertThatExceptionOfType(MailingException.class)
+			.isThrownBy(() -> transport.send(mail, template))
+			.returns(MailingException.ErrorCode.CONNECTION_FAILED, MailingException::getErrorCode)
+			.withCauseInstanceOf(MailSendException.class);
+	}
+
+	@Test
+	@DisplayName("should map MailSendException with SMTP 552 reply code to QUOTA_EXCEEDED")
+	void shouldMapStorageExceeded() {
+		final var cause = new SMTPSendFailedException("DATA", 552, "552 5.2.2 Mailbox full", null, null, null, null);
+
+		doThrow(new MailSendException("storage exceeded", cause))
+			.when(sender).send(any(MimeMessagePreparator.class));
+
+		assertThatExceptionOfType(MailingException.class)
+			.isThrownBy(() -> transport.send(mail, template))
+			.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, MailingException::getErrorCode)
+			.withCauseInstanceOf(MailSendException.class);
+	}
+
 	@Test
 	@DisplayName("should map MailException without connection cause to SEND_FAILED")
 	void shouldMapCustomMailException() {
@@ -107,4 +147,86 @@ class JavaMailSenderTransportExceptionTest {
 			.withCause(cause);
 	}
 
+	@Test
+	@DisplayName("should report per message failures when sending a batch")
+	void shouldReportBatchFailures() {
+		final var other = Mail.builder()
+			.subject("test-subject")
+			.template("test-template")
+			.to("other@konfigyr.com")
+			.build();
+
+		final var first = new MimeMessage((Session) null);
+		final var second = new MimeMessage((Session) null);
+
+		doReturn(first, second).when(sender).createMimeMessage();
+		doThrow(new MailSendException(Map.of(second, new SendFailedException("452 mailbox full"))))
+			.when(sender).send(any(MimeMessage[].class));
+
+		assertThat(transport.sendAll(List.of(mail, other), List.of(template, template)))
+			.satisfiesExactly(
+				result -> assertThat(result).returns(true, MailingResult::isSuccessful),
+				result -> assertThat(result)
+					.returns(false, MailingResult::isSuccessful)
+					.returns(MailingException.ErrorCode.SEND_FAILED, MailingResult::errorCode)
+			);
+	}
+
+	@Test
+	@DisplayName("should classify per message failures using SMTP reply codes when sending a batch")
+	void shouldClassifyBatchFailures() throws Exception {
+		final var message = new MimeMessage((Session) null);
+		final var cause = new SendFailedException("Invalid Addresses",
+				new SMTPAddressFailedException(new InternetAddress("test@konfigyr.com"), "RCPT", 452, "452 mailbox full"));
+
+		doReturn(message).when(sender).createMimeMessage();
+		doThrow(new MailSendException(Map.of(message, cause)))
+			.when(sender).send(any(MimeMessage[].class));
+
+		assertThat(transport.sendAll(List.of(mail), List.of(template)))
+			.singleElement()
+			.returns(false, MailingResult::isSuccessful)
+			.returns(MailingException.ErrorCode.QUOTA_EXCEEDED, MailingResult::errorCode);
+	}
+
+	@Test
+	@DisplayName("should split a batch into SMTP sessions limited by the maximum messages per connection")
+	void shouldSplitBatchIntoSessions() {
+		transport = new JavaMailSenderTransport(sender, messageSource, List.of(), 2);
+
+		doReturn(new MimeMessage((Session) null)).when(sender).createMimeMessage();
+
+		assertThat(transport.sendAll(List.of(mail, mail, mail), List.of(template, template, template)))
+			.hasSize(3)
+			.allSatisfy(result -> assertThat(result).returns(true, MailingResult::isSuccessful));
+
+		verify(sender, times(2)).send(any(MimeMessage[].class));
+	}
+
+	@Test
+	@DisplayName("should fail every message in a batch when connection could not be established")
+	void shouldReportBatchConnectionFailure() {
+		doReturn(new MimeMessage((Session) null)).when(sender).createMimeMessage();
+		doThrow(new MailSendException("connection refused", new ConnectException("connection refused")))
+			.when(sender).send(any(MimeMessage[].class));
+
+		assertThat(transport.sendAll(List.of(mail, mail), List.of(template, template)))
+			.hasSize(2)
+			.allSatisfy(result -> assertThat(result)
+				.returns(MailingException.ErrorCode.CONNECTION_FAILED, MailingResult::errorCode));
+	}
+
+	@Test
+	@DisplayName("should fail every message in a batch when authentication fails")
+	void shouldReportBatchAuthenticationFailure() {
+		doReturn(new MimeMessage((Session) null)).when(sender).createMimeMessage();
+		doThrow(new MailAuthenticationException("bad credentials"))
+			.when(sender).send(any(MimeMessage[].class));
+
+		assertThat(transport.sendAll(List.of(mail, mail), List.of(template, template)))
+			.hasSize(2)
+			.allSatisfy(result -> assertThat(result)
+				.returns(MailingException.ErrorCode.AUTHENTICATION_FAILED, MailingResult::errorCode));
+	}
+
 }
@@ -5,8 +5,12 @@ import com.icegreen.greenmail.util.ServerSetup;
 import com.sanctionco.jmail.FailureReason;
 import jakarta.mail.Message;
 import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMultipart;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -19,6 +23,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.util.MimeType;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.*;
@@ -130,6 +137,102 @@ class JavaMailSenderTransportTest {
 							.containsExactly(new InternetAddress("info@konfigyr.com", "Default sender"))));
 	}
 
+	@Test
+	@DisplayName("should stream buffered template contents into the mail body")
+	void shouldSendMailWithBufferedTemplate() throws IOException {
+		final var mail = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("test@konfigyr.com")
+			.build();
+
+		final var contents = "<p>Grüße aus Belgrad</p>\n".repeat(64);
+		final var buffer = new TemplateBuffer(16);
+		buffer.write(contents);
+
+		final var template = Template.buffered(buffer, Template.HTML);
+
+		assertThat(buffer.isSpilled())
+			.as("template contents should be spilled into a file")
+			.isTrue();
+
+		doReturn(template).when(engine).render(mail);
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(1)
+			.allSatisfy(message -> assertThat(message)
+				.satisfies(it -> assertThat(it.getContentType()).contains("text/html").containsIgnoringCase("utf-8"))
+				.satisfies(it -> assertThat(it.getContent()).asString().isEqualToNormalizingNewlines(contents)));
+
+		assertThat(buffer.isSpilled())
+			.as("spilled template file should be released once the mail is sent")
+			.isFalse();
+	}
+
+	@Test
+	@DisplayName("should stream buffered template contents using the mail encoding")
+	void shouldSendMailWithBufferedTemplateUsingMailEncoding() throws IOException {
+		final var mail = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("test@konfigyr.com")
+			.encoding(StandardCharsets.ISO_8859_1)
+			.build();
+
+		final var contents = "<p>Grüße aus Köln</p>\n".repeat(64);
+		final var buffer = new TemplateBuffer(16);
+		buffer.write(contents);
+
+		doReturn(Template.buffered(buffer, Template.HTML)).when(engine).render(mail);
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(1)
+			.allSatisfy(message -> assertThat(message)
+				.satisfies(it -> assertThat(it.getContentType()).contains("text/html")
+					.containsIgnoringCase("iso-8859-1"))
+				.satisfies(it -> assertThat(it.getContent()).asString().isEqualToNormalizingNewlines(contents)));
+	}
+
+	@Test
+	@DisplayName("should send HTML template with plain text alternative as multipart/alternative mail")
+	void shouldSendMailWithTextAlternative() throws IOException {
+		final var mail = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("test@konfigyr.com")
+			.build();
+
+		final var buffer = new TemplateBuffer();
+		buffer.write("<p>Email HTML template</p>");
+
+		final var template = Template.buffered(buffer, Template.HTML)
+			.withAlternative(Template.text("Email text template"));
+
+		doReturn(template).when(engine).render(mail);
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(1)
+			.allSatisfy(message -> assertThat(message)
+				.satisfies(it -> assertThat(it.getContentType()).contains("multipart/alternative"))
+				.satisfies(it -> {
+					assertThat(it.getContent()).isInstanceOf(MimeMultipart.class);
+
+					final var multipart = (MimeMultipart) it.getContent();
+					assertThat(multipart.getCount()).isEqualTo(2);
+					assertThat(multipart.getBodyPart(0).getContentType()).contains("text/plain");
+					assertThat(multipart.getBodyPart(0).getContent()).isEqualTo("Email text template");
+					assertThat(multipart.getBodyPart(1).getContentType()).contains("text/html");
+					assertThat(multipart.getBodyPart(1).getContent()).asString()
+						.isEqualToIgnoringNewLines("<p>Email HTML template</p>");
+				}));
+	}
+
 	@Test
 	@DisplayName("should send mail via SMTP with default subject when message source fails")
 	void shouldSendMailWithDefaultSubject() throws IOException {
@@ -222,4 +325,105 @@ class JavaMailSenderTransportTest {
 			.withMessageContaining(FailureReason.DISALLOWED_UNQUOTED_CHARACTER.toString());
 	}
 
+	@Test
+	@DisplayName("should send batch of mails via SMTP and report failures per mail")
+	void shouldSendBatchOfMails() throws IOException {
+		final var first = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("first@konfigyr.com")
+			.locale(Locale.US)
+			.build();
+
+		final var invalid = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("inval)&9q8705id test")
+			.locale(Locale.US)
+			.build();
+
+		final var second = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("second@konfigyr.com")
+			.locale(Locale.US)
+			.build();
+
+		doReturn(Template.text("Email template")).when(engine).render(any(Mail.class));
+
+		assertThat(mailer.sendAll(List.of(first, invalid, second)))
+			.hasSize(3)
+			.satisfiesExactly(
+				result -> assertThat(result)
+					.returns(first, MailingResult::mail)
+					.returns(true, MailingResult::isSuccessful),
+				result -> assertThat(result)
+					.returns(invalid, MailingResult::mail)
+					.returns(MailingException.ErrorCode.MESSAGE_PREPARATION_FAILED, MailingResult::errorCode),
+				result -> assertThat(result)
+					.returns(second, MailingResult::mail)
+					.returns(true, MailingResult::isSuccessful)
+			);
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(2)
+			.satisfiesExactly(
+				it -> assertThat(it.getRecipients(Message.RecipientType.TO))
+					.containsExactly(new InternetAddress("first@konfigyr.com")),
+				it -> assertThat(it.getRecipients(Message.RecipientType.TO))
+					.containsExactly(new InternetAddress("second@konfigyr.com"))
+			);
+	}
+
+	@Test
+	@DisplayName("should emit flight recorder events for dispatched mails, batches and SMTP connections")
+	void shouldRecordDispatchEvents(@TempDir Path directory) throws IOException {
+		final var mail = Mail.builder()
+			.subject("test-email-subject")
+			.template("template")
+			.to("test@konfigyr.com")
+			.locale(Locale.US)
+			.build();
+
+		doReturn(Template.text("Email template")).when(engine).render(mail);
+
+		final Path file = directory.resolve("recording.jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(MailDispatchEvent.NAME);
+			recording.enable(SmtpConnectEvent.NAME);
+			recording.start();
+
+			mailer.send(mail);
+			mailer.sendAll(List.of(mail, mail));
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		assertThat(RecordingFile.readAllEvents(file))
+			.filteredOn(event -> MailDispatchEvent.NAME.equals(event.getEventType().getName()))
+			.satisfiesExactly(
+				event -> assertThat(event)
+					.returns("template", it -> it.getString("template"))
+					.returns(1, it -> it.getInt("messages"))
+					.returns(14L, it -> it.getLong("size"))
+					.returns(null, it -> it.getString("errorCode")),
+				event -> assertThat(event)
+					.returns(null, it -> it.getString("template"))
+					.returns(2, it -> it.getInt("messages"))
+					.returns(0, it -> it.getInt("failed"))
+					.returns(28L, it -> it.getLong("size"))
+			);
+
+		assertThat(RecordingFile.readAllEvents(file))
+			.as("should emit connection events when connection pooling is disabled")
+			.filteredOn(event -> SmtpConnectEvent.NAME.equals(event.getEventType().getName()))
+			.isNotEmpty()
+			.allSatisfy(event -> assertThat(event)
+				.returns(server.getPort(), it -> it.getInt("port"))
+				.returns(null, it -> it.getString("errorCode"))
+			);
+	}
+
 }
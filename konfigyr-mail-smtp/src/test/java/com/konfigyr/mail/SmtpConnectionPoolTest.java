@@ -0,0 +1,214 @@
+package com.konfigyr.mail;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SmtpConnectionPoolTest {
+
+	static ServerSetup server = new ServerSetup(2525, null, "smtp");
+	static GreenMail smtp = new GreenMail(server);
+
+	final AtomicInteger connections = new AtomicInteger();
+
+	JavaMailSenderImpl sender;
+	SmtpConnectionPool pool;
+
+	@BeforeAll
+	static void start() {
+		smtp.start();
+	}
+
+	@AfterAll
+	static void stop() {
+		smtp.stop();
+	}
+
+	@BeforeEach
+	void setup() {
+		sender = new JavaMailSenderImpl();
+		sender.setHost(server.getBindAddress());
+		sender.setPort(server.getPort());
+
+		final SmtpConnectionPool.Connector connector = SmtpConnectionPool.connector(sender);
+
+		pool = new SmtpConnectionPool(() -> {
+			connections.incrementAndGet();
+			return connector.connect();
+		}, 2, Duration.ofMinutes(1), Duration.ofMillis(200));
+	}
+
+	@AfterEach
+	void cleanup() {
+		pool.close();
+		smtp.reset();
+	}
+
+	@Test
+	@DisplayName("should reuse the same SMTP connection for multiple messages")
+	void shouldReuseConnection() throws Exception {
+		final var pooled = new PooledJavaMailSender(sender, pool, 100);
+
+		pooled.send(message(pooled, "first"), message(pooled, "second"));
+		pooled.send(message(pooled, "third"));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(3)
+			.extracting(MimeMessage::getSubject)
+			.containsExactly("first", "second", "third");
+
+		assertThat(connections)
+			.as("should open only one SMTP connection")
+			.hasValue(1);
+
+		assertThat(pool.idle())
+			.as("should return the connection back to the pool")
+			.isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("should open a new SMTP connection when maximum messages per connection is reached")
+	void shouldRotateConnection() throws Exception {
+		final var pooled = new PooledJavaMailSender(sender, pool, 2);
+
+		pooled.send(message(pooled, "first"), message(pooled, "second"), message(pooled, "third"));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(3);
+
+		assertThat(connections)
+			.as("should open a new SMTP connection after two messages")
+			.hasValue(2);
+
+		assertThat(pool.idle())
+			.isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("should reset the SMTP session and continue sending when a message is rejected")
+	void shouldResetSessionOnFailure() throws Exception {
+		final var pooled = new PooledJavaMailSender(sender, pool, 100);
+		final var rejected = message(pooled, "rejected");
+		rejected.setRecipients(MimeMessage.RecipientType.TO, new InternetAddress[0]);
+
+		assertThatExceptionOfType(MailSendException.class)
+			.isThrownBy(() -> pooled.send(message(pooled, "first"), rejected, message(pooled, "second")))
+			.satisfies(ex -> assertThat(ex.getFailedMessages())
+				.containsOnlyKeys(rejected));
+
+		assertThat(smtp.getReceivedMessages())
+			.extracting(MimeMessage::getSubject)
+			.containsExactly("first", "second");
+
+		assertThat(connections)
+			.as("should keep using the same SMTP connection")
+			.hasValue(1);
+	}
+
+	@Test
+	@DisplayName("should discard idle SMTP connections that were closed by the server")
+	void shouldDiscardClosedConnection() throws Exception {
+		final var connection = pool.borrow();
+		connection.transport().close();
+		pool.release(connection);
+
+		final var pooled = new PooledJavaMailSender(sender, pool, 100);
+		pooled.send(message(pooled, "subject"));
+
+		assertThat(smtp.getReceivedMessages())
+			.hasSize(1);
+
+		assertThat(connections)
+			.as("should open a new SMTP connection")
+			.hasValue(2);
+	}
+
+	@Test
+	@DisplayName("should fail to borrow a connection when pool is exhausted")
+	void shouldFailWhenPoolIsExhausted() throws Exception {
+		pool.borrow();
+		pool.borrow();
+
+		assertThatExceptionOfType(MessagingException.class)
+			.isThrownBy(pool::borrow)
+			.withMessageContaining("Timed out");
+	}
+
+	@Test
+	@DisplayName("should fail to send messages when SMTP connection can not be opened")
+	void shouldFailToConnect() throws Exception {
+		pool = new SmtpConnectionPool(() -> {
+			throw new MessagingException("Connection refused");
+		}, 1, Duration.ofMinutes(1), Duration.ofMillis(200));
+
+		final var pooled = new PooledJavaMailSender(sender, pool, 100);
+		final var message = message(pooled, "subject");
+
+		assertThatExceptionOfType(MailSendException.class)
+			.isThrownBy(() -> pooled.send(message))
+			.withMessageContaining("Mail server connection failed")
+			.satisfies(ex -> assertThat(ex.getFailedMessages())
+				.containsOnlyKeys(message));
+
+		assertThat(pool.idle())
+			.isZero();
+	}
+
+	@Test
+	@DisplayName("should emit flight recorder events for opened and failed SMTP connections")
+	void shouldRecordConnectEvents(@TempDir Path directory) throws Exception {
+		final var unreachable = new JavaMailSenderImpl();
+		unreachable.setHost(server.getBindAddress());
+		unreachable.setPort(server.getPort() + 1);
+
+		final Path file = directory.resolve("recording.jfr");
+
+		try (Recording recording = new Recording()) {
+			recording.enable(SmtpConnectEvent.NAME);
+			recording.start();
+
+			pool.borrow();
+			assertThatExceptionOfType(MessagingException.class)
+				.isThrownBy(() -> SmtpConnectionPool.connector(unreachable).connect());
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		assertThat(RecordingFile.readAllEvents(file))
+			.filteredOn(event -> SmtpConnectEvent.NAME.equals(event.getEventType().getName()))
+			.satisfiesExactly(
+				event -> assertThat(event)
+					.returns(server.getPort(), it -> it.getInt("port"))
+					.returns(null, it -> it.getString("errorCode")),
+				event -> assertThat(event)
+					.returns(server.getPort() + 1, it -> it.getInt("port"))
+					.returns("CONNECTION_FAILED", it -> it.getString("errorCode"))
+			);
+	}
+
+	static MimeMessage message(JavaMailSenderImpl sender, String subject) throws MessagingException {
+		final var helper = new MimeMessageHelper(sender.createMimeMessage());
+		helper.setFrom("sender@konfigyr.com");
+		helper.setTo("recipient@konfigyr.com");
+		helper.setSubject(subject);
+		helper.setText("Message body");
+		return helper.getMimeMessage();
+	}
+
+}
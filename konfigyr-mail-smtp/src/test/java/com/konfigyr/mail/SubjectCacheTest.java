@@ -0,0 +1,85 @@
+package com.konfigyr.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class SubjectCacheTest {
+
+	@Mock
+	MessageSource messageSource;
+
+	final AtomicLong ticker = new AtomicLong();
+
+	SubjectCache cache;
+
+	@BeforeEach
+	void setup() {
+		cache = new SubjectCache(10, Duration.ofMinutes(5),
+				(subject, locale) -> JavaMailSenderTransport.resolveSubject(messageSource, subject, locale), ticker::get);
+	}
+
+	@Test
+	@DisplayName("should resolve and cache subjects by code, locale and arguments")
+	void shouldCacheSubjects() {
+		doReturn("Welcome John").when(messageSource).getMessage(any(MessageSourceResolvable.class), eq(Locale.ENGLISH));
+		doReturn("Willkommen John").when(messageSource).getMessage(any(MessageSourceResolvable.class), eq(Locale.GERMAN));
+
+		assertThat(cache.get(new Subject("welcome", "John"), Locale.ENGLISH)).isEqualTo("Welcome John");
+		assertThat(cache.get(new Subject("welcome", "John"), Locale.ENGLISH)).isEqualTo("Welcome John");
+		assertThat(cache.get(new Subject("welcome", "John"), Locale.GERMAN)).isEqualTo("Willkommen John");
+		assertThat(cache.get(new Subject("welcome", "Jane"), Locale.ENGLISH)).isEqualTo("Welcome John");
+
+		verify(messageSource, times(3)).getMessage(any(MessageSourceResolvable.class), any(Locale.class));
+
+		assertThat(cache.size()).isEqualTo(3);
+		assertThat(cache.statistics())
+			.returns(1L, CacheStatistics::hits)
+			.returns(3L, CacheStatistics::misses);
+	}
+
+	@Test
+	@DisplayName("should cache the subject value when message source lookup fails")
+	void shouldCacheMissingSubjects() {
+		doThrow(NoSuchMessageException.class).when(messageSource)
+			.getMessage(any(MessageSourceResolvable.class), any(Locale.class));
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(cache.get(new Subject("missing-subject-code"), Locale.ENGLISH)).isEqualTo("missing-subject-code");
+		}
+
+		verify(messageSource, times(1)).getMessage(any(MessageSourceResolvable.class), any(Locale.class));
+	}
+
+	@Test
+	@DisplayName("should resolve subjects again once their time-to-live expires")
+	void shouldExpireSubjects() {
+		doReturn("First", "Second").when(messageSource).getMessage(any(MessageSourceResolvable.class), any(Locale.class));
+
+		assertThat(cache.get(new Subject("subject"), Locale.ENGLISH)).isEqualTo("First");
+
+		ticker.addAndGet(Duration.ofMinutes(5).toNanos());
+
+		assertThat(cache.get(new Subject("subject"), Locale.ENGLISH)).isEqualTo("Second");
+	}
+
+}
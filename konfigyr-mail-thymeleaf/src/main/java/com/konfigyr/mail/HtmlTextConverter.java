@@ -0,0 +1,78 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts rendered HTML mail contents into a readable plain text alternative.
+ * <p>
+ * The conversion is intentionally simple: non-visible elements, such as {@code head}, {@code style}
+ * and {@code script}, are removed, block level elements are turned into line breaks, links keep their
+ * target address, all remaining tags are stripped and HTML entities are unescaped.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class HtmlTextConverter {
+
+	private static final Pattern HIDDEN = Pattern.compile(
+			"<(head|style|script|title)\\b[^>]*>.*?</\\1\\s*>|<!--.*?-->", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern LINK = Pattern.compile(
+			"<a\\b[^>]*?href\\s*=\\s*[\"']([^\"']+)[\"'][^>]*>(.*?)</a\\s*>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private static final Pattern LINE_BREAK = Pattern.compile("<br\\s*/?>", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern LIST_ITEM = Pattern.compile("<li\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern BLOCK = Pattern.compile(
+			"</?(p|div|h[1-6]|ul|ol|table|tr|blockquote|pre|hr|section|article|header|footer)\\b[^>]*>",
+			Pattern.CASE_INSENSITIVE);
+
+	private static final Pattern TAG = Pattern.compile("<[^>]+>");
+
+	private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[ \\t\\x0B\\f\\r]+");
+
+	private static final Pattern LINE_INDENT = Pattern.compile("(?m)^ +| +$");
+
+	private static final Pattern EMPTY_LINES = Pattern.compile("\\n{3,}");
+
+	private HtmlTextConverter() {
+	}
+
+	/**
+	 * Converts the given HTML contents into plain text.
+	 *
+	 * @param html the HTML contents to convert, can't be {@literal null}
+	 * @return plain text contents, never {@literal null}
+	 */
+	static String convert(String html) {
+		String text = HIDDEN.matcher(html).replaceAll("");
+		text = text.replace('\n', ' ');
+		text = LINK.matcher(text).replaceAll(result -> {
+			final String href = result.group(1);
+			final String label = TAG.matcher(result.group(2)).replaceAll("").trim();
+
+			if (label.isEmpty() || label.equals(href)) {
+				return Matcher.quoteReplacement(href);
+			}
+			return Matcher.quoteReplacement(label + " (" + href + ")");
+		});
+		text = LINE_BREAK.matcher(text).replaceAll("\n");
+		text = LIST_ITEM.matcher(text).replaceAll("\n- ");
+		text = BLOCK.matcher(text).replaceAll("\n\n");
+		text = TAG.matcher(text).replaceAll("");
+		text = HtmlEscape.unescapeHtml(text);
+		text = text.replace('\u00A0', ' ');
+		text = HORIZONTAL_WHITESPACE.matcher(text).replaceAll(" ");
+		text = LINE_INDENT.matcher(text).replaceAll("");
+		text = EMPTY_LINES.matcher(text).replaceAll("\n\n");
+
+		return text.strip();
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheEntryValidityChecker;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.engine.TemplateModel;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Thymeleaf template {@link ICache} used by the dedicated mail template engine that records cache
+ * hits and misses for every mail template.
+ * <p>
+ * Storage, eviction and expiration of the parsed templates is delegated to the Thymeleaf cache
+ * this instance wraps, this cache only keeps track of how effective it is for each template.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ * @see ThymeleafTemplateEngineProperties.Cache
+ **/
+@NullMarked
+public final class ThymeleafTemplateCache implements ICache<TemplateCacheKey, TemplateModel> {
+
+	private final ICache<TemplateCacheKey, TemplateModel> delegate;
+	private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+	ThymeleafTemplateCache(ICache<TemplateCacheKey, TemplateModel> delegate) {
+		Assert.notNull(delegate, "Thymeleaf template cache can not be null");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void put(TemplateCacheKey key, TemplateModel value) {
+		delegate.put(key, value);
+	}
+
+	@Nullable
+	@Override
+	public TemplateModel get(TemplateCacheKey key) {
+		return record(key, delegate.get(key));
+	}
+
+	@Nullable
+	@Override
+	public TemplateModel get(TemplateCacheKey key,
+			ICacheEntryValidityChecker<? super TemplateCacheKey, ? super TemplateModel> validityChecker) {
+		return record(key, delegate.get(key, validityChecker));
+	}
+
+	@Override
+	public void clear() {
+		delegate.clear();
+	}
+
+	@Override
+	public void clearKey(TemplateCacheKey key) {
+		delegate.clearKey(key);
+	}
+
+	@Override
+	public Set<TemplateCacheKey> keySet() {
+		return delegate.keySet();
+	}
+
+	/**
+	 * Returns the cache statistics for every mail template that was looked up in this cache.
+	 *
+	 * @return template statistics keyed by template name, never {@literal null}
+	 */
+	public Map<String, Statistics> statistics() {
+		return counters.entrySet().stream()
+			.collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().snapshot()));
+	}
+
+	/**
+	 * Returns the cache statistics for a single mail template.
+	 *
+	 * @param template the template name, can't be {@literal null}
+	 * @return template statistics, never {@literal null}
+	 */
+	public Statistics statistics(String template) {
+		final Counters entry = counters.get(template);
+		return entry == null ? Statistics.EMPTY : entry.snapshot();
+	}
+
+	/**
+	 * Resets the recorded statistics for all templates, without clearing the cached templates.
+	 */
+	void resetStatistics() {
+		counters.clear();
+	}
+
+	@Nullable
+	private TemplateModel record(TemplateCacheKey key, @Nullable TemplateModel value) {
+		final Counters entry = counters.computeIfAbsent(key.getTemplate(), ignore -> new Counters());
+
+		if (value == null) {
+			entry.misses.increment();
+		} else {
+			entry.hits.increment();
+		}
+
+		return value;
+	}
+
+	/**
+	 * Immutable snapshot of the cache statistics for a single mail template.
+	 *
+	 * @param hits number of lookups that found a cached template
+	 * @param misses number of lookups that required the template to be parsed
+	 */
+	public record Statistics(long hits, long misses) {
+
+		static final Statistics EMPTY = new Statistics(0, 0);
+
+		/**
+		 * Returns the total number of cache lookups for the template.
+		 * @return number of lookups
+		 */
+		public long lookups() {
+			return hits + misses;
+		}
+
+		/**
+		 * Returns the ratio of lookups that found a cached template.
+		 * @return hit ratio between {@code 0} and {@code 1}, or {@code 0} when there were no lookups
+		 */
+		public double hitRatio() {
+			final long lookups = lookups();
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+
+	}
+
+	private static final class Counters {
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		Statistics snapshot() {
+			return new Statistics(hits.sum(), misses.sum());
+		}
+	}
+
+}
@@ -1,13 +1,31 @@
 package com.konfigyr.mail;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+import org.springframework.util.StringUtils;
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.ITemplateEngine;
-import org.thymeleaf.context.Context;
 import org.thymeleaf.context.IContext;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of the {@link TemplateEngine} that uses the Thymeleaf
  * {@link ITemplateEngine} to retrieve and process mail templates.
+ * <p>
+ * Rendered HTML templates can carry a plain text {@link Template#alternative() alternative}, as
+ * configured by the {@link TextAlternative} strategy. The plain text alternative is either rendered
+ * from a sibling {@code .txt} template, e.g. {@code emails/welcome.txt} for the {@code emails/welcome}
+ * template, or is derived from the rendered HTML. Both templates are rendered using the same Thymeleaf
+ * {@link IContext}, which means that lazily resolved attributes, such as the
+ * {@link org.thymeleaf.context.LazyContextVariable}, are only resolved once.
  *
  * @see ITemplateEngine
  * @author Vladimir Spasic
@@ -15,7 +33,17 @@ import org.thymeleaf.context.IContext;
  **/
 public class ThymeleafTemplateEngine implements TemplateEngine {
 
+	/**
+	 * Suffix of the sibling template that is rendered as the plain text alternative.
+	 */
+	static final String TEXT_SUFFIX = ".txt";
+
+	private static final String HTML_SUFFIX = ".html";
+
 	private final ITemplateEngine thymeleaf;
+	private final int bufferThreshold;
+	private final TextAlternative textAlternative;
+	private final Map<String, Boolean> alternatives = new ConcurrentHashMap<>();
 
 	/**
 	 * Creates a new {@link ThymeleafTemplateEngine} that delegates template rendering
@@ -23,13 +51,52 @@ public class ThymeleafTemplateEngine implements TemplateEngine {
 	 * @param thymeleaf Thymeleaf template engine to use, can't be {@literal null}
 	 */
 	public ThymeleafTemplateEngine(ITemplateEngine thymeleaf) {
+		this(thymeleaf, TemplateBuffer.DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new {@link ThymeleafTemplateEngine} that delegates template rendering
+	 * to the given Thymeleaf {@link ITemplateEngine} and streams the rendered contents
+	 * into a {@link TemplateBuffer} with the given threshold.
+	 * @param thymeleaf Thymeleaf template engine to use, can't be {@literal null}
+	 * @param bufferThreshold number of bytes kept in memory before the rendered contents are
+	 * spilled into a temporary file
+	 * @since 1.1.0
+	 */
+	public ThymeleafTemplateEngine(ITemplateEngine thymeleaf, int bufferThreshold) {
+		this(thymeleaf, bufferThreshold, TextAlternative.TEMPLATE);
+	}
+
+	/**
+	 * Creates a new {@link ThymeleafTemplateEngine} that delegates template rendering
+	 * to the given Thymeleaf {@link ITemplateEngine}, streams the rendered contents into
+	 * a {@link TemplateBuffer} with the given threshold and renders the plain text
+	 * alternative using the given strategy.
+	 * @param thymeleaf Thymeleaf template engine to use, can't be {@literal null}
+	 * @param bufferThreshold number of bytes kept in memory before the rendered contents are
+	 * spilled into a temporary file
+	 * @param textAlternative strategy used to render the plain text alternative, can't be {@literal null}
+	 * @since 1.1.0
+	 */
+	public ThymeleafTemplateEngine(ITemplateEngine thymeleaf, int bufferThreshold, TextAlternative textAlternative) {
+		Assert.notNull(thymeleaf, "Thymeleaf template engine can not be null");
+		Assert.isTrue(bufferThreshold >= 0, "Template buffer threshold can not be negative");
+		Assert.notNull(textAlternative, "Text alternative strategy can not be null");
+
 		this.thymeleaf = thymeleaf;
+		this.bufferThreshold = bufferThreshold;
+		this.textAlternative = textAlternative;
 	}
 
 	/**
-	 * Processes the template named by {@link Mail#template()} using a Thymeleaf
-	 * {@link org.thymeleaf.context.Context} populated with the mail's locale and
-	 * attributes. Always returns a {@link Template#html(String) HTML} template.
+	 * Processes the template named by {@link Mail#template()} using a Thymeleaf {@link IContext} that
+	 * exposes the mail's locale and attributes, without copying the attributes into a
+	 * {@link org.thymeleaf.context.Context}. The dedicated mail engine reads the attributes directly from
+	 * this context, other Thymeleaf engines copy them into the engine context of the template.
+	 * <p>
+	 * Always returns a {@link Template#buffered(TemplateBuffer, MimeType) buffered} HTML template, the
+	 * rendered output is streamed into a {@link TemplateBuffer} instead of being materialized as a
+	 * {@link String}. The plain text alternative, if any, is rendered using the same {@link IContext}.
 	 * <p>
 	 * Thymeleaf processing errors are propagated as the unchecked
 	 * {@link org.thymeleaf.exceptions.TemplateEngineException} rather than {@link java.io.IOException}.
@@ -40,10 +107,140 @@ public class ThymeleafTemplateEngine implements TemplateEngine {
 	@NonNull
 	@Override
 	public Template render(@NonNull Mail mail) {
-		final IContext context = new Context(mail.locale(), mail.attributes());
-		final String contents = thymeleaf.process(mail.template(), context);
+		final IContext context = new MailContext(mail);
+		final Template html = process(mail.template(), context, Template.HTML);
+
+		if (textAlternative == TextAlternative.NONE) {
+			return html;
+		}
+
+		final Template text;
+
+		try {
+			text = alternative(mail.template(), context, html);
+		} catch (RuntimeException ex) {
+			html.release();
+			throw ex;
+		}
+
+		return text == null ? html : html.withAlternative(text);
+	}
+
+	@Nullable
+	private Template alternative(String template, IContext context, Template html) {
+		final String name = (template.endsWith(HTML_SUFFIX)
+				? template.substring(0, template.length() - HTML_SUFFIX.length())
+				: template) + TEXT_SUFFIX;
+
+		if (exists(name)) {
+			return process(name, context, Template.TEXT);
+		}
+
+		if (textAlternative == TextAlternative.DERIVED) {
+			final String text = HtmlTextConverter.convert(html.contents());
+			return StringUtils.hasText(text) ? Template.text(text) : null;
+		}
+
+		return null;
+	}
+
+	private Template process(String template, IContext context, MimeType contentType) {
+		final TemplateBuffer buffer = new TemplateBuffer(bufferThreshold);
+
+		try {
+			thymeleaf.process(template, context, buffer);
+		} catch (RuntimeException ex) {
+			buffer.release();
+			throw ex;
+		}
+
+		return Template.buffered(buffer, contentType);
+	}
+
+	/**
+	 * Checks if the template can be resolved by the Thymeleaf template resolvers, using the same rules as
+	 * the Thymeleaf engine: the first resolver that returns a resolution determines whether the template
+	 * exists. The outcome is remembered for templates whose resolutions are cacheable.
+	 */
+	private boolean exists(String template) {
+		final Boolean cached = alternatives.get(template);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		final IEngineConfiguration configuration = thymeleaf.getConfiguration();
+
+		for (ITemplateResolver resolver : configuration.getTemplateResolvers()) {
+			final TemplateResolution resolution = resolver.resolveTemplate(configuration, null, template, null);
+
+			if (resolution != null) {
+				final boolean exists = resolution.isTemplateResourceExistenceVerified()
+						|| resolution.getTemplateResource().exists();
+
+				if (resolution.getValidity().isCacheable()) {
+					alternatives.put(template, exists);
+				}
+
+				return exists;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Defines how the plain text alternative of the rendered HTML template is created.
+	 *
+	 * @since 1.1.0
+	 */
+	public enum TextAlternative {
+
+		/**
+		 * Mails are sent only with the rendered HTML template.
+		 */
+		NONE,
+
+		/**
+		 * The plain text alternative is rendered from the sibling {@code .txt} template, when one exists.
+		 */
+		TEMPLATE,
+
+		/**
+		 * The plain text alternative is rendered from the sibling {@code .txt} template, when one exists,
+		 * otherwise it is derived from the rendered HTML template.
+		 */
+		DERIVED
+
+	}
+
+	/**
+	 * Thymeleaf {@link IContext} that reads the variables directly from the {@link Mail#attributes()},
+	 * which may be a {@link LayeredAttributes} view, instead of copying them into a new map.
+	 */
+	record MailContext(Mail mail) implements IContext {
+
+		@Override
+		public Locale getLocale() {
+			return mail.locale();
+		}
+
+		@Override
+		public boolean containsVariable(String name) {
+			return mail.attributes().containsKey(name);
+		}
+
+		@Override
+		public Set<String> getVariableNames() {
+			return mail.attributes().keySet();
+		}
+
+		@Nullable
+		@Override
+		public Object getVariable(String name) {
+			return mail.attributes().get(name);
+		}
 
-		return Template.html(contents);
 	}
 
 }
@@ -1,17 +1,28 @@
 package com.konfigyr.mail;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.thymeleaf.autoconfigure.ThymeleafAutoConfiguration;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.spring6.SpringTemplateEngine;
 
 /**
  * Autoconfiguration class that would register the {@link TemplateEngine} that is using
  * {@link ITemplateEngine} to generate {@link Template mail templates}.
+ * <p>
+ * By default, the {@link TemplateEngine} uses the Thymeleaf {@link ITemplateEngine} that is shared
+ * with the web layer. When the {@code spring.mail.thymeleaf.dedicated} property is set, mail templates
+ * are rendered by a dedicated Thymeleaf engine with its own bounded {@link ThymeleafTemplateCache},
+ * which is warmed up on startup unless {@code spring.mail.thymeleaf.warm-up} is disabled.
  *
  * @author Vladimir Spasic
  * @since 1.0.0
@@ -21,6 +32,7 @@ import org.thymeleaf.ITemplateEngine;
 @ConditionalOnMissingBean(TemplateEngine.class)
 @AutoConfigureBefore(MailerAutoConfiguration.class)
 @AutoConfigureAfter(ThymeleafAutoConfiguration.class)
+@EnableConfigurationProperties(ThymeleafTemplateEngineProperties.class)
 public class ThymeleafTemplateEngineAutoConfiguration {
 
 	/** Creates a new {@link ThymeleafTemplateEngineAutoConfiguration} instance. */
@@ -28,8 +40,39 @@ public class ThymeleafTemplateEngineAutoConfiguration {
 	}
 
 	@Bean
-	TemplateEngine thymeleafMailTemplateEngine(ITemplateEngine thymeleaf) {
-		return new ThymeleafTemplateEngine(thymeleaf);
+	@ConditionalOnProperty(prefix = ThymeleafTemplateEngineProperties.PREFIX, name = "dedicated",
+			havingValue = "false", matchIfMissing = true)
+	TemplateEngine thymeleafMailTemplateEngine(ITemplateEngine thymeleaf, ThymeleafTemplateEngineProperties properties) {
+		return create(thymeleaf, properties);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = ThymeleafTemplateEngineProperties.PREFIX, name = "dedicated", havingValue = "true")
+	ThymeleafTemplateCache thymeleafMailTemplateCache(ThymeleafTemplateEngineProperties properties) {
+		return ThymeleafTemplateEngines.cache(properties.getCache());
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = ThymeleafTemplateEngineProperties.PREFIX, name = "dedicated", havingValue = "true")
+	TemplateEngine dedicatedThymeleafMailTemplateEngine(
+		ThymeleafTemplateEngineProperties properties,
+		ThymeleafTemplateCache cache,
+		ObjectProvider<IDialect> dialects,
+		ApplicationContext context
+	) {
+		final SpringTemplateEngine engine = ThymeleafTemplateEngines.dedicated(properties, context, cache,
+				dialects.orderedStream());
+
+		if (properties.isWarmUp()) {
+			ThymeleafTemplateEngines.warmUp(engine, properties, context, cache);
+		}
+
+		return create(engine, properties);
+	}
+
+	private static TemplateEngine create(ITemplateEngine thymeleaf, ThymeleafTemplateEngineProperties properties) {
+		return new ThymeleafTemplateEngine(thymeleaf, Math.toIntExact(properties.getBufferThreshold().toBytes()),
+				properties.getTextAlternative());
 	}
 
 }
@@ -0,0 +1,273 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Configuration properties used by the {@link ThymeleafTemplateEngineAutoConfiguration} to configure
+ * the Thymeleaf engine that renders mail templates.
+ * <p>
+ * By default, mail templates are rendered by the Thymeleaf {@link org.thymeleaf.ITemplateEngine} that
+ * is shared with the web layer. When {@code spring.mail.thymeleaf.dedicated} is enabled, mail templates
+ * are rendered by a dedicated engine with its own template location and bounded template cache, which
+ * is warmed up on startup.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+@ConfigurationProperties(prefix = ThymeleafTemplateEngineProperties.PREFIX)
+public class ThymeleafTemplateEngineProperties {
+
+	static final String PREFIX = "spring.mail.thymeleaf";
+
+	/**
+	 * Whether mail templates should be rendered by a dedicated Thymeleaf engine instead of the
+	 * engine shared with the web layer.
+	 */
+	private boolean dedicated = false;
+
+	/**
+	 * Prefix that gets prepended to mail template names when building the template location.
+	 */
+	private String prefix = "classpath:/templates/";
+
+	/**
+	 * Suffix that gets appended to mail template names when building the template location.
+	 */
+	private String suffix = ".html";
+
+	/**
+	 * Template mode to be applied to mail templates.
+	 */
+	private TemplateMode mode = TemplateMode.HTML;
+
+	/**
+	 * Encoding of the mail template files.
+	 */
+	private Charset encoding = StandardCharsets.UTF_8;
+
+	/**
+	 * Whether all mail templates found under the template location should be parsed and cached on startup.
+	 */
+	private boolean warmUp = true;
+
+	/**
+	 * Strategy used to create the plain text alternative of rendered HTML mail templates.
+	 */
+	private ThymeleafTemplateEngine.TextAlternative textAlternative = ThymeleafTemplateEngine.TextAlternative.TEMPLATE;
+
+	/**
+	 * Amount of rendered template contents that is kept in memory before it is spilled into a
+	 * temporary file. Applies to both the shared and the dedicated engine.
+	 */
+	private DataSize bufferThreshold = DataSize.ofKilobytes(256);
+
+	/**
+	 * Configuration of the dedicated mail template cache.
+	 */
+	private final Cache cache = new Cache();
+
+	/** Creates a new {@link ThymeleafTemplateEngineProperties} instance. */
+	public ThymeleafTemplateEngineProperties() {
+	}
+
+	/**
+	 * Returns whether mail templates are rendered by a dedicated Thymeleaf engine.
+	 * @return {@literal true} when a dedicated engine should be used
+	 */
+	public boolean isDedicated() {
+		return dedicated;
+	}
+
+	/**
+	 * Sets whether mail templates are rendered by a dedicated Thymeleaf engine.
+	 * @param dedicated {@literal true} when a dedicated engine should be used
+	 */
+	public void setDedicated(boolean dedicated) {
+		this.dedicated = dedicated;
+	}
+
+	/**
+	 * Returns the prefix that is prepended to mail template names.
+	 * @return template location prefix, never {@literal null}
+	 */
+	public String getPrefix() {
+		return prefix;
+	}
+
+	/**
+	 * Sets the prefix that is prepended to mail template names.
+	 * @param prefix template location prefix
+	 */
+	public void setPrefix(String prefix) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * Returns the suffix that is appended to mail template names.
+	 * @return template location suffix, never {@literal null}
+	 */
+	public String getSuffix() {
+		return suffix;
+	}
+
+	/**
+	 * Sets the suffix that is appended to mail template names.
+	 * @param suffix template location suffix
+	 */
+	public void setSuffix(String suffix) {
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Returns the template mode applied to mail templates.
+	 * @return template mode, never {@literal null}
+	 */
+	public TemplateMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Sets the template mode applied to mail templates.
+	 * @param mode template mode
+	 */
+	public void setMode(TemplateMode mode) {
+		this.mode = mode;
+	}
+
+	/**
+	 * Returns the encoding of the mail template files.
+	 * @return template encoding, never {@literal null}
+	 */
+	public Charset getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Sets the encoding of the mail template files.
+	 * @param encoding template encoding
+	 */
+	public void setEncoding(Charset encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Returns whether mail templates are parsed and cached on startup.
+	 * @return {@literal true} when templates should be warmed up
+	 */
+	public boolean isWarmUp() {
+		return warmUp;
+	}
+
+	/**
+	 * Sets whether mail templates are parsed and cached on startup.
+	 * @param warmUp {@literal true} when templates should be warmed up
+	 */
+	public void setWarmUp(boolean warmUp) {
+		this.warmUp = warmUp;
+	}
+
+	/**
+	 * Returns the strategy used to create the plain text alternative.
+	 * @return text alternative strategy, never {@literal null}
+	 */
+	public ThymeleafTemplateEngine.TextAlternative getTextAlternative() {
+		return textAlternative;
+	}
+
+	/**
+	 * Sets the strategy used to create the plain text alternative.
+	 * @param textAlternative text alternative strategy
+	 */
+	public void setTextAlternative(ThymeleafTemplateEngine.TextAlternative textAlternative) {
+		this.textAlternative = textAlternative;
+	}
+
+	/**
+	 * Returns the amount of rendered contents that is kept in memory.
+	 * @return template buffer threshold, never {@literal null}
+	 */
+	public DataSize getBufferThreshold() {
+		return bufferThreshold;
+	}
+
+	/**
+	 * Sets the amount of rendered contents that is kept in memory.
+	 * @param bufferThreshold template buffer threshold
+	 */
+	public void setBufferThreshold(DataSize bufferThreshold) {
+		this.bufferThreshold = bufferThreshold;
+	}
+
+	/**
+	 * Returns the configuration of the dedicated mail template cache.
+	 * @return template cache properties, never {@literal null}
+	 */
+	public Cache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Configuration of the bounded cache that keeps the parsed mail templates.
+	 */
+	public static class Cache {
+
+		/**
+		 * Maximum number of parsed mail templates that are kept in the cache.
+		 */
+		private int maxSize = 200;
+
+		/**
+		 * Time limit for which a parsed mail template is kept in the cache. When not set, cached
+		 * templates do not expire.
+		 */
+		private @Nullable Duration ttl;
+
+		/** Creates a new {@link Cache} instance. */
+		public Cache() {
+		}
+
+		/**
+		 * Returns the maximum number of cached mail templates.
+		 * @return maximum cache size
+		 */
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		/**
+		 * Sets the maximum number of cached mail templates.
+		 * @param maxSize maximum cache size
+		 */
+		public void setMaxSize(int maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Returns the time limit for which a parsed mail template is cached.
+		 * @return cache time to live, or {@literal null} when templates do not expire
+		 */
+		@Nullable
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		/**
+		 * Sets the time limit for which a parsed mail template is cached.
+		 * @param ttl cache time to live, or {@literal null} when templates should not expire
+		 */
+		public void setTtl(@Nullable Duration ttl) {
+			this.ttl = ttl;
+		}
+
+	}
+
+}
@@ -0,0 +1,333 @@
+package com.konfigyr.mail;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.thymeleaf.cache.ExpressionCacheKey;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.EngineContext;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.IEngineContext;
+import org.thymeleaf.context.IEngineContextFactory;
+import org.thymeleaf.context.StandardEngineContextFactory;
+import org.thymeleaf.dialect.IDialect;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.TemplateResolution;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Factory methods for the dedicated Thymeleaf engine that is used by the {@link ThymeleafTemplateEngine}
+ * to render mail templates.
+ *
+ * @author Vladimir Spasic
+ * @since 1.1.0
+ **/
+@NullMarked
+final class ThymeleafTemplateEngines {
+
+	private static final Logger log = LoggerFactory.getLogger(ThymeleafTemplateEngines.class);
+
+	private static final String CLASSPATH_URL_PREFIX = ResourcePatternResolver.CLASSPATH_URL_PREFIX;
+	private static final String CLASSPATH_ALL_URL_PREFIX = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX;
+
+	private ThymeleafTemplateEngines() {
+	}
+
+	/**
+	 * Creates a bounded {@link ThymeleafTemplateCache} configured from the given properties.
+	 *
+	 * @param properties template cache properties, can't be {@literal null}
+	 * @return mail template cache, never {@literal null}
+	 */
+	static ThymeleafTemplateCache cache(ThymeleafTemplateEngineProperties.Cache properties) {
+		Assert.isTrue(properties.getMaxSize() > 0, "Mail template cache max size must be greater than zero");
+
+		final StandardCacheManager manager = new StandardCacheManager();
+		manager.setTemplateCacheMaxSize(properties.getMaxSize());
+
+		return new ThymeleafTemplateCache(manager.getTemplateCache());
+	}
+
+	/**
+	 * Creates a Thymeleaf engine dedicated to mail templates, that resolves templates from the configured
+	 * location and keeps the parsed templates in the given {@link ThymeleafTemplateCache}. The engine reads
+	 * the template variables directly from the {@link Mail#attributes() mail attributes}, instead of copying
+	 * them into the engine context of every rendered template.
+	 *
+	 * @param properties Thymeleaf mail properties, can't be {@literal null}
+	 * @param context application context used to load templates and resolve messages, can't be {@literal null}
+	 * @param cache the mail template cache, can't be {@literal null}
+	 * @param dialects additional dialects to be registered with the engine, can't be {@literal null}
+	 * @return dedicated Thymeleaf engine, never {@literal null}
+	 */
+	static SpringTemplateEngine dedicated(ThymeleafTemplateEngineProperties properties, ApplicationContext context,
+			ThymeleafTemplateCache cache, Stream<IDialect> dialects) {
+		final SpringResourceTemplateResolver resolver = new SpringResourceTemplateResolver();
+		resolver.setApplicationContext(context);
+		resolver.setPrefix(properties.getPrefix());
+		resolver.setSuffix(properties.getSuffix());
+		resolver.setTemplateMode(properties.getMode());
+		resolver.setCharacterEncoding(properties.getEncoding().name());
+		resolver.setCheckExistence(true);
+		resolver.setCacheable(true);
+
+		final Duration ttl = properties.getCache().getTtl();
+
+		if (ttl != null) {
+			resolver.setCacheTTLMs(ttl.toMillis());
+		}
+
+		final SpringTemplateEngine engine = new SpringTemplateEngine();
+		engine.setTemplateResolver(resolver);
+		engine.setTemplateEngineMessageSource(context);
+		engine.setCacheManager(new CacheManager(cache));
+		engine.setEngineContextFactory(new EngineContextFactory());
+		dialects.forEach(engine::addDialect);
+
+		return engine;
+	}
+
+	/**
+	 * Parses every template found under the configured template location, so they are cached
+	 * before the first mail is rendered.
+	 * <p>
+	 * Templates are only parsed by the Thymeleaf {@link TemplateManager}, they are not processed, which
+	 * means that no expressions are evaluated and no dialect processors are executed during the warm-up.
+	 * Templates that fail to be parsed are logged and left out of the cache.
+	 *
+	 * @param engine the dedicated engine, can't be {@literal null}
+	 * @param properties Thymeleaf mail properties, can't be {@literal null}
+	 * @param resolver resolver used to look up the template files, can't be {@literal null}
+	 * @param cache the mail template cache, can't be {@literal null}
+	 */
+	static void warmUp(SpringTemplateEngine engine, ThymeleafTemplateEngineProperties properties,
+			ResourcePatternResolver resolver, ThymeleafTemplateCache cache) {
+		final Set<String> templates;
+
+		try {
+			templates = templates(resolver, properties.getPrefix(), properties.getSuffix());
+		} catch (IOException ex) {
+			log.warn("Failed to lookup mail templates in '{}', skipping warm-up", properties.getPrefix(), ex);
+			return;
+		}
+
+		final IEngineConfiguration configuration = engine.getConfiguration();
+
+		for (String template : templates) {
+			try {
+				parse(configuration, template, cache);
+			} catch (RuntimeException ex) {
+				log.warn("Failed to parse mail template '{}' during warm-up", template, ex);
+			}
+		}
+
+		cache.resetStatistics();
+
+		log.info("Warmed up {} mail template(s) from '{}', {} cached", templates.size(), properties.getPrefix(),
+				cache.keySet().size());
+	}
+
+	/**
+	 * Parses the template using the {@link TemplateManager} of the engine and stores the parsed
+	 * {@link TemplateModel} in the cache, under the same key the engine uses to look it up when the
+	 * template is processed. Templates whose resolution is not cacheable are not parsed.
+	 *
+	 * @param configuration the engine configuration, can't be {@literal null}
+	 * @param template the template name, can't be {@literal null}
+	 * @param cache the mail template cache, can't be {@literal null}
+	 */
+	static void parse(IEngineConfiguration configuration, String template, ThymeleafTemplateCache cache) {
+		final TemplateResolution resolution = configuration.getTemplateResolvers().stream()
+			.map(resolver -> resolver.resolveTemplate(configuration, null, template, null))
+			.filter(Objects::nonNull)
+			.findFirst()
+			.orElseThrow(() -> new IllegalStateException("Mail template '" + template + "' can not be resolved"));
+
+		if (!resolution.getValidity().isCacheable()) {
+			return;
+		}
+
+		final TemplateData data = new TemplateData(template, null, resolution.getTemplateResource(),
+				resolution.getTemplateMode(), resolution.getValidity());
+		final IEngineContext context = new EngineContext(configuration, data, null, Locale.ROOT,
+				Collections.emptyMap());
+
+		final TemplateModel model = configuration.getTemplateManager()
+			.parseStandalone(context, template, null, null, false, true);
+
+		// the key created by the engine for top-level templates that are processed by their name
+		final TemplateSpec spec = new TemplateSpec(template, (TemplateMode) null);
+
+		cache.put(new TemplateCacheKey(null, spec.getTemplate(), spec.getTemplateSelectors(), -1, -1,
+				spec.getTemplateMode(), spec.getTemplateResolutionAttributes()), model);
+	}
+
+	/**
+	 * Looks up the names of all templates stored under the template location defined by the prefix,
+	 * with the matching suffix.
+	 *
+	 * @param resolver resolver used to look up the template files
+	 * @param prefix template location prefix
+	 * @param suffix template file suffix
+	 * @return sorted template names, never {@literal null}
+	 * @throws IOException when template files can not be looked up
+	 */
+	static Set<String> templates(ResourcePatternResolver resolver, String prefix, String suffix) throws IOException {
+		final String location = prefix.startsWith(CLASSPATH_URL_PREFIX)
+				? CLASSPATH_ALL_URL_PREFIX + prefix.substring(CLASSPATH_URL_PREFIX.length())
+				: prefix;
+
+		final List<String> roots = Stream.of(resolver.getResources(location))
+			.filter(Resource::exists)
+			.map(ThymeleafTemplateEngines::url)
+			.toList();
+
+		final Set<String> templates = new TreeSet<>();
+
+		for (Resource resource : resolver.getResources(location + "**/*" + suffix)) {
+			final String url = url(resource);
+
+			roots.stream()
+				.filter(url::startsWith)
+				.findFirst()
+				.map(root -> url.substring(root.length(), url.length() - suffix.length()))
+				.filter(StringUtils::hasText)
+				.ifPresent(templates::add);
+		}
+
+		return templates;
+	}
+
+	private static String url(Resource resource) {
+		try {
+			return StringUtils.cleanPath(resource.getURL().toString());
+		} catch (IOException ex) {
+			throw new IllegalStateException("Failed to resolve URL of the mail template resource: " + resource, ex);
+		}
+	}
+
+	/**
+	 * Thymeleaf {@link IEngineContextFactory} that creates a {@link MailEngineContext} for the mails rendered by
+	 * the {@link ThymeleafTemplateEngine}, and delegates any other context to the
+	 * {@link StandardEngineContextFactory}, which copies the context variables.
+	 */
+	private static final class EngineContextFactory implements IEngineContextFactory {
+
+		private final IEngineContextFactory delegate = new StandardEngineContextFactory();
+
+		@Override
+		public IEngineContext createEngineContext(IEngineConfiguration configuration, TemplateData templateData,
+				@Nullable Map<String, Object> templateResolutionAttributes, IContext context) {
+			if (context instanceof ThymeleafTemplateEngine.MailContext mail) {
+				return new MailEngineContext(configuration, templateData, templateResolutionAttributes, mail.mail());
+			}
+			return delegate.createEngineContext(configuration, templateData, templateResolutionAttributes, context);
+		}
+
+	}
+
+	/**
+	 * Thymeleaf {@link EngineContext} that looks up the variables which are not defined by the template itself,
+	 * like the ones declared by {@code th:with} or {@code th:each}, in the {@link Mail#attributes()}. The mail
+	 * attributes, which may be a {@link LayeredAttributes} view, are never copied.
+	 */
+	static final class MailEngineContext extends EngineContext {
+
+		private final Map<String, Object> attributes;
+
+		MailEngineContext(IEngineConfiguration configuration, TemplateData templateData,
+				@Nullable Map<String, Object> templateResolutionAttributes, Mail mail) {
+			super(configuration, templateData, templateResolutionAttributes, mail.locale(), Collections.emptyMap());
+			this.attributes = mail.attributes();
+		}
+
+		@Override
+		public boolean containsVariable(String name) {
+			return super.containsVariable(name) || attributes.containsKey(name);
+		}
+
+		@Nullable
+		@Override
+		public Object getVariable(String name) {
+			final Object value = super.getVariable(name);
+			return value != null || super.containsVariable(name) ? value : attributes.get(name);
+		}
+
+		@Override
+		public Set<String> getVariableNames() {
+			final Set<String> names = new LinkedHashSet<>(attributes.keySet());
+			names.addAll(super.getVariableNames());
+			return names;
+		}
+
+	}
+
+	/**
+	 * Thymeleaf {@link ICacheManager} that stores parsed templates in the {@link ThymeleafTemplateCache}
+	 * and delegates the remaining caches to the {@link StandardCacheManager}.
+	 */
+	private static final class CacheManager implements ICacheManager {
+
+		private final StandardCacheManager delegate = new StandardCacheManager();
+		private final ThymeleafTemplateCache templates;
+
+		private CacheManager(ThymeleafTemplateCache templates) {
+			this.templates = templates;
+		}
+
+		@Override
+		public ICache<TemplateCacheKey, TemplateModel> getTemplateCache() {
+			return templates;
+		}
+
+		@Override
+		public ICache<ExpressionCacheKey, Object> getExpressionCache() {
+			return delegate.getExpressionCache();
+		}
+
+		@Override
+		public <K, V> ICache<K, V> getSpecificCache(String name) {
+			return delegate.getSpecificCache(name);
+		}
+
+		@Override
+		public List<String> getAllSpecificCacheNames() {
+			return delegate.getAllSpecificCacheNames();
+		}
+
+		@Override
+		public void clearAllCaches() {
+			templates.clear();
+			delegate.clearAllCaches();
+		}
+
+	}
+
+}
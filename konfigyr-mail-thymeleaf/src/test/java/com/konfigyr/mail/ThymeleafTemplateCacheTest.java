@@ -0,0 +1,131 @@
+package com.konfigyr.mail;
+
+import com.konfigyr.mail.test.TemplateAssert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThymeleafTemplateCacheTest {
+
+	ThymeleafTemplateEngineProperties properties;
+	GenericApplicationContext context;
+	ThymeleafTemplateCache cache;
+	SpringTemplateEngine engine;
+
+	@BeforeEach
+	void setup() {
+		properties = new ThymeleafTemplateEngineProperties();
+		context = new GenericApplicationContext();
+		context.refresh();
+
+		cache = ThymeleafTemplateEngines.cache(properties.getCache());
+		engine = ThymeleafTemplateEngines.dedicated(properties, context, cache, Stream.empty());
+	}
+
+	@Test
+	@DisplayName("should lookup all templates under the template location")
+	void shouldLookupTemplates() throws Exception {
+		assertThat(ThymeleafTemplateEngines.templates(context, properties.getPrefix(), properties.getSuffix()))
+			.containsExactly("alternative-template", "emails/nested-template", "test-template");
+	}
+
+	@Test
+	@DisplayName("should parse and cache all templates during warm-up")
+	void shouldWarmUpTemplates() {
+		ThymeleafTemplateEngines.warmUp(engine, properties, context, cache);
+
+		assertThat(cache.keySet())
+			.hasSize(3);
+
+		assertThat(cache.statistics())
+			.as("should reset statistics after the warm-up")
+			.isEmpty();
+	}
+
+	@Test
+	@DisplayName("should render warmed up templates from the cache without parsing them again")
+	void shouldRenderWarmedUpTemplates() {
+		ThymeleafTemplateEngines.warmUp(engine, properties, context, cache);
+
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.attribute("user", "John Doe")
+			.to("to@konfigyr.com")
+			.locale(Locale.ENGLISH)
+			.build();
+
+		TemplateAssert.assertThat(new ThymeleafTemplateEngine(engine).render(mail))
+			.isHtml()
+			.contentsContain("<h1>Greetings John Doe,</h1>");
+
+		assertThat(cache.statistics("test-template"))
+			.returns(1L, ThymeleafTemplateCache.Statistics::hits)
+			.returns(0L, ThymeleafTemplateCache.Statistics::misses);
+	}
+
+	@Test
+	@DisplayName("should read the template variables from the mail attributes without copying them")
+	void shouldNotCopyMailAttributes() {
+		final Map<String, Object> shared = new HashMap<>(Map.of("user", "Jane Doe")) {
+			@Override
+			public Set<Entry<String, Object>> entrySet() {
+				throw new UnsupportedOperationException("Shared attributes should not be copied");
+			}
+		};
+
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.sharedAttributes(shared)
+			.attribute("greeting", "Hello")
+			.to("to@konfigyr.com")
+			.locale(Locale.ENGLISH)
+			.build();
+
+		TemplateAssert.assertThat(new ThymeleafTemplateEngine(engine).render(mail))
+			.isHtml()
+			.contentsContain("<h1>Greetings Jane Doe,</h1>");
+	}
+
+	@Test
+	@DisplayName("should record cache statistics per template")
+	void shouldRecordStatistics() {
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.attribute("user", "John Doe")
+			.to("to@konfigyr.com")
+			.locale(Locale.ENGLISH)
+			.build();
+
+		final var renderer = new ThymeleafTemplateEngine(engine);
+
+		TemplateAssert.assertThat(renderer.render(mail))
+			.isHtml()
+			.contentsContain("<h1>Greetings John Doe,</h1>");
+
+		renderer.render(mail);
+		renderer.render(mail);
+
+		assertThat(cache.statistics("test-template"))
+			.returns(2L, ThymeleafTemplateCache.Statistics::hits)
+			.returns(1L, ThymeleafTemplateCache.Statistics::misses)
+			.returns(3L, ThymeleafTemplateCache.Statistics::lookups);
+
+		assertThat(cache.statistics("unknown-template"))
+			.returns(0L, ThymeleafTemplateCache.Statistics::lookups)
+			.returns(0.0, ThymeleafTemplateCache.Statistics::hitRatio);
+	}
+
+}
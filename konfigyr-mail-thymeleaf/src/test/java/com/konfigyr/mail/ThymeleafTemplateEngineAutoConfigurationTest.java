@@ -60,6 +60,49 @@ class ThymeleafTemplateEngineAutoConfigurationTest {
 			.hasBean("thymeleafMailTemplateEngine"));
 	}
 
+	@Test
+	@DisplayName("should register dedicated thymeleaf mail template engine with its own template cache")
+	void shouldAutoconfigureDedicatedEngine() {
+		final var runner = new ApplicationContextRunner()
+			.withPropertyValues("spring.mail.thymeleaf.dedicated=true", "spring.mail.thymeleaf.cache.max-size=10")
+			.withConfiguration(
+				AutoConfigurations.of(
+					ThymeleafAutoConfiguration.class,
+					ThymeleafTemplateEngineAutoConfiguration.class
+				)
+			);
+
+		runner.run(context -> {
+			assertThat(context).hasNotFailed()
+				.hasSingleBean(TemplateEngine.class)
+				.hasSingleBean(ThymeleafTemplateCache.class)
+				.hasBean("dedicatedThymeleafMailTemplateEngine")
+				.doesNotHaveBean("thymeleafMailTemplateEngine");
+
+			assertThat(context.getBean(ThymeleafTemplateCache.class).keySet())
+				.as("should warm up mail templates on startup")
+				.hasSize(3);
+		});
+	}
+
+	@Test
+	@DisplayName("should register dedicated thymeleaf mail template engine without warm-up")
+	void shouldAutoconfigureDedicatedEngineWithoutWarmUp() {
+		final var runner = new ApplicationContextRunner()
+			.withPropertyValues("spring.mail.thymeleaf.dedicated=true", "spring.mail.thymeleaf.warm-up=false")
+			.withConfiguration(
+				AutoConfigurations.of(
+					ThymeleafAutoConfiguration.class,
+					ThymeleafTemplateEngineAutoConfiguration.class
+				)
+			);
+
+		runner.run(context -> assertThat(context).hasNotFailed()
+			.hasSingleBean(TemplateEngine.class)
+			.getBean(ThymeleafTemplateCache.class)
+			.satisfies(cache -> assertThat(cache.keySet()).isEmpty()));
+	}
+
 	@Test
 	@DisplayName("should be registered before MailerAutoConfiguration so Mailer is wired with Thymeleaf template engine")
 	void shouldAutoconfigureBeforeMailerAutoConfiguration() {
@@ -10,9 +10,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.LazyContextVariable;
 import org.thymeleaf.exceptions.TemplateInputException;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,6 +28,9 @@ class ThymeleafTemplateEngineTest {
 	@Autowired
 	Mailer mailer;
 
+	@Autowired
+	ITemplateEngine thymeleaf;
+
 	@MockitoBean
 	Transport transport;
 
@@ -52,6 +59,40 @@ class ThymeleafTemplateEngineTest {
 			.contentsContain("<p>de</p>");
 	}
 
+	@Test
+	@DisplayName("should render template using the layered shared and mail attributes")
+	void shouldRenderTemplateWithSharedAttributes() {
+		final var shared = Map.<String, Object>of("user", "Jane Doe");
+
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.sharedAttributes(shared)
+			.attribute("user", "John Doe")
+			.to("to@konfigyr.com")
+			.locale(Locale.GERMAN)
+			.build();
+
+		final var other = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.sharedAttributes(shared)
+			.to("to@konfigyr.com")
+			.locale(Locale.GERMAN)
+			.build();
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+		assertThatNoException().isThrownBy(() -> mailer.send(other));
+
+		verify(transport, times(2)).send(any(), captor.capture());
+
+		assertThat(captor.getAllValues())
+			.satisfiesExactly(
+				template -> TemplateAssert.assertThat(template).contentsContain("<h1>Greetings John Doe,</h1>"),
+				template -> TemplateAssert.assertThat(template).contentsContain("<h1>Greetings Jane Doe,</h1>")
+			);
+	}
+
 	@Test
 	@DisplayName("should render template when mail has no attributes")
 	void shouldRenderTemplateWithoutAttributes() {
@@ -72,6 +113,95 @@ class ThymeleafTemplateEngineTest {
 			.contentsContain("<p>fr</p>");
 	}
 
+	@Test
+	@DisplayName("should send mail without text alternative when sibling text template does not exist")
+	void shouldRenderTemplateWithoutAlternative() {
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.to("to@konfigyr.com")
+			.build();
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+
+		verify(transport).send(eq(mail), captor.capture());
+
+		assertThat(captor.getValue().alternative())
+			.isNull();
+	}
+
+	@Test
+	@DisplayName("should send mail with text alternative rendered from the sibling text template")
+	void shouldRenderTextAlternativeFromTemplate() {
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("alternative-template")
+			.attribute("user", "John Doe")
+			.to("to@konfigyr.com")
+			.build();
+
+		assertThatNoException().isThrownBy(() -> mailer.send(mail));
+
+		verify(transport).send(eq(mail), captor.capture());
+
+		TemplateAssert.assertThat(captor.getValue())
+			.isHtml()
+			.contentsContain("<h1>Greetings John Doe,</h1>");
+
+		TemplateAssert.assertThat(captor.getValue().alternative())
+			.isText()
+			.hasContents("Greetings John Doe,\n\nThis is your Thymeleaf text template.\n");
+	}
+
+	@Test
+	@DisplayName("should resolve lazy attributes once when rendering HTML template and its text alternative")
+	void shouldShareContextWithTextAlternative() {
+		final var loads = new AtomicInteger();
+		final var engine = new ThymeleafTemplateEngine(thymeleaf, TemplateBuffer.DEFAULT_THRESHOLD,
+				ThymeleafTemplateEngine.TextAlternative.TEMPLATE);
+
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("alternative-template")
+			.attribute("user", new LazyContextVariable<String>() {
+				@Override
+				protected String loadValue() {
+					loads.incrementAndGet();
+					return "Jane Doe";
+				}
+			})
+			.to("to@konfigyr.com")
+			.build();
+
+		final var template = engine.render(mail);
+
+		TemplateAssert.assertThat(template.alternative())
+			.contentsContain("Greetings Jane Doe,");
+
+		assertThat(loads)
+			.as("lazy attribute should be loaded only once")
+			.hasValue(1);
+	}
+
+	@Test
+	@DisplayName("should derive text alternative from the rendered HTML template")
+	void shouldDeriveTextAlternative() {
+		final var engine = new ThymeleafTemplateEngine(thymeleaf, TemplateBuffer.DEFAULT_THRESHOLD,
+				ThymeleafTemplateEngine.TextAlternative.DERIVED);
+
+		final var mail = Mail.builder()
+			.subject("Test subject")
+			.template("test-template")
+			.attribute("user", "John Doe")
+			.to("to@konfigyr.com")
+			.locale(Locale.ENGLISH)
+			.build();
+
+		TemplateAssert.assertThat(engine.render(mail).alternative())
+			.isText()
+			.hasContents("Greetings John Doe,\n\nThis is your Thymeleaf test template.\n\nen");
+	}
+
 	@Test
 	@DisplayName("should fail to send mail for an unknown template")
 	void shouldFailToSendMailForUnknownTemplate() {